@@ -0,0 +1,109 @@
+package cpe.qg.engine.bench;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.bench.support.SyntheticMessages;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.handlers.AssignmentMessageCodec;
+import cpe.qg.engine.messaging.WireFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the message codec path in each {@link WireFormat}: {@link EventPayloadParser#parse} of
+ * the delivery body, request decoding ({@code treeToValue}), and proposal encoding and parsing. The
+ * setup prints the size of the request and of the proposal in the format.
+ *
+ * <p>Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the number of bytes allocated per
+ * message.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageCodecBenchmark {
+
+  @Param({"4", "64", "512"})
+  int vehiclesNeeded;
+
+  @Param({"50", "2000"})
+  int routePoints;
+
+  @Param({"10"})
+  int proposals;
+
+  @Param({"JSON", "CBOR", "SMILE"})
+  WireFormat format;
+
+  private final EventPayloadParser parser = new EventPayloadParser();
+  private final AssignmentMessageCodec codec = new AssignmentMessageCodec();
+  private final UUID proposalId = UUID.randomUUID();
+  private final UUID incidentId = UUID.randomUUID();
+
+  private byte[] requestBytes;
+  private EventMessage requestMessage;
+  private DecisionResult decision;
+  private byte[] proposalBytes;
+
+  @Setup
+  public void setUp() throws IOException {
+    String requestPayload = SyntheticMessages.assignmentRequest(vehiclesNeeded, 7L);
+    requestBytes =
+        format.newMapper().writeValueAsBytes(new ObjectMapper().readTree(requestPayload));
+    requestMessage = parser.parse(requestBytes, format);
+    decision = SyntheticMessages.decision(proposals, routePoints, 11L);
+    proposalBytes = codec.encodeProposal(proposalId, incidentId, decision, format);
+    System.out.printf(
+        "%n%s: request %d bytes (JSON %d), proposal %d bytes (JSON %d)%n",
+        format,
+        requestBytes.length,
+        requestPayload.getBytes(StandardCharsets.UTF_8).length,
+        proposalBytes.length,
+        codec.encodeProposal(proposalId, incidentId, decision, WireFormat.JSON).length);
+  }
+
+  @Benchmark
+  public EventMessage parseEnvelope() {
+    return parser.parse(requestBytes, format);
+  }
+
+  @Benchmark
+  public AssignmentRequest decodeRequest() {
+    return codec.decodeRequest(requestMessage);
+  }
+
+  /** Whole inbound path, from the delivery body to the decoded request. */
+  @Benchmark
+  public AssignmentRequest inbound() {
+    return codec.decodeRequest(parser.parse(requestBytes, format));
+  }
+
+  @Benchmark
+  public byte[] encodeProposal() throws JsonProcessingException {
+    return codec.encodeProposal(proposalId, incidentId, decision, format);
+  }
+
+  /** What the SDMIS API does with a proposal: parse it back into a tree. */
+  @Benchmark
+  public EventMessage parseProposal() {
+    return parser.parse(proposalBytes, format);
+  }
+}
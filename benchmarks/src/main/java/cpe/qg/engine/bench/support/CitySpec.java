@@ -0,0 +1,58 @@
+package cpe.qg.engine.bench.support;
+
+import java.util.Objects;
+
+/**
+ * Shape of a synthetic city: the fleet, how many stations it is based at, how incidents cluster
+ * around hot-spots and how often they arrive.
+ *
+ * @param hotspotShare fraction of the incidents drawn around a hot-spot, the rest anywhere in the
+ *     fleet area
+ * @param hotspotRadiusKm standard deviation of the incident distance to its hot-spot
+ * @param movingShare fraction of the available vehicles away from their station
+ * @param busyShare fraction of the vehicles already assigned to an incident
+ */
+public record CitySpec(
+    FleetSpec fleet,
+    int stations,
+    int hotspots,
+    double hotspotShare,
+    double hotspotRadiusKm,
+    double movingShare,
+    double busyShare,
+    double incidentsPerMinute) {
+
+  public CitySpec {
+    Objects.requireNonNull(fleet, "Fleet spec is required");
+    if (stations <= 0) {
+      throw new IllegalArgumentException("stations must be positive");
+    }
+    if (hotspots < 0) {
+      throw new IllegalArgumentException("hotspots must be zero or positive");
+    }
+    requireShare(hotspotShare, "hotspotShare");
+    requireShare(movingShare, "movingShare");
+    requireShare(busyShare, "busyShare");
+    if (hotspotRadiusKm <= 0.0) {
+      throw new IllegalArgumentException("hotspotRadiusKm must be positive");
+    }
+    if (incidentsPerMinute <= 0.0) {
+      throw new IllegalArgumentException("incidentsPerMinute must be positive");
+    }
+  }
+
+  /**
+   * City around the fleet with one station per 25 vehicles, six hot-spots drawing 60% of the
+   * incidents, 15% of the vehicles moving and 10% busy.
+   */
+  public static CitySpec around(FleetSpec fleet, double incidentsPerMinute) {
+    return new CitySpec(
+        fleet, Math.max(1, fleet.size() / 25), 6, 0.6, 1.5, 0.15, 0.10, incidentsPerMinute);
+  }
+
+  private static void requireShare(double share, String name) {
+    if (share < 0.0 || share > 1.0) {
+      throw new IllegalArgumentException(name + " must be between 0 and 1");
+    }
+  }
+}
@@ -0,0 +1,38 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Shape of a synthetic fleet: how many vehicles, how they split across vehicle types and how far
+ * they spread around a centre point.
+ *
+ * @param typeWeights relative share of each vehicle type, one entry per type
+ */
+public record FleetSpec(
+    int size, double[] typeWeights, GeoPoint center, double spreadKm, long seed) {
+
+  public static final GeoPoint LYON = new GeoPoint(45.764, 4.8357);
+
+  public FleetSpec {
+    if (size < 0) {
+      throw new IllegalArgumentException("size must be zero or positive");
+    }
+    Objects.requireNonNull(typeWeights, "Type weights are required");
+    if (typeWeights.length == 0) {
+      throw new IllegalArgumentException("At least one vehicle type is required");
+    }
+    Objects.requireNonNull(center, "Centre point is required");
+    if (spreadKm <= 0.0) {
+      throw new IllegalArgumentException("spreadKm must be positive");
+    }
+  }
+
+  /** Fleet of {@code types} equally weighted types spread over {@code spreadKm} around Lyon. */
+  public static FleetSpec uniform(int size, int types, double spreadKm, long seed) {
+    double[] weights = new double[types];
+    Arrays.fill(weights, 1.0);
+    return new FleetSpec(size, weights, LYON, spreadKm, seed);
+  }
+}
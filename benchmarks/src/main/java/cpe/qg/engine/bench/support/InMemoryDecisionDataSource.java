@@ -0,0 +1,90 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.impl.GeoDistance;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSnapshot;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Decision data source answering from memory: a fixed fleet, incidents at the same location or
+ * looked up by id, and straight-line travel estimates at a constant average speed.
+ */
+public final class InMemoryDecisionDataSource implements DecisionDataSource {
+
+  private static final double DEFAULT_SPEED_KMH = 50.0;
+
+  private final List<QGVehicleRead> vehicles;
+  private final Function<UUID, GeoPoint> incidentLocations;
+  private final double averageSpeedKmh;
+
+  public InMemoryDecisionDataSource(List<QGVehicleRead> vehicles, GeoPoint incidentLocation) {
+    this(vehicles, incidentLocation, DEFAULT_SPEED_KMH);
+  }
+
+  public InMemoryDecisionDataSource(
+      List<QGVehicleRead> vehicles, GeoPoint incidentLocation, double averageSpeedKmh) {
+    this(
+        vehicles,
+        constant(Objects.requireNonNull(incidentLocation, "Incident location is required")),
+        averageSpeedKmh);
+  }
+
+  public InMemoryDecisionDataSource(
+      List<QGVehicleRead> vehicles, Function<UUID, GeoPoint> incidentLocations) {
+    this(vehicles, incidentLocations, DEFAULT_SPEED_KMH);
+  }
+
+  public InMemoryDecisionDataSource(
+      List<QGVehicleRead> vehicles,
+      Function<UUID, GeoPoint> incidentLocations,
+      double averageSpeedKmh) {
+    this.vehicles = List.copyOf(Objects.requireNonNull(vehicles, "Vehicles are required"));
+    this.incidentLocations =
+        Objects.requireNonNull(incidentLocations, "Incident locations are required");
+    this.averageSpeedKmh = averageSpeedKmh;
+  }
+
+  @Override
+  public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+    GeoPoint incidentLocation = incidentLocations.apply(incidentId);
+    return new QGIncidentSituationRead(
+        new QGIncidentSnapshot(
+            incidentId,
+            incidentLocation.latitude(),
+            incidentLocation.longitude(),
+            null,
+            null,
+            null,
+            null),
+        List.of());
+  }
+
+  @Override
+  public List<QGVehicleRead> listVehicles() {
+    return vehicles;
+  }
+
+  @Override
+  public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+    double distanceKm = GeoDistance.haversineKm(from, to);
+    RouteGeometry geometry =
+        new RouteGeometry(
+            "LineString",
+            List.of(
+                List.of(from.longitude(), from.latitude()),
+                List.of(to.longitude(), to.latitude())));
+    return new TravelEstimate(distanceKm, distanceKm / averageSpeedKmh * 60.0, geometry);
+  }
+
+  private static Function<UUID, GeoPoint> constant(GeoPoint location) {
+    return ignored -> location;
+  }
+}
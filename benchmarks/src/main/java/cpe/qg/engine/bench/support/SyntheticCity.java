@@ -0,0 +1,153 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.sdmis.dto.QGActiveAssignmentRead;
+import cpe.qg.engine.sdmis.dto.QGBaseInterestPointRead;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Deterministic city generated from a {@link CitySpec}: stations denser towards the centre, a fleet
+ * based at them and incident hot-spots.
+ *
+ * <p>Vehicles get a type from the fleet weights and an energy level skewed towards full. A share of
+ * them is away from its station, some of those already assigned to an incident. {@link
+ * #incidents(long)} draws an unbounded stream of incidents with Poisson arrivals, located around
+ * the hot-spots (weighted 1, 1/2, 1/3...) or anywhere in the fleet area. Generation is linear in
+ * the fleet size and the stream is lazy, so 100k vehicles and thousands of incidents per minute are
+ * cheap to produce.
+ */
+public record SyntheticCity(
+    CitySpec spec,
+    List<QGBaseInterestPointRead> stations,
+    List<GeoPoint> hotspots,
+    SyntheticFleet fleet) {
+
+  private static final double MOVING_RADIUS_KM = 4.0;
+
+  public static SyntheticCity generate(CitySpec spec) {
+    FleetSpec fleetSpec = spec.fleet();
+    Random random = new Random(fleetSpec.seed());
+    List<QGVehicleTypeRef> types = new ArrayList<>();
+    for (int i = 0; i < fleetSpec.typeWeights().length; i++) {
+      types.add(
+          new QGVehicleTypeRef(SyntheticFleet.uuid(random), "TYPE-" + i, "Synthetic type " + i));
+    }
+    double[] cumulative = SyntheticFleet.cumulativeWeights(fleetSpec.typeWeights());
+
+    List<QGBaseInterestPointRead> stations = new ArrayList<>(spec.stations());
+    for (int i = 0; i < spec.stations(); i++) {
+      GeoPoint location =
+          SyntheticFleet.offset(
+              fleetSpec.center(),
+              fleetSpec.spreadKm() * random.nextDouble(),
+              random.nextDouble() * 2 * Math.PI);
+      stations.add(
+          new QGBaseInterestPointRead(
+              SyntheticFleet.uuid(random),
+              "Station %04d".formatted(i),
+              null,
+              null,
+              null,
+              location.latitude(),
+              location.longitude()));
+    }
+    List<GeoPoint> hotspots = new ArrayList<>(spec.hotspots());
+    for (int i = 0; i < spec.hotspots(); i++) {
+      hotspots.add(
+          SyntheticFleet.randomPoint(random, fleetSpec.center(), fleetSpec.spreadKm() * 0.6));
+    }
+
+    List<QGVehicleRead> vehicles = new ArrayList<>(fleetSpec.size());
+    for (int i = 0; i < fleetSpec.size(); i++) {
+      QGBaseInterestPointRead station = stations.get(random.nextInt(stations.size()));
+      boolean busy = random.nextDouble() < spec.busyShare();
+      boolean moving = busy || random.nextDouble() < spec.movingShare();
+      QGVehiclePositionRead current = null;
+      if (moving) {
+        GeoPoint position =
+            SyntheticFleet.randomPoint(
+                random, new GeoPoint(station.latitude(), station.longitude()), MOVING_RADIUS_KM);
+        current = new QGVehiclePositionRead(position.latitude(), position.longitude(), null);
+      }
+      QGActiveAssignmentRead assignment =
+          busy
+              ? new QGActiveAssignmentRead(
+                  SyntheticFleet.uuid(random), SyntheticFleet.uuid(random), null, null)
+              : null;
+      double energyLevel = 1.0 - 0.7 * Math.pow(random.nextDouble(), 3);
+      vehicles.add(
+          new QGVehicleRead(
+              SyntheticFleet.uuid(random),
+              "SYN-%06d".formatted(i),
+              types.get(SyntheticFleet.pick(random, cumulative)),
+              null,
+              energyLevel,
+              null,
+              station,
+              current,
+              List.of(),
+              false,
+              assignment));
+    }
+    return new SyntheticCity(
+        spec,
+        List.copyOf(stations),
+        List.copyOf(hotspots),
+        new SyntheticFleet(List.copyOf(vehicles), List.copyOf(types)));
+  }
+
+  /** Unbounded, deterministic stream of incidents at the spec arrival rate. */
+  public Stream<SyntheticIncident> incidents(long seed) {
+    Random random = new Random(seed);
+    double[] cumulative = hotspotWeights();
+    double meanGapNanos = 60e9 / spec.incidentsPerMinute();
+    long[] clock = {0L};
+    return Stream.generate(
+        () -> {
+          clock[0] += (long) (-Math.log(1.0 - random.nextDouble()) * meanGapNanos);
+          UUID incidentId = SyntheticFleet.uuid(random);
+          if (hotspots.isEmpty() || random.nextDouble() >= spec.hotspotShare()) {
+            GeoPoint location =
+                SyntheticFleet.randomPoint(
+                    random, spec.fleet().center(), spec.fleet().spreadKm() * 0.8);
+            return new SyntheticIncident(incidentId, location, clock[0], -1);
+          }
+          int hotspot = SyntheticFleet.pick(random, cumulative);
+          double northKm = random.nextGaussian() * spec.hotspotRadiusKm();
+          double eastKm = random.nextGaussian() * spec.hotspotRadiusKm();
+          GeoPoint location =
+              SyntheticFleet.offset(
+                  hotspots.get(hotspot), Math.hypot(northKm, eastKm), Math.atan2(eastKm, northKm));
+          return new SyntheticIncident(incidentId, location, clock[0], hotspot);
+        });
+  }
+
+  /** Data source serving this fleet, with each known incident at its own location. */
+  public InMemoryDecisionDataSource dataSource(Collection<SyntheticIncident> incidents) {
+    Map<UUID, GeoPoint> locations = new HashMap<>();
+    for (SyntheticIncident incident : incidents) {
+      locations.put(incident.incidentId(), incident.location());
+    }
+    GeoPoint center = spec.fleet().center();
+    return new InMemoryDecisionDataSource(
+        fleet.vehicles(), incidentId -> locations.getOrDefault(incidentId, center));
+  }
+
+  private double[] hotspotWeights() {
+    double[] weights = new double[hotspots.size()];
+    for (int i = 0; i < weights.length; i++) {
+      weights[i] = 1.0 / (i + 1);
+    }
+    return weights.length == 0 ? weights : SyntheticFleet.cumulativeWeights(weights);
+  }
+}
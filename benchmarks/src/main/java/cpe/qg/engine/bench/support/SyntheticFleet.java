@@ -0,0 +1,103 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.sdmis.dto.QGBaseInterestPointRead;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/** Deterministic fleet of {@link QGVehicleRead} generated from a {@link FleetSpec}. */
+public record SyntheticFleet(List<QGVehicleRead> vehicles, List<QGVehicleTypeRef> types) {
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  public static SyntheticFleet generate(FleetSpec spec) {
+    Random random = new Random(spec.seed());
+    List<QGVehicleTypeRef> types = new ArrayList<>();
+    for (int i = 0; i < spec.typeWeights().length; i++) {
+      types.add(new QGVehicleTypeRef(uuid(random), "TYPE-" + i, "Synthetic type " + i));
+    }
+    double[] cumulative = cumulativeWeights(spec.typeWeights());
+
+    List<QGVehicleRead> vehicles = new ArrayList<>(spec.size());
+    for (int i = 0; i < spec.size(); i++) {
+      GeoPoint position = randomPoint(random, spec.center(), spec.spreadKm());
+      QGBaseInterestPointRead base =
+          new QGBaseInterestPointRead(
+              uuid(random),
+              "Station " + (i % 64),
+              null,
+              null,
+              null,
+              position.latitude(),
+              position.longitude());
+      QGVehiclePositionRead current =
+          random.nextInt(4) == 0
+              ? new QGVehiclePositionRead(position.latitude(), position.longitude(), null)
+              : null;
+      vehicles.add(
+          new QGVehicleRead(
+              uuid(random),
+              "SYN-%06d".formatted(i),
+              types.get(pick(random, cumulative)),
+              null,
+              random.nextDouble(),
+              null,
+              base,
+              current,
+              List.of(),
+              false,
+              null));
+    }
+    return new SyntheticFleet(List.copyOf(vehicles), List.copyOf(types));
+  }
+
+  /** Uniformly distributed point in a disc of {@code radiusKm} around {@code center}. */
+  public static GeoPoint randomPoint(Random random, GeoPoint center, double radiusKm) {
+    double distanceKm = radiusKm * Math.sqrt(random.nextDouble());
+    return offset(center, distanceKm, random.nextDouble() * 2 * Math.PI);
+  }
+
+  /**
+   * Point {@code distanceKm} away from {@code origin} along {@code bearing} (radians from north).
+   */
+  static GeoPoint offset(GeoPoint origin, double distanceKm, double bearing) {
+    double dLat = distanceKm * Math.cos(bearing) / KM_PER_DEGREE;
+    double dLon =
+        distanceKm
+            * Math.sin(bearing)
+            / (KM_PER_DEGREE * Math.cos(Math.toRadians(origin.latitude())));
+    return new GeoPoint(origin.latitude() + dLat, origin.longitude() + dLon);
+  }
+
+  static double[] cumulativeWeights(double[] weights) {
+    double[] cumulative = new double[weights.length];
+    double total = 0.0;
+    for (int i = 0; i < weights.length; i++) {
+      total += Math.max(0.0, weights[i]);
+      cumulative[i] = total;
+    }
+    for (int i = 0; i < cumulative.length; i++) {
+      cumulative[i] /= total;
+    }
+    return cumulative;
+  }
+
+  static int pick(Random random, double[] cumulative) {
+    double draw = random.nextDouble();
+    for (int i = 0; i < cumulative.length; i++) {
+      if (draw < cumulative[i]) {
+        return i;
+      }
+    }
+    return cumulative.length - 1;
+  }
+
+  static UUID uuid(Random random) {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+}
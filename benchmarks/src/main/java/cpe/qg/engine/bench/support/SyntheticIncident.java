@@ -0,0 +1,12 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+import java.util.UUID;
+
+/**
+ * Incident of a synthetic stream, arriving {@code offsetNanos} after the start of the stream.
+ *
+ * @param hotspot index of the hot-spot it was drawn around, {@code -1} for background incidents
+ */
+public record SyntheticIncident(
+    UUID incidentId, GeoPoint location, long offsetNanos, int hotspot) {}
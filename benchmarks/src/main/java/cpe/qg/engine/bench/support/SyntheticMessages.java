@@ -0,0 +1,91 @@
+package cpe.qg.engine.bench.support;
+
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.events.Events;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/** Realistic assignment request payloads and decision results for codec benchmarks. */
+public final class SyntheticMessages {
+
+  private SyntheticMessages() {}
+
+  /**
+   * Builds an {@code assignment_request} envelope with {@code needs} vehicle needs spread over a
+   * handful of phases.
+   */
+  public static String assignmentRequest(int needs, long seed) {
+    Random random = new Random(seed);
+    UUID[] phases = new UUID[Math.max(1, needs / 4)];
+    for (int i = 0; i < phases.length; i++) {
+      phases[i] = uuid(random);
+    }
+    StringBuilder json = new StringBuilder(128 + needs * 160);
+    json.append("{\"event\":\"")
+        .append(Events.ASSIGNMENT_REQUEST.key())
+        .append("\",\"payload\":{\"incident_id\":\"")
+        .append(uuid(random))
+        .append("\",\"requested_at\":\"2025-01-15T14:03:12.512Z\",\"vehicles_needed\":[");
+    for (int i = 0; i < needs; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"incident_phase_id\":\"")
+          .append(phases[i % phases.length])
+          .append("\",\"vehicle_type_id\":\"")
+          .append(uuid(random))
+          .append("\",\"quantity\":")
+          .append(1 + random.nextInt(4))
+          .append('}');
+    }
+    json.append("]}}");
+    return json.toString();
+  }
+
+  /**
+   * Builds a decision with {@code proposals} vehicles, each carrying a route geometry of {@code
+   * routePoints} coordinates.
+   */
+  public static DecisionResult decision(int proposals, int routePoints, long seed) {
+    Random random = new Random(seed);
+    UUID phase = uuid(random);
+    List<VehicleAssignmentProposal> items = new ArrayList<>(proposals);
+    for (int i = 0; i < proposals; i++) {
+      double distanceKm = 1.0 + random.nextDouble() * 20.0;
+      items.add(
+          new VehicleAssignmentProposal(
+              phase,
+              uuid(random),
+              distanceKm,
+              distanceKm / 50.0 * 60.0,
+              route(random, routePoints),
+              random.nextDouble(),
+              random.nextDouble(),
+              i + 1,
+              false));
+    }
+    List<MissingVehicle> missing = List.of(new MissingVehicle(phase, uuid(random), 1));
+    return new DecisionResult(items, missing);
+  }
+
+  private static RouteGeometry route(Random random, int points) {
+    List<List<Double>> coordinates = new ArrayList<>(points);
+    double longitude = 4.8357;
+    double latitude = 45.764;
+    for (int i = 0; i < points; i++) {
+      longitude += (random.nextDouble() - 0.5) * 0.002;
+      latitude += (random.nextDouble() - 0.5) * 0.002;
+      coordinates.add(List.of(longitude, latitude));
+    }
+    return new RouteGeometry("LineString", coordinates);
+  }
+
+  private static UUID uuid(Random random) {
+    return new UUID(random.nextLong(), random.nextLong());
+  }
+}
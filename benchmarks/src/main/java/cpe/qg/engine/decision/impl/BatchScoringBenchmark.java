@@ -0,0 +1,134 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares per-object scoring and haversine (boxed {@code Double} arguments, one {@code
+ * ScoredCandidate} per vehicle) with the struct-of-arrays batch kernels, scalar and Vector API.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g", "--add-modules=jdk.incubator.vector"})
+public class BatchScoringBenchmark {
+
+  @Param({"10000", "100000"})
+  int candidates;
+
+  private List<QGVehicleRead> vehicles;
+  private CandidateBatch batch;
+  private Double[] boxedDistances;
+  private Double[] boxedEtas;
+  private DistanceEnergyScoringStrategy perObject;
+  private DistanceEnergyScoringStrategy scalar;
+  private DistanceEnergyScoringStrategy vector;
+  private BatchKernel scalarKernel;
+  private BatchKernel vectorKernel;
+  private double[] haversineOut;
+
+  @Setup
+  public void setUp() {
+    vehicles = SyntheticFleet.generate(FleetSpec.uniform(candidates, 6, 25, 42L)).vehicles();
+    batch = new CandidateBatch(candidates);
+    boxedDistances = new Double[candidates];
+    boxedEtas = new Double[candidates];
+    for (QGVehicleRead vehicle : vehicles) {
+      int i =
+          batch.add(
+              vehicle,
+              vehicle.baseInterestPoint().latitude(),
+              vehicle.baseInterestPoint().longitude());
+      double distanceKm =
+          GeoDistance.haversineKm(
+              FleetSpec.LYON.latitude(),
+              FleetSpec.LYON.longitude(),
+              batch.latitudes()[i],
+              batch.longitudes()[i]);
+      batch.distancesKm()[i] = distanceKm;
+      batch.etaMinutes()[i] = distanceKm / 40.0 * 60.0;
+      boxedDistances[i] = distanceKm;
+      boxedEtas[i] = batch.etaMinutes()[i];
+    }
+    scalarKernel = new ScalarBatchKernel();
+    vectorKernel = new VectorBatchKernel();
+    perObject = new DistanceEnergyScoringStrategy(scalarKernel);
+    scalar = new DistanceEnergyScoringStrategy(scalarKernel);
+    vector = new DistanceEnergyScoringStrategy(vectorKernel);
+    haversineOut = new double[candidates];
+  }
+
+  @Benchmark
+  public void scorePerObject(Blackhole blackhole) {
+    for (int i = 0; i < candidates; i++) {
+      blackhole.consume(perObject.score(vehicles.get(i), boxedDistances[i], boxedEtas[i]));
+    }
+  }
+
+  @Benchmark
+  public double[] scoreBatchScalar() {
+    scalar.scoreAll(batch);
+    return batch.scores();
+  }
+
+  @Benchmark
+  public double[] scoreBatchVector() {
+    vector.scoreAll(batch);
+    return batch.scores();
+  }
+
+  @Benchmark
+  public void haversinePerObject(Blackhole blackhole) {
+    double latitude = FleetSpec.LYON.latitude();
+    double longitude = FleetSpec.LYON.longitude();
+    for (int i = 0; i < candidates; i++) {
+      blackhole.consume(
+          GeoDistance.haversineKm(
+              latitude, longitude, batch.latitudes()[i], batch.longitudes()[i]));
+    }
+  }
+
+  @Benchmark
+  public double[] haversineBatchScalar() {
+    scalarKernel.haversineKm(
+        FleetSpec.LYON.latitude(),
+        FleetSpec.LYON.longitude(),
+        batch.latitudes(),
+        batch.longitudes(),
+        haversineOut,
+        candidates);
+    return haversineOut;
+  }
+
+  @Benchmark
+  public double[] haversineBatchVector() {
+    vectorKernel.haversineKm(
+        FleetSpec.LYON.latitude(),
+        FleetSpec.LYON.longitude(),
+        batch.latitudes(),
+        batch.longitudes(),
+        haversineOut,
+        candidates);
+    return haversineOut;
+  }
+}
@@ -0,0 +1,162 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine.VehicleCandidate;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares, from a scored batch to the selected vehicles of a three-type request, the former object
+ * pool (a {@code VehicleCandidate} with boxed values per candidate, every type list fully sorted, a
+ * {@code HashSet} of allocated ids) with {@link CandidatePool}.
+ *
+ * <p>Run with {@code -prof gc}: {@code gc.alloc.rate.norm} is the allocation per decision.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CandidatePoolBenchmark {
+
+  private static final int REQUESTED_TYPES = 3;
+  private static final int QUANTITY_PER_TYPE = 3;
+
+  @Param({"10000", "100000"})
+  int candidates;
+
+  private CandidateBatch batch;
+  private UUID[] typeIds;
+  private Set<UUID> requiredTypes;
+  private List<UUID> needs;
+
+  @Setup
+  public void setUp() {
+    SyntheticFleet fleet = SyntheticFleet.generate(FleetSpec.uniform(candidates, 6, 25, 42L));
+    batch = new CandidateBatch(candidates);
+    typeIds = new UUID[candidates];
+    for (QGVehicleRead vehicle : fleet.vehicles()) {
+      int row =
+          batch.add(
+              vehicle,
+              vehicle.baseInterestPoint().latitude(),
+              vehicle.baseInterestPoint().longitude());
+      typeIds[row] = vehicle.vehicleType().vehicleTypeId();
+    }
+    new ScalarBatchKernel()
+        .haversineKm(
+            FleetSpec.LYON.latitude(),
+            FleetSpec.LYON.longitude(),
+            batch.latitudes(),
+            batch.longitudes(),
+            batch.distancesKm(),
+            batch.size());
+    for (int i = 0; i < batch.size(); i++) {
+      batch.etaMinutes()[i] = batch.distancesKm()[i] / 40.0 * 60.0;
+    }
+    new DistanceEnergyScoringStrategy().scoreAll(batch);
+    requiredTypes = new HashSet<>();
+    needs = new ArrayList<>();
+    for (QGVehicleTypeRef type : fleet.types().subList(0, REQUESTED_TYPES)) {
+      requiredTypes.add(type.vehicleTypeId());
+      needs.add(type.vehicleTypeId());
+    }
+  }
+
+  @Benchmark
+  public List<VehicleCandidate> objectPool() {
+    Map<UUID, List<VehicleCandidate>> pool = new HashMap<>();
+    for (int i = 0; i < batch.size(); i++) {
+      if (!requiredTypes.contains(typeIds[i])) {
+        continue;
+      }
+      QGVehicleRead vehicle = batch.vehicle(i);
+      pool.computeIfAbsent(typeIds[i], ignored -> new ArrayList<>())
+          .add(
+              new VehicleCandidate(
+                  vehicle,
+                  new GeoPoint(
+                      vehicle.baseInterestPoint().latitude(),
+                      vehicle.baseInterestPoint().longitude()),
+                  CandidateBatch.boxed(batch.distancesKm()[i]),
+                  CandidateBatch.boxed(batch.etaMinutes()[i]),
+                  null,
+                  batch.scores()[i],
+                  true));
+    }
+    Comparator<VehicleCandidate> comparator =
+        Comparator.comparingDouble(VehicleCandidate::score)
+            .reversed()
+            .thenComparing(
+                candidate ->
+                    candidate.estimatedTimeMin() == null
+                        ? Double.MAX_VALUE
+                        : candidate.estimatedTimeMin())
+            .thenComparing(
+                candidate ->
+                    candidate.distanceKm() == null ? Double.MAX_VALUE : candidate.distanceKm());
+    for (List<VehicleCandidate> candidates : pool.values()) {
+      candidates.sort(comparator);
+    }
+    Set<UUID> allocated = new HashSet<>();
+    List<VehicleCandidate> selected = new ArrayList<>();
+    for (UUID type : needs) {
+      int count = 0;
+      for (VehicleCandidate candidate : pool.getOrDefault(type, List.of())) {
+        if (count == QUANTITY_PER_TYPE) {
+          break;
+        }
+        if (allocated.add(candidate.vehicle().vehicleId())) {
+          selected.add(candidate);
+          count++;
+        }
+      }
+    }
+    return selected;
+  }
+
+  @Benchmark
+  public List<VehicleCandidate> candidatePool() {
+    Map<UUID, Integer> typeIndexes = CandidatePool.intern(requiredTypes);
+    int[] rowTypes = new int[batch.size()];
+    for (int i = 0; i < batch.size(); i++) {
+      Integer type = typeIndexes.get(typeIds[i]);
+      rowTypes[i] = type == null ? -1 : type;
+    }
+    BitSet approximate = new BitSet();
+    approximate.set(0, batch.size());
+    CandidatePool pool = new CandidatePool(batch, typeIndexes, rowTypes, null, approximate);
+    List<VehicleCandidate> selected = new ArrayList<>();
+    for (UUID type : needs) {
+      pool.select(type, QUANTITY_PER_TYPE, selected);
+    }
+    return selected;
+  }
+}
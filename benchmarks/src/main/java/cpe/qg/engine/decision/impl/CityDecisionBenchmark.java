@@ -0,0 +1,87 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.bench.support.CitySpec;
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.SyntheticCity;
+import cpe.qg.engine.bench.support.SyntheticIncident;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link VehicleAssignmentDecisionEngine} on a {@link SyntheticCity}: a station-based
+ * fleet with moving and busy vehicles, and requests cycling over incidents drawn around hot-spots,
+ * so each decision sees a different neighbourhood instead of the fleet centre.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CityDecisionBenchmark {
+
+  private static final int INCIDENTS = 1024;
+
+  @Param({"10000", "100000"})
+  int fleetSize;
+
+  @Param({"25"})
+  double spreadKm;
+
+  private VehicleAssignmentDecisionEngine engine;
+  private List<AssignmentRequest> requests;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    SyntheticCity city =
+        SyntheticCity.generate(
+            CitySpec.around(
+                new FleetSpec(
+                    fleetSize, new double[] {5, 3, 2, 1, 1, 0.5}, FleetSpec.LYON, spreadKm, 42L),
+                1000));
+    List<SyntheticIncident> incidents = city.incidents(7L).limit(INCIDENTS).toList();
+    engine =
+        VehicleAssignmentDecisionEngine.builder(
+                city.dataSource(incidents), new DistanceEnergyScoringStrategy())
+            .build();
+
+    List<QGVehicleTypeRef> types = city.fleet().types();
+    UUID phase = UUID.randomUUID();
+    requests = new ArrayList<>(INCIDENTS);
+    for (SyntheticIncident incident : incidents) {
+      requests.add(
+          new AssignmentRequest(
+              incident.incidentId(),
+              List.of(
+                  new VehicleNeed(phase, types.get(0).vehicleTypeId(), 2),
+                  new VehicleNeed(phase, types.get(1).vehicleTypeId(), 1))));
+    }
+  }
+
+  @Benchmark
+  public DecisionResult proposeAssignments() {
+    AssignmentRequest request = requests.get(next);
+    next = (next + 1) % requests.size();
+    return engine.proposeAssignments(request);
+  }
+}
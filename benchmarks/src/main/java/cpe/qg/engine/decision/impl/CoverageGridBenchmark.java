@@ -0,0 +1,103 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.decision.model.CoverageConfig;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of keeping a 100k-cell coverage grid in line with the fleet: a single vehicle leaving and
+ * coming back, a snapshot where nothing changed, and a snapshot where {@code moved} vehicles
+ * changed cell. Also the per-candidate departure loss read by the scoring strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class CoverageGridBenchmark {
+
+  @Param({"10000"})
+  int vehicles;
+
+  @Param({"1", "100"})
+  int moved;
+
+  private CoverageGrid grid;
+  private List<QGVehicleRead> fleet;
+  private List<QGVehicleRead> shifted;
+  private boolean onShifted;
+  private QGVehicleRead probe;
+
+  @Setup
+  public void setUp() {
+    fleet = SyntheticFleet.generate(FleetSpec.uniform(vehicles, 6, 40, 42L)).vehicles();
+    shifted = new ArrayList<>(fleet);
+    for (int i = 0; i < moved; i++) {
+      QGVehicleRead vehicle = fleet.get(i);
+      double latitude = vehicle.baseInterestPoint().latitude() + 0.02;
+      double longitude = vehicle.baseInterestPoint().longitude() + 0.02;
+      shifted.set(
+          i,
+          new QGVehicleRead(
+              vehicle.vehicleId(),
+              vehicle.immatriculation(),
+              vehicle.vehicleType(),
+              vehicle.energy(),
+              vehicle.energyLevel(),
+              vehicle.status(),
+              vehicle.baseInterestPoint(),
+              new QGVehiclePositionRead(latitude, longitude, null),
+              vehicle.consumableStocks(),
+              vehicle.referencedInPendingProposal(),
+              vehicle.activeAssignment()));
+    }
+    grid = new CoverageGrid(new CoverageConfig(true, 0.1, 10.0, 1, 0.5, 100_000), 40.0);
+    grid.sync(fleet, vehicle -> true);
+    probe = fleet.get(fleet.size() - 1);
+  }
+
+  @Benchmark
+  public int departAndReturn() {
+    grid.depart(Set.of(probe.vehicleId()));
+    grid.sync(fleet, vehicle -> true);
+    return grid.trackedVehicles();
+  }
+
+  @Benchmark
+  public int syncUnchanged() {
+    grid.sync(onShifted ? shifted : fleet, vehicle -> true);
+    return grid.trackedVehicles();
+  }
+
+  @Benchmark
+  public int syncMoved() {
+    onShifted = !onShifted;
+    grid.sync(onShifted ? shifted : fleet, vehicle -> true);
+    return grid.trackedVehicles();
+  }
+
+  @Benchmark
+  public double departureLoss() {
+    return grid.departureLoss(probe.vehicleId());
+  }
+}
@@ -0,0 +1,160 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.InMemoryDecisionDataSource;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine.VehicleCandidate;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link VehicleAssignmentDecisionEngine} end to end and stage by stage on synthetic
+ * fleets, with and without routing. Lives in the engine package to reach the package-private
+ * stages.
+ *
+ * <p>Run with {@code -prof gc} to get the allocation rate per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(
+    value = 1,
+    jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class DecisionEngineBenchmark {
+
+  private static final int REQUESTED_TYPES = 3;
+  private static final int QUANTITY_PER_TYPE = 3;
+
+  @Param({"100", "1000", "10000", "100000"})
+  int fleetSize;
+
+  @Param({"6"})
+  int vehicleTypes;
+
+  @Param({"25"})
+  double spreadKm;
+
+  private VehicleAssignmentDecisionEngine engine;
+  private DistanceEnergyScoringStrategy scoringStrategy;
+  private AssignmentRequest request;
+  private AssignmentRequest fastRequest;
+  private List<QGVehicleRead> vehicles;
+  private Set<UUID> requiredTypes;
+  private GeoPoint incidentLocation;
+  private CandidatePool candidates;
+  private Double[] distances;
+  private Double[] travelTimes;
+  private double[] latitudes;
+  private double[] longitudes;
+
+  @Setup
+  public void setUp() {
+    SyntheticFleet fleet =
+        SyntheticFleet.generate(FleetSpec.uniform(fleetSize, vehicleTypes, spreadKm, 42L));
+    vehicles = fleet.vehicles();
+    incidentLocation = FleetSpec.LYON;
+    scoringStrategy = new DistanceEnergyScoringStrategy();
+    engine =
+        VehicleAssignmentDecisionEngine.builder(
+                new InMemoryDecisionDataSource(vehicles, incidentLocation), scoringStrategy)
+            .build();
+
+    List<VehicleNeed> needs = new ArrayList<>();
+    requiredTypes = new HashSet<>();
+    UUID[] phases = {UUID.randomUUID(), UUID.randomUUID()};
+    for (int i = 0; i < REQUESTED_TYPES && i < fleet.types().size(); i++) {
+      QGVehicleTypeRef type = fleet.types().get(i);
+      needs.add(
+          new VehicleNeed(phases[i % phases.length], type.vehicleTypeId(), QUANTITY_PER_TYPE));
+      requiredTypes.add(type.vehicleTypeId());
+    }
+    request = new AssignmentRequest(UUID.randomUUID(), needs);
+    fastRequest = request.asFast();
+    candidates = engine.buildCandidatePool(vehicles, requiredTypes, incidentLocation);
+
+    distances = new Double[vehicles.size()];
+    travelTimes = new Double[vehicles.size()];
+    latitudes = new double[vehicles.size()];
+    longitudes = new double[vehicles.size()];
+    for (int i = 0; i < vehicles.size(); i++) {
+      QGVehicleRead vehicle = vehicles.get(i);
+      latitudes[i] = vehicle.baseInterestPoint().latitude();
+      longitudes[i] = vehicle.baseInterestPoint().longitude();
+      double distanceKm =
+          GeoDistance.haversineKm(
+              incidentLocation.latitude(),
+              incidentLocation.longitude(),
+              latitudes[i],
+              longitudes[i]);
+      distances[i] = distanceKm;
+      travelTimes[i] = distanceKm / 50.0 * 60.0;
+    }
+  }
+
+  @Benchmark
+  public DecisionResult proposeAssignments() {
+    return engine.proposeAssignments(request);
+  }
+
+  /** Decision without routing calls, as taken under load shedding. */
+  @Benchmark
+  public DecisionResult proposeFastAssignments() {
+    return engine.proposeAssignments(fastRequest);
+  }
+
+  @Benchmark
+  public CandidatePool buildCandidates() {
+    return engine.buildCandidatePool(vehicles, requiredTypes, incidentLocation);
+  }
+
+  @Benchmark
+  public int greedySelection() {
+    candidates.clearAllocations();
+    List<VehicleCandidate> selected = new ArrayList<>();
+    int total = 0;
+    for (VehicleNeed need : request.vehiclesNeeded()) {
+      total += candidates.select(need.vehicleTypeId(), need.quantity(), selected);
+    }
+    return total;
+  }
+
+  @Benchmark
+  public void scoring(Blackhole blackhole) {
+    for (int i = 0; i < distances.length; i++) {
+      blackhole.consume(scoringStrategy.score(vehicles.get(i), distances[i], travelTimes[i]));
+    }
+  }
+
+  @Benchmark
+  public void haversine(Blackhole blackhole) {
+    double latitude = incidentLocation.latitude();
+    double longitude = incidentLocation.longitude();
+    for (int i = 0; i < latitudes.length; i++) {
+      blackhole.consume(GeoDistance.haversineKm(latitude, longitude, latitudes[i], longitudes[i]));
+    }
+  }
+}
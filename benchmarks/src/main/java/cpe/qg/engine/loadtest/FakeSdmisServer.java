@@ -0,0 +1,227 @@
+package cpe.qg.engine.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.decision.impl.GeoDistance;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSnapshot;
+import cpe.qg.engine.sdmis.dto.QGRouteGeometry;
+import cpe.qg.engine.sdmis.dto.QGRouteResponse;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehiclesListRead;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded HTTP stub for the SDMIS endpoints used by the engine ({@code /qg/vehicles}, {@code
+ * /qg/incidents/{id}/situation}, {@code /geo/route}) and the Keycloak token endpoint, with a
+ * configurable latency distribution and error rate per endpoint.
+ */
+public final class FakeSdmisServer implements AutoCloseable {
+
+  public static final String REALM_PATH = "/realms/loadtest";
+
+  private static final double AVERAGE_SPEED_KMH = 50.0;
+  private static final int ROUTE_POINTS = 64;
+
+  /** Stubbed endpoints. */
+  public enum Endpoint {
+    TOKEN,
+    VEHICLES,
+    SITUATION,
+    ROUTE
+  }
+
+  /**
+   * Latency and error behaviour of one endpoint.
+   *
+   * @param capacity concurrent calls served at the sampled latency, {@code 0} for no limit; past
+   *     it, the latency grows with the square of the overload, like a saturated routing service
+   */
+  public record EndpointProfile(LatencyDistribution latency, double errorRate, int capacity) {
+
+    public static final EndpointProfile INSTANT = new EndpointProfile(LatencyDistribution.NONE, 0);
+
+    public EndpointProfile(LatencyDistribution latency, double errorRate) {
+      this(latency, errorRate, 0);
+    }
+  }
+
+  private final ObjectMapper mapper;
+  private final byte[] vehiclesBody;
+  private final GeoPoint center;
+  private final double spreadKm;
+  private final Map<Endpoint, EndpointProfile> profiles;
+  private final Map<Endpoint, AtomicLong> calls = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, AtomicLong> errors = new EnumMap<>(Endpoint.class);
+  private final Map<Endpoint, AtomicInteger> inFlight = new EnumMap<>(Endpoint.class);
+  private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+  private HttpServer server;
+
+  public FakeSdmisServer(
+      List<QGVehicleRead> fleet,
+      GeoPoint center,
+      double spreadKm,
+      Map<Endpoint, EndpointProfile> profiles)
+      throws IOException {
+    this.mapper = new ObjectMapper();
+    this.mapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+    this.vehiclesBody = mapper.writeValueAsBytes(new QGVehiclesListRead(fleet, fleet.size()));
+    this.center = Objects.requireNonNull(center, "Centre point is required");
+    this.spreadKm = spreadKm;
+    this.profiles = new EnumMap<>(Endpoint.class);
+    for (Endpoint endpoint : Endpoint.values()) {
+      this.profiles.put(endpoint, profiles.getOrDefault(endpoint, EndpointProfile.INSTANT));
+      calls.put(endpoint, new AtomicLong());
+      errors.put(endpoint, new AtomicLong());
+      inFlight.put(endpoint, new AtomicInteger());
+    }
+  }
+
+  public FakeSdmisServer start() throws IOException {
+    // Without TCP_NODELAY, split header/body writes stall on delayed ACKs (~40 ms per call).
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 256);
+    server.createContext(
+        REALM_PATH + "/protocol/openid-connect/token",
+        exchange -> respond(exchange, Endpoint.TOKEN, this::tokenBody));
+    server.createContext(
+        "/qg/vehicles", exchange -> respond(exchange, Endpoint.VEHICLES, () -> vehiclesBody));
+    server.createContext(
+        "/qg/incidents/",
+        exchange -> respond(exchange, Endpoint.SITUATION, () -> situationBody(exchange)));
+    server.createContext(
+        "/geo/route", exchange -> respond(exchange, Endpoint.ROUTE, () -> routeBody(exchange)));
+    server.setExecutor(executor);
+    server.start();
+    return this;
+  }
+
+  public String baseUrl() {
+    return "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  public String issuerUrl() {
+    return baseUrl() + REALM_PATH;
+  }
+
+  public long calls(Endpoint endpoint) {
+    return calls.get(endpoint).get();
+  }
+
+  public long errors(Endpoint endpoint) {
+    return errors.get(endpoint).get();
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+    }
+    executor.shutdownNow();
+  }
+
+  private void respond(HttpExchange exchange, Endpoint endpoint, BodySupplier body)
+      throws IOException {
+    AtomicInteger active = inFlight.get(endpoint);
+    int concurrent = active.incrementAndGet();
+    try (exchange) {
+      calls.get(endpoint).incrementAndGet();
+      EndpointProfile profile = profiles.get(endpoint);
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      double overload =
+          profile.capacity() > 0 ? Math.max(1.0, concurrent / (double) profile.capacity()) : 1.0;
+      sleepMicros((long) (profile.latency().sampleMicros(random) * overload * overload));
+      if (profile.errorRate() > 0 && random.nextDouble() < profile.errorRate()) {
+        errors.get(endpoint).incrementAndGet();
+        exchange.sendResponseHeaders(503, -1);
+        return;
+      }
+      byte[] payload = body.get();
+      exchange.getResponseHeaders().add("Content-Type", "application/json");
+      exchange.sendResponseHeaders(200, payload.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(payload);
+      }
+    } finally {
+      active.decrementAndGet();
+    }
+  }
+
+  private byte[] tokenBody() throws IOException {
+    return mapper.writeValueAsBytes(
+        Map.of("access_token", "load-test-token", "expires_in", 300, "token_type", "Bearer"));
+  }
+
+  /** Places each incident deterministically within the fleet area, derived from its id. */
+  private byte[] situationBody(HttpExchange exchange) throws IOException {
+    String[] segments = exchange.getRequestURI().getPath().split("/");
+    UUID incidentId = UUID.fromString(segments[3]);
+    Random random = new Random(incidentId.getLeastSignificantBits());
+    GeoPoint location = SyntheticFleet.randomPoint(random, center, spreadKm * 0.8);
+    QGIncidentSnapshot incident =
+        new QGIncidentSnapshot(
+            incidentId, location.latitude(), location.longitude(), null, null, null, "OPEN");
+    return mapper.writeValueAsBytes(new QGIncidentSituationRead(incident, List.of()));
+  }
+
+  private byte[] routeBody(HttpExchange exchange) throws IOException {
+    JsonNode request;
+    try (InputStream in = exchange.getRequestBody()) {
+      request = mapper.readTree(in);
+    }
+    double fromLat = request.path("from").path("latitude").asDouble();
+    double fromLon = request.path("from").path("longitude").asDouble();
+    double toLat = request.path("to").path("latitude").asDouble();
+    double toLon = request.path("to").path("longitude").asDouble();
+    double distanceKm = GeoDistance.haversineKm(fromLat, fromLon, toLat, toLon) * 1.3;
+    List<List<Double>> coordinates = new ArrayList<>(ROUTE_POINTS);
+    for (int i = 0; i < ROUTE_POINTS; i++) {
+      double ratio = i / (double) (ROUTE_POINTS - 1);
+      coordinates.add(
+          List.of(fromLon + (toLon - fromLon) * ratio, fromLat + (toLat - fromLat) * ratio));
+    }
+    QGRouteResponse response =
+        new QGRouteResponse(
+            distanceKm * 1000.0,
+            distanceKm / AVERAGE_SPEED_KMH * 3600.0,
+            new QGRouteGeometry("LineString", coordinates));
+    return mapper.writeValueAsBytes(response);
+  }
+
+  private static void sleepMicros(long micros) {
+    if (micros <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.MICROSECONDS.sleep(micros);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  @FunctionalInterface
+  private interface BodySupplier {
+    byte[] get() throws IOException;
+  }
+}
@@ -0,0 +1,140 @@
+package cpe.qg.engine.loadtest;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import com.rabbitmq.client.Envelope;
+import cpe.qg.engine.messaging.MessageBrokerClient;
+import cpe.qg.engine.messaging.WireFormat;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process {@link MessageBrokerClient}. Each consumed queue gets a single delivery thread, like a
+ * RabbitMQ channel consumer, so handlers see the same sequential delivery model as in production.
+ */
+public final class InMemoryBrokerClient implements MessageBrokerClient {
+
+  private final Map<String, BlockingQueue<Message>> queues = new ConcurrentHashMap<>();
+  private final Set<String> exchanges = ConcurrentHashMap.newKeySet();
+  private final List<Thread> consumers = new CopyOnWriteArrayList<>();
+  private final AtomicLong deliveryTags = new AtomicLong();
+  private volatile boolean closed;
+
+  @Override
+  public void connect() {}
+
+  @Override
+  public void declareQueue(String queueName, boolean durable) {
+    queue(queueName);
+  }
+
+  /** Arguments such as {@code x-queue-type} have no in-process equivalent and are ignored. */
+  @Override
+  public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {
+    queue(queueName);
+  }
+
+  /** Exchanges are only checked for existence: messages are published to queues directly. */
+  @Override
+  public void declareExchange(String exchange, String type, boolean durable) {
+    exchanges.add(exchange);
+  }
+
+  @Override
+  public void bindQueue(String queueName, String exchange, String routingKey) {
+    if (!exchanges.contains(exchange)) {
+      throw new IllegalStateException("Unknown exchange " + exchange);
+    }
+    queue(queueName);
+  }
+
+  @Override
+  public void publish(String queueName, String message) {
+    publish(queueName, message.getBytes(StandardCharsets.UTF_8), WireFormat.JSON);
+  }
+
+  @Override
+  public void publish(String queueName, byte[] body, WireFormat format) {
+    queue(queueName).add(new Message(body, format, new Date()));
+  }
+
+  @Override
+  public void consume(String queueName, DeliverCallback deliverCallback) {
+    BlockingQueue<Message> queue = queue(queueName);
+    Thread consumer =
+        Thread.ofPlatform()
+            .daemon()
+            .name("inmem-consumer-" + queueName)
+            .start(() -> deliverLoop(queueName, queue, deliverCallback));
+    consumers.add(consumer);
+  }
+
+  @Override
+  public long messageCount(String queueName) {
+    return depth(queueName);
+  }
+
+  @Override
+  public void healthCheck() {}
+
+  /**
+   * @return the number of messages waiting in the queue
+   */
+  public int depth(String queueName) {
+    return queue(queueName).size();
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    for (Thread consumer : consumers) {
+      consumer.interrupt();
+    }
+  }
+
+  private void deliverLoop(
+      String queueName, BlockingQueue<Message> queue, DeliverCallback deliverCallback) {
+    String consumerTag = "inmem-" + queueName;
+    while (!closed) {
+      Message message;
+      try {
+        message = queue.poll(100, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (message == null) {
+        continue;
+      }
+      Envelope envelope = new Envelope(deliveryTags.incrementAndGet(), false, "", queueName);
+      AMQP.BasicProperties properties =
+          new AMQP.BasicProperties.Builder()
+              .contentType(message.format().contentType())
+              .timestamp(message.publishedAt())
+              .build();
+      try {
+        deliverCallback.handle(consumerTag, new Delivery(envelope, properties, message.body()));
+      } catch (IOException | RuntimeException e) {
+        System.err.printf("Delivery on %s failed: %s%n", queueName, e.getMessage());
+      }
+    }
+  }
+
+  private BlockingQueue<Message> queue(String queueName) {
+    return queues.computeIfAbsent(queueName, ignored -> new LinkedBlockingQueue<>());
+  }
+
+  /** Queued body with its format and publication time, delivered as AMQP properties. */
+  private record Message(byte[] body, WireFormat format, Date publishedAt) {}
+}
@@ -0,0 +1,53 @@
+package cpe.qg.engine.loadtest;
+
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Artificial response latency of a stubbed endpoint. Parsed from specs such as {@code none}, {@code
+ * fixed:20}, {@code uniform:5:40}, {@code exp:15} or {@code lognormal:20:0.6} (milliseconds; the
+ * log-normal takes the median and sigma).
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+  LatencyDistribution NONE = random -> 0L;
+
+  long sampleMicros(Random random);
+
+  static LatencyDistribution parse(String spec) {
+    if (spec == null || spec.isBlank() || spec.equalsIgnoreCase("none")) {
+      return NONE;
+    }
+    String[] parts = spec.trim().toLowerCase(Locale.ROOT).split(":");
+    try {
+      switch (parts[0]) {
+        case "fixed" -> {
+          long micros = millisToMicros(Double.parseDouble(parts[1]));
+          return random -> micros;
+        }
+        case "uniform" -> {
+          double min = Double.parseDouble(parts[1]);
+          double max = Double.parseDouble(parts[2]);
+          return random -> millisToMicros(min + random.nextDouble() * (max - min));
+        }
+        case "exp" -> {
+          double mean = Double.parseDouble(parts[1]);
+          return random -> millisToMicros(-mean * Math.log(1.0 - random.nextDouble()));
+        }
+        case "lognormal" -> {
+          double mu = Math.log(Double.parseDouble(parts[1]));
+          double sigma = Double.parseDouble(parts[2]);
+          return random -> millisToMicros(Math.exp(mu + sigma * random.nextGaussian()));
+        }
+        default -> throw new IllegalArgumentException("Unknown latency distribution: " + spec);
+      }
+    } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+      throw new IllegalArgumentException("Invalid latency distribution: " + spec, e);
+    }
+  }
+
+  private static long millisToMicros(double millis) {
+    return Math.max(0L, Math.round(millis * 1000.0));
+  }
+}
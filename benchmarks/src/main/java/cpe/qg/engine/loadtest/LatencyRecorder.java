@@ -0,0 +1,38 @@
+package cpe.qg.engine.loadtest;
+
+import java.util.Arrays;
+
+/** Collects raw latency samples and computes exact percentiles once a run is over. */
+final class LatencyRecorder {
+
+  private long[] samples = new long[1024];
+  private int size;
+
+  synchronized void record(long nanos) {
+    if (size == samples.length) {
+      samples = Arrays.copyOf(samples, size * 2);
+    }
+    samples[size++] = nanos;
+  }
+
+  synchronized int count() {
+    return size;
+  }
+
+  /**
+   * @return the latency in milliseconds at each requested percentile (0-100)
+   */
+  synchronized double[] percentilesMillis(double... percentiles) {
+    double[] result = new double[percentiles.length];
+    if (size == 0) {
+      return result;
+    }
+    long[] sorted = Arrays.copyOf(samples, size);
+    Arrays.sort(sorted);
+    for (int i = 0; i < percentiles.length; i++) {
+      int index = (int) Math.ceil(percentiles[i] / 100.0 * size) - 1;
+      result[i] = sorted[Math.max(0, Math.min(size - 1, index))] / 1_000_000.0;
+    }
+    return result;
+  }
+}
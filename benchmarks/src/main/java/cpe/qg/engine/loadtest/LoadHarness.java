@@ -0,0 +1,397 @@
+package cpe.qg.engine.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.bench.support.FleetSpec;
+import cpe.qg.engine.bench.support.SyntheticFleet;
+import cpe.qg.engine.config.EnvironmentConfig;
+import cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy;
+import cpe.qg.engine.decision.impl.SdmisDecisionDataSource;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine;
+import cpe.qg.engine.events.EventDispatcher;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.handlers.AssignmentRequestHandler;
+import cpe.qg.engine.handlers.RequestDeduplicator;
+import cpe.qg.engine.loadtest.FakeSdmisServer.Endpoint;
+import cpe.qg.engine.loadtest.FakeSdmisServer.EndpointProfile;
+import cpe.qg.engine.messaging.PriorityScheduler;
+import cpe.qg.engine.messaging.QueueListener;
+import cpe.qg.engine.messaging.Queues;
+import cpe.qg.engine.sdmis.SdmisApiClientFactory;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import cpe.qg.engine.service.BacklogMonitor;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * End-to-end load harness. Wires the real {@link QueueListener}, {@link EventDispatcher} and {@link
+ * AssignmentRequestHandler} to an {@link InMemoryBrokerClient} and a {@link FakeSdmisServer}, then
+ * drives open-loop request rates and reports sustained throughput and enqueue-to-publish latency.
+ *
+ * <p>Latency is measured from the scheduled send time, so a stalled engine cannot hide queueing
+ * delay (no coordinated omission). Example:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar cpe.qg.engine.loadtest.LoadHarness \
+ *     --fleet-sizes=1000,10000 --rates=5,10,20,40 --duration-s=30 \
+ *     --route-latency=lognormal:15:0.5 --error-rate=0.01
+ * </pre>
+ *
+ * <p>{@code --shedding=true} enables the backlog monitor, degrading past {@code --shed-backlog}
+ * queued requests and dropping those older than {@code --max-age-ms}.
+ *
+ * <p>{@code --scheduler=true} routes messages through the priority scheduler with {@code --workers}
+ * handling threads; {@code --urgent-share} is the fraction of requests sent with payload priority
+ * 0, whose latency is then reported on a separate line.
+ *
+ * <p>{@code --route-capacity} (or any {@code --<endpoint>-capacity}) makes the stub slow down
+ * sharply past that many concurrent calls; {@code --sdmis-limit=false} turns off the adaptive
+ * concurrency limits of the client, whose ceiling is {@code --sdmis-limit-max}.
+ */
+public final class LoadHarness {
+
+  private static final double SATURATION_RATIO = 0.95;
+
+  private final Map<String, String> options;
+  private final ObjectMapper mapper = new ObjectMapper();
+
+  private LoadHarness(Map<String, String> options) {
+    this.options = options;
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = parseOptions(args);
+    System.setProperty("LOG_LEVEL", options.getOrDefault("log-level", "WARN"));
+    new LoadHarness(options).run();
+  }
+
+  private void run() throws Exception {
+    int[] fleetSizes = intList(options.getOrDefault("fleet-sizes", "1000"));
+    double[] rates = doubleList(options.getOrDefault("rates", "5,10,20"));
+    System.out.printf(
+        Locale.ROOT,
+        "%-8s %8s %7s %9s %7s %11s %9s %9s %9s %9s %9s%n",
+        "fleet",
+        "offered",
+        "sent",
+        "completed",
+        "failed",
+        "sustained",
+        "p50(ms)",
+        "p90(ms)",
+        "p99(ms)",
+        "p99.9(ms)",
+        "max(ms)");
+    for (int fleetSize : fleetSizes) {
+      for (double rate : rates) {
+        StepResult result = runStep(fleetSize, rate);
+        System.out.println(result.format());
+        if (result.urgentCompleted() > 0) {
+          System.out.println(result.formatUrgent());
+        }
+        if (result.saturated()) {
+          System.out.printf(Locale.ROOT, "fleet=%d saturates below %.1f msg/s%n", fleetSize, rate);
+          break;
+        }
+      }
+    }
+  }
+
+  private StepResult runStep(int fleetSize, double rate) throws Exception {
+    double spreadKm = doubleOption("spread-km", 25.0);
+    SyntheticFleet fleet =
+        SyntheticFleet.generate(
+            FleetSpec.uniform(fleetSize, intOption("types", 6), spreadKm, longOption("seed", 42L)));
+
+    try (FakeSdmisServer server =
+            new FakeSdmisServer(fleet.vehicles(), FleetSpec.LYON, spreadKm, endpointProfiles())
+                .start();
+        InMemoryBrokerClient broker = new InMemoryBrokerClient()) {
+      EnvironmentConfig env = environment(server);
+      VehicleAssignmentDecisionEngine engine =
+          VehicleAssignmentDecisionEngine.builder(
+                  new SdmisDecisionDataSource(SdmisApiClientFactory.create(env)),
+                  new DistanceEnergyScoringStrategy())
+              .criteria(env.decisionCriteria())
+              .routingPolicy(env.routingPolicy())
+              .build();
+      BacklogMonitor backlogMonitor =
+          new BacklogMonitor(broker, Queues.SDMIS_ENGINE.queue(), env.loadShedding());
+      EventDispatcher dispatcher =
+          new EventDispatcher(
+              List.of(
+                  AssignmentRequestHandler.builder(broker, engine)
+                      .deduplicator(new RequestDeduplicator(env.deduplication()))
+                      .backlogMonitor(backlogMonitor)
+                      .build()));
+
+      Map<String, Long> pending = new ConcurrentHashMap<>();
+      Set<String> urgent = ConcurrentHashMap.newKeySet();
+      LatencyRecorder latencies = new LatencyRecorder();
+      LatencyRecorder urgentLatencies = new LatencyRecorder();
+      AtomicLong lastCompletion = new AtomicLong();
+      broker.consume(
+          Queues.SDMIS_API.queue(),
+          (tag, delivery) -> {
+            long now = System.nanoTime();
+            JsonNode proposal = mapper.readTree(delivery.getBody());
+            String incidentId = proposal.path("payload").path("incident_id").asText();
+            Long scheduledAt = pending.remove(incidentId);
+            if (scheduledAt != null) {
+              latencies.record(now - scheduledAt);
+              if (urgent.remove(incidentId)) {
+                urgentLatencies.record(now - scheduledAt);
+              }
+              lastCompletion.set(now);
+            }
+          });
+
+      try (QueueListener listener =
+              QueueListener.builder(
+                      broker, Queues.subscriptions(), dispatcher, new EventPayloadParser())
+                  .scheduler(new PriorityScheduler(env.scheduler()))
+                  .build();
+          backlogMonitor) {
+        listener.start();
+        backlogMonitor.start();
+        long startedAt = System.nanoTime();
+        int sent = drive(broker, fleet.types(), rate, pending, urgent);
+        awaitDrain(pending, TimeUnit.SECONDS.toNanos(longOption("drain-s", 30L)));
+        long elapsed = Math.max(1L, lastCompletion.get() - startedAt);
+        int completed = latencies.count();
+        double sustained = completed / (elapsed / 1_000_000_000.0);
+        return new StepResult(
+            fleetSize,
+            rate,
+            sent,
+            completed,
+            sustained,
+            latencies.percentilesMillis(50, 90, 99, 99.9, 100),
+            urgentLatencies.count(),
+            urgentLatencies.percentilesMillis(50, 90, 99, 99.9, 100));
+      }
+    }
+  }
+
+  /** Sends requests on a fixed schedule regardless of how fast the engine answers. */
+  private int drive(
+      InMemoryBrokerClient broker,
+      List<QGVehicleTypeRef> types,
+      double rate,
+      Map<String, Long> pending,
+      Set<String> urgent) {
+    long periodNanos = (long) (1_000_000_000L / rate);
+    long durationNanos = TimeUnit.SECONDS.toNanos(longOption("duration-s", 20L));
+    int needs = intOption("needs", 3);
+    double urgentShare = doubleOption("urgent-share", 0.0);
+    Random random = new Random(longOption("seed", 42L));
+    long startedAt = System.nanoTime();
+    int sent = 0;
+    while (true) {
+      long scheduledAt = startedAt + sent * periodNanos;
+      if (scheduledAt - startedAt >= durationNanos) {
+        return sent;
+      }
+      long wait = scheduledAt - System.nanoTime();
+      if (wait > 0) {
+        LockSupport.parkNanos(wait);
+      }
+      UUID incidentId = new UUID(random.nextLong(), random.nextLong());
+      boolean isUrgent = random.nextDouble() < urgentShare;
+      if (isUrgent) {
+        urgent.add(incidentId.toString());
+      }
+      pending.put(incidentId.toString(), scheduledAt);
+      broker.publish(
+          Queues.SDMIS_ENGINE.queue(),
+          assignmentRequest(incidentId, types, needs, isUrgent, random));
+      sent++;
+    }
+  }
+
+  private static void awaitDrain(Map<String, Long> pending, long timeoutNanos)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + timeoutNanos;
+    while (!pending.isEmpty() && System.nanoTime() < deadline) {
+      TimeUnit.MILLISECONDS.sleep(20);
+    }
+  }
+
+  private static String assignmentRequest(
+      UUID incidentId, List<QGVehicleTypeRef> types, int needs, boolean urgent, Random random) {
+    UUID phaseId = new UUID(random.nextLong(), random.nextLong());
+    StringBuilder json = new StringBuilder(256);
+    json.append("{\"event\":\"")
+        .append(Events.ASSIGNMENT_REQUEST.key())
+        .append("\",\"payload\":{\"incident_id\":\"")
+        .append(incidentId)
+        .append(urgent ? "\",\"priority\":0" : "\"")
+        .append(",\"vehicles_needed\":[");
+    for (int i = 0; i < needs; i++) {
+      if (i > 0) {
+        json.append(',');
+      }
+      json.append("{\"incident_phase_id\":\"")
+          .append(phaseId)
+          .append("\",\"vehicle_type_id\":\"")
+          .append(types.get(random.nextInt(types.size())).vehicleTypeId())
+          .append("\",\"quantity\":")
+          .append(1 + random.nextInt(2))
+          .append('}');
+    }
+    return json.append("]}}").toString();
+  }
+
+  private EnvironmentConfig environment(FakeSdmisServer server) {
+    Map<String, String> overrides = new HashMap<>();
+    overrides.put("RABBITMQ_URI", "amqp://in-memory");
+    overrides.put("POSTGRES_URL", "jdbc:postgresql://unused/qg");
+    overrides.put("KEYCLOAK_ISSUER", server.issuerUrl());
+    overrides.put("KEYCLOAK_CLIENT_ID", "load-test");
+    overrides.put("KEYCLOAK_CLIENT_SECRET", "load-test");
+    overrides.put("SDMIS_API_BASE_URL", server.baseUrl());
+    overrides.put("SDMIS_API_TIMEOUT_MS", options.getOrDefault("timeout-ms", "5000"));
+    overrides.put("DECISION_MAX_DISTANCE_KM", "");
+    overrides.put("DECISION_MIN_ENERGY_LEVEL", "");
+    overrides.put("DECISION_DEADLINE_MS", options.getOrDefault("deadline-ms", "0"));
+    overrides.put("ROUTING_MAX_CONCURRENCY", options.getOrDefault("routing-concurrency", "8"));
+    overrides.put("DEDUP_ENABLED", "false");
+    overrides.put("SHEDDING_ENABLED", options.getOrDefault("shedding", "false"));
+    overrides.put("SHEDDING_SAMPLE_INTERVAL_MS", "200");
+    overrides.put("SHEDDING_DEGRADE_BACKLOG", options.getOrDefault("shed-backlog", "20"));
+    overrides.put("SHEDDING_RECOVER_BACKLOG", options.getOrDefault("recover-backlog", "4"));
+    overrides.put("SHEDDING_MAX_AGE_MS", options.getOrDefault("max-age-ms", "0"));
+    overrides.put("SCHEDULER_ENABLED", options.getOrDefault("scheduler", "false"));
+    overrides.put("SCHEDULER_WORKERS", options.getOrDefault("workers", "1"));
+    overrides.put("SDMIS_LIMIT_ENABLED", options.getOrDefault("sdmis-limit", "true"));
+    overrides.put("SDMIS_LIMIT_MAX", options.getOrDefault("sdmis-limit-max", "200"));
+    return EnvironmentConfig.from(overrides);
+  }
+
+  private Map<Endpoint, EndpointProfile> endpointProfiles() {
+    Map<Endpoint, EndpointProfile> profiles = new EnumMap<>(Endpoint.class);
+    double defaultErrorRate = doubleOption("error-rate", 0.0);
+    Map<Endpoint, String> defaultLatencies =
+        Map.of(
+            Endpoint.TOKEN, "fixed:20",
+            Endpoint.VEHICLES, "lognormal:30:0.3",
+            Endpoint.SITUATION, "lognormal:10:0.3",
+            Endpoint.ROUTE, "lognormal:15:0.5");
+    for (Endpoint endpoint : Endpoint.values()) {
+      String name = endpoint.name().toLowerCase(Locale.ROOT);
+      LatencyDistribution latency =
+          LatencyDistribution.parse(
+              options.getOrDefault(name + "-latency", defaultLatencies.get(endpoint)));
+      double errorRate = doubleOption(name + "-error-rate", defaultErrorRate);
+      int capacity = intOption(name + "-capacity", 0);
+      profiles.put(endpoint, new EndpointProfile(latency, errorRate, capacity));
+    }
+    return profiles;
+  }
+
+  private int intOption(String key, int fallback) {
+    String value = options.get(key);
+    return value == null ? fallback : Integer.parseInt(value);
+  }
+
+  private long longOption(String key, long fallback) {
+    String value = options.get(key);
+    return value == null ? fallback : Long.parseLong(value);
+  }
+
+  private double doubleOption(String key, double fallback) {
+    String value = options.get(key);
+    return value == null ? fallback : Double.parseDouble(value);
+  }
+
+  private static int[] intList(String value) {
+    String[] parts = value.split(",");
+    int[] values = new int[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      values[i] = Integer.parseInt(parts[i].trim());
+    }
+    return values;
+  }
+
+  private static double[] doubleList(String value) {
+    String[] parts = value.split(",");
+    double[] values = new double[parts.length];
+    for (int i = 0; i < parts.length; i++) {
+      values[i] = Double.parseDouble(parts[i].trim());
+    }
+    return values;
+  }
+
+  private static Map<String, String> parseOptions(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --key=value, got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    return options;
+  }
+
+  private record StepResult(
+      int fleetSize,
+      double offeredRate,
+      int sent,
+      int completed,
+      double sustainedRate,
+      double[] percentiles,
+      int urgentCompleted,
+      double[] urgentPercentiles) {
+
+    boolean saturated() {
+      return sustainedRate < offeredRate * SATURATION_RATIO || completed < sent;
+    }
+
+    String format() {
+      return String.format(
+          Locale.ROOT,
+          "%-8d %8.1f %7d %9d %7d %11.1f %9.1f %9.1f %9.1f %9.1f %9.1f%s",
+          fleetSize,
+          offeredRate,
+          sent,
+          completed,
+          sent - completed,
+          sustainedRate,
+          percentiles[0],
+          percentiles[1],
+          percentiles[2],
+          percentiles[3],
+          percentiles[4],
+          saturated() ? "  SATURATED" : "");
+    }
+
+    String formatUrgent() {
+      return String.format(
+          Locale.ROOT,
+          "%-8s %8s %7s %9d %7s %11s %9.1f %9.1f %9.1f %9.1f %9.1f",
+          "urgent",
+          "",
+          "",
+          urgentCompleted,
+          "",
+          "",
+          urgentPercentiles[0],
+          urgentPercentiles[1],
+          urgentPercentiles[2],
+          urgentPercentiles[3],
+          urgentPercentiles[4]);
+    }
+  }
+}
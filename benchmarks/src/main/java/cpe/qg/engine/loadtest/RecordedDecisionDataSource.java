@@ -0,0 +1,121 @@
+package cpe.qg.engine.loadtest;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.impl.GeoDistance;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.replay.TrafficRecord;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Decision data source answering with the SDMIS responses of a traffic recording. Situations,
+ * plannings and vehicle lists are served as they were last recorded at the current time of the
+ * recording, given by {@code recordingClock}, or as first recorded when the engine asks earlier.
+ * Routes are looked up by their exact endpoints; a route the recording lacks, because the engine
+ * under test routes other vehicles, is estimated in a straight line at 50 km/h and counted as a
+ * miss.
+ *
+ * <p>Responses are parsed on every call, as they would be from HTTP; the SDMIS latency is not
+ * replayed.
+ */
+final class RecordedDecisionDataSource implements DecisionDataSource {
+
+  private static final double FALLBACK_SPEED_KMH = 50.0;
+  private static final TypeReference<List<QGVehicleRead>> VEHICLE_LIST = new TypeReference<>() {};
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final LongSupplier recordingClock;
+  private final Map<String, NavigableMap<Long, byte[]>> situations = new HashMap<>();
+  private final Map<String, NavigableMap<Long, byte[]>> plannings = new HashMap<>();
+  private final NavigableMap<Long, byte[]> vehicles = new TreeMap<>();
+  private final Map<String, byte[]> routes = new HashMap<>();
+  private final AtomicLong situationMisses = new AtomicLong();
+  private final AtomicLong routeMisses = new AtomicLong();
+
+  /**
+   * @param recordingClock current time of the recording, in microseconds since the epoch
+   */
+  RecordedDecisionDataSource(List<TrafficRecord> records, LongSupplier recordingClock) {
+    this.recordingClock = recordingClock;
+    for (TrafficRecord record : records) {
+      switch (record.kind()) {
+        case SITUATION ->
+            situations
+                .computeIfAbsent(record.key(), ignored -> new TreeMap<>())
+                .put(record.epochMicros(), record.body());
+        case PLANNING ->
+            plannings
+                .computeIfAbsent(record.key(), ignored -> new TreeMap<>())
+                .put(record.epochMicros(), record.body());
+        case VEHICLES -> vehicles.put(record.epochMicros(), record.body());
+        case ROUTE -> routes.put(record.key(), record.body());
+        default -> {}
+      }
+    }
+  }
+
+  @Override
+  public QGIncidentSituationRead getIncidentSituation(UUID incidentId) throws IOException {
+    byte[] body = at(situations.get(TrafficRecord.incidentKey(incidentId)));
+    if (body == null) {
+      situationMisses.incrementAndGet();
+      throw new IOException("No recorded situation for incident " + incidentId);
+    }
+    return mapper.readValue(body, QGIncidentSituationRead.class);
+  }
+
+  @Override
+  public QGResourcePlanningRead getResourcePlanning(UUID incidentId) throws IOException {
+    byte[] body = at(plannings.get(TrafficRecord.incidentKey(incidentId)));
+    return body == null ? null : mapper.readValue(body, QGResourcePlanningRead.class);
+  }
+
+  @Override
+  public List<QGVehicleRead> listVehicles() throws IOException {
+    byte[] body = at(vehicles);
+    return body == null ? List.of() : mapper.readValue(body, VEHICLE_LIST);
+  }
+
+  @Override
+  public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) throws IOException {
+    if (from == null || to == null || !from.isDefined() || !to.isDefined()) {
+      return null;
+    }
+    byte[] body = routes.get(TrafficRecord.routeKey(from, to));
+    if (body != null) {
+      return mapper.readValue(body, TravelEstimate.class);
+    }
+    routeMisses.incrementAndGet();
+    double distanceKm = GeoDistance.haversineKm(from, to);
+    return new TravelEstimate(distanceKm, distanceKm / FALLBACK_SPEED_KMH * 60.0, null);
+  }
+
+  long situationMisses() {
+    return situationMisses.get();
+  }
+
+  long routeMisses() {
+    return routeMisses.get();
+  }
+
+  private byte[] at(NavigableMap<Long, byte[]> responses) {
+    if (responses == null || responses.isEmpty()) {
+      return null;
+    }
+    Map.Entry<Long, byte[]> entry = responses.floorEntry(recordingClock.getAsLong());
+    return (entry == null ? responses.firstEntry() : entry).getValue();
+  }
+}
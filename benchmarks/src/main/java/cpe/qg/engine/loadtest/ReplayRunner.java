@@ -0,0 +1,358 @@
+package cpe.qg.engine.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.config.EnvironmentConfig;
+import cpe.qg.engine.decision.api.ReservationLedger;
+import cpe.qg.engine.decision.api.VehicleScoringStrategy;
+import cpe.qg.engine.decision.impl.CoverageAwareScoringStrategy;
+import cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine;
+import cpe.qg.engine.events.EventDispatcher;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.handlers.AssignmentRequestHandler;
+import cpe.qg.engine.handlers.IncidentEventHandler;
+import cpe.qg.engine.handlers.ProposalOutcomeHandler;
+import cpe.qg.engine.handlers.RequestDeduplicator;
+import cpe.qg.engine.messaging.PriorityScheduler;
+import cpe.qg.engine.messaging.QueueListener;
+import cpe.qg.engine.messaging.Queues;
+import cpe.qg.engine.messaging.WireFormat;
+import cpe.qg.engine.replay.TrafficLogReader;
+import cpe.qg.engine.replay.TrafficRecord;
+import cpe.qg.engine.service.BacklogMonitor;
+import cpe.qg.engine.service.IncidentPrecomputer;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a traffic recording (see {@code TRAFFIC_RECORDING_ENABLED}) through the real {@link
+ * QueueListener}, handlers and {@link VehicleAssignmentDecisionEngine}, with the SDMIS responses of
+ * the recording, then reports the request-to-proposal latency and the proposals that differ from
+ * the recorded ones. The engine is configured from the environment like the service.
+ *
+ * <p>Consumed messages are published at their recorded offsets divided by {@code --speed}; {@code
+ * --speed=0} publishes them back to back. Latency is measured from the scheduled publication, so a
+ * slower engine shows as queueing delay. Example:
+ *
+ * <pre>
+ * java -cp benchmarks/target/benchmarks.jar cpe.qg.engine.loadtest.ReplayRunner \
+ *     --recording=recordings/traffic-20261019-140000.qgtr --speed=10 --diff-limit=20
+ * </pre>
+ *
+ * <p>Proposals are compared per incident, in order: the n-th replayed proposal of an incident with
+ * its n-th recorded one, as sets of {@code phase/vehicle} assignments.
+ */
+public final class ReplayRunner {
+
+  private final Map<String, String> options;
+  private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+  private final AtomicInteger published = new AtomicInteger();
+
+  private ReplayRunner(Map<String, String> options) {
+    this.options = options;
+    for (WireFormat format : WireFormat.values()) {
+      mappers.put(format, format.newMapper());
+    }
+  }
+
+  public static void main(String[] args) throws Exception {
+    Map<String, String> options = new HashMap<>();
+    for (String arg : args) {
+      if (!arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException("Expected --key=value, got " + arg);
+      }
+      int separator = arg.indexOf('=');
+      options.put(arg.substring(2, separator), arg.substring(separator + 1));
+    }
+    if (!options.containsKey("recording")) {
+      throw new IllegalArgumentException("--recording=<file> is required");
+    }
+    System.setProperty("LOG_LEVEL", options.getOrDefault("log-level", "WARN"));
+    new ReplayRunner(options).run();
+  }
+
+  private void run() throws Exception {
+    List<TrafficRecord> records = TrafficLogReader.readAll(Path.of(options.get("recording")));
+    List<TrafficRecord> consumed =
+        records.stream().filter(record -> record.kind() == TrafficRecord.Kind.CONSUMED).toList();
+    if (consumed.isEmpty()) {
+      System.out.println("The recording holds no consumed message");
+      return;
+    }
+    Map<String, List<Set<String>>> recordedProposals = new HashMap<>();
+    for (TrafficRecord record : records) {
+      if (record.kind() == TrafficRecord.Kind.PUBLISHED
+          && record.key().equals(Queues.SDMIS_API.queue())) {
+        addProposal(recordedProposals, readTree(record.body()));
+      }
+    }
+
+    double speed = Double.parseDouble(options.getOrDefault("speed", "1"));
+    long firstMicros = consumed.get(0).epochMicros();
+    AtomicLong replayStartedAt = new AtomicLong(System.nanoTime());
+    RecordedDecisionDataSource dataSource =
+        new RecordedDecisionDataSource(
+            records,
+            () -> {
+              long elapsedMicros = (System.nanoTime() - replayStartedAt.get()) / 1_000;
+              return speed > 0
+                  ? firstMicros + (long) (elapsedMicros * speed)
+                  : consumed.get(Math.max(0, published.get() - 1)).epochMicros();
+            });
+    EnvironmentConfig env = environment();
+    ReservationLedger reservations = new ReservationLedger(env.reservation());
+    VehicleAssignmentDecisionEngine engine =
+        VehicleAssignmentDecisionEngine.builder(dataSource, scoringStrategy(env))
+            .criteria(env.decisionCriteria())
+            .routingPolicy(env.routingPolicy())
+            .requirementSolver(env.requirementSolver())
+            .reservations(reservations)
+            .decisionContext(env.decisionContext())
+            .build();
+
+    Map<String, Deque<Long>> pending = new ConcurrentHashMap<>();
+    Map<String, List<Set<String>>> replayedProposals = new ConcurrentHashMap<>();
+    LatencyRecorder latencies = new LatencyRecorder();
+    AtomicInteger outstanding = new AtomicInteger();
+    RequestDeduplicator deduplicator = new RequestDeduplicator(env.deduplication());
+    try (InMemoryBrokerClient broker = new InMemoryBrokerClient();
+        IncidentPrecomputer precomputer = new IncidentPrecomputer(engine, env.precompute())) {
+      BacklogMonitor backlogMonitor =
+          new BacklogMonitor(broker, Queues.SDMIS_ENGINE.queue(), env.loadShedding());
+      EventDispatcher dispatcher =
+          new EventDispatcher(
+              List.of(
+                  AssignmentRequestHandler.builder(broker, engine)
+                      .deduplicator(deduplicator)
+                      .backlogMonitor(backlogMonitor)
+                      .reservations(reservations)
+                      .wireFormats(env.wireFormats())
+                      .build(),
+                  new ProposalOutcomeHandler(
+                      Events.ASSIGNMENT_PROPOSAL_ACCEPTED, reservations, deduplicator),
+                  new ProposalOutcomeHandler(
+                      Events.ASSIGNMENT_PROPOSAL_REJECTED, reservations, deduplicator),
+                  new IncidentEventHandler(Events.INCIDENT_CREATED, precomputer),
+                  new IncidentEventHandler(Events.INCIDENT_UPDATED, precomputer)));
+      broker.consume(
+          Queues.SDMIS_API.queue(),
+          (tag, delivery) -> {
+            long now = System.nanoTime();
+            JsonNode proposal = readTree(delivery.getBody());
+            String incidentId = addProposal(replayedProposals, proposal);
+            Deque<Long> scheduled = incidentId == null ? null : pending.get(incidentId);
+            Long scheduledAt;
+            synchronized (pending) {
+              scheduledAt = scheduled == null ? null : scheduled.pollFirst();
+            }
+            if (scheduledAt != null) {
+              latencies.record(now - scheduledAt);
+              outstanding.decrementAndGet();
+            }
+          });
+
+      try (QueueListener listener =
+              QueueListener.builder(
+                      broker, Queues.subscriptions(), dispatcher, new EventPayloadParser())
+                  .scheduler(new PriorityScheduler(env.scheduler()))
+                  .build();
+          backlogMonitor) {
+        listener.start();
+        backlogMonitor.start();
+        replayStartedAt.set(System.nanoTime());
+        for (TrafficRecord message : consumed) {
+          long scheduledAt =
+              speed > 0
+                  ? replayStartedAt.get()
+                      + (long) ((message.epochMicros() - firstMicros) * 1_000 / speed)
+                  : System.nanoTime();
+          long wait = scheduledAt - System.nanoTime();
+          if (wait > 0) {
+            LockSupport.parkNanos(wait);
+          }
+          String incidentId = assignmentRequestIncident(message.body());
+          if (incidentId != null) {
+            synchronized (pending) {
+              pending.computeIfAbsent(incidentId, ignored -> new ArrayDeque<>()).add(scheduledAt);
+            }
+            outstanding.incrementAndGet();
+          }
+          published.incrementAndGet();
+          broker.publish(queueOf(message), message.body(), WireFormat.detect(message.body()));
+        }
+        long deadline =
+            System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("drain-s", "30")));
+        while (outstanding.get() > 0 && System.nanoTime() < deadline) {
+          TimeUnit.MILLISECONDS.sleep(20);
+        }
+      }
+    }
+    report(consumed.size(), latencies, outstanding.get(), dataSource);
+    diff(recordedProposals, replayedProposals);
+  }
+
+  /** Records the proposal under its incident and returns the incident id, or {@code null}. */
+  private static String addProposal(Map<String, List<Set<String>>> proposals, JsonNode envelope) {
+    JsonNode payload = envelope.path("payload");
+    String incidentId = payload.path("incident_id").asText(null);
+    if (incidentId == null) {
+      return null;
+    }
+    Set<String> assignments = new TreeSet<>();
+    for (JsonNode vehicle : payload.path("vehicles_to_send")) {
+      assignments.add(
+          vehicle.path("incident_phase_id").asText() + "/" + vehicle.path("vehicle_id").asText());
+    }
+    synchronized (proposals) {
+      proposals.computeIfAbsent(incidentId, ignored -> new ArrayList<>()).add(assignments);
+    }
+    return incidentId;
+  }
+
+  /** Incident of an assignment request, {@code null} for any other message. */
+  private String assignmentRequestIncident(byte[] body) {
+    try {
+      JsonNode message = readTree(body);
+      if (!Events.ASSIGNMENT_REQUEST.key().equals(message.path("event").asText())) {
+        return null;
+      }
+      return message.path("payload").path("incident_id").asText(null);
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  /** Parses a recorded or replayed body in the format it was written in. */
+  private JsonNode readTree(byte[] body) throws IOException {
+    return mappers.get(WireFormat.detect(body)).readTree(body);
+  }
+
+  /** Shard queues of a sharded deployment are replayed on the main engine queue. */
+  private static String queueOf(TrafficRecord message) {
+    return Queues.subscriptions().contains(message.key())
+        ? message.key()
+        : Queues.SDMIS_ENGINE.queue();
+  }
+
+  private static VehicleScoringStrategy scoringStrategy(EnvironmentConfig env) {
+    VehicleScoringStrategy strategy = new DistanceEnergyScoringStrategy();
+    return env.coverage().enabled()
+        ? new CoverageAwareScoringStrategy(strategy, env.coverage())
+        : strategy;
+  }
+
+  private static EnvironmentConfig environment() {
+    Map<String, String> overrides = new HashMap<>();
+    overrides.put("RABBITMQ_URI", "amqp://in-memory");
+    overrides.put("POSTGRES_URL", "jdbc:postgresql://unused/qg");
+    overrides.put("KEYCLOAK_CLIENT_ID", "replay");
+    overrides.put("KEYCLOAK_CLIENT_SECRET", "replay");
+    overrides.put("TRAFFIC_RECORDING_ENABLED", "false");
+    overrides.put("SHARDING_ENABLED", "false");
+    return EnvironmentConfig.from(overrides);
+  }
+
+  private static void report(
+      int messages, LatencyRecorder latencies, int timedOut, RecordedDecisionDataSource source) {
+    double[] percentiles = latencies.percentilesMillis(50, 90, 99, 99.9, 100);
+    System.out.printf(
+        Locale.ROOT,
+        "%-9s %9s %9s %9s %9s %9s %9s %9s%n",
+        "messages",
+        "answered",
+        "timed-out",
+        "p50(ms)",
+        "p90(ms)",
+        "p99(ms)",
+        "p99.9(ms)",
+        "max(ms)");
+    System.out.printf(
+        Locale.ROOT,
+        "%-9d %9d %9d %9.1f %9.1f %9.1f %9.1f %9.1f%n",
+        messages,
+        latencies.count(),
+        timedOut,
+        percentiles[0],
+        percentiles[1],
+        percentiles[2],
+        percentiles[3],
+        percentiles[4]);
+    System.out.printf(
+        Locale.ROOT,
+        "not in the recording: %d situation(s), %d route(s) estimated in a straight line%n",
+        source.situationMisses(),
+        source.routeMisses());
+  }
+
+  private void diff(
+      Map<String, List<Set<String>>> recorded, Map<String, List<Set<String>>> replayed) {
+    int limit = Integer.parseInt(options.getOrDefault("diff-limit", "20"));
+    int identical = 0;
+    int different = 0;
+    int missing = 0;
+    int extra = 0;
+    List<String> details = new ArrayList<>();
+    Set<String> incidents = new TreeSet<>(recorded.keySet());
+    incidents.addAll(replayed.keySet());
+    for (String incidentId : incidents) {
+      List<Set<String>> expected = recorded.getOrDefault(incidentId, List.of());
+      List<Set<String>> actual = replayed.getOrDefault(incidentId, List.of());
+      for (int i = 0; i < Math.max(expected.size(), actual.size()); i++) {
+        if (i >= actual.size()) {
+          missing++;
+          continue;
+        }
+        if (i >= expected.size()) {
+          extra++;
+          continue;
+        }
+        if (expected.get(i).equals(actual.get(i))) {
+          identical++;
+          continue;
+        }
+        different++;
+        if (details.size() < limit) {
+          details.add(
+              "incident %s #%d: only recorded %s, only replayed %s"
+                  .formatted(
+                      incidentId,
+                      i + 1,
+                      difference(expected.get(i), actual.get(i)),
+                      difference(actual.get(i), expected.get(i))));
+        }
+      }
+    }
+    System.out.printf(
+        Locale.ROOT,
+        "proposals: %d identical, %d different, %d not replayed, %d not recorded%n",
+        identical,
+        different,
+        missing,
+        extra);
+    details.forEach(System.out::println);
+  }
+
+  private static Set<String> difference(Set<String> left, Set<String> right) {
+    Set<String> result = new TreeSet<>(left);
+    result.removeAll(right);
+    return result;
+  }
+}
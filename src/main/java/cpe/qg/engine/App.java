@@ -2,27 +2,61 @@ package cpe.qg.engine;
 
 import cpe.qg.engine.config.EnvironmentConfig;
 import cpe.qg.engine.config.RabbitConfig;
+import cpe.qg.engine.config.TracingConfig;
+import cpe.qg.engine.config.WireFormatConfig;
 import cpe.qg.engine.database.PostgresClient;
+import cpe.qg.engine.decision.api.DecisionDataSource;
 import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.api.ReservationLedger;
+import cpe.qg.engine.decision.api.VehicleScoringStrategy;
+import cpe.qg.engine.decision.impl.CoverageAwareScoringStrategy;
 import cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy;
+import cpe.qg.engine.decision.impl.InstrumentedDecisionDataSource;
+import cpe.qg.engine.decision.impl.RecordingDecisionDataSource;
 import cpe.qg.engine.decision.impl.SdmisDecisionDataSource;
 import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine;
 import cpe.qg.engine.events.EventDispatcher;
 import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.handlers.AssignmentMessageCodec;
 import cpe.qg.engine.handlers.AssignmentRequestHandler;
 import cpe.qg.engine.handlers.EventHandler;
+import cpe.qg.engine.handlers.IncidentEventHandler;
+import cpe.qg.engine.handlers.ProposalOutcomeHandler;
+import cpe.qg.engine.handlers.RequestDeduplicator;
+import cpe.qg.engine.logging.FlightRecorder;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.messaging.PriorityScheduler;
 import cpe.qg.engine.messaging.QueueListener;
 import cpe.qg.engine.messaging.Queues;
 import cpe.qg.engine.messaging.RabbitMqClient;
+import cpe.qg.engine.messaging.ShardTopology;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.metrics.MetricsServer;
+import cpe.qg.engine.profiling.RecordingController;
+import cpe.qg.engine.replay.TrafficRecorder;
 import cpe.qg.engine.sdmis.SdmisApiClient;
 import cpe.qg.engine.sdmis.SdmisApiClientFactory;
+import cpe.qg.engine.service.BacklogMonitor;
 import cpe.qg.engine.service.ConnectivityProbe;
+import cpe.qg.engine.service.EngineWarmup;
+import cpe.qg.engine.service.IncidentPrecomputer;
+import cpe.qg.engine.service.ReadinessGate;
+import cpe.qg.engine.tracing.FileSpanExporter;
+import cpe.qg.engine.tracing.LogSpanExporter;
+import cpe.qg.engine.tracing.SpanExporter;
+import cpe.qg.engine.tracing.Tracer;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
 import org.slf4j.Logger;
 
-/** Application entrypoint. Verifies connectivity and starts the single RabbitMQ listener. */
+/**
+ * Application entrypoint. Verifies connectivity, warms the engine up and starts the single RabbitMQ
+ * listener.
+ */
 public class App {
 
   private static final Logger log = LoggerProvider.getLogger(App.class);
@@ -32,6 +66,9 @@ public class App {
     log.info("Starting QG Java Engine...");
 
     EnvironmentConfig env = EnvironmentConfig.load();
+    LoggerProvider.configure(env.logging());
+    SpanExporter spanExporter = createSpanExporter(env.tracing());
+    Tracer.global().setExporter(spanExporter);
 
     PostgresClient postgresClient = new PostgresClient(env.postgres());
     RabbitConfig rabbitConfig = env.rabbit();
@@ -41,16 +78,66 @@ public class App {
         "RabbitMQ Config: uri={}, durableQueue={}",
         rabbitConfig.uri(),
         rabbitConfig.durableQueue());
-    List<EventHandler> handlers = buildHandlers(env, rabbitConfig, rabbitMqClient);
+    SdmisApiClient sdmisApiClient = SdmisApiClientFactory.create(env, MetricsRegistry.global());
+    TrafficRecorder.global().start(env.trafficRecording());
+    DecisionDataSource sdmisDataSource = new SdmisDecisionDataSource(sdmisApiClient);
+    DecisionDataSource dataSource =
+        new InstrumentedDecisionDataSource(
+            env.trafficRecording().enabled()
+                ? new RecordingDecisionDataSource(sdmisDataSource)
+                : sdmisDataSource);
+    ReservationLedger reservations = new ReservationLedger(env.reservation());
+    BiFunction<DecisionDataSource, MetricsRegistry, DecisionEngine> engineFactory =
+        (source, metrics) ->
+            VehicleAssignmentDecisionEngine.builder(source, createScoringStrategy(env, metrics))
+                .metrics(metrics)
+                .criteria(env.decisionCriteria())
+                .routingPolicy(env.routingPolicy())
+                .requirementSolver(env.requirementSolver())
+                .reservations(reservations)
+                .decisionContext(env.decisionContext())
+                .build();
+    ShardTopology shardTopology = new ShardTopology(env.sharding());
+    BacklogMonitor backlogMonitor =
+        new BacklogMonitor(
+            rabbitMqClient,
+            Stream.concat(Queues.subscriptions().stream(), shardTopology.queues().stream())
+                .toList(),
+            env.loadShedding());
+    DecisionEngine decisionEngine = engineFactory.apply(dataSource, MetricsRegistry.global());
+    IncidentPrecomputer precomputer = new IncidentPrecomputer(decisionEngine, env.precompute());
+    List<EventHandler> handlers =
+        buildHandlers(
+            rabbitConfig,
+            rabbitMqClient,
+            decisionEngine,
+            new RequestDeduplicator(env.deduplication()),
+            backlogMonitor,
+            reservations,
+            precomputer,
+            env.wireFormats());
     EventDispatcher dispatcher = new EventDispatcher(handlers);
+    ReadinessGate readiness = new ReadinessGate();
     QueueListener queueListener =
-        new QueueListener(
-            rabbitMqClient,
-            Queues.subscriptions(),
-            rabbitConfig.durableQueue(),
-            dispatcher,
-            new EventPayloadParser());
+        QueueListener.builder(
+                rabbitMqClient, Queues.subscriptions(), dispatcher, new EventPayloadParser())
+            .durableQueue(rabbitConfig.durableQueue())
+            .readiness(readiness)
+            .scheduler(new PriorityScheduler(env.scheduler()))
+            .shards(shardTopology)
+            .build();
 
+    MetricsServer metricsServer = new MetricsServer(env.metrics(), MetricsRegistry.global());
+    boolean admin = env.metrics().adminEnabled();
+    if (admin && env.logging().flightRecorderSize() > 0) {
+      metricsServer.route("/admin/flight-recorder", FlightRecorder.global()::dump);
+    }
+    RecordingController recordings = new RecordingController(env.profiling());
+    if (admin && env.profiling().enabled()) {
+      metricsServer.action("/admin/jfr/start", recordings::start);
+      metricsServer.action("/admin/jfr/dump", recordings::dump);
+      metricsServer.action("/admin/jfr/stop", recordings::stop);
+    }
     CountDownLatch latch = new CountDownLatch(1);
 
     Runtime.getRuntime()
@@ -58,17 +145,36 @@ public class App {
             new Thread(
                 () -> {
                   log.info("Shutdown signal received. Closing resources...");
+                  closeQuietly(backlogMonitor, "Backlog monitor");
                   closeQuietly(queueListener, "RabbitMQ listener");
+                  closeQuietly(precomputer, "Incident precomputer");
+                  closeQuietly(TrafficRecorder.global(), "Traffic recorder");
                   closeQuietly(postgresClient, "PostgreSQL client");
+                  closeQuietly(metricsServer, "Metrics server");
+                  closeQuietly(recordings, "JFR recording");
+                  closeQuietly(spanExporter, "Span exporter");
+                  log.info("Resources closed");
+                  LoggerProvider.shutdown();
                   latch.countDown();
                 },
                 "qg-shutdown"));
 
     try {
+      metricsServer.start();
       ConnectivityProbe probe = new ConnectivityProbe(postgresClient, rabbitMqClient);
       probe.run();
 
+      EngineWarmup warmup =
+          new EngineWarmup(
+              env.warmup(),
+              // Bypasses the recording and call metrics: warm-up traffic is not production traffic.
+              sdmisDataSource,
+              engineFactory,
+              new EventPayloadParser(),
+              new AssignmentMessageCodec());
+      warmup.start(readiness);
       queueListener.start();
+      backlogMonitor.start();
       log.info(
           "Engine is running. Listening on queues {} for events {}. Press Ctrl+C to exit.",
           Queues.subscriptions(),
@@ -81,17 +187,46 @@ public class App {
     }
   }
 
+  /** Scoring strategy of one engine, whose coverage metrics go to the registry of that engine. */
+  private static VehicleScoringStrategy createScoringStrategy(
+      EnvironmentConfig env, MetricsRegistry metrics) {
+    VehicleScoringStrategy strategy = new DistanceEnergyScoringStrategy();
+    return env.coverage().enabled()
+        ? new CoverageAwareScoringStrategy(strategy, env.coverage(), metrics)
+        : strategy;
+  }
+
+  private static SpanExporter createSpanExporter(TracingConfig config) {
+    return switch (config.exporter()) {
+      case NONE -> SpanExporter.NONE;
+      case LOG -> new LogSpanExporter(config.serviceName());
+      case FILE -> new FileSpanExporter(Path.of(config.file()), config.serviceName());
+    };
+  }
+
   private static List<EventHandler> buildHandlers(
-      EnvironmentConfig env, RabbitConfig rabbitConfig, RabbitMqClient brokerClient) {
-    SdmisApiClient sdmisApiClient = SdmisApiClientFactory.create(env);
-    DecisionEngine decisionEngine =
-        new VehicleAssignmentDecisionEngine(
-            new SdmisDecisionDataSource(sdmisApiClient),
-            new DistanceEnergyScoringStrategy(),
-            env.decisionCriteria());
+      RabbitConfig rabbitConfig,
+      RabbitMqClient brokerClient,
+      DecisionEngine decisionEngine,
+      RequestDeduplicator deduplicator,
+      BacklogMonitor backlogMonitor,
+      ReservationLedger reservations,
+      IncidentPrecomputer precomputer,
+      WireFormatConfig wireFormats) {
     AssignmentRequestHandler assignmentRequestHandler =
-        new AssignmentRequestHandler(brokerClient, rabbitConfig.durableQueue(), decisionEngine);
-    return List.of(assignmentRequestHandler);
+        AssignmentRequestHandler.builder(brokerClient, decisionEngine)
+            .durableQueue(rabbitConfig.durableQueue())
+            .deduplicator(deduplicator)
+            .backlogMonitor(backlogMonitor)
+            .reservations(reservations)
+            .wireFormats(wireFormats)
+            .build();
+    return List.of(
+        assignmentRequestHandler,
+        new ProposalOutcomeHandler(Events.ASSIGNMENT_PROPOSAL_ACCEPTED, reservations, deduplicator),
+        new ProposalOutcomeHandler(Events.ASSIGNMENT_PROPOSAL_REJECTED, reservations, deduplicator),
+        new IncidentEventHandler(Events.INCIDENT_CREATED, precomputer),
+        new IncidentEventHandler(Events.INCIDENT_UPDATED, precomputer));
   }
 
   private static void closeQuietly(AutoCloseable resource, String name) {
@@ -3,6 +3,9 @@ package cpe.qg.engine.auth.keycloak;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import cpe.qg.engine.config.KeycloakConfig;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
 import java.io.IOException;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
@@ -25,6 +28,12 @@ public final class KeycloakTokenProvider {
   private final Clock clock;
   private final Logger log = LoggerProvider.getLogger(KeycloakTokenProvider.class);
   private final Object lock = new Object();
+  private final LatencyHistogram fetchLatency =
+      MetricsRegistry.global()
+          .histogram("qg_keycloak_token_fetch_seconds", "Latency of Keycloak token requests");
+  private final Counter fetchErrors =
+      MetricsRegistry.global()
+          .counter("qg_keycloak_token_fetch_errors_total", "Failed Keycloak token requests");
   private volatile Token cachedToken;
 
   public KeycloakTokenProvider(
@@ -45,9 +54,17 @@ public final class KeycloakTokenProvider {
       if (token != null && token.isValid(clock, config.tokenExpirySkewSeconds())) {
         return token.value();
       }
-      Token refreshed = fetchToken();
-      cachedToken = refreshed;
-      return refreshed.value();
+      long startedAt = System.nanoTime();
+      try {
+        Token refreshed = fetchToken();
+        cachedToken = refreshed;
+        return refreshed.value();
+      } catch (RuntimeException e) {
+        fetchErrors.increment();
+        throw e;
+      } finally {
+        fetchLatency.recordSince(startedAt);
+      }
     }
   }
 
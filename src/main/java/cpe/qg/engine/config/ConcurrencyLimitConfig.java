@@ -0,0 +1,40 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable settings of the adaptive limits on in-flight SDMIS API calls, one limit per endpoint.
+ *
+ * @param initialLimit in-flight calls allowed before any latency has been observed
+ * @param minLimit floor the limit never goes below, however slow the endpoint gets
+ * @param maxLimit ceiling the limit never goes above, however fast the endpoint is
+ * @param queueTimeoutMs time a call waits for a slot before it is rejected
+ * @param maxQueued calls waiting for a slot per endpoint before new ones are rejected at once
+ */
+public record ConcurrencyLimitConfig(
+    boolean enabled,
+    int initialLimit,
+    int minLimit,
+    int maxLimit,
+    long queueTimeoutMs,
+    int maxQueued) {
+
+  public static final ConcurrencyLimitConfig DISABLED =
+      new ConcurrencyLimitConfig(false, 20, 4, 200, 1_000L, 256);
+
+  public ConcurrencyLimitConfig {
+    if (minLimit <= 0) {
+      throw new IllegalArgumentException("minLimit must be positive");
+    }
+    if (maxLimit < minLimit) {
+      throw new IllegalArgumentException("maxLimit must not be below minLimit");
+    }
+    if (initialLimit < minLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("initialLimit must be between minLimit and maxLimit");
+    }
+    if (queueTimeoutMs <= 0) {
+      throw new IllegalArgumentException("queueTimeoutMs must be positive");
+    }
+    if (maxQueued < 0) {
+      throw new IllegalArgumentException("maxQueued must not be negative");
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package cpe.qg.engine.config;
+
+import java.util.Locale;
+
+/** Immutable duplicate assignment request settings loaded from the environment. */
+public record DeduplicationConfig(boolean enabled, long ttlMs, int maxEntries, OnHit onHit) {
+
+  public static final DeduplicationConfig DISABLED =
+      new DeduplicationConfig(false, 10_000L, 1_024, OnHit.REPUBLISH);
+
+  /** What a duplicate does with the proposal computed for the original request. */
+  public enum OnHit {
+    /** Publishes the same proposal again, with the same {@code proposal_id}. */
+    REPUBLISH,
+    /** Publishes nothing. */
+    DROP;
+
+    static OnHit parse(String value) {
+      try {
+        return OnHit.valueOf(value.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "DEDUP_ON_HIT must be one of republish, drop (got '%s')".formatted(value), e);
+      }
+    }
+  }
+
+  public DeduplicationConfig {
+    if (ttlMs <= 0) {
+      throw new IllegalArgumentException("ttlMs must be positive");
+    }
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException("maxEntries must be positive");
+    }
+    if (onHit == null) {
+      throw new IllegalArgumentException("onHit is required");
+    }
+  }
+}
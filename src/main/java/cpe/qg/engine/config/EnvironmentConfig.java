@@ -1,10 +1,21 @@
 package cpe.qg.engine.config;
 
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.ConsumableRequirement;
+import cpe.qg.engine.decision.model.CoverageConfig;
+import cpe.qg.engine.decision.model.DecisionContextConfig;
 import cpe.qg.engine.decision.model.DecisionCriteria;
+import cpe.qg.engine.decision.model.RequirementSolverConfig;
+import cpe.qg.engine.decision.model.ReservationConfig;
+import cpe.qg.engine.decision.model.RoutingPolicy;
+import cpe.qg.engine.messaging.WireFormat;
 import io.github.cdimascio.dotenv.Dotenv;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 
 /** Centralised configuration built from the environment and an optional .env file. */
 public final class EnvironmentConfig {
@@ -13,19 +24,73 @@ public final class EnvironmentConfig {
   private final PostgresConfig postgresConfig;
   private final KeycloakConfig keycloakConfig;
   private final SdmisApiConfig sdmisApiConfig;
+  private final ConcurrencyLimitConfig concurrencyLimitConfig;
   private final DecisionCriteria decisionCriteria;
+  private final WarmupConfig warmupConfig;
+  private final MetricsConfig metricsConfig;
+  private final TracingConfig tracingConfig;
+  private final RoutingPolicy routingPolicy;
+  private final RequirementSolverConfig requirementSolverConfig;
+  private final DeduplicationConfig deduplicationConfig;
+  private final LoadSheddingConfig loadSheddingConfig;
+  private final SchedulerConfig schedulerConfig;
+  private final ShardingConfig shardingConfig;
+  private final ReservationConfig reservationConfig;
+  private final DecisionContextConfig decisionContextConfig;
+  private final PrecomputeConfig precomputeConfig;
+  private final CoverageConfig coverageConfig;
+  private final LoggingConfig loggingConfig;
+  private final ProfilingConfig profilingConfig;
+  private final TrafficRecordingConfig trafficRecordingConfig;
+  private final WireFormatConfig wireFormatConfig;
 
   private EnvironmentConfig(
       RabbitConfig rabbitConfig,
       PostgresConfig postgresConfig,
       KeycloakConfig keycloakConfig,
       SdmisApiConfig sdmisApiConfig,
-      DecisionCriteria decisionCriteria) {
+      ConcurrencyLimitConfig concurrencyLimitConfig,
+      DecisionCriteria decisionCriteria,
+      WarmupConfig warmupConfig,
+      MetricsConfig metricsConfig,
+      TracingConfig tracingConfig,
+      RoutingPolicy routingPolicy,
+      RequirementSolverConfig requirementSolverConfig,
+      DeduplicationConfig deduplicationConfig,
+      LoadSheddingConfig loadSheddingConfig,
+      SchedulerConfig schedulerConfig,
+      ShardingConfig shardingConfig,
+      ReservationConfig reservationConfig,
+      DecisionContextConfig decisionContextConfig,
+      PrecomputeConfig precomputeConfig,
+      CoverageConfig coverageConfig,
+      LoggingConfig loggingConfig,
+      ProfilingConfig profilingConfig,
+      TrafficRecordingConfig trafficRecordingConfig,
+      WireFormatConfig wireFormatConfig) {
     this.rabbitConfig = rabbitConfig;
     this.postgresConfig = postgresConfig;
     this.keycloakConfig = keycloakConfig;
     this.sdmisApiConfig = sdmisApiConfig;
+    this.concurrencyLimitConfig = concurrencyLimitConfig;
     this.decisionCriteria = decisionCriteria;
+    this.warmupConfig = warmupConfig;
+    this.metricsConfig = metricsConfig;
+    this.tracingConfig = tracingConfig;
+    this.routingPolicy = routingPolicy;
+    this.requirementSolverConfig = requirementSolverConfig;
+    this.deduplicationConfig = deduplicationConfig;
+    this.loadSheddingConfig = loadSheddingConfig;
+    this.schedulerConfig = schedulerConfig;
+    this.shardingConfig = shardingConfig;
+    this.reservationConfig = reservationConfig;
+    this.decisionContextConfig = decisionContextConfig;
+    this.precomputeConfig = precomputeConfig;
+    this.coverageConfig = coverageConfig;
+    this.loggingConfig = loggingConfig;
+    this.profilingConfig = profilingConfig;
+    this.trafficRecordingConfig = trafficRecordingConfig;
+    this.wireFormatConfig = wireFormatConfig;
   }
 
   public static EnvironmentConfig load() {
@@ -61,12 +126,223 @@ public final class EnvironmentConfig {
             env.optional("SDMIS_API_BASE_URL", "http://localhost:3001"),
             env.optionalLong("SDMIS_API_TIMEOUT_MS", 5_000L));
 
+    ConcurrencyLimitConfig concurrencyLimit =
+        new ConcurrencyLimitConfig(
+            env.optionalBoolean("SDMIS_LIMIT_ENABLED", false),
+            env.optionalInt("SDMIS_LIMIT_INITIAL", 20),
+            env.optionalInt("SDMIS_LIMIT_MIN", 4),
+            env.optionalInt("SDMIS_LIMIT_MAX", 200),
+            env.optionalLong("SDMIS_LIMIT_QUEUE_TIMEOUT_MS", 1_000L),
+            env.optionalInt("SDMIS_LIMIT_MAX_QUEUED", 256));
+
     DecisionCriteria criteria =
         new DecisionCriteria(
             env.optionalDouble("DECISION_MAX_DISTANCE_KM", null),
-            env.optionalDouble("DECISION_MIN_ENERGY_LEVEL", null));
+            env.optionalDouble("DECISION_MIN_ENERGY_LEVEL", null),
+            parseConsumableRequirements(env.optional("DECISION_MIN_CONSUMABLES", null)));
+
+    WarmupConfig warmup =
+        new WarmupConfig(
+            env.optionalBoolean("WARMUP_ENABLED", true),
+            env.optionalInt("WARMUP_MAX_ITERATIONS", 300),
+            env.optionalLong("WARMUP_MAX_DURATION_MS", 20_000L));
+
+    MetricsConfig metrics =
+        new MetricsConfig(
+            env.optionalBoolean("METRICS_ENABLED", true),
+            env.optionalInt("METRICS_PORT", 9464),
+            env.optionalBoolean("METRICS_ADMIN_ENABLED", false));
+
+    TracingConfig tracing =
+        new TracingConfig(
+            TracingConfig.Exporter.parse(env.optional("TRACING_EXPORTER", "none")),
+            env.optional("TRACING_FILE", "spans/spans.jsonl"),
+            env.optional("TRACING_SERVICE_NAME", "qg-engine"));
+
+    ProfilingConfig profiling =
+        new ProfilingConfig(
+            env.optionalBoolean("JFR_ENABLED", false),
+            env.optional("JFR_DIRECTORY", "recordings"),
+            env.optional("JFR_SETTINGS", "profile"),
+            env.optionalLong("JFR_MAX_AGE_MS", 600_000L));
+
+    TrafficRecordingConfig trafficRecording =
+        new TrafficRecordingConfig(
+            env.optionalBoolean("TRAFFIC_RECORDING_ENABLED", false),
+            env.optional("TRAFFIC_RECORDING_FILE", "recordings/traffic.qgtr"),
+            env.optionalBoolean("TRAFFIC_RECORDING_MAPPED", false));
+
+    WireFormatConfig wireFormats =
+        new WireFormatConfig(parseWireFormats(env.optional("WIRE_FORMATS", null)));
+
+    long deadlineMs = env.optionalLong("DECISION_DEADLINE_MS", 0L);
+    RoutingPolicy routing =
+        new RoutingPolicy(
+            env.optionalInt("ROUTING_MAX_CONCURRENCY", 8), deadlineMs > 0 ? deadlineMs : null);
+
+    RequirementSolverConfig solver =
+        new RequirementSolverConfig(
+            env.optionalBoolean("DECISION_REQUIREMENTS_ENABLED", false),
+            env.optionalLong("DECISION_SOLVER_NODE_LIMIT", 250_000L));
+
+    ReservationConfig reservation =
+        new ReservationConfig(
+            env.optionalBoolean("RESERVATION_ENABLED", false),
+            env.optionalLong("RESERVATION_TTL_MS", 30_000L));
+
+    DecisionContextConfig decisionContext =
+        new DecisionContextConfig(
+            env.optionalBoolean("DECISION_CONTEXT_ENABLED", false),
+            env.optionalInt("DECISION_CONTEXT_MAX_INCIDENTS", 1_024),
+            env.optionalLong("DECISION_CONTEXT_TTL_MS", 120_000L));
+
+    // Precomputed routes are kept in the decision context, without which they would be discarded.
+    PrecomputeConfig precompute =
+        new PrecomputeConfig(
+            env.optionalBoolean("PRECOMPUTE_ENABLED", decisionContext.enabled()),
+            env.optionalInt("PRECOMPUTE_VEHICLE_TYPES", 3),
+            env.optionalLong("PRECOMPUTE_TIMEOUT_MS", 10_000L),
+            env.optionalInt("PRECOMPUTE_QUEUE_CAPACITY", 16));
+    if (precompute.enabled() && !decisionContext.enabled()) {
+      throw new IllegalStateException(
+          "PRECOMPUTE_ENABLED=true requires DECISION_CONTEXT_ENABLED=true");
+    }
+
+    CoverageConfig coverage =
+        new CoverageConfig(
+            env.optionalBoolean("COVERAGE_ENABLED", false),
+            env.optionalDouble("COVERAGE_CELL_KM", 0.5),
+            env.optionalDouble("COVERAGE_TARGET_MIN", 10.0),
+            env.optionalInt("COVERAGE_MIN_VEHICLES", 1),
+            env.optionalDouble("COVERAGE_WEIGHT", 0.5),
+            env.optionalInt("COVERAGE_MAX_CELLS", 250_000));
+
+    LoggingConfig logging =
+        new LoggingConfig(
+            env.optionalBoolean("LOG_ASYNC_ENABLED", false),
+            env.optionalInt("LOG_ASYNC_QUEUE_SIZE", 8_192),
+            env.optionalDouble("LOG_SAMPLE_RATE", 1.0),
+            env.optionalInt("FLIGHT_RECORDER_SIZE", 256));
+
+    DeduplicationConfig deduplication =
+        new DeduplicationConfig(
+            env.optionalBoolean("DEDUP_ENABLED", false),
+            env.optionalLong("DEDUP_TTL_MS", 10_000L),
+            env.optionalInt("DEDUP_MAX_ENTRIES", 1_024),
+            DeduplicationConfig.OnHit.parse(env.optional("DEDUP_ON_HIT", "republish")));
+
+    LoadSheddingConfig shedding =
+        new LoadSheddingConfig(
+            env.optionalBoolean("SHEDDING_ENABLED", false),
+            env.optionalLong("SHEDDING_SAMPLE_INTERVAL_MS", 1_000L),
+            env.optionalInt("SHEDDING_DEGRADE_BACKLOG", 100),
+            env.optionalInt("SHEDDING_RECOVER_BACKLOG", 20),
+            env.optionalLong("SHEDDING_DEGRADE_AGE_MS", 5_000L),
+            env.optionalLong("SHEDDING_RECOVER_AGE_MS", 1_000L),
+            env.optionalLong("SHEDDING_MAX_AGE_MS", 60_000L));
+
+    SchedulerConfig scheduler =
+        new SchedulerConfig(
+            env.optionalBoolean("SCHEDULER_ENABLED", false),
+            env.optionalInt("SCHEDULER_CAPACITY", 64),
+            env.optionalLong("SCHEDULER_AGING_MS", 1_000L),
+            env.optionalInt("SCHEDULER_WORKERS", 1),
+            env.optionalInt("SCHEDULER_DEFAULT_PRIORITY", AssignmentRequest.DEFAULT_PRIORITY));
 
-    return new EnvironmentConfig(rabbit, postgres, keycloak, sdmisApi, criteria);
+    ShardingConfig sharding =
+        new ShardingConfig(
+            env.optionalBoolean("SHARDING_ENABLED", false),
+            env.optional("SHARDING_EXCHANGE", "sdmis_engine.sharded"),
+            env.optionalInt("SHARDING_SHARDS", 8),
+            env.optional(
+                "SHARDING_INSTANCE_ID", env.optional("HOSTNAME", UUID.randomUUID().toString())));
+
+    return new EnvironmentConfig(
+        rabbit,
+        postgres,
+        keycloak,
+        sdmisApi,
+        concurrencyLimit,
+        criteria,
+        warmup,
+        metrics,
+        tracing,
+        routing,
+        solver,
+        deduplication,
+        shedding,
+        scheduler,
+        sharding,
+        reservation,
+        decisionContext,
+        precompute,
+        coverage,
+        logging,
+        profiling,
+        trafficRecording,
+        wireFormats);
+  }
+
+  /**
+   * Parses {@code [vehicleTypeId/]consumableTypeId:minQuantity} entries separated by commas; an
+   * entry without a vehicle type applies to every type.
+   */
+  private static List<ConsumableRequirement> parseConsumableRequirements(String value) {
+    List<ConsumableRequirement> requirements = new ArrayList<>();
+    if (value == null || value.isBlank()) {
+      return requirements;
+    }
+    for (String entry : value.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      try {
+        String[] typeAndQuantity = entry.trim().split(":");
+        if (typeAndQuantity.length != 2) {
+          throw new IllegalArgumentException("expected one ':'");
+        }
+        String[] types = typeAndQuantity[0].trim().split("/");
+        if (types.length > 2) {
+          throw new IllegalArgumentException("expected at most one '/'");
+        }
+        UUID vehicleTypeId = types.length == 2 ? UUID.fromString(types[0].trim()) : null;
+        UUID consumableTypeId = UUID.fromString(types[types.length - 1].trim());
+        requirements.add(
+            new ConsumableRequirement(
+                vehicleTypeId, consumableTypeId, Double.parseDouble(typeAndQuantity[1].trim())));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalStateException(
+            "DECISION_MIN_CONSUMABLES entry '%s' must be [vehicleTypeId/]consumableTypeId:quantity"
+                .formatted(entry.trim()),
+            e);
+      }
+    }
+    return requirements;
+  }
+
+  /** Parses {@code queue:format} entries separated by commas. */
+  private static Map<String, WireFormat> parseWireFormats(String value) {
+    Map<String, WireFormat> formats = new HashMap<>();
+    if (value == null || value.isBlank()) {
+      return formats;
+    }
+    for (String entry : value.split(",")) {
+      if (entry.isBlank()) {
+        continue;
+      }
+      String[] queueAndFormat = entry.trim().split(":");
+      if (queueAndFormat.length != 2 || queueAndFormat[0].isBlank()) {
+        throw new IllegalStateException(
+            "WIRE_FORMATS entry '%s' must be queue:format".formatted(entry.trim()));
+      }
+      try {
+        formats.put(queueAndFormat[0].trim(), WireFormat.parse(queueAndFormat[1]));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalStateException(
+            "WIRE_FORMATS entry '%s': %s".formatted(entry.trim(), e.getMessage()), e);
+      }
+    }
+    return formats;
   }
 
   public RabbitConfig rabbit() {
@@ -85,10 +361,82 @@ public final class EnvironmentConfig {
     return sdmisApiConfig;
   }
 
+  public ConcurrencyLimitConfig concurrencyLimit() {
+    return concurrencyLimitConfig;
+  }
+
   public DecisionCriteria decisionCriteria() {
     return decisionCriteria;
   }
 
+  public WarmupConfig warmup() {
+    return warmupConfig;
+  }
+
+  public MetricsConfig metrics() {
+    return metricsConfig;
+  }
+
+  public TracingConfig tracing() {
+    return tracingConfig;
+  }
+
+  public ProfilingConfig profiling() {
+    return profilingConfig;
+  }
+
+  public TrafficRecordingConfig trafficRecording() {
+    return trafficRecordingConfig;
+  }
+
+  public WireFormatConfig wireFormats() {
+    return wireFormatConfig;
+  }
+
+  public RoutingPolicy routingPolicy() {
+    return routingPolicy;
+  }
+
+  public RequirementSolverConfig requirementSolver() {
+    return requirementSolverConfig;
+  }
+
+  public ReservationConfig reservation() {
+    return reservationConfig;
+  }
+
+  public DecisionContextConfig decisionContext() {
+    return decisionContextConfig;
+  }
+
+  public PrecomputeConfig precompute() {
+    return precomputeConfig;
+  }
+
+  public CoverageConfig coverage() {
+    return coverageConfig;
+  }
+
+  public LoggingConfig logging() {
+    return loggingConfig;
+  }
+
+  public DeduplicationConfig deduplication() {
+    return deduplicationConfig;
+  }
+
+  public LoadSheddingConfig loadShedding() {
+    return loadSheddingConfig;
+  }
+
+  public SchedulerConfig scheduler() {
+    return schedulerConfig;
+  }
+
+  public ShardingConfig sharding() {
+    return shardingConfig;
+  }
+
   /** Lightweight helper to pull variables from .env files with sensible defaults. */
   static final class EnvLoader {
     private final Map<String, String> values;
@@ -0,0 +1,38 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable backlog monitoring and load shedding settings loaded from the environment.
+ *
+ * @param degradeBacklog queued messages at or above which the engine switches to degraded mode
+ * @param recoverBacklog queued messages at or below which it may switch back
+ * @param degradeAgeMs average message age at or above which the engine switches to degraded mode
+ * @param recoverAgeMs average message age at or below which it may switch back
+ * @param maxAgeMs age past which a request is dropped unanswered, {@code 0} to answer every one
+ */
+public record LoadSheddingConfig(
+    boolean enabled,
+    long sampleIntervalMs,
+    int degradeBacklog,
+    int recoverBacklog,
+    long degradeAgeMs,
+    long recoverAgeMs,
+    long maxAgeMs) {
+
+  public static final LoadSheddingConfig DISABLED =
+      new LoadSheddingConfig(false, 1_000L, 100, 20, 5_000L, 1_000L, 0L);
+
+  public LoadSheddingConfig {
+    if (sampleIntervalMs <= 0) {
+      throw new IllegalArgumentException("sampleIntervalMs must be positive");
+    }
+    if (recoverBacklog < 0 || recoverBacklog >= degradeBacklog) {
+      throw new IllegalArgumentException("recoverBacklog must be between 0 and degradeBacklog");
+    }
+    if (recoverAgeMs < 0 || recoverAgeMs >= degradeAgeMs) {
+      throw new IllegalArgumentException("recoverAgeMs must be between 0 and degradeAgeMs");
+    }
+    if (maxAgeMs < 0) {
+      throw new IllegalArgumentException("maxAgeMs must be zero or positive");
+    }
+  }
+}
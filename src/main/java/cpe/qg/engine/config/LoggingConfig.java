@@ -0,0 +1,28 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable logging settings loaded from the environment.
+ *
+ * @param async write log events through a bounded, non-blocking queue instead of on the caller
+ *     thread; events arriving while the queue is full are dropped and counted
+ * @param queueSize events the asynchronous queue holds
+ * @param sampleRate share of messages whose per-message INFO lines are logged, from 0 to 1
+ * @param flightRecorderSize recent payloads and decisions kept in memory, 0 to disable
+ */
+public record LoggingConfig(
+    boolean async, int queueSize, double sampleRate, int flightRecorderSize) {
+
+  public static final LoggingConfig DISABLED = new LoggingConfig(false, 8_192, 1.0, 0);
+
+  public LoggingConfig {
+    if (queueSize <= 0) {
+      throw new IllegalArgumentException("queueSize must be positive");
+    }
+    if (sampleRate < 0 || sampleRate > 1) {
+      throw new IllegalArgumentException("sampleRate must be between 0 and 1");
+    }
+    if (flightRecorderSize < 0) {
+      throw new IllegalArgumentException("flightRecorderSize must not be negative");
+    }
+  }
+}
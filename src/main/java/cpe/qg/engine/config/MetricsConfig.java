@@ -0,0 +1,14 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable metrics endpoint settings loaded from the environment. {@code adminEnabled} also serves
+ * the {@code /admin} routes, which are unauthenticated, on the same port.
+ */
+public record MetricsConfig(boolean enabled, int port, boolean adminEnabled) {
+
+  public MetricsConfig {
+    if (port < 0 || port > 65_535) {
+      throw new IllegalArgumentException("port must be between 0 and 65535");
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable settings of the speculative candidate precomputation run on incident events.
+ *
+ * @param vehicleTypes most requested vehicle types whose candidates are precomputed
+ * @param timeoutMs time after which the routing calls of one precomputation are cancelled
+ * @param queueCapacity incidents waiting for precomputation before new ones are dropped
+ */
+public record PrecomputeConfig(
+    boolean enabled, int vehicleTypes, long timeoutMs, int queueCapacity) {
+
+  public static final PrecomputeConfig DISABLED = new PrecomputeConfig(false, 3, 10_000L, 16);
+
+  public PrecomputeConfig {
+    if (vehicleTypes <= 0) {
+      throw new IllegalArgumentException("vehicleTypes must be positive");
+    }
+    if (timeoutMs <= 0) {
+      throw new IllegalArgumentException("timeoutMs must be positive");
+    }
+    if (queueCapacity <= 0) {
+      throw new IllegalArgumentException("queueCapacity must be positive");
+    }
+  }
+}
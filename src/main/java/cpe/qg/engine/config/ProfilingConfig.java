@@ -0,0 +1,27 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable settings of the JFR recordings started and dumped on demand.
+ *
+ * @param enabled whether the admin routes controlling the recording are exposed
+ * @param directory where recordings are dumped
+ * @param settings JFR configuration the recording starts with, {@code default} or {@code profile}
+ * @param maxAgeMs age after which recorded events are discarded from the running recording
+ */
+public record ProfilingConfig(boolean enabled, String directory, String settings, long maxAgeMs) {
+
+  public static final ProfilingConfig DISABLED =
+      new ProfilingConfig(false, "recordings", "profile", 600_000L);
+
+  public ProfilingConfig {
+    if (directory == null || directory.isBlank()) {
+      throw new IllegalArgumentException("directory is required");
+    }
+    if (settings == null || settings.isBlank()) {
+      throw new IllegalArgumentException("settings is required");
+    }
+    if (maxAgeMs <= 0) {
+      throw new IllegalArgumentException("maxAgeMs must be positive");
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package cpe.qg.engine.config;
+
+import cpe.qg.engine.decision.model.AssignmentRequest;
+
+/**
+ * Immutable settings of the priority scheduler placed between consumption and handling.
+ *
+ * @param capacity messages buffered by the scheduler, also used as the broker prefetch count
+ * @param agingMs wait after which a message is treated as one priority level more urgent
+ * @param workers threads handling messages; more than one lets decisions compete for routing
+ * @param defaultPriority priority of messages carrying neither a payload nor a broker priority
+ */
+public record SchedulerConfig(
+    boolean enabled, int capacity, long agingMs, int workers, int defaultPriority) {
+
+  public static final SchedulerConfig DISABLED =
+      new SchedulerConfig(false, 64, 1_000L, 1, AssignmentRequest.DEFAULT_PRIORITY);
+
+  public SchedulerConfig {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    if (agingMs <= 0) {
+      throw new IllegalArgumentException("agingMs must be positive");
+    }
+    if (workers <= 0) {
+      throw new IllegalArgumentException("workers must be positive");
+    }
+    if (defaultPriority < AssignmentRequest.HIGHEST_PRIORITY
+        || defaultPriority > AssignmentRequest.LOWEST_PRIORITY) {
+      throw new IllegalArgumentException(
+          "defaultPriority must be between %d and %d"
+              .formatted(AssignmentRequest.HIGHEST_PRIORITY, AssignmentRequest.LOWEST_PRIORITY));
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable scale-out settings: incidents are spread over {@code shards} queues by a
+ * consistent-hash exchange, each queue being consumed by a single active engine instance at a time.
+ *
+ * @param exchange consistent-hash exchange to which producers publish with the incident id as
+ *     routing key
+ * @param instanceId stable identity of this instance, which decides the shards it prefers
+ */
+public record ShardingConfig(boolean enabled, String exchange, int shards, String instanceId) {
+
+  public static final ShardingConfig DISABLED =
+      new ShardingConfig(false, "sdmis_engine.sharded", 8, "local");
+
+  public ShardingConfig {
+    if (exchange == null || exchange.isBlank()) {
+      throw new IllegalArgumentException("exchange is required");
+    }
+    if (shards <= 0) {
+      throw new IllegalArgumentException("shards must be positive");
+    }
+    if (instanceId == null || instanceId.isBlank()) {
+      throw new IllegalArgumentException("instanceId is required");
+    }
+  }
+}
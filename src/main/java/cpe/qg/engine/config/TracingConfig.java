@@ -0,0 +1,35 @@
+package cpe.qg.engine.config;
+
+import java.util.Locale;
+
+/** Immutable span export settings loaded from the environment. */
+public record TracingConfig(Exporter exporter, String file, String serviceName) {
+
+  /** Where finished spans are written. */
+  public enum Exporter {
+    NONE,
+    LOG,
+    FILE;
+
+    static Exporter parse(String value) {
+      try {
+        return Exporter.valueOf(value.trim().toUpperCase(Locale.ROOT));
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException(
+            "TRACING_EXPORTER must be one of none, log, file (got '%s')".formatted(value), e);
+      }
+    }
+  }
+
+  public TracingConfig {
+    if (exporter == null) {
+      throw new IllegalArgumentException("exporter is required");
+    }
+    if (exporter == Exporter.FILE && (file == null || file.isBlank())) {
+      throw new IllegalArgumentException("file is required for the file exporter");
+    }
+    if (serviceName == null || serviceName.isBlank()) {
+      throw new IllegalArgumentException("serviceName is required");
+    }
+  }
+}
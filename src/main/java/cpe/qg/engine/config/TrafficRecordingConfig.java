@@ -0,0 +1,21 @@
+package cpe.qg.engine.config;
+
+/**
+ * Immutable settings of the traffic recording used to replay production traffic offline.
+ *
+ * @param file append-only file the consumed messages, published messages and SDMIS responses are
+ *     written to
+ * @param mapped write through a memory-mapped region instead of buffered file writes, so records
+ *     reach the page cache without a system call and survive a crash of the process
+ */
+public record TrafficRecordingConfig(boolean enabled, String file, boolean mapped) {
+
+  public static final TrafficRecordingConfig DISABLED =
+      new TrafficRecordingConfig(false, "recordings/traffic.qgtr", false);
+
+  public TrafficRecordingConfig {
+    if (file == null || file.isBlank()) {
+      throw new IllegalArgumentException("file is required");
+    }
+  }
+}
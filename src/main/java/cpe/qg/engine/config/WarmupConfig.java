@@ -0,0 +1,14 @@
+package cpe.qg.engine.config;
+
+/** Immutable startup warm-up settings loaded from the environment. */
+public record WarmupConfig(boolean enabled, int maxIterations, long maxDurationMs) {
+
+  public WarmupConfig {
+    if (maxIterations < 0) {
+      throw new IllegalArgumentException("maxIterations must be zero or positive");
+    }
+    if (maxDurationMs <= 0) {
+      throw new IllegalArgumentException("maxDurationMs must be positive");
+    }
+  }
+}
@@ -0,0 +1,26 @@
+package cpe.qg.engine.config;
+
+import cpe.qg.engine.messaging.WireFormat;
+import java.util.Map;
+
+/**
+ * Immutable wire format settings. Incoming messages are decoded in the format their content type
+ * announces, whatever this configuration.
+ *
+ * @param publishFormats format of the messages published to each queue; queues not listed get JSON
+ */
+public record WireFormatConfig(Map<String, WireFormat> publishFormats) {
+
+  public static final WireFormatConfig DISABLED = new WireFormatConfig(Map.of());
+
+  public WireFormatConfig {
+    if (publishFormats == null) {
+      throw new IllegalArgumentException("publishFormats is required");
+    }
+    publishFormats = Map.copyOf(publishFormats);
+  }
+
+  public WireFormat format(String queueName) {
+    return publishFormats.getOrDefault(queueName, WireFormat.JSON);
+  }
+}
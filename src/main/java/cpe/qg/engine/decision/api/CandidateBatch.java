@@ -0,0 +1,99 @@
+package cpe.qg.engine.decision.api;
+
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays view of the candidates of one decision, scored in a single pass by {@link
+ * VehicleScoringStrategy#scoreAll(CandidateBatch)}.
+ *
+ * <p>Columns are exposed as their backing arrays, valid up to {@link #size()}. Missing values are
+ * {@link Double#NaN} rather than {@code null}.
+ */
+public final class CandidateBatch {
+
+  private final QGVehicleRead[] vehicles;
+  private final double[] latitudes;
+  private final double[] longitudes;
+  private final double[] distancesKm;
+  private final double[] etaMinutes;
+  private final double[] energyLevels;
+  private final double[] scores;
+  private int size;
+
+  public CandidateBatch(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must be zero or positive");
+    }
+    this.vehicles = new QGVehicleRead[capacity];
+    this.latitudes = new double[capacity];
+    this.longitudes = new double[capacity];
+    this.distancesKm = nanArray(capacity);
+    this.etaMinutes = nanArray(capacity);
+    this.energyLevels = new double[capacity];
+    this.scores = new double[capacity];
+  }
+
+  /**
+   * Appends a candidate positioned at ({@code latitude}, {@code longitude}), {@code NaN} when
+   * unknown, with no distance nor time yet.
+   *
+   * @return the candidate index
+   */
+  public int add(QGVehicleRead vehicle, double latitude, double longitude) {
+    if (size == vehicles.length) {
+      throw new IllegalStateException("Candidate batch is full (" + size + ")");
+    }
+    int index = size++;
+    vehicles[index] = vehicle;
+    latitudes[index] = latitude;
+    longitudes[index] = longitude;
+    energyLevels[index] =
+        vehicle == null || vehicle.energyLevel() == null ? Double.NaN : vehicle.energyLevel();
+    return index;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public QGVehicleRead vehicle(int index) {
+    return vehicles[index];
+  }
+
+  public double[] latitudes() {
+    return latitudes;
+  }
+
+  public double[] longitudes() {
+    return longitudes;
+  }
+
+  public double[] distancesKm() {
+    return distancesKm;
+  }
+
+  public double[] etaMinutes() {
+    return etaMinutes;
+  }
+
+  public double[] energyLevels() {
+    return energyLevels;
+  }
+
+  /** Output column written by {@link VehicleScoringStrategy#scoreAll(CandidateBatch)}. */
+  public double[] scores() {
+    return scores;
+  }
+
+  /** Boxes a column value back to the nullable form used by the per-vehicle API. */
+  public static Double boxed(double value) {
+    return Double.isNaN(value) ? null : value;
+  }
+
+  private static double[] nanArray(int capacity) {
+    double[] values = new double[capacity];
+    Arrays.fill(values, Double.NaN);
+    return values;
+  }
+}
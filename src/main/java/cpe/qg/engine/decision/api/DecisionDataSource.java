@@ -3,10 +3,12 @@ package cpe.qg.engine.decision.api;
 import cpe.qg.engine.decision.model.GeoPoint;
 import cpe.qg.engine.decision.model.TravelEstimate;
 import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
 import cpe.qg.engine.sdmis.dto.QGVehicleRead;
 import java.io.IOException;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /** Abstraction over external data required for decision making. */
 public interface DecisionDataSource {
@@ -16,6 +18,30 @@ public interface DecisionDataSource {
 
   List<QGVehicleRead> listVehicles() throws IOException, InterruptedException;
 
+  /**
+   * Requirement groups of every phase type of the incident. The default reports no planning, which
+   * keeps the engine on the explicit vehicle needs of the request.
+   */
+  default QGResourcePlanningRead getResourcePlanning(UUID incidentId)
+      throws IOException, InterruptedException {
+    return null;
+  }
+
   TravelEstimate estimateTravel(GeoPoint from, GeoPoint to)
       throws IOException, InterruptedException;
+
+  /**
+   * Non-blocking variant of {@link #estimateTravel}. Cancelling the returned future must abort the
+   * underlying call. The default runs the blocking call on the calling thread.
+   */
+  default CompletableFuture<TravelEstimate> estimateTravelAsync(GeoPoint from, GeoPoint to) {
+    try {
+      return CompletableFuture.completedFuture(estimateTravel(from, to));
+    } catch (IOException | RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return CompletableFuture.failedFuture(e);
+    }
+  }
 }
@@ -2,9 +2,22 @@ package cpe.qg.engine.decision.api;
 
 import cpe.qg.engine.decision.model.AssignmentRequest;
 import cpe.qg.engine.decision.model.DecisionResult;
+import java.time.Instant;
+import java.util.UUID;
 
 /** Produces vehicle assignment proposals for an incident. */
 public interface DecisionEngine {
 
   DecisionResult proposeAssignments(AssignmentRequest request);
+
+  /**
+   * Speculatively computes the candidates of the incident for the {@code vehicleTypes} most
+   * requested vehicle types, so that its next request completes from warm data. Routing stops at
+   * the deadline. The default does nothing.
+   *
+   * @return routed estimates kept for the incident
+   */
+  default int precompute(UUID incidentId, int vehicleTypes, Instant deadline) {
+    return 0;
+  }
 }
@@ -0,0 +1,198 @@
+package cpe.qg.engine.decision.api;
+
+import cpe.qg.engine.decision.model.ReservationConfig;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Vehicles tentatively reserved by published proposals that SDMIS has not reflected yet in {@code
+ * referenced_in_pending_proposal}. A reservation lapses after the TTL, or is released when its
+ * proposal is accepted or rejected.
+ *
+ * <p>Lookups are a single {@link ConcurrentHashMap} read per vehicle. Expired entries are removed
+ * when they are looked up and by a sweep run at most once per TTL from {@link #reserve}. Vehicles
+ * are claimed atomically, so of two concurrent decisions for different incidents picking the same
+ * vehicle, only one gets it.
+ */
+public final class ReservationLedger {
+
+  private record Reservation(UUID proposalId, UUID incidentId, long expiresAtNanos) {}
+
+  private final ReservationConfig config;
+  private final long ttlNanos;
+  private final Map<UUID, Reservation> byVehicle = new ConcurrentHashMap<>();
+  private final Map<UUID, List<UUID>> vehiclesByProposal = new ConcurrentHashMap<>();
+  private final AtomicLong nextSweepNanos;
+  private final Counter reserved = outcomeCounter("reserved");
+  private final Counter released = outcomeCounter("released");
+  private final Counter refused = outcomeCounter("refused");
+  private final Counter expired = outcomeCounter("expired");
+
+  public ReservationLedger(ReservationConfig config) {
+    this.config = Objects.requireNonNull(config, "Reservation config is required");
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.ttlMs());
+    this.nextSweepNanos = new AtomicLong(System.nanoTime() + ttlNanos);
+    if (config.enabled()) {
+      MetricsRegistry.global()
+          .gauge("qg_reservations_active", "Vehicles currently reserved by proposals", this::size);
+    }
+  }
+
+  public boolean enabled() {
+    return config.enabled();
+  }
+
+  /**
+   * Reserves {@code vehicleIds} for the proposal, all or none. A vehicle held by a live reservation
+   * for another incident cannot be taken over; one held for the same incident can.
+   *
+   * @return the vehicles held for another incident, empty when the proposal got them all
+   */
+  public Set<UUID> reserve(UUID proposalId, UUID incidentId, Collection<UUID> vehicleIds) {
+    if (!config.enabled() || vehicleIds.isEmpty()) {
+      return Set.of();
+    }
+    long now = System.nanoTime();
+    Reservation reservation = new Reservation(proposalId, incidentId, now + ttlNanos);
+    List<UUID> claimed = new ArrayList<>(vehicleIds.size());
+    Set<UUID> heldForOther = new LinkedHashSet<>();
+    for (UUID vehicleId : vehicleIds) {
+      if (!heldForOther.isEmpty()) {
+        // Already refused: only report the other conflicts, without claiming vehicles that a
+        // concurrent proposal could then be refused.
+        if (reservedForOther(vehicleId, incidentId)) {
+          heldForOther.add(vehicleId);
+        }
+        continue;
+      }
+      Reservation held =
+          byVehicle.compute(
+              vehicleId,
+              (id, current) ->
+                  current == null
+                          || now - current.expiresAtNanos() >= 0
+                          || current.incidentId().equals(incidentId)
+                      ? reservation
+                      : current);
+      if (held == reservation) {
+        claimed.add(vehicleId);
+      } else {
+        heldForOther.add(vehicleId);
+      }
+    }
+    if (!heldForOther.isEmpty()) {
+      claimed.forEach(vehicleId -> byVehicle.remove(vehicleId, reservation));
+      refused.add(heldForOther.size());
+      return heldForOther;
+    }
+    vehiclesByProposal.put(proposalId, List.copyOf(vehicleIds));
+    reserved.add(vehicleIds.size());
+    long nextSweep = nextSweepNanos.get();
+    if (now - nextSweep >= 0 && nextSweepNanos.compareAndSet(nextSweep, now + ttlNanos)) {
+      sweep(now);
+    }
+    return Set.of();
+  }
+
+  /** Whether the vehicle is reserved by a live proposal for an incident other than this one. */
+  public boolean reservedForOther(UUID vehicleId, UUID incidentId) {
+    if (!config.enabled()) {
+      return false;
+    }
+    Reservation reservation = byVehicle.get(vehicleId);
+    if (reservation == null) {
+      return false;
+    }
+    if (System.nanoTime() - reservation.expiresAtNanos() >= 0) {
+      if (byVehicle.remove(vehicleId, reservation)) {
+        expired.increment();
+      }
+      return false;
+    }
+    return !reservation.incidentId().equals(incidentId);
+  }
+
+  /**
+   * Whether every vehicle of the proposal is still reserved by it; always true when the ledger is
+   * disabled, since nothing is reserved then.
+   */
+  public boolean holds(UUID proposalId) {
+    if (!config.enabled()) {
+      return true;
+    }
+    List<UUID> vehicleIds = vehiclesByProposal.get(proposalId);
+    if (vehicleIds == null) {
+      return false;
+    }
+    long now = System.nanoTime();
+    for (UUID vehicleId : vehicleIds) {
+      Reservation reservation = byVehicle.get(vehicleId);
+      if (reservation == null
+          || !reservation.proposalId().equals(proposalId)
+          || now - reservation.expiresAtNanos() >= 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Whether the vehicle is reserved by a live proposal, for any incident. */
+  public boolean reserved(UUID vehicleId) {
+    return reservedForOther(vehicleId, null);
+  }
+
+  /** Releases the vehicles still reserved by the proposal; returns how many were released. */
+  public int release(UUID proposalId) {
+    List<UUID> vehicleIds = vehiclesByProposal.remove(proposalId);
+    if (vehicleIds == null) {
+      return 0;
+    }
+    int count = 0;
+    for (UUID vehicleId : vehicleIds) {
+      Reservation reservation = byVehicle.get(vehicleId);
+      if (reservation != null
+          && reservation.proposalId().equals(proposalId)
+          && byVehicle.remove(vehicleId, reservation)) {
+        count++;
+      }
+    }
+    released.add(count);
+    return count;
+  }
+
+  public int size() {
+    return byVehicle.size();
+  }
+
+  private void sweep(long now) {
+    byVehicle.forEach(
+        (vehicleId, reservation) -> {
+          if (now - reservation.expiresAtNanos() >= 0 && byVehicle.remove(vehicleId, reservation)) {
+            expired.increment();
+          }
+        });
+    vehiclesByProposal
+        .entrySet()
+        .removeIf(
+            entry ->
+                entry.getValue().stream()
+                    .map(byVehicle::get)
+                    .noneMatch(r -> r != null && r.proposalId().equals(entry.getKey())));
+  }
+
+  private static Counter outcomeCounter(String outcome) {
+    return MetricsRegistry.global()
+        .counter("qg_reservations_total", "Vehicle reservations, by outcome", "outcome", outcome);
+  }
+}
@@ -1,9 +1,38 @@
 package cpe.qg.engine.decision.api;
 
 import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Predicate;
 
 /** Computes a score for a vehicle candidate. */
 public interface VehicleScoringStrategy {
 
   ScoredCandidate score(QGVehicleRead vehicle, Double distanceKm, Double estimatedTimeMin);
+
+  /**
+   * Scores every candidate of the batch into {@link CandidateBatch#scores()}. The default delegates
+   * to {@link #score} per candidate; strategies override it with a primitive loop.
+   */
+  default void scoreAll(CandidateBatch batch) {
+    double[] distances = batch.distancesKm();
+    double[] etas = batch.etaMinutes();
+    double[] scores = batch.scores();
+    for (int i = 0; i < batch.size(); i++) {
+      scores[i] =
+          score(batch.vehicle(i), CandidateBatch.boxed(distances[i]), CandidateBatch.boxed(etas[i]))
+              .score();
+    }
+  }
+
+  /**
+   * Called with every fleet snapshot a decision reads, before scoring, for strategies that keep
+   * fleet-wide state; {@code available} tells which vehicles could still be sent. The default does
+   * nothing.
+   */
+  default void observeFleet(List<QGVehicleRead> vehicles, Predicate<QGVehicleRead> available) {}
+
+  /** Called with the vehicles a decision proposes. The default does nothing. */
+  default void observeDepartures(Collection<UUID> vehicleIds) {}
 }
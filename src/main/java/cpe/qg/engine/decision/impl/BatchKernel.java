@@ -0,0 +1,18 @@
+package cpe.qg.engine.decision.impl;
+
+/**
+ * Primitive loops behind batch scoring. Columns use {@link Double#NaN} for missing values and are
+ * processed over {@code [0, length)}.
+ */
+interface BatchKernel {
+
+  /** Great-circle distance from one point to every ({@code lats[i]}, {@code lons[i]}). */
+  void haversineKm(
+      double fromLat, double fromLon, double[] lats, double[] lons, double[] out, int length);
+
+  /** Same formula as {@link DistanceEnergyScoringStrategy#score}, one candidate per index. */
+  void distanceEnergyScores(
+      double[] distancesKm, double[] etaMinutes, double[] energyLevels, double[] out, int length);
+
+  String name();
+}
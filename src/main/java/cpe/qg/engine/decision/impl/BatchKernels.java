@@ -0,0 +1,40 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.logging.LoggerProvider;
+import org.slf4j.Logger;
+
+/**
+ * Picks the batch kernel once per process: the Vector API one when {@code jdk.incubator.vector} is
+ * resolved and {@code -Dqg.vector.disabled} is not set, the scalar loops otherwise.
+ */
+final class BatchKernels {
+
+  private static final String VECTOR_MODULE = "jdk.incubator.vector";
+  private static final String VECTOR_KERNEL = "cpe.qg.engine.decision.impl.VectorBatchKernel";
+  private static final BatchKernel SELECTED = select();
+
+  private BatchKernels() {}
+
+  static BatchKernel selected() {
+    return SELECTED;
+  }
+
+  private static BatchKernel select() {
+    Logger log = LoggerProvider.getLogger(BatchKernels.class);
+    if (Boolean.getBoolean("qg.vector.disabled")
+        || ModuleLayer.boot().findModule(VECTOR_MODULE).isEmpty()) {
+      log.info("Batch scoring uses the scalar kernel");
+      return new ScalarBatchKernel();
+    }
+    try {
+      // Loaded reflectively so that the class is never resolved without the module.
+      BatchKernel kernel =
+          (BatchKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+      log.info("Batch scoring uses the {} kernel", kernel.name());
+      return kernel;
+    } catch (ReflectiveOperationException | LinkageError e) {
+      log.warn("Vector kernel unavailable, falling back to scalar: {}", e.toString());
+      return new ScalarBatchKernel();
+    }
+  }
+}
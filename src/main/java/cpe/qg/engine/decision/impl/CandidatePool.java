@@ -0,0 +1,237 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine.VehicleCandidate;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Candidates of one decision as rows of the scored {@link CandidateBatch}, grouped by interned
+ * vehicle type, with the allocated rows in a bitset.
+ *
+ * <p>Nothing is sorted up front: {@link #select} extracts the best {@code K} available rows of a
+ * type with a bounded heap, in {@code O(n log K)}, and only the selected rows become {@link
+ * VehicleCandidate} records. Rows rank by score, then time, then distance, missing values last,
+ * then batch order.
+ */
+final class CandidatePool {
+
+  private final CandidateBatch batch;
+  private final Map<UUID, Integer> typeIndexes;
+  private final int[][] rowsByType;
+  private final RouteGeometry[] geometries;
+  private final BitSet approximate;
+  private final BitSet allocated = new BitSet();
+  private final int size;
+
+  /**
+   * @param rowTypes interned type of each batch row, as given by {@link #intern}, or {@code -1} for
+   *     rows that are not candidates
+   * @param approximate rows whose distance and time come from the straight line
+   */
+  CandidatePool(
+      CandidateBatch batch,
+      Map<UUID, Integer> typeIndexes,
+      int[] rowTypes,
+      RouteGeometry[] geometries,
+      BitSet approximate) {
+    this.batch = batch;
+    this.typeIndexes = typeIndexes;
+    this.geometries = geometries;
+    this.approximate = approximate;
+    int[] counts = new int[typeIndexes.size()];
+    int total = 0;
+    for (int row = 0; row < batch.size(); row++) {
+      if (rowTypes[row] >= 0) {
+        counts[rowTypes[row]]++;
+        total++;
+      }
+    }
+    this.size = total;
+    this.rowsByType = new int[counts.length][];
+    for (int type = 0; type < counts.length; type++) {
+      rowsByType[type] = new int[counts[type]];
+      counts[type] = 0;
+    }
+    for (int row = 0; row < batch.size(); row++) {
+      int type = rowTypes[row];
+      if (type >= 0) {
+        rowsByType[type][counts[type]++] = row;
+      }
+    }
+  }
+
+  /** Dense indexes of the vehicle types, as expected by the constructor. */
+  static Map<UUID, Integer> intern(Set<UUID> vehicleTypeIds) {
+    Map<UUID, Integer> indexes = new HashMap<>(vehicleTypeIds.size() * 2);
+    for (UUID vehicleTypeId : vehicleTypeIds) {
+      indexes.put(vehicleTypeId, indexes.size());
+    }
+    return indexes;
+  }
+
+  static CandidatePool empty() {
+    return new CandidatePool(new CandidateBatch(0), Map.of(), new int[0], null, new BitSet());
+  }
+
+  int size() {
+    return size;
+  }
+
+  int size(UUID vehicleTypeId) {
+    Integer type = typeIndexes.get(vehicleTypeId);
+    return type == null ? 0 : rowsByType[type].length;
+  }
+
+  /** Marks the rows of these vehicles as allocated, for vehicles kept from an earlier decision. */
+  void allocate(Collection<UUID> vehicleIds) {
+    if (vehicleIds.isEmpty()) {
+      return;
+    }
+    for (int[] rows : rowsByType) {
+      for (int row : rows) {
+        if (vehicleIds.contains(batch.vehicle(row).vehicleId())) {
+          allocated.set(row);
+        }
+      }
+    }
+  }
+
+  /** Forgets every allocation, so that the same candidates can be selected again. */
+  void clearAllocations() {
+    allocated.clear();
+  }
+
+  /**
+   * Allocates up to {@code needed} of the best available candidates of the type and appends them to
+   * {@code selected}, best first.
+   *
+   * @return the number of candidates selected
+   */
+  int select(UUID vehicleTypeId, int needed, List<VehicleCandidate> selected) {
+    Integer type = typeIndexes.get(vehicleTypeId);
+    if (needed <= 0 || type == null || rowsByType[type].length == 0) {
+      return 0;
+    }
+    int[] rows = rowsByType[type];
+    // Max-heap on rank: the root is the worst of the best rows seen so far.
+    int[] heap = new int[Math.min(needed, rows.length)];
+    int count = 0;
+    for (int row : rows) {
+      if (allocated.get(row)) {
+        continue;
+      }
+      if (count < heap.length) {
+        heap[count] = row;
+        siftUp(heap, count++);
+      } else if (compare(row, heap[0]) < 0) {
+        heap[0] = row;
+        siftDown(heap, 0, count);
+      }
+    }
+    for (int end = count - 1; end > 0; end--) {
+      int worst = heap[0];
+      heap[0] = heap[end];
+      heap[end] = worst;
+      siftDown(heap, 0, end);
+    }
+    for (int i = 0; i < count; i++) {
+      allocated.set(heap[i]);
+      selected.add(candidate(heap[i]));
+    }
+    return count;
+  }
+
+  /** Scores of the available candidates of the type, best first. */
+  double[] availableScores(UUID vehicleTypeId) {
+    Integer type = typeIndexes.get(vehicleTypeId);
+    if (type == null) {
+      return new double[0];
+    }
+    double[] scores = new double[rowsByType[type].length];
+    int count = 0;
+    for (int row : rowsByType[type]) {
+      if (!allocated.get(row)) {
+        scores[count++] = batch.scores()[row];
+      }
+    }
+    Arrays.sort(scores, 0, count);
+    for (int i = 0, j = count - 1; i < j; i++, j--) {
+      double swap = scores[i];
+      scores[i] = scores[j];
+      scores[j] = swap;
+    }
+    return Arrays.copyOf(scores, count);
+  }
+
+  /** Orders rows by descending score, then ascending time and distance, then batch order. */
+  private int compare(int left, int right) {
+    double[] scores = batch.scores();
+    int order = Double.compare(scores[right], scores[left]);
+    if (order == 0) {
+      order = Double.compare(key(batch.etaMinutes()[left]), key(batch.etaMinutes()[right]));
+    }
+    if (order == 0) {
+      order = Double.compare(key(batch.distancesKm()[left]), key(batch.distancesKm()[right]));
+    }
+    return order != 0 ? order : Integer.compare(left, right);
+  }
+
+  private void siftUp(int[] heap, int index) {
+    int row = heap[index];
+    while (index > 0) {
+      int parent = (index - 1) >>> 1;
+      if (compare(row, heap[parent]) <= 0) {
+        break;
+      }
+      heap[index] = heap[parent];
+      index = parent;
+    }
+    heap[index] = row;
+  }
+
+  private void siftDown(int[] heap, int index, int size) {
+    int row = heap[index];
+    int half = size >>> 1;
+    while (index < half) {
+      int child = 2 * index + 1;
+      if (child + 1 < size && compare(heap[child + 1], heap[child]) > 0) {
+        child++;
+      }
+      if (compare(row, heap[child]) >= 0) {
+        break;
+      }
+      heap[index] = heap[child];
+      index = child;
+    }
+    heap[index] = row;
+  }
+
+  private VehicleCandidate candidate(int row) {
+    QGVehicleRead vehicle = batch.vehicle(row);
+    double latitude = batch.latitudes()[row];
+    double longitude = batch.longitudes()[row];
+    return new VehicleCandidate(
+        vehicle,
+        Double.isNaN(latitude) ? null : new GeoPoint(latitude, longitude),
+        CandidateBatch.boxed(batch.distancesKm()[row]),
+        CandidateBatch.boxed(batch.etaMinutes()[row]),
+        geometries == null ? null : geometries[row],
+        batch.scores()[row],
+        approximate.get(row));
+  }
+
+  /** Missing values sort after any known time or distance. */
+  private static double key(double value) {
+    return Double.isNaN(value) ? Double.MAX_VALUE : value;
+  }
+}
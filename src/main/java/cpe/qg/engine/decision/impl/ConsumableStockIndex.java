@@ -0,0 +1,204 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.model.ConsumableRequirement;
+import cpe.qg.engine.sdmis.dto.QGVehicleConsumableStockRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Consumable stocks of a fleet snapshot, parsed once and sorted by quantity per consumable type.
+ * Vehicles are identified by their position in the indexed list, so a query costs one binary search
+ * plus the bits it sets. The index keeps no reference to the vehicles.
+ *
+ * <p>Quantities that do not parse as numbers are treated as missing stock.
+ */
+final class ConsumableStockIndex {
+
+  private final int size;
+  private final Map<UUID, Stocks> stocksByConsumable;
+  private final Map<UUID, BitSet> vehiclesByType;
+  private final int unparsed;
+
+  private ConsumableStockIndex(
+      int size,
+      Map<UUID, Stocks> stocksByConsumable,
+      Map<UUID, BitSet> vehiclesByType,
+      int unparsed) {
+    this.size = size;
+    this.stocksByConsumable = stocksByConsumable;
+    this.vehiclesByType = vehiclesByType;
+    this.unparsed = unparsed;
+  }
+
+  static ConsumableStockIndex build(List<QGVehicleRead> vehicles) {
+    List<QGVehicleRead> source = vehicles == null ? List.of() : vehicles;
+    Map<UUID, StocksBuilder> builders = new HashMap<>();
+    Map<UUID, BitSet> vehiclesByType = new HashMap<>();
+    int unparsed = 0;
+    for (int ordinal = 0; ordinal < source.size(); ordinal++) {
+      QGVehicleRead vehicle = source.get(ordinal);
+      if (vehicle == null) {
+        continue;
+      }
+      if (vehicle.vehicleType() != null && vehicle.vehicleType().vehicleTypeId() != null) {
+        vehiclesByType
+            .computeIfAbsent(vehicle.vehicleType().vehicleTypeId(), ignored -> new BitSet())
+            .set(ordinal);
+      }
+      if (vehicle.consumableStocks() == null) {
+        continue;
+      }
+      for (QGVehicleConsumableStockRead stock : vehicle.consumableStocks()) {
+        if (stock == null
+            || stock.consumableType() == null
+            || stock.consumableType().vehicleConsumableTypeId() == null) {
+          continue;
+        }
+        double quantity = parseQuantity(stock.currentQuantity());
+        if (Double.isNaN(quantity)) {
+          unparsed++;
+          continue;
+        }
+        builders
+            .computeIfAbsent(
+                stock.consumableType().vehicleConsumableTypeId(), ignored -> new StocksBuilder())
+            .add(ordinal, quantity);
+      }
+    }
+    Map<UUID, Stocks> stocksByConsumable = new HashMap<>();
+    builders.forEach((consumable, builder) -> stocksByConsumable.put(consumable, builder.build()));
+    return new ConsumableStockIndex(source.size(), stocksByConsumable, vehiclesByType, unparsed);
+  }
+
+  int unparsedQuantities() {
+    return unparsed;
+  }
+
+  /** Positions of the vehicles carrying at least {@code minQuantity} of the consumable. */
+  BitSet atLeast(UUID consumableTypeId, double minQuantity) {
+    BitSet matches = new BitSet(size);
+    Stocks stocks = stocksByConsumable.get(consumableTypeId);
+    if (stocks == null) {
+      return matches;
+    }
+    for (int i = stocks.lowerBound(minQuantity); i < stocks.ordinals.length; i++) {
+      matches.set(stocks.ordinals[i]);
+    }
+    return matches;
+  }
+
+  /**
+   * Positions of the vehicles failing at least one requirement that applies to their type, or
+   * {@code null} when there is no requirement.
+   */
+  BitSet excluded(List<ConsumableRequirement> requirements) {
+    if (requirements == null || requirements.isEmpty()) {
+      return null;
+    }
+    BitSet excluded = new BitSet(size);
+    for (ConsumableRequirement requirement : requirements) {
+      BitSet concerned;
+      if (requirement.vehicleTypeId() == null) {
+        concerned = new BitSet(size);
+        concerned.set(0, size);
+      } else {
+        concerned =
+            (BitSet) vehiclesByType.getOrDefault(requirement.vehicleTypeId(), new BitSet()).clone();
+      }
+      concerned.andNot(atLeast(requirement.consumableTypeId(), requirement.minQuantity()));
+      excluded.or(concerned);
+    }
+    return excluded;
+  }
+
+  private static double parseQuantity(String value) {
+    if (value == null || value.isBlank()) {
+      return Double.NaN;
+    }
+    try {
+      return Double.parseDouble(value.trim());
+    } catch (NumberFormatException e) {
+      return Double.NaN;
+    }
+  }
+
+  /** Quantities in ascending order with the vehicle position of each. */
+  private record Stocks(double[] quantities, int[] ordinals) {
+
+    /** First position whose quantity is at least {@code minQuantity}. */
+    int lowerBound(double minQuantity) {
+      int low = 0;
+      int high = quantities.length;
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (quantities[mid] < minQuantity) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+  }
+
+  private static final class StocksBuilder {
+    private int[] ordinals = new int[8];
+    private double[] quantities = new double[8];
+    private int size;
+
+    void add(int ordinal, double quantity) {
+      if (size == ordinals.length) {
+        ordinals = Arrays.copyOf(ordinals, size * 2);
+        quantities = Arrays.copyOf(quantities, size * 2);
+      }
+      ordinals[size] = ordinal;
+      quantities[size] = quantity;
+      size++;
+    }
+
+    /** Heap-sorts both arrays together by quantity, without boxing. */
+    Stocks build() {
+      double[] sortedQuantities = Arrays.copyOf(quantities, size);
+      int[] sortedOrdinals = Arrays.copyOf(ordinals, size);
+      for (int root = size / 2 - 1; root >= 0; root--) {
+        siftDown(sortedQuantities, sortedOrdinals, root, size);
+      }
+      for (int end = size - 1; end > 0; end--) {
+        swap(sortedQuantities, sortedOrdinals, 0, end);
+        siftDown(sortedQuantities, sortedOrdinals, 0, end);
+      }
+      return new Stocks(sortedQuantities, sortedOrdinals);
+    }
+
+    private static void siftDown(double[] quantities, int[] ordinals, int root, int end) {
+      while (true) {
+        int child = 2 * root + 1;
+        if (child >= end) {
+          return;
+        }
+        if (child + 1 < end && quantities[child + 1] > quantities[child]) {
+          child++;
+        }
+        if (quantities[root] >= quantities[child]) {
+          return;
+        }
+        swap(quantities, ordinals, root, child);
+        root = child;
+      }
+    }
+
+    private static void swap(double[] quantities, int[] ordinals, int i, int j) {
+      double quantity = quantities[i];
+      quantities[i] = quantities[j];
+      quantities[j] = quantity;
+      int ordinal = ordinals[i];
+      ordinals[i] = ordinals[j];
+      ordinals[j] = ordinal;
+    }
+  }
+}
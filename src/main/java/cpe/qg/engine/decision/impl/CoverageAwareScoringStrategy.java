@@ -0,0 +1,82 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.decision.api.ScoredCandidate;
+import cpe.qg.engine.decision.api.VehicleScoringStrategy;
+import cpe.qg.engine.decision.model.CoverageConfig;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Scores candidates with a delegate strategy, then lowers the score of those whose departure would
+ * leave part of the area they cover under-covered for their type: by {@code weight} times the share
+ * of their reachable cells that would drop under {@code minVehicles}. A vehicle that is the last
+ * one able to reach its district within the target time thus gives way to one from a better covered
+ * district.
+ */
+public final class CoverageAwareScoringStrategy implements VehicleScoringStrategy {
+
+  private final VehicleScoringStrategy delegate;
+  private final CoverageConfig config;
+  private final CoverageGrid grid;
+  private final Counter penalized;
+
+  public CoverageAwareScoringStrategy(VehicleScoringStrategy delegate, CoverageConfig config) {
+    this(delegate, config, MetricsRegistry.global());
+  }
+
+  /** Strategy whose grid and counters report to {@code registry}, such as that of its engine. */
+  public CoverageAwareScoringStrategy(
+      VehicleScoringStrategy delegate, CoverageConfig config, MetricsRegistry registry) {
+    this.delegate = Objects.requireNonNull(delegate, "Delegate scoring strategy is required");
+    this.config = Objects.requireNonNull(config, "Coverage config is required");
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.grid =
+        new CoverageGrid(config, VehicleAssignmentDecisionEngine.APPROXIMATE_SPEED_KMH, registry);
+    this.penalized =
+        registry.counter(
+            "qg_coverage_penalized_total",
+            "Candidates whose score was lowered to preserve coverage");
+  }
+
+  @Override
+  public ScoredCandidate score(QGVehicleRead vehicle, Double distanceKm, Double estimatedTimeMin) {
+    ScoredCandidate scored = delegate.score(vehicle, distanceKm, estimatedTimeMin);
+    double loss = vehicle.vehicleId() == null ? 0.0 : grid.departureLoss(vehicle.vehicleId());
+    return loss > 0.0
+        ? new ScoredCandidate(scored.score() * (1.0 - config.weight() * loss))
+        : scored;
+  }
+
+  @Override
+  public void scoreAll(CandidateBatch batch) {
+    delegate.scoreAll(batch);
+    double[] scores = batch.scores();
+    int lowered = 0;
+    for (int i = 0; i < batch.size(); i++) {
+      UUID vehicleId = batch.vehicle(i).vehicleId();
+      double loss = grid.departureLoss(vehicleId);
+      if (loss > 0.0) {
+        scores[i] *= 1.0 - config.weight() * loss;
+        lowered++;
+      }
+    }
+    penalized.add(lowered);
+  }
+
+  @Override
+  public void observeFleet(List<QGVehicleRead> vehicles, Predicate<QGVehicleRead> available) {
+    grid.sync(vehicles, available);
+  }
+
+  @Override
+  public void observeDepartures(Collection<UUID> vehicleIds) {
+    grid.depart(vehicleIds);
+  }
+}
@@ -0,0 +1,309 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.model.CoverageConfig;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.function.Predicate;
+
+/**
+ * Grid over the fleet area counting, per vehicle type and cell, the available vehicles that reach
+ * the cell within the target time in a straight line at the engine's approximate speed.
+ *
+ * <p>Counts are maintained incrementally: a vehicle becoming available, unavailable or moving to
+ * another cell only adds or subtracts one over the precomputed disc of cells it reaches, so an
+ * update costs a few hundred array writes whatever the grid size. The grid bounds are set from the
+ * first fleet snapshot, extended by the reach; vehicles outside them are not counted.
+ */
+final class CoverageGrid {
+
+  private static final double KM_PER_DEGREE = 111.32;
+
+  private final CoverageConfig config;
+  private final double reachKm;
+  private final Map<UUID, Integer> typeIndexes = new HashMap<>();
+  private final List<int[]> countsByType = new ArrayList<>();
+  private final Map<UUID, Tracked> tracked = new HashMap<>();
+  private final LatencyHistogram updateLatency;
+  private final Counter updates;
+  private double minLatitude;
+  private double minLongitude;
+  private double cellLatitudeDegrees;
+  private double cellLongitudeDegrees;
+  private int rows;
+  private int columns;
+  private int[] discRows;
+  private int[] discColumns;
+  private long epoch;
+
+  CoverageGrid(CoverageConfig config, double speedKmh) {
+    this(config, speedKmh, MetricsRegistry.global());
+  }
+
+  CoverageGrid(CoverageConfig config, double speedKmh, MetricsRegistry registry) {
+    this.config = Objects.requireNonNull(config, "Coverage config is required");
+    this.reachKm = speedKmh * config.targetMinutes() / 60.0;
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.updateLatency =
+        registry.histogram("qg_coverage_update_seconds", "Duration of one coverage grid update");
+    this.updates =
+        registry.counter(
+            "qg_coverage_updates_total", "Vehicles added, moved or removed in the grid");
+    registry.gauge("qg_coverage_cells", "Cells of the coverage grid", this::cells);
+    registry.gauge(
+        "qg_coverage_vehicles",
+        "Available vehicles counted in the coverage grid",
+        this::trackedVehicles);
+  }
+
+  /**
+   * Brings the counts in line with a fleet snapshot: vehicles are counted while {@code available}
+   * holds for them, in the cell of their current position or else their base. Vehicles missing from
+   * the snapshot are removed.
+   */
+  synchronized void sync(List<QGVehicleRead> vehicles, Predicate<QGVehicleRead> available) {
+    if (vehicles == null || vehicles.isEmpty()) {
+      return;
+    }
+    if (discRows == null && !initialize(vehicles)) {
+      return;
+    }
+    long current = ++epoch;
+    for (QGVehicleRead vehicle : vehicles) {
+      if (vehicle == null
+          || vehicle.vehicleId() == null
+          || vehicle.vehicleType() == null
+          || vehicle.vehicleType().vehicleTypeId() == null) {
+        continue;
+      }
+      int cell = available.test(vehicle) ? cellOf(vehicle) : -1;
+      Tracked entry = tracked.get(vehicle.vehicleId());
+      if (entry != null) {
+        entry.epoch = current;
+        if (entry.cell == cell) {
+          continue;
+        }
+        long startedAt = System.nanoTime();
+        apply(entry.type, entry.cell, -1);
+        if (cell < 0) {
+          tracked.remove(vehicle.vehicleId());
+        } else {
+          entry.cell = cell;
+          apply(entry.type, cell, 1);
+        }
+        recordUpdate(startedAt);
+      } else if (cell >= 0) {
+        long startedAt = System.nanoTime();
+        int type = typeIndex(vehicle.vehicleType().vehicleTypeId());
+        tracked.put(vehicle.vehicleId(), new Tracked(type, cell, current));
+        apply(type, cell, 1);
+        recordUpdate(startedAt);
+      }
+    }
+    tracked
+        .values()
+        .removeIf(
+            entry -> {
+              if (entry.epoch == current) {
+                return false;
+              }
+              long startedAt = System.nanoTime();
+              apply(entry.type, entry.cell, -1);
+              recordUpdate(startedAt);
+              return true;
+            });
+  }
+
+  /** Removes vehicles that were just proposed, ahead of the snapshot that will show them busy. */
+  synchronized void depart(Collection<UUID> vehicleIds) {
+    for (UUID vehicleId : vehicleIds) {
+      Tracked entry = tracked.remove(vehicleId);
+      if (entry != null) {
+        long startedAt = System.nanoTime();
+        apply(entry.type, entry.cell, -1);
+        recordUpdate(startedAt);
+      }
+    }
+  }
+
+  /**
+   * Share of the cells the vehicle reaches that would be left with fewer than {@code minVehicles}
+   * of its type if it left, {@code 0} for a vehicle the grid does not count.
+   */
+  synchronized double departureLoss(UUID vehicleId) {
+    Tracked entry = tracked.get(vehicleId);
+    if (entry == null) {
+      return 0.0;
+    }
+    int[] counts = countsByType.get(entry.type);
+    int row = entry.cell / columns;
+    int column = entry.cell % columns;
+    int reached = 0;
+    int lost = 0;
+    for (int k = 0; k < discRows.length; k++) {
+      int r = row + discRows[k];
+      int c = column + discColumns[k];
+      if (r < 0 || r >= rows || c < 0 || c >= columns) {
+        continue;
+      }
+      reached++;
+      if (counts[r * columns + c] <= config.minVehicles()) {
+        lost++;
+      }
+    }
+    return reached == 0 ? 0.0 : (double) lost / reached;
+  }
+
+  /** Available vehicles of the type reaching the point, {@code 0} outside the grid. */
+  synchronized int coverage(UUID vehicleTypeId, double latitude, double longitude) {
+    Integer type = typeIndexes.get(vehicleTypeId);
+    int cell = discRows == null ? -1 : cellOf(latitude, longitude);
+    return type == null || cell < 0 ? 0 : countsByType.get(type)[cell];
+  }
+
+  synchronized int cells() {
+    return rows * columns;
+  }
+
+  synchronized int trackedVehicles() {
+    return tracked.size();
+  }
+
+  /** Sets the bounds around the located vehicles of the snapshot; {@code false} when none is. */
+  private boolean initialize(List<QGVehicleRead> vehicles) {
+    double south = Double.POSITIVE_INFINITY;
+    double north = Double.NEGATIVE_INFINITY;
+    double west = Double.POSITIVE_INFINITY;
+    double east = Double.NEGATIVE_INFINITY;
+    for (QGVehicleRead vehicle : vehicles) {
+      double[] position = vehicle == null ? null : position(vehicle);
+      if (position == null) {
+        continue;
+      }
+      south = Math.min(south, position[0]);
+      north = Math.max(north, position[0]);
+      west = Math.min(west, position[1]);
+      east = Math.max(east, position[1]);
+    }
+    if (south > north) {
+      return false;
+    }
+    double kmPerLongitudeDegree = KM_PER_DEGREE * Math.cos(Math.toRadians((south + north) / 2));
+    double heightKm = (north - south) * KM_PER_DEGREE + 2 * reachKm;
+    double widthKm = (east - west) * kmPerLongitudeDegree + 2 * reachKm;
+    double cellKm = config.cellKm();
+    while (Math.ceil(heightKm / cellKm) * Math.ceil(widthKm / cellKm) > config.maxCells()) {
+      cellKm *= 1.1;
+    }
+    rows = Math.max(1, (int) Math.ceil(heightKm / cellKm));
+    columns = Math.max(1, (int) Math.ceil(widthKm / cellKm));
+    cellLatitudeDegrees = cellKm / KM_PER_DEGREE;
+    cellLongitudeDegrees = cellKm / kmPerLongitudeDegree;
+    minLatitude = south - reachKm / KM_PER_DEGREE;
+    minLongitude = west - reachKm / kmPerLongitudeDegree;
+
+    double reachCells = reachKm / cellKm;
+    int radius = (int) Math.ceil(reachCells);
+    List<int[]> offsets = new ArrayList<>();
+    for (int dr = -radius; dr <= radius; dr++) {
+      for (int dc = -radius; dc <= radius; dc++) {
+        if (dr * dr + dc * dc <= reachCells * reachCells) {
+          offsets.add(new int[] {dr, dc});
+        }
+      }
+    }
+    discRows = offsets.stream().mapToInt(offset -> offset[0]).toArray();
+    discColumns = offsets.stream().mapToInt(offset -> offset[1]).toArray();
+    return true;
+  }
+
+  private int typeIndex(UUID vehicleTypeId) {
+    return typeIndexes.computeIfAbsent(
+        vehicleTypeId,
+        ignored -> {
+          countsByType.add(new int[rows * columns]);
+          return countsByType.size() - 1;
+        });
+  }
+
+  private void apply(int type, int cell, int delta) {
+    int[] counts = countsByType.get(type);
+    int row = cell / columns;
+    int column = cell % columns;
+    for (int k = 0; k < discRows.length; k++) {
+      int r = row + discRows[k];
+      int c = column + discColumns[k];
+      if (r >= 0 && r < rows && c >= 0 && c < columns) {
+        counts[r * columns + c] += delta;
+      }
+    }
+  }
+
+  private int cellOf(QGVehicleRead vehicle) {
+    if (vehicle.currentPosition() != null
+        && vehicle.currentPosition().latitude() != null
+        && vehicle.currentPosition().longitude() != null) {
+      return cellOf(vehicle.currentPosition().latitude(), vehicle.currentPosition().longitude());
+    }
+    if (vehicle.baseInterestPoint() != null
+        && vehicle.baseInterestPoint().latitude() != null
+        && vehicle.baseInterestPoint().longitude() != null) {
+      return cellOf(
+          vehicle.baseInterestPoint().latitude(), vehicle.baseInterestPoint().longitude());
+    }
+    return -1;
+  }
+
+  private int cellOf(double latitude, double longitude) {
+    int row = (int) Math.floor((latitude - minLatitude) / cellLatitudeDegrees);
+    int column = (int) Math.floor((longitude - minLongitude) / cellLongitudeDegrees);
+    if (row < 0 || row >= rows || column < 0 || column >= columns) {
+      return -1;
+    }
+    return row * columns + column;
+  }
+
+  private void recordUpdate(long startedAt) {
+    updateLatency.recordSince(startedAt);
+    updates.increment();
+  }
+
+  /** Current position, else base, as {latitude, longitude}; {@code null} when unknown. */
+  private static double[] position(QGVehicleRead vehicle) {
+    if (vehicle.currentPosition() != null
+        && vehicle.currentPosition().latitude() != null
+        && vehicle.currentPosition().longitude() != null) {
+      return new double[] {
+        vehicle.currentPosition().latitude(), vehicle.currentPosition().longitude()
+      };
+    }
+    if (vehicle.baseInterestPoint() != null
+        && vehicle.baseInterestPoint().latitude() != null
+        && vehicle.baseInterestPoint().longitude() != null) {
+      return new double[] {
+        vehicle.baseInterestPoint().latitude(), vehicle.baseInterestPoint().longitude()
+      };
+    }
+    return null;
+  }
+
+  private static final class Tracked {
+    private final int type;
+    private int cell;
+    private long epoch;
+
+    private Tracked(int type, int cell, long epoch) {
+      this.type = type;
+      this.cell = cell;
+      this.epoch = epoch;
+    }
+  }
+}
@@ -0,0 +1,254 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine.VehicleCandidate;
+import cpe.qg.engine.decision.model.DecisionContextConfig;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Context of the last decision of recently decided incidents: the routed estimates of their
+ * candidates and the vehicles selected for fully served phases. A follow-up request for the same
+ * incident only routes vehicles that are new or moved, and keeps the selection of phases whose
+ * needs did not change.
+ *
+ * <p>A context is bound to the incident location and ignored once the incident moves. Routes and
+ * selections older than the TTL are recomputed. At most {@code maxIncidents} contexts are kept,
+ * least recently stored evicted first.
+ */
+final class DecisionContextCache {
+
+  /** Routed estimate from {@code origin}, with the time the routing call took. */
+  record Route(GeoPoint origin, TravelEstimate estimate, long elapsedNanos, long computedAtNanos) {}
+
+  /** Vehicles selected for a phase that got every vehicle it needed. */
+  record Phase(Map<UUID, Integer> needs, List<VehicleCandidate> selected, long decidedAtNanos) {}
+
+  private record Context(GeoPoint location, Map<UUID, Route> routes, Map<UUID, Phase> phases) {}
+
+  private final DecisionContextConfig config;
+  private final long ttlNanos;
+  private final Map<UUID, Context> contexts;
+  private final Counter hits;
+  private final Counter misses;
+  private final Counter routesReused;
+  private final Counter phasesReused;
+  private final LatencyHistogram saved;
+
+  /** Cache reporting to {@code registry}, the one of the engine that owns it. */
+  DecisionContextCache(DecisionContextConfig config, MetricsRegistry registry) {
+    this.config = Objects.requireNonNull(config, "Decision context config is required");
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.hits = lookupCounter(registry, "hit");
+    this.misses = lookupCounter(registry, "miss");
+    this.routesReused =
+        registry.counter(
+            "qg_decision_context_routes_reused_total",
+            "Routed estimates reused from an earlier decision for the same incident");
+    this.phasesReused =
+        registry.counter(
+            "qg_decision_context_phases_reused_total",
+            "Phase selections kept from an earlier decision for the same incident");
+    this.saved =
+        registry.histogram(
+            "qg_decision_context_saved_seconds",
+            "Routing time of the estimates reused by a decision, per decision with a context");
+    this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(config.ttlMs());
+    this.contexts =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<UUID, Context> eldest) {
+            return size() > config.maxIncidents();
+          }
+        };
+    if (config.enabled()) {
+      registry.gauge(
+          "qg_decision_context_incidents",
+          "Incidents whose last decision context is kept",
+          this::size);
+    }
+  }
+
+  /**
+   * Opens the context of a decision, seeded with what is still valid from the previous decision for
+   * the incident, or {@code null} when the cache is disabled.
+   */
+  Session open(UUID incidentId, GeoPoint location) {
+    return open(incidentId, location, false);
+  }
+
+  /**
+   * Opens the context of a speculative precomputation, which only adds routes: the previous phase
+   * selections are kept as they are, and reuse is not counted.
+   */
+  Session openSpeculative(UUID incidentId, GeoPoint location) {
+    return open(incidentId, location, true);
+  }
+
+  private Session open(UUID incidentId, GeoPoint location, boolean speculative) {
+    if (!config.enabled()) {
+      return null;
+    }
+    Context previous;
+    synchronized (contexts) {
+      previous = contexts.get(incidentId);
+    }
+    if (previous == null || !Objects.equals(previous.location(), location)) {
+      if (!speculative) {
+        misses.increment();
+      }
+      return new Session(location, Map.of(), Map.of(), speculative, false);
+    }
+    if (!speculative) {
+      hits.increment();
+    }
+    long now = System.nanoTime();
+    Map<UUID, Route> routes = new HashMap<>();
+    previous
+        .routes()
+        .forEach(
+            (vehicleId, route) -> {
+              if (now - route.computedAtNanos() < ttlNanos) {
+                routes.put(vehicleId, route);
+              }
+            });
+    Map<UUID, Phase> phases = new HashMap<>();
+    previous
+        .phases()
+        .forEach(
+            (phaseId, phase) -> {
+              if (now - phase.decidedAtNanos() < ttlNanos) {
+                phases.put(phaseId, phase);
+              }
+            });
+    return new Session(location, routes, phases, speculative, true);
+  }
+
+  /** Keeps the context of a completed decision for the next request of the incident. */
+  void store(UUID incidentId, Session session) {
+    if (session == null) {
+      return;
+    }
+    if (session.speculative) {
+      session.previousPhases.forEach(session.phases::putIfAbsent);
+    } else {
+      routesReused.add(session.reusedRoutes);
+      phasesReused.add(session.reusedPhases);
+      if (session.reusedRoutes > 0) {
+        saved.record(session.savedNanos);
+      }
+    }
+    Context context =
+        new Context(session.location, Map.copyOf(session.routes), Map.copyOf(session.phases));
+    synchronized (contexts) {
+      contexts.remove(incidentId);
+      contexts.put(incidentId, context);
+    }
+  }
+
+  int size() {
+    synchronized (contexts) {
+      return contexts.size();
+    }
+  }
+
+  private static Counter lookupCounter(MetricsRegistry registry, String outcome) {
+    return registry.counter(
+        "qg_decision_context_total",
+        "Decisions by whether an earlier context of the incident was found",
+        "outcome",
+        outcome);
+  }
+
+  /**
+   * Context of one decision: reads the previous routes and selections, and collects those of this
+   * decision. Routes may be recorded from routing threads; everything else runs on the deciding
+   * thread.
+   */
+  static final class Session {
+    private final GeoPoint location;
+    private final Map<UUID, Route> routes;
+    private final Map<UUID, Phase> previousPhases;
+    private final Map<UUID, Phase> phases = new LinkedHashMap<>();
+    private final boolean speculative;
+    private final boolean found;
+    private int reusedRoutes;
+    private int reusedPhases;
+    private long savedNanos;
+
+    private Session(
+        GeoPoint location,
+        Map<UUID, Route> previousRoutes,
+        Map<UUID, Phase> previousPhases,
+        boolean speculative,
+        boolean found) {
+      this.location = location;
+      this.routes = new ConcurrentHashMap<>(previousRoutes);
+      this.previousPhases = previousPhases;
+      this.speculative = speculative;
+      this.found = found;
+    }
+
+    /** Estimate routed earlier for the vehicle, provided it has not moved since. */
+    TravelEstimate knownRoute(UUID vehicleId, GeoPoint origin) {
+      Route route = routes.get(vehicleId);
+      if (route == null || !route.origin().equals(origin)) {
+        return null;
+      }
+      reusedRoutes++;
+      savedNanos += route.elapsedNanos();
+      return route.estimate();
+    }
+
+    void recordRoute(UUID vehicleId, GeoPoint origin, TravelEstimate estimate, long elapsedNanos) {
+      routes.put(vehicleId, new Route(origin, estimate, elapsedNanos, System.nanoTime()));
+    }
+
+    /** Selection of the phase in the previous decision, or {@code null}. */
+    Phase previousPhase(UUID incidentPhaseId) {
+      return previousPhases.get(incidentPhaseId);
+    }
+
+    void reusePhase(UUID incidentPhaseId, Phase phase, List<VehicleCandidate> selected) {
+      reusedPhases++;
+      phases.put(incidentPhaseId, new Phase(phase.needs(), selected, phase.decidedAtNanos()));
+    }
+
+    void recordPhase(
+        UUID incidentPhaseId, Map<UUID, Integer> needs, List<VehicleCandidate> selected) {
+      phases.put(
+          incidentPhaseId, new Phase(Map.copyOf(needs), List.copyOf(selected), System.nanoTime()));
+    }
+
+    /** Whether a previous context of the incident at the same location was found. */
+    boolean found() {
+      return found;
+    }
+
+    int knownRoutes() {
+      return routes.size();
+    }
+
+    int reusedRoutes() {
+      return reusedRoutes;
+    }
+
+    int reusedPhases() {
+      return reusedPhases;
+    }
+
+    long savedNanos() {
+      return savedNanos;
+    }
+  }
+}
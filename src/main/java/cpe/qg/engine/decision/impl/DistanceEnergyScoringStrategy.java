@@ -1,5 +1,6 @@
 package cpe.qg.engine.decision.impl;
 
+import cpe.qg.engine.decision.api.CandidateBatch;
 import cpe.qg.engine.decision.api.ScoredCandidate;
 import cpe.qg.engine.decision.api.VehicleScoringStrategy;
 import cpe.qg.engine.sdmis.dto.QGVehicleRead;
@@ -7,9 +8,20 @@ import cpe.qg.engine.sdmis.dto.QGVehicleRead;
 /** Basic scoring based on distance/time to the incident and vehicle energy level. */
 public final class DistanceEnergyScoringStrategy implements VehicleScoringStrategy {
 
-  private static final double DISTANCE_WEIGHT = 0.4;
-  private static final double TIME_WEIGHT = 0.4;
-  private static final double ENERGY_WEIGHT = 0.2;
+  static final double DISTANCE_WEIGHT = 0.4;
+  static final double TIME_WEIGHT = 0.4;
+  static final double ENERGY_WEIGHT = 0.2;
+
+  private final BatchKernel kernel;
+
+  public DistanceEnergyScoringStrategy() {
+    this(BatchKernels.selected());
+  }
+
+  /** Package-private so that kernels can be compared side by side. */
+  DistanceEnergyScoringStrategy(BatchKernel kernel) {
+    this.kernel = kernel;
+  }
 
   @Override
   public ScoredCandidate score(QGVehicleRead vehicle, Double distanceKm, Double estimatedTimeMin) {
@@ -36,6 +48,16 @@ public final class DistanceEnergyScoringStrategy implements VehicleScoringStrate
     return new ScoredCandidate(score);
   }
 
+  @Override
+  public void scoreAll(CandidateBatch batch) {
+    kernel.distanceEnergyScores(
+        batch.distancesKm(),
+        batch.etaMinutes(),
+        batch.energyLevels(),
+        batch.scores(),
+        batch.size());
+  }
+
   private double invertPositive(Double value) {
     if (value == null) {
       return 0.0;
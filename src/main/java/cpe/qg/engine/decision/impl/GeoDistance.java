@@ -0,0 +1,31 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+
+/** Great-circle distance helpers shared by the decision engine and its tooling. */
+public final class GeoDistance {
+
+  private static final double EARTH_RADIUS_KM = 6371.0;
+
+  private GeoDistance() {}
+
+  public static double haversineKm(GeoPoint from, GeoPoint to) {
+    return haversineKm(from.latitude(), from.longitude(), to.latitude(), to.longitude());
+  }
+
+  public static double haversineKm(double fromLat, double fromLon, double toLat, double toLon) {
+    double lat1 = Math.toRadians(fromLat);
+    double lon1 = Math.toRadians(fromLon);
+    double lat2 = Math.toRadians(toLat);
+    double lon2 = Math.toRadians(toLon);
+
+    double dLat = lat2 - lat1;
+    double dLon = lon2 - lon1;
+
+    double a =
+        Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    return EARTH_RADIUS_KM * c;
+  }
+}
@@ -0,0 +1,164 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.profiling.DataSourceCallEvent;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator recording the latency and failures of every decision data source call, as metrics and
+ * as {@link DataSourceCallEvent} JFR events.
+ */
+public final class InstrumentedDecisionDataSource implements DecisionDataSource {
+
+  private static final String LATENCY = "qg_datasource_call_seconds";
+  private static final String LATENCY_HELP = "Latency of decision data source calls";
+  private static final String ERRORS = "qg_datasource_call_errors_total";
+  private static final String ERRORS_HELP = "Failed decision data source calls";
+
+  private final DecisionDataSource delegate;
+  private final LatencyHistogram situationLatency;
+  private final LatencyHistogram vehiclesLatency;
+  private final LatencyHistogram routeLatency;
+  private final LatencyHistogram planningLatency;
+  private final Counter situationErrors;
+  private final Counter vehiclesErrors;
+  private final Counter routeErrors;
+  private final Counter planningErrors;
+
+  public InstrumentedDecisionDataSource(DecisionDataSource delegate) {
+    this(delegate, MetricsRegistry.global());
+  }
+
+  public InstrumentedDecisionDataSource(DecisionDataSource delegate, MetricsRegistry registry) {
+    this.delegate = Objects.requireNonNull(delegate, "Decision data source is required");
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.situationLatency = registry.histogram(LATENCY, LATENCY_HELP, "call", "situation");
+    this.vehiclesLatency = registry.histogram(LATENCY, LATENCY_HELP, "call", "vehicles");
+    this.routeLatency = registry.histogram(LATENCY, LATENCY_HELP, "call", "route");
+    this.situationErrors = registry.counter(ERRORS, ERRORS_HELP, "call", "situation");
+    this.vehiclesErrors = registry.counter(ERRORS, ERRORS_HELP, "call", "vehicles");
+    this.routeErrors = registry.counter(ERRORS, ERRORS_HELP, "call", "route");
+    this.planningLatency = registry.histogram(LATENCY, LATENCY_HELP, "call", "planning");
+    this.planningErrors = registry.counter(ERRORS, ERRORS_HELP, "call", "planning");
+  }
+
+  @Override
+  public QGIncidentSituationRead getIncidentSituation(UUID incidentId)
+      throws IOException, InterruptedException {
+    long startedAt = System.nanoTime();
+    DataSourceCallEvent event = beginEvent();
+    boolean failed = false;
+    try {
+      return delegate.getIncidentSituation(incidentId);
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      situationErrors.increment();
+      throw e;
+    } finally {
+      situationLatency.recordSince(startedAt);
+      commitEvent(event, "situation", incidentId, failed);
+    }
+  }
+
+  @Override
+  public QGResourcePlanningRead getResourcePlanning(UUID incidentId)
+      throws IOException, InterruptedException {
+    long startedAt = System.nanoTime();
+    DataSourceCallEvent event = beginEvent();
+    boolean failed = false;
+    try {
+      return delegate.getResourcePlanning(incidentId);
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      planningErrors.increment();
+      throw e;
+    } finally {
+      planningLatency.recordSince(startedAt);
+      commitEvent(event, "planning", incidentId, failed);
+    }
+  }
+
+  @Override
+  public List<QGVehicleRead> listVehicles() throws IOException, InterruptedException {
+    long startedAt = System.nanoTime();
+    DataSourceCallEvent event = beginEvent();
+    boolean failed = false;
+    try {
+      return delegate.listVehicles();
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      vehiclesErrors.increment();
+      throw e;
+    } finally {
+      vehiclesLatency.recordSince(startedAt);
+      commitEvent(event, "vehicles", null, failed);
+    }
+  }
+
+  @Override
+  public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to)
+      throws IOException, InterruptedException {
+    long startedAt = System.nanoTime();
+    DataSourceCallEvent event = beginEvent();
+    boolean failed = false;
+    try {
+      return delegate.estimateTravel(from, to);
+    } catch (IOException | RuntimeException e) {
+      failed = true;
+      routeErrors.increment();
+      throw e;
+    } finally {
+      routeLatency.recordSince(startedAt);
+      commitEvent(event, "route", null, failed);
+    }
+  }
+
+  /** Returns the delegate's future unchanged so that cancelling it still aborts the call. */
+  @Override
+  public CompletableFuture<TravelEstimate> estimateTravelAsync(GeoPoint from, GeoPoint to) {
+    long startedAt = System.nanoTime();
+    DataSourceCallEvent event = beginEvent();
+    CompletableFuture<TravelEstimate> estimate = delegate.estimateTravelAsync(from, to);
+    estimate.whenComplete(
+        (value, error) -> {
+          if (estimate.isCancelled()) {
+            return;
+          }
+          if (error != null) {
+            routeErrors.increment();
+          }
+          routeLatency.recordSince(startedAt);
+          commitEvent(event, "route", null, error != null);
+        });
+    return estimate;
+  }
+
+  private static DataSourceCallEvent beginEvent() {
+    DataSourceCallEvent event = new DataSourceCallEvent();
+    event.begin();
+    return event;
+  }
+
+  private static void commitEvent(
+      DataSourceCallEvent event, String call, UUID incidentId, boolean failed) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.call = call;
+      event.incidentId = incidentId == null ? null : incidentId.toString();
+      event.failed = failed;
+      event.commit();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package cpe.qg.engine.decision.impl;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Counting semaphore that hands released permits to the most urgent waiter first, lowest priority
+ * value first and then in arrival order, so that urgent decisions overtake routing calls already
+ * queued by less urgent ones.
+ */
+final class PriorityPermits {
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final PriorityQueue<Waiter> waiters =
+      new PriorityQueue<>(
+          Comparator.comparingInt(Waiter::priority).thenComparingLong(Waiter::sequence));
+  private int available;
+  private long sequence;
+
+  PriorityPermits(int permits) {
+    if (permits <= 0) {
+      throw new IllegalArgumentException("permits must be positive");
+    }
+    this.available = permits;
+  }
+
+  void acquire(int priority) throws InterruptedException {
+    tryAcquire(priority, Long.MAX_VALUE);
+  }
+
+  /**
+   * @return {@code false} when no permit was granted within {@code timeoutNanos}
+   */
+  boolean tryAcquire(int priority, long timeoutNanos) throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      if (available > 0 && waiters.isEmpty()) {
+        available--;
+        return true;
+      }
+      if (timeoutNanos <= 0) {
+        return false;
+      }
+      Waiter waiter = new Waiter(priority, sequence++, lock.newCondition());
+      waiters.add(waiter);
+      long remaining = timeoutNanos;
+      try {
+        while (waiters.peek() != waiter || available == 0) {
+          if (remaining <= 0) {
+            return false;
+          }
+          remaining =
+              timeoutNanos == Long.MAX_VALUE
+                  ? awaitForever(waiter.signal())
+                  : waiter.signal().awaitNanos(remaining);
+        }
+        available--;
+        return true;
+      } finally {
+        waiters.remove(waiter);
+        signalHead();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  void release() {
+    lock.lock();
+    try {
+      available++;
+      signalHead();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  int availablePermits() {
+    lock.lock();
+    try {
+      return available;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static long awaitForever(Condition condition) throws InterruptedException {
+    condition.await();
+    return Long.MAX_VALUE;
+  }
+
+  private void signalHead() {
+    Waiter head = waiters.peek();
+    if (head != null && available > 0) {
+      head.signal().signal();
+    }
+  }
+
+  private record Waiter(int priority, long sequence, Condition signal) {}
+}
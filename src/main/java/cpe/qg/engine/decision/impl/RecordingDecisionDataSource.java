@@ -0,0 +1,86 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.replay.TrafficRecord;
+import cpe.qg.engine.replay.TrafficRecorder;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decorator writing every successful response of the delegate to the traffic recording, for a
+ * replay to serve the same answers. Failed and cancelled calls are not recorded.
+ */
+public final class RecordingDecisionDataSource implements DecisionDataSource {
+
+  private final DecisionDataSource delegate;
+  private final TrafficRecorder recorder;
+
+  public RecordingDecisionDataSource(DecisionDataSource delegate) {
+    this(delegate, TrafficRecorder.global());
+  }
+
+  public RecordingDecisionDataSource(DecisionDataSource delegate, TrafficRecorder recorder) {
+    this.delegate = Objects.requireNonNull(delegate, "Decision data source is required");
+    this.recorder = Objects.requireNonNull(recorder, "Traffic recorder is required");
+  }
+
+  @Override
+  public QGIncidentSituationRead getIncidentSituation(UUID incidentId)
+      throws IOException, InterruptedException {
+    QGIncidentSituationRead situation = delegate.getIncidentSituation(incidentId);
+    recorder.recordJson(
+        TrafficRecord.Kind.SITUATION, TrafficRecord.incidentKey(incidentId), situation);
+    return situation;
+  }
+
+  @Override
+  public QGResourcePlanningRead getResourcePlanning(UUID incidentId)
+      throws IOException, InterruptedException {
+    QGResourcePlanningRead planning = delegate.getResourcePlanning(incidentId);
+    recorder.recordJson(
+        TrafficRecord.Kind.PLANNING, TrafficRecord.incidentKey(incidentId), planning);
+    return planning;
+  }
+
+  @Override
+  public List<QGVehicleRead> listVehicles() throws IOException, InterruptedException {
+    List<QGVehicleRead> vehicles = delegate.listVehicles();
+    recorder.recordJson(TrafficRecord.Kind.VEHICLES, "", vehicles);
+    return vehicles;
+  }
+
+  @Override
+  public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to)
+      throws IOException, InterruptedException {
+    TravelEstimate estimate = delegate.estimateTravel(from, to);
+    recordRoute(from, to, estimate);
+    return estimate;
+  }
+
+  /** Returns the delegate's future unchanged so that cancelling it still aborts the call. */
+  @Override
+  public CompletableFuture<TravelEstimate> estimateTravelAsync(GeoPoint from, GeoPoint to) {
+    CompletableFuture<TravelEstimate> estimate = delegate.estimateTravelAsync(from, to);
+    estimate.whenComplete(
+        (value, error) -> {
+          if (error == null) {
+            recordRoute(from, to, value);
+          }
+        });
+    return estimate;
+  }
+
+  private void recordRoute(GeoPoint from, GeoPoint to, TravelEstimate estimate) {
+    if (from != null && to != null && from.isDefined() && to.isDefined()) {
+      recorder.recordJson(TrafficRecord.Kind.ROUTE, TrafficRecord.routeKey(from, to), estimate);
+    }
+  }
+}
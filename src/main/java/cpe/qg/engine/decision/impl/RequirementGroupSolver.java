@@ -0,0 +1,438 @@
+package cpe.qg.engine.decision.impl;
+
+import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.RequirementSolution;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGRequirement;
+import cpe.qg.engine.sdmis.dto.QGRequirementGroup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Chooses how many vehicles of each type to send to one phase so that its requirement groups are
+ * met: as many hard groups as possible first, then the fewest vehicles lacking on the others, then
+ * soft groups by priority, then the fewest and most preferred vehicles with the best scores.
+ *
+ * <p>Depth-first branch-and-bound over the count of each vehicle type. A branch is pruned as soon
+ * as the groups it can still satisfy, with the quality reached so far, cannot beat the best
+ * solution found. Types are tried by preference rank with the largest counts first, so the first
+ * leaf is a greedy fill by preference that pruning then improves on.
+ *
+ * <p>A group is satisfied when its total lies within {@code [minTotal, maxTotal]} and each of its
+ * requirements within {@code [minQuantity, maxQuantity]}. Minimum quantities are enforced for rule
+ * {@code ALL} and for mandatory requirements; otherwise any type of the group counts towards {@code
+ * minTotal}, which is how substitutions are expressed.
+ */
+final class RequirementGroupSolver {
+
+  private static final int UNBOUNDED = Integer.MAX_VALUE;
+  private static final int UNRANKED = 100;
+  private static final double PREFERENCE_PENALTY = 0.1;
+  private static final double SCORE_WEIGHT = 0.5;
+
+  private final long nodeLimit;
+  private final LatencyHistogram solveLatency;
+  private final Counter nodesExplored;
+  private final Counter truncated;
+
+  RequirementGroupSolver(long nodeLimit) {
+    this(nodeLimit, MetricsRegistry.global());
+  }
+
+  RequirementGroupSolver(long nodeLimit, MetricsRegistry registry) {
+    if (nodeLimit <= 0) {
+      throw new IllegalArgumentException("nodeLimit must be positive");
+    }
+    this.nodeLimit = nodeLimit;
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.solveLatency =
+        registry.histogram(
+            "qg_requirement_solver_seconds", "Requirement-group solve time per phase");
+    this.nodesExplored =
+        registry.counter(
+            "qg_requirement_solver_nodes_total", "Search nodes explored by the solver");
+    this.truncated =
+        registry.counter(
+            "qg_requirement_solver_truncated_total", "Solves stopped by the node limit");
+  }
+
+  /**
+   * @param scoresByType scores of the still available candidates of each type, best first
+   */
+  RequirementSolution solve(
+      UUID incidentPhaseId, List<QGRequirementGroup> groups, Map<UUID, double[]> scoresByType) {
+    long startedAt = System.nanoTime();
+    Search search = new Search(Problem.of(groups, scoresByType), nodeLimit);
+    search.run();
+    RequirementSolution solution = search.solution(incidentPhaseId, System.nanoTime() - startedAt);
+    solveLatency.record(solution.elapsedNanos());
+    nodesExplored.add(solution.nodesExplored());
+    if (!solution.complete()) {
+      truncated.increment();
+    }
+    return solution;
+  }
+
+  /** Groups and vehicle types flattened into index-based arrays. */
+  private record Problem(
+      List<UUID> types,
+      int[] domain,
+      double[][] gain,
+      Group[] groups,
+      int hardCount,
+      int softCount,
+      int[] preferenceRank) {
+
+    static Problem of(List<QGRequirementGroup> source, Map<UUID, double[]> scoresByType) {
+      Map<UUID, Integer> rankByType = new LinkedHashMap<>();
+      List<QGRequirementGroup> usable = new ArrayList<>();
+      for (QGRequirementGroup group : source == null ? List.<QGRequirementGroup>of() : source) {
+        if (group == null || group.requirements() == null) {
+          continue;
+        }
+        usable.add(group);
+        for (QGRequirement requirement : group.requirements()) {
+          UUID type = typeOf(requirement);
+          if (type != null) {
+            int rank =
+                requirement.preferenceRank() == null ? UNRANKED : requirement.preferenceRank();
+            rankByType.merge(type, rank, Math::min);
+          }
+        }
+      }
+      List<UUID> types = new ArrayList<>(rankByType.keySet());
+      types.sort(
+          Comparator.comparingInt((UUID type) -> rankByType.get(type))
+              .thenComparing(type -> -bestScore(scoresByType.get(type))));
+      Map<UUID, Integer> index = new LinkedHashMap<>();
+      for (int i = 0; i < types.size(); i++) {
+        index.put(types.get(i), i);
+      }
+
+      List<QGRequirementGroup> ordered = new ArrayList<>(usable);
+      // Hard groups first, then soft groups from the most to the least important priority.
+      ordered.sort(
+          Comparator.comparing((QGRequirementGroup group) -> !Boolean.TRUE.equals(group.isHard()))
+              .thenComparingInt(
+                  group -> group.priority() == null ? Integer.MAX_VALUE : group.priority()));
+      Group[] groups = new Group[ordered.size()];
+      int hardCount = 0;
+      for (int g = 0; g < groups.length; g++) {
+        groups[g] = Group.of(ordered.get(g), index, types.size());
+        if (groups[g].hard) {
+          hardCount++;
+        }
+      }
+      int softCount = groups.length - hardCount;
+      for (int g = hardCount; g < groups.length; g++) {
+        int order = g - hardCount;
+        groups[g].softWeight = order >= 62 ? 0L : 1L << (Math.min(softCount, 62) - 1 - order);
+      }
+
+      int[] domain = new int[types.size()];
+      double[][] gain = new double[types.size()][];
+      int[] preferenceRank = new int[types.size()];
+      for (int t = 0; t < types.size(); t++) {
+        double[] scores = scoresByType.getOrDefault(types.get(t), new double[0]);
+        preferenceRank[t] = rankByType.get(types.get(t));
+        int useful = 0;
+        int hardMax = UNBOUNDED;
+        for (Group group : groups) {
+          if (group.contains(t)) {
+            useful = Math.max(useful, group.usefulCount(t));
+            if (group.hard) {
+              hardMax = Math.min(hardMax, group.reqMax[t]);
+            }
+          }
+        }
+        domain[t] = Math.min(scores.length, Math.min(useful, hardMax));
+        gain[t] = new double[domain[t] + 1];
+        double perVehicle = -1.0 - PREFERENCE_PENALTY * Math.max(0, preferenceRank[t] - 1);
+        for (int k = 1; k <= domain[t]; k++) {
+          double score = Math.min(Math.max(scores[k - 1], 0.0), 1.0);
+          gain[t][k] = gain[t][k - 1] + perVehicle + SCORE_WEIGHT * score;
+        }
+      }
+      return new Problem(types, domain, gain, groups, hardCount, softCount, preferenceRank);
+    }
+
+    private static UUID typeOf(QGRequirement requirement) {
+      return requirement == null || requirement.vehicleType() == null
+          ? null
+          : requirement.vehicleType().vehicleTypeId();
+    }
+
+    private static double bestScore(double[] scores) {
+      return scores == null || scores.length == 0 ? Double.NEGATIVE_INFINITY : scores[0];
+    }
+  }
+
+  /** One requirement group over the type indices of the problem. */
+  private static final class Group {
+    private final boolean hard;
+    private final int minTotal;
+    private final int maxTotal;
+    private final boolean[] member;
+    private final int[] reqMin;
+    private final int[] reqMax;
+    private long softWeight;
+
+    private Group(boolean hard, int minTotal, int maxTotal, int typeCount) {
+      this.hard = hard;
+      this.minTotal = minTotal;
+      this.maxTotal = maxTotal;
+      this.member = new boolean[typeCount];
+      this.reqMin = new int[typeCount];
+      this.reqMax = new int[typeCount];
+      Arrays.fill(reqMax, UNBOUNDED);
+    }
+
+    static Group of(QGRequirementGroup source, Map<UUID, Integer> index, int typeCount) {
+      boolean all = "ALL".equalsIgnoreCase(source.rule());
+      int enforcedMins = 0;
+      List<int[]> bounds = new ArrayList<>();
+      for (QGRequirement requirement : source.requirements()) {
+        UUID type = Problem.typeOf(requirement);
+        if (type == null) {
+          continue;
+        }
+        boolean enforced = all || Boolean.TRUE.equals(requirement.mandatory());
+        int min = enforced && requirement.minQuantity() != null ? requirement.minQuantity() : 0;
+        int max = requirement.maxQuantity() == null ? UNBOUNDED : requirement.maxQuantity();
+        bounds.add(new int[] {index.get(type), Math.max(0, min), Math.max(0, max)});
+        enforcedMins += Math.max(0, min);
+      }
+      int minTotal = source.minTotal() == null ? enforcedMins : Math.max(0, source.minTotal());
+      int maxTotal = source.maxTotal() == null ? UNBOUNDED : Math.max(0, source.maxTotal());
+      Group group = new Group(Boolean.TRUE.equals(source.isHard()), minTotal, maxTotal, typeCount);
+      for (int[] bound : bounds) {
+        int t = bound[0];
+        group.member[t] = true;
+        group.reqMin[t] = Math.max(group.reqMin[t], bound[1]);
+        group.reqMax[t] = Math.min(group.reqMax[t], bound[2]);
+      }
+      return group;
+    }
+
+    boolean contains(int type) {
+      return member[type];
+    }
+
+    /** Largest count of {@code type} this group can make use of. */
+    int usefulCount(int type) {
+      int cap = maxTotal != UNBOUNDED ? maxTotal : Math.max(minTotal, reqMin[type]);
+      return Math.min(cap, reqMax[type]);
+    }
+  }
+
+  private static final class Search {
+    private final Problem problem;
+    private final long nodeLimit;
+    private final int[] counts;
+    private final int[] bestCounts;
+    private int bestHard = -1;
+    private long bestShortfall;
+    private long bestSoft;
+    private double bestQuality;
+    private int hard;
+    private long shortfall;
+    private long soft;
+    private long nodes;
+
+    Search(Problem problem, long nodeLimit) {
+      this.problem = problem;
+      this.nodeLimit = nodeLimit;
+      this.counts = new int[problem.types().size()];
+      this.bestCounts = new int[counts.length];
+    }
+
+    void run() {
+      explore(0, 0.0);
+    }
+
+    private void explore(int position, double quality) {
+      if (nodes >= nodeLimit) {
+        return;
+      }
+      nodes++;
+      // At a leaf the evaluation is exact; above it, it bounds every completion of the branch.
+      evaluate(position);
+      if (!better(quality)) {
+        return;
+      }
+      if (position == counts.length) {
+        bestHard = hard;
+        bestShortfall = shortfall;
+        bestSoft = soft;
+        bestQuality = quality;
+        System.arraycopy(counts, 0, bestCounts, 0, counts.length);
+        return;
+      }
+      for (int k = usefulCount(position); k >= 0; k--) {
+        counts[position] = k;
+        explore(position + 1, quality + problem.gain()[position][k]);
+      }
+      counts[position] = 0;
+    }
+
+    /**
+     * Largest count of {@code type} that still serves one of its groups given the counts decided
+     * before it. More vehicles would only lower the quality and risk a group maximum.
+     */
+    private int usefulCount(int type) {
+      int useful = 0;
+      for (Group group : problem.groups()) {
+        if (!group.member[type]) {
+          continue;
+        }
+        long total = 0;
+        for (int t = 0; t < type; t++) {
+          total += group.member[t] ? counts[t] : 0;
+        }
+        useful = (int) Math.max(useful, Math.max(group.reqMin[type], group.minTotal - total));
+      }
+      return Math.min(useful, problem.domain()[type]);
+    }
+
+    /**
+     * Scores the first {@code decided} counts with every other type at its largest useful count:
+     * groups still satisfiable, and the vehicles hard groups would still lack. Adding vehicles only
+     * lowers the quality, so the current quality bounds it.
+     */
+    private void evaluate(int decided) {
+      hard = 0;
+      shortfall = 0;
+      soft = 0;
+      for (Group group : problem.groups()) {
+        boolean ok = satisfied(group, decided);
+        if (group.hard) {
+          hard += ok ? 1 : 0;
+          shortfall += ok ? 0 : shortfall(group, decided);
+        } else if (ok) {
+          soft += group.softWeight;
+        }
+      }
+    }
+
+    /**
+     * @return whether the group is (for {@code decided == counts.length}) or can still be satisfied
+     *     given the counts of the first {@code decided} types
+     */
+    private boolean satisfied(Group group, int decided) {
+      long total = 0;
+      long reachable = 0;
+      for (int t = 0; t < counts.length; t++) {
+        if (!group.member[t]) {
+          continue;
+        }
+        if (t < decided) {
+          if (counts[t] > group.reqMax[t] || counts[t] < group.reqMin[t]) {
+            return false;
+          }
+          total += counts[t];
+        } else {
+          int max = Math.min(problem.domain()[t], group.reqMax[t]);
+          if (max < group.reqMin[t]) {
+            return false;
+          }
+          reachable += max;
+        }
+      }
+      return total <= group.maxTotal && total + reachable >= group.minTotal;
+    }
+
+    /** Vehicles the group lacks against its minimums, undecided types at their largest count. */
+    private long shortfall(Group group, int decided) {
+      long total = 0;
+      long belowMinimums = 0;
+      for (int t = 0; t < counts.length; t++) {
+        if (!group.member[t]) {
+          continue;
+        }
+        int count = t < decided ? counts[t] : problem.domain()[t];
+        total += count;
+        belowMinimums += Math.max(0, group.reqMin[t] - count);
+      }
+      return Math.max(belowMinimums, group.minTotal - total);
+    }
+
+    private boolean better(double quality) {
+      if (hard != bestHard) {
+        return hard > bestHard;
+      }
+      if (shortfall != bestShortfall) {
+        return shortfall < bestShortfall;
+      }
+      if (soft != bestSoft) {
+        return soft > bestSoft;
+      }
+      return quality > bestQuality;
+    }
+
+    RequirementSolution solution(UUID incidentPhaseId, long elapsedNanos) {
+      Map<UUID, Integer> quantities = new LinkedHashMap<>();
+      for (int t = 0; t < bestCounts.length; t++) {
+        if (bestCounts[t] > 0) {
+          quantities.put(problem.types().get(t), bestCounts[t]);
+        }
+      }
+      System.arraycopy(bestCounts, 0, counts, 0, counts.length);
+      List<MissingVehicle> missing = new ArrayList<>();
+      int softSatisfied = 0;
+      for (Group group : problem.groups()) {
+        boolean ok = satisfied(group, counts.length);
+        if (!group.hard) {
+          softSatisfied += ok ? 1 : 0;
+        } else if (!ok) {
+          addShortfall(incidentPhaseId, group, missing);
+        }
+      }
+      return new RequirementSolution(
+          quantities,
+          missing,
+          Math.max(bestHard, 0),
+          problem.hardCount(),
+          softSatisfied,
+          problem.softCount(),
+          nodes,
+          elapsedNanos,
+          nodes < nodeLimit);
+    }
+
+    /** Shortfall per enforced requirement, the rest of the group total on its preferred type. */
+    private void addShortfall(UUID incidentPhaseId, Group group, List<MissingVehicle> missing) {
+      Map<UUID, Integer> missingByType = new LinkedHashMap<>();
+      int total = 0;
+      int shortOnRequirements = 0;
+      int preferred = -1;
+      for (int t = 0; t < counts.length; t++) {
+        if (!group.member[t]) {
+          continue;
+        }
+        total += counts[t];
+        if (preferred < 0 || problem.preferenceRank()[t] < problem.preferenceRank()[preferred]) {
+          preferred = t;
+        }
+        int shortage = group.reqMin[t] - counts[t];
+        if (shortage > 0) {
+          shortOnRequirements += shortage;
+          missingByType.merge(problem.types().get(t), shortage, Integer::sum);
+        }
+      }
+      int remaining = group.minTotal - total - shortOnRequirements;
+      if (remaining > 0 && preferred >= 0) {
+        missingByType.merge(problem.types().get(preferred), remaining, Integer::sum);
+      }
+      missingByType.forEach(
+          (type, quantity) -> missing.add(new MissingVehicle(incidentPhaseId, type, quantity)));
+    }
+  }
+}
@@ -0,0 +1,77 @@
+package cpe.qg.engine.decision.impl;
+
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.DISTANCE_WEIGHT;
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.ENERGY_WEIGHT;
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.TIME_WEIGHT;
+
+/** Plain loops, bit-for-bit equal to the per-object code paths. */
+final class ScalarBatchKernel implements BatchKernel {
+
+  private static final double EARTH_RADIUS_KM = 6371.0;
+
+  @Override
+  public void haversineKm(
+      double fromLat, double fromLon, double[] lats, double[] lons, double[] out, int length) {
+    haversineRange(fromLat, fromLon, lats, lons, out, 0, length);
+  }
+
+  @Override
+  public void distanceEnergyScores(
+      double[] distancesKm, double[] etaMinutes, double[] energyLevels, double[] out, int length) {
+    scoreRange(distancesKm, etaMinutes, energyLevels, out, 0, length);
+  }
+
+  @Override
+  public String name() {
+    return "scalar";
+  }
+
+  static void haversineRange(
+      double fromLat,
+      double fromLon,
+      double[] lats,
+      double[] lons,
+      double[] out,
+      int start,
+      int end) {
+    double lat1 = Math.toRadians(fromLat);
+    double lon1 = Math.toRadians(fromLon);
+    double cosLat1 = Math.cos(lat1);
+    for (int i = start; i < end; i++) {
+      double lat2 = Math.toRadians(lats[i]);
+      double dLat = lat2 - lat1;
+      double dLon = Math.toRadians(lons[i]) - lon1;
+      double sinLat = Math.sin(dLat / 2);
+      double sinLon = Math.sin(dLon / 2);
+      double a = sinLat * sinLat + cosLat1 * Math.cos(lat2) * sinLon * sinLon;
+      out[i] = EARTH_RADIUS_KM * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+    }
+  }
+
+  static void scoreRange(
+      double[] distancesKm,
+      double[] etaMinutes,
+      double[] energyLevels,
+      double[] out,
+      int start,
+      int end) {
+    for (int i = start; i < end; i++) {
+      double distance = distancesKm[i];
+      double eta = etaMinutes[i];
+      double energy = energyLevels[i];
+      double weightSum = ENERGY_WEIGHT;
+      double weightedDistance = 0.0;
+      double weightedTime = 0.0;
+      if (!Double.isNaN(distance)) {
+        weightSum += DISTANCE_WEIGHT;
+        weightedDistance = 1.0 / (1.0 + Math.max(distance, 0.0)) * DISTANCE_WEIGHT;
+      }
+      if (!Double.isNaN(eta)) {
+        weightSum += TIME_WEIGHT;
+        weightedTime = 1.0 / (1.0 + Math.max(eta, 0.0)) * TIME_WEIGHT;
+      }
+      double energyScore = Double.isNaN(energy) ? 0.0 : Math.min(Math.max(energy, 0.0), 1.0);
+      out[i] = (weightedDistance + weightedTime + (energyScore * ENERGY_WEIGHT)) / weightSum;
+    }
+  }
+}
@@ -6,6 +6,7 @@ import cpe.qg.engine.decision.model.RouteGeometry;
 import cpe.qg.engine.decision.model.TravelEstimate;
 import cpe.qg.engine.sdmis.SdmisApiClient;
 import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
 import cpe.qg.engine.sdmis.dto.QGRoutePoint;
 import cpe.qg.engine.sdmis.dto.QGRouteRequest;
 import cpe.qg.engine.sdmis.dto.QGRouteResponse;
@@ -15,10 +16,13 @@ import java.io.IOException;
 import java.util.List;
 import java.util.Objects;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /** SDMIS API-backed data source for decision making. */
 public final class SdmisDecisionDataSource implements DecisionDataSource {
 
+  private static final String ROUTE_PATH = "/geo/route";
+
   private final SdmisApiClient client;
 
   public SdmisDecisionDataSource(SdmisApiClient client) {
@@ -32,6 +36,13 @@ public final class SdmisDecisionDataSource implements DecisionDataSource {
         "/qg/incidents/%s/situation".formatted(incidentId), QGIncidentSituationRead.class);
   }
 
+  @Override
+  public QGResourcePlanningRead getResourcePlanning(UUID incidentId)
+      throws IOException, InterruptedException {
+    return client.getJson(
+        "/qg/incidents/%s/resource-planning".formatted(incidentId), QGResourcePlanningRead.class);
+  }
+
   @Override
   public List<QGVehicleRead> listVehicles() throws IOException, InterruptedException {
     QGVehiclesListRead response = client.getJson("/qg/vehicles", QGVehiclesListRead.class);
@@ -47,12 +58,35 @@ public final class SdmisDecisionDataSource implements DecisionDataSource {
     if (from == null || to == null || !from.isDefined() || !to.isDefined()) {
       return null;
     }
-    QGRouteRequest request =
-        new QGRouteRequest(
-            new QGRoutePoint(from.latitude(), from.longitude()),
-            new QGRoutePoint(to.latitude(), to.longitude()),
-            false);
-    QGRouteResponse response = client.postJson("/geo/route", request, QGRouteResponse.class);
+    return toTravelEstimate(
+        client.postJson(ROUTE_PATH, routeRequest(from, to), QGRouteResponse.class));
+  }
+
+  @Override
+  public CompletableFuture<TravelEstimate> estimateTravelAsync(GeoPoint from, GeoPoint to) {
+    if (from == null || to == null || !from.isDefined() || !to.isDefined()) {
+      return CompletableFuture.completedFuture(null);
+    }
+    CompletableFuture<QGRouteResponse> call =
+        client.postJsonAsync(ROUTE_PATH, routeRequest(from, to), QGRouteResponse.class);
+    CompletableFuture<TravelEstimate> estimate = call.thenApply(this::toTravelEstimate);
+    estimate.whenComplete(
+        (value, error) -> {
+          if (estimate.isCancelled()) {
+            call.cancel(true);
+          }
+        });
+    return estimate;
+  }
+
+  private QGRouteRequest routeRequest(GeoPoint from, GeoPoint to) {
+    return new QGRouteRequest(
+        new QGRoutePoint(from.latitude(), from.longitude()),
+        new QGRoutePoint(to.latitude(), to.longitude()),
+        false);
+  }
+
+  private TravelEstimate toTravelEstimate(QGRouteResponse response) {
     if (response == null) {
       return null;
     }
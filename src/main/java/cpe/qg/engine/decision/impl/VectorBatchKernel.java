@@ -0,0 +1,88 @@
+package cpe.qg.engine.decision.impl;
+
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.DISTANCE_WEIGHT;
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.ENERGY_WEIGHT;
+import static cpe.qg.engine.decision.impl.DistanceEnergyScoringStrategy.TIME_WEIGHT;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@code jdk.incubator.vector} kernel using the widest vector shape of the CPU, with a scalar tail.
+ * Only loaded by {@link BatchKernels} when the module is present ({@code --add-modules
+ * jdk.incubator.vector}). Trigonometric lanes may differ from {@link Math} in the last ulp.
+ */
+final class VectorBatchKernel implements BatchKernel {
+
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+  private static final double EARTH_RADIUS_KM = 6371.0;
+  private static final double DEGREES_TO_RADIANS = Math.PI / 180.0;
+
+  @Override
+  public void haversineKm(
+      double fromLat, double fromLon, double[] lats, double[] lons, double[] out, int length) {
+    double lat1 = Math.toRadians(fromLat);
+    double lon1 = Math.toRadians(fromLon);
+    double cosLat1 = Math.cos(lat1);
+    int bound = SPECIES.loopBound(length);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      DoubleVector lat2 = DoubleVector.fromArray(SPECIES, lats, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector lon2 = DoubleVector.fromArray(SPECIES, lons, i).mul(DEGREES_TO_RADIANS);
+      DoubleVector sinLat = lat2.sub(lat1).mul(0.5).lanewise(VectorOperators.SIN);
+      DoubleVector sinLon = lon2.sub(lon1).mul(0.5).lanewise(VectorOperators.SIN);
+      DoubleVector a =
+          sinLat
+              .mul(sinLat)
+              .add(lat2.lanewise(VectorOperators.COS).mul(cosLat1).mul(sinLon).mul(sinLon));
+      a.sqrt().lanewise(VectorOperators.ASIN).mul(2 * EARTH_RADIUS_KM).intoArray(out, i);
+    }
+    if (i < length) {
+      ScalarBatchKernel.haversineRange(fromLat, fromLon, lats, lons, out, i, length);
+    }
+  }
+
+  @Override
+  public void distanceEnergyScores(
+      double[] distancesKm, double[] etaMinutes, double[] energyLevels, double[] out, int length) {
+    int bound = SPECIES.loopBound(length);
+    int i = 0;
+    for (; i < bound; i += SPECIES.length()) {
+      DoubleVector distance = DoubleVector.fromArray(SPECIES, distancesKm, i);
+      DoubleVector eta = DoubleVector.fromArray(SPECIES, etaMinutes, i);
+      DoubleVector energy = DoubleVector.fromArray(SPECIES, energyLevels, i);
+      VectorMask<Double> noDistance = distance.test(VectorOperators.IS_NAN);
+      VectorMask<Double> noEta = eta.test(VectorOperators.IS_NAN);
+
+      DoubleVector weightSum =
+          DoubleVector.broadcast(SPECIES, ENERGY_WEIGHT)
+              .add(DoubleVector.broadcast(SPECIES, DISTANCE_WEIGHT).blend(0.0, noDistance))
+              .add(DoubleVector.broadcast(SPECIES, TIME_WEIGHT).blend(0.0, noEta));
+      DoubleVector weightedDistance = inverse(distance).mul(DISTANCE_WEIGHT).blend(0.0, noDistance);
+      DoubleVector weightedTime = inverse(eta).mul(TIME_WEIGHT).blend(0.0, noEta);
+      DoubleVector energyScore =
+          energy.max(0.0).min(1.0).blend(0.0, energy.test(VectorOperators.IS_NAN));
+
+      weightedDistance
+          .add(weightedTime)
+          .add(energyScore.mul(ENERGY_WEIGHT))
+          .div(weightSum)
+          .intoArray(out, i);
+    }
+    if (i < length) {
+      ScalarBatchKernel.scoreRange(distancesKm, etaMinutes, energyLevels, out, i, length);
+    }
+  }
+
+  @Override
+  public String name() {
+    return "vector(" + SPECIES.vectorBitSize() + " bit)";
+  }
+
+  /** {@code 1 / (1 + max(value, 0))}; NaN lanes are masked out by the caller. */
+  private static DoubleVector inverse(DoubleVector value) {
+    return DoubleVector.broadcast(SPECIES, 1.0).div(value.max(0.0).add(1.0));
+  }
+}
@@ -1,23 +1,47 @@
 package cpe.qg.engine.decision.impl;
 
+import cpe.qg.engine.decision.api.CandidateBatch;
 import cpe.qg.engine.decision.api.DecisionDataSource;
 import cpe.qg.engine.decision.api.DecisionEngine;
-import cpe.qg.engine.decision.api.ScoredCandidate;
+import cpe.qg.engine.decision.api.ReservationLedger;
 import cpe.qg.engine.decision.api.VehicleScoringStrategy;
 import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionContextConfig;
 import cpe.qg.engine.decision.model.DecisionCriteria;
 import cpe.qg.engine.decision.model.DecisionResult;
 import cpe.qg.engine.decision.model.GeoPoint;
 import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.RequirementSolution;
+import cpe.qg.engine.decision.model.RequirementSolverConfig;
+import cpe.qg.engine.decision.model.ReservationConfig;
 import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.decision.model.RoutingPolicy;
 import cpe.qg.engine.decision.model.TravelEstimate;
 import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
 import cpe.qg.engine.decision.model.VehicleNeed;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.profiling.CandidateBuildEvent;
+import cpe.qg.engine.profiling.SelectionEvent;
+import cpe.qg.engine.sdmis.dto.QGActivePhase;
+import cpe.qg.engine.sdmis.dto.QGBaseInterestPointRead;
 import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGPhaseRequirements;
+import cpe.qg.engine.sdmis.dto.QGRequirement;
+import cpe.qg.engine.sdmis.dto.QGRequirementGroup;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
 import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.Tracer;
 import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -27,23 +51,88 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
 import org.slf4j.Logger;
 
 /** Decision engine that proposes vehicles for requested incident phases. */
 public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
 
+  private static final String STAGE_METRIC = "qg_decision_stage_seconds";
+  private static final String STAGE_HELP = "Latency of the decision engine stages";
+
+  /** Average road speed assumed for straight-line time estimates, detours included. */
+  static final double APPROXIMATE_SPEED_KMH = 40.0;
+
   private final DecisionDataSource dataSource;
   private final VehicleScoringStrategy scoringStrategy;
   private final DecisionCriteria criteria;
+  private final RoutingPolicy routingPolicy;
+  private final PriorityPermits routingPermits;
+  private final ReservationLedger reservations;
+  private final RequirementGroupSolver requirementSolver;
+  private final DecisionContextCache contexts;
+  private final Map<UUID, LongAdder> requestsByVehicleType = new ConcurrentHashMap<>();
+  private final BatchKernel kernel = BatchKernels.selected();
   private final Logger log = LoggerProvider.getLogger(VehicleAssignmentDecisionEngine.class);
+  private final LatencyHistogram candidatesLatency;
+  private final LatencyHistogram selectionLatency;
+  private final Counter deadlinesReached;
+  private final Counter consumableIndexBuilds;
+  private final Counter routesCancelled;
+  private final Counter reservedSkipped;
+
+  private VehicleAssignmentDecisionEngine(Builder builder) {
+    this.dataSource =
+        Objects.requireNonNull(builder.dataSource, "Decision data source is required");
+    this.scoringStrategy =
+        Objects.requireNonNull(builder.scoringStrategy, "Scoring strategy is required");
+    this.criteria = builder.criteria;
+    this.routingPolicy =
+        Objects.requireNonNull(builder.routingPolicy, "Routing policy is required");
+    this.routingPermits = new PriorityPermits(routingPolicy.maxConcurrentRoutes());
+    this.reservations =
+        Objects.requireNonNull(builder.reservations, "Reservation ledger is required");
+    MetricsRegistry metrics =
+        Objects.requireNonNull(builder.metrics, "Metrics registry is required");
+    RequirementSolverConfig solverConfig =
+        Objects.requireNonNull(builder.solverConfig, "Requirement solver config is required");
+    this.requirementSolver =
+        solverConfig.enabled()
+            ? new RequirementGroupSolver(solverConfig.nodeLimit(), metrics)
+            : null;
+    this.contexts =
+        new DecisionContextCache(
+            Objects.requireNonNull(builder.contextConfig, "Decision context config is required"),
+            metrics);
+    this.candidatesLatency = metrics.histogram(STAGE_METRIC, STAGE_HELP, "stage", "candidates");
+    this.selectionLatency = metrics.histogram(STAGE_METRIC, STAGE_HELP, "stage", "selection");
+    this.deadlinesReached =
+        metrics.counter(
+            "qg_decision_deadline_reached_total",
+            "Decisions returned at their deadline with routes still missing");
+    this.consumableIndexBuilds =
+        metrics.counter(
+            "qg_decision_consumable_index_builds_total",
+            "Consumable stock indexes built from a new fleet snapshot");
+    this.routesCancelled =
+        metrics.counter(
+            "qg_decision_routes_cancelled_total", "Routing calls cancelled at a deadline");
+    this.reservedSkipped =
+        metrics.counter(
+            "qg_decision_reserved_skipped_total",
+            "Vehicles skipped because a proposal for another incident reserved them");
+  }
 
-  public VehicleAssignmentDecisionEngine(
-      DecisionDataSource dataSource,
-      VehicleScoringStrategy scoringStrategy,
-      DecisionCriteria criteria) {
-    this.dataSource = Objects.requireNonNull(dataSource, "Decision data source is required");
-    this.scoringStrategy = Objects.requireNonNull(scoringStrategy, "Scoring strategy is required");
-    this.criteria = criteria;
+  /** Engine without criteria, routing with the default policy and every optional stage off. */
+  public static Builder builder(
+      DecisionDataSource dataSource, VehicleScoringStrategy scoringStrategy) {
+    return new Builder(dataSource, scoringStrategy);
   }
 
   @Override
@@ -56,56 +145,121 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
       return new DecisionResult(List.of(), List.of());
     }
 
+    Instant deadline = resolveDeadline(request);
     try {
       QGIncidentSituationRead situation = dataSource.getIncidentSituation(request.incidentId());
       GeoPoint incidentLocation = toIncidentPosition(situation);
       List<QGVehicleRead> vehicles = dataSource.listVehicles();
-      Set<UUID> requiredVehicleTypes = extractRequiredVehicleTypes(requiredByPhase);
-      Map<UUID, List<VehicleCandidate>> candidatesByType =
-          buildCandidatesByType(vehicles, requiredVehicleTypes, incidentLocation);
-
+      BitSet lackingConsumables = consumableExclusions(vehicles);
+      Map<UUID, List<QGRequirementGroup>> groupsByPhase =
+          requirementSolver == null
+              ? Map.of()
+              : requirementGroupsByPhase(
+                  request.incidentId(), situation, requiredByPhase, vehicles);
+      scoringStrategy.observeFleet(vehicles, this::available);
+      DecisionContextCache.Session context = contexts.open(request.incidentId(), incidentLocation);
       Set<UUID> allocatedVehicles = new HashSet<>();
+      Map<UUID, List<VehicleCandidate>> reusedByPhase =
+          reusePhases(
+              context,
+              requiredByPhase,
+              vehicles,
+              lackingConsumables,
+              request.incidentId(),
+              allocatedVehicles);
+      Set<UUID> requiredVehicleTypes = extractRequiredVehicleTypes(requiredByPhase, reusedByPhase);
+      groupsByPhase.values().forEach(groups -> requiredVehicleTypes.addAll(groupTypes(groups)));
+      countRequestedTypes(requiredByPhase, groupsByPhase);
+      long candidatesStartedAt = System.nanoTime();
+      CandidateBuildEvent candidateEvent = new CandidateBuildEvent();
+      candidateEvent.begin();
+      CandidatePool candidates;
+      try (Span span = Tracer.global().startSpan("build candidates")) {
+        candidates =
+            buildCandidatePool(
+                vehicles,
+                requiredVehicleTypes,
+                incidentLocation,
+                new CandidateQuery(
+                    request.incidentId(), deadline, !request.fast(), request.priority(), context),
+                lackingConsumables);
+        span.tag("vehicles", vehicles == null ? 0 : vehicles.size());
+        span.tag("fast", request.fast());
+      }
+      candidates.allocate(allocatedVehicles);
+      candidatesLatency.recordSince(candidatesStartedAt);
+      candidateEvent.end();
+      if (candidateEvent.shouldCommit()) {
+        candidateEvent.incidentId = request.incidentId().toString();
+        candidateEvent.vehicles = vehicles == null ? 0 : vehicles.size();
+        candidateEvent.candidates = candidates.size();
+        candidateEvent.fast = request.fast();
+        candidateEvent.contextFound = context != null && context.found();
+        candidateEvent.reusedRoutes = context == null ? 0 : context.reusedRoutes();
+        candidateEvent.commit();
+      }
+      long selectionStartedAt = System.nanoTime();
+      SelectionEvent selectionEvent = new SelectionEvent();
+      selectionEvent.begin();
+
       List<MissingVehicle> missing = new ArrayList<>();
       List<VehicleAssignmentProposal> proposals = new ArrayList<>();
 
       for (Map.Entry<UUID, Map<UUID, Integer>> phaseEntry : requiredByPhase.entrySet()) {
         UUID incidentPhaseId = phaseEntry.getKey();
-        Map<UUID, Integer> requiredByType = phaseEntry.getValue();
+        List<VehicleCandidate> reused = reusedByPhase.get(incidentPhaseId);
+        if (reused != null) {
+          addProposals(incidentPhaseId, new ArrayList<>(reused), proposals);
+          continue;
+        }
+        int missingBefore = missing.size();
         List<VehicleCandidate> selected = new ArrayList<>();
-
-        for (Map.Entry<UUID, Integer> requirement : requiredByType.entrySet()) {
+        for (Map.Entry<UUID, Integer> requirement : phaseEntry.getValue().entrySet()) {
           UUID vehicleTypeId = requirement.getKey();
           int needed = requirement.getValue();
           if (needed <= 0) {
             continue;
           }
-          List<VehicleCandidate> candidates =
-              candidatesByType.getOrDefault(vehicleTypeId, List.of());
-          int selectedCount = selectCandidates(candidates, allocatedVehicles, selected, needed);
+          int selectedCount = candidates.select(vehicleTypeId, needed, selected);
           if (selectedCount < needed) {
             missing.add(new MissingVehicle(incidentPhaseId, vehicleTypeId, needed - selectedCount));
           }
         }
+        if (context != null && missing.size() == missingBefore) {
+          context.recordPhase(incidentPhaseId, phaseEntry.getValue(), selected);
+        }
+        addProposals(incidentPhaseId, selected, proposals);
+      }
 
-        selected.sort(candidateComparator());
-        int rank = 1;
-        for (VehicleCandidate candidate : selected) {
-          if (candidate.vehicle() == null || candidate.vehicle().vehicleId() == null) {
-            continue;
-          }
-          proposals.add(
-              new VehicleAssignmentProposal(
-                  incidentPhaseId,
-                  candidate.vehicle().vehicleId(),
-                  candidate.distanceKm(),
-                  candidate.estimatedTimeMin(),
-                  candidate.routeGeometry(),
-                  candidate.vehicle().energyLevel(),
-                  candidate.score(),
-                  rank++));
+      for (Map.Entry<UUID, List<QGRequirementGroup>> phaseEntry : groupsByPhase.entrySet()) {
+        UUID incidentPhaseId = phaseEntry.getKey();
+        RequirementSolution solution =
+            solveRequirements(incidentPhaseId, phaseEntry.getValue(), candidates);
+        missing.addAll(solution.missing());
+        List<VehicleCandidate> selected = new ArrayList<>();
+        for (Map.Entry<UUID, Integer> quantity : solution.quantities().entrySet()) {
+          candidates.select(quantity.getKey(), quantity.getValue(), selected);
         }
+        addProposals(incidentPhaseId, selected, proposals);
       }
 
+      selectionLatency.recordSince(selectionStartedAt);
+      selectionEvent.end();
+      if (selectionEvent.shouldCommit()) {
+        selectionEvent.incidentId = request.incidentId().toString();
+        selectionEvent.candidates = candidates.size();
+        selectionEvent.proposals = proposals.size();
+        selectionEvent.missing = missing.size();
+        selectionEvent.reusedPhases = reusedByPhase.size();
+        selectionEvent.commit();
+      }
+      List<UUID> departures = new ArrayList<>(proposals.size());
+      for (VehicleAssignmentProposal proposal : proposals) {
+        departures.add(proposal.vehicleId());
+      }
+      scoringStrategy.observeDepartures(departures);
+      contexts.store(request.incidentId(), context);
+      logReuse(request.incidentId(), context);
       return new DecisionResult(proposals, missing);
     } catch (IOException e) {
       throw new IllegalStateException("Failed to fetch decision data from SDMIS API", e);
@@ -115,6 +269,301 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
     }
   }
 
+  @Override
+  public int precompute(UUID incidentId, int vehicleTypes, Instant deadline) {
+    Objects.requireNonNull(incidentId, "Incident id is required");
+    Set<UUID> types = frequentVehicleTypes(vehicleTypes);
+    if (types.isEmpty()) {
+      return 0;
+    }
+    try {
+      GeoPoint incidentLocation = toIncidentPosition(dataSource.getIncidentSituation(incidentId));
+      if (incidentLocation == null) {
+        return 0;
+      }
+      DecisionContextCache.Session context = contexts.openSpeculative(incidentId, incidentLocation);
+      if (context == null) {
+        return 0;
+      }
+      List<QGVehicleRead> vehicles = dataSource.listVehicles();
+      scoringStrategy.observeFleet(vehicles, this::available);
+      try (Span span = Tracer.global().startSpan("precompute candidates")) {
+        buildCandidatePool(
+            vehicles,
+            types,
+            incidentLocation,
+            new CandidateQuery(
+                incidentId, deadline, true, AssignmentRequest.LOWEST_PRIORITY, context),
+            consumableExclusions(vehicles));
+        span.tag("incident_id", incidentId);
+        span.tag("vehicle_types", types.size());
+      }
+      contexts.store(incidentId, context);
+      return context.knownRoutes();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to fetch decision data from SDMIS API", e);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Precomputation interrupted", e);
+    }
+  }
+
+  /** Counts the vehicle types of a request, once per phase, to know which to precompute. */
+  private void countRequestedTypes(
+      Map<UUID, Map<UUID, Integer>> requiredByPhase,
+      Map<UUID, List<QGRequirementGroup>> groupsByPhase) {
+    for (Map<UUID, Integer> byType : requiredByPhase.values()) {
+      byType
+          .keySet()
+          .forEach(
+              type ->
+                  requestsByVehicleType.computeIfAbsent(type, k -> new LongAdder()).increment());
+    }
+    for (List<QGRequirementGroup> groups : groupsByPhase.values()) {
+      groupTypes(groups)
+          .forEach(
+              type ->
+                  requestsByVehicleType.computeIfAbsent(type, k -> new LongAdder()).increment());
+    }
+  }
+
+  private Set<UUID> frequentVehicleTypes(int limit) {
+    Set<UUID> types = new HashSet<>();
+    requestsByVehicleType.entrySet().stream()
+        .sorted(
+            Comparator.comparingLong((Map.Entry<UUID, LongAdder> entry) -> entry.getValue().sum())
+                .reversed())
+        .limit(limit)
+        .forEach(entry -> types.add(entry.getKey()));
+    return types;
+  }
+
+  private void addProposals(
+      UUID incidentPhaseId,
+      List<VehicleCandidate> selected,
+      List<VehicleAssignmentProposal> proposals) {
+    selected.sort(candidateComparator());
+    int rank = 1;
+    for (VehicleCandidate candidate : selected) {
+      if (candidate.vehicle() == null || candidate.vehicle().vehicleId() == null) {
+        continue;
+      }
+      proposals.add(
+          new VehicleAssignmentProposal(
+              incidentPhaseId,
+              candidate.vehicle().vehicleId(),
+              candidate.distanceKm(),
+              candidate.estimatedTimeMin(),
+              candidate.routeGeometry(),
+              candidate.vehicle().energyLevel(),
+              candidate.score(),
+              rank++,
+              candidate.approximate()));
+    }
+  }
+
+  /**
+   * Maps the requested active phases of the incident to the requirement groups of their phase type,
+   * most important phase first, net of the vehicles already assigned to the phase. The explicit
+   * needs of a phase with groups move into the solver as one more hard group and are removed from
+   * {@code requiredByPhase}. Without a planning, every phase stays on its explicit needs.
+   */
+  private Map<UUID, List<QGRequirementGroup>> requirementGroupsByPhase(
+      UUID incidentId,
+      QGIncidentSituationRead situation,
+      Map<UUID, Map<UUID, Integer>> requiredByPhase,
+      List<QGVehicleRead> vehicles)
+      throws InterruptedException {
+    if (situation == null || situation.phasesActive() == null) {
+      return Map.of();
+    }
+    QGResourcePlanningRead planning;
+    try {
+      planning = dataSource.getResourcePlanning(incidentId);
+    } catch (IOException | RuntimeException e) {
+      log.warn(
+          "Failed to fetch resource planning for incident {}, using explicit needs only: {}",
+          incidentId,
+          e.getMessage());
+      return Map.of();
+    }
+    if (planning == null || planning.phaseRequirements() == null) {
+      return Map.of();
+    }
+    Map<UUID, List<QGRequirementGroup>> groupsByPhaseType = new HashMap<>();
+    for (QGPhaseRequirements requirements : planning.phaseRequirements()) {
+      if (requirements != null
+          && requirements.phaseType() != null
+          && requirements.groups() != null
+          && !requirements.groups().isEmpty()) {
+        groupsByPhaseType.put(requirements.phaseType().phaseTypeId(), requirements.groups());
+      }
+    }
+
+    List<QGActivePhase> phases = new ArrayList<>(situation.phasesActive());
+    phases.removeIf(
+        phase ->
+            phase == null
+                || phase.incidentPhaseId() == null
+                || !requiredByPhase.containsKey(phase.incidentPhaseId()));
+    phases.sort(
+        Comparator.comparingInt(
+            phase -> phase.priority() == null ? Integer.MAX_VALUE : phase.priority()));
+    Map<UUID, Map<UUID, Integer>> assignedByPhase = assignedByPhase(vehicles);
+    Map<UUID, List<QGRequirementGroup>> groupsByPhase = new LinkedHashMap<>();
+    for (QGActivePhase phase : phases) {
+      List<QGRequirementGroup> groups = groupsByPhaseType.get(phase.phaseTypeId());
+      if (groups == null) {
+        continue;
+      }
+      Map<UUID, Integer> assigned = assignedByPhase.getOrDefault(phase.incidentPhaseId(), Map.of());
+      List<QGRequirementGroup> phaseGroups = new ArrayList<>(groups.size() + 1);
+      for (QGRequirementGroup group : groups) {
+        phaseGroups.add(assigned.isEmpty() ? group : netOfAssigned(group, assigned));
+      }
+      Map<UUID, Integer> explicitNeeds = requiredByPhase.remove(phase.incidentPhaseId());
+      if (explicitNeeds != null) {
+        phaseGroups.add(explicitNeedsGroup(explicitNeeds));
+      }
+      groupsByPhase.put(phase.incidentPhaseId(), phaseGroups);
+    }
+    return groupsByPhase;
+  }
+
+  /** Vehicles counted per vehicle type for each incident phase they are assigned to. */
+  private static Map<UUID, Map<UUID, Integer>> assignedByPhase(List<QGVehicleRead> vehicles) {
+    if (vehicles == null) {
+      return Map.of();
+    }
+    Map<UUID, Map<UUID, Integer>> assigned = new HashMap<>();
+    for (QGVehicleRead vehicle : vehicles) {
+      if (vehicle == null
+          || vehicle.activeAssignment() == null
+          || vehicle.activeAssignment().incidentPhaseId() == null
+          || vehicle.vehicleType() == null
+          || vehicle.vehicleType().vehicleTypeId() == null) {
+        continue;
+      }
+      assigned
+          .computeIfAbsent(vehicle.activeAssignment().incidentPhaseId(), ignored -> new HashMap<>())
+          .merge(vehicle.vehicleType().vehicleTypeId(), 1, Integer::sum);
+    }
+    return assigned;
+  }
+
+  /**
+   * Group with its quantities and totals lowered by the vehicles of its types already assigned to
+   * the phase, never below zero.
+   */
+  private static QGRequirementGroup netOfAssigned(
+      QGRequirementGroup group, Map<UUID, Integer> assigned) {
+    if (group == null || group.requirements() == null) {
+      return group;
+    }
+    List<QGRequirement> requirements = new ArrayList<>(group.requirements().size());
+    Set<UUID> types = new HashSet<>();
+    for (QGRequirement requirement : group.requirements()) {
+      if (requirement == null
+          || requirement.vehicleType() == null
+          || requirement.vehicleType().vehicleTypeId() == null) {
+        requirements.add(requirement);
+        continue;
+      }
+      UUID type = requirement.vehicleType().vehicleTypeId();
+      int count = assigned.getOrDefault(type, 0);
+      if (types.add(type) && count > 0) {
+        requirements.add(
+            new QGRequirement(
+                requirement.vehicleType(),
+                minus(requirement.minQuantity(), count),
+                minus(requirement.maxQuantity(), count),
+                requirement.mandatory(),
+                requirement.preferenceRank()));
+      } else {
+        requirements.add(requirement);
+      }
+    }
+    int assignedInGroup = 0;
+    for (UUID type : types) {
+      assignedInGroup += assigned.getOrDefault(type, 0);
+    }
+    return new QGRequirementGroup(
+        group.groupId(),
+        group.label(),
+        group.rule(),
+        minus(group.minTotal(), assignedInGroup),
+        minus(group.maxTotal(), assignedInGroup),
+        group.priority(),
+        group.isHard(),
+        requirements);
+  }
+
+  private static Integer minus(Integer quantity, int assigned) {
+    return quantity == null ? null : Math.max(0, quantity - assigned);
+  }
+
+  private static QGRequirementGroup explicitNeedsGroup(Map<UUID, Integer> neededByType) {
+    List<QGRequirement> requirements = new ArrayList<>();
+    for (Map.Entry<UUID, Integer> need : neededByType.entrySet()) {
+      requirements.add(
+          new QGRequirement(
+              new QGVehicleTypeRef(need.getKey(), null, null), need.getValue(), null, true, 1));
+    }
+    return new QGRequirementGroup(null, "request", "ALL", null, null, 0, true, requirements);
+  }
+
+  private static Set<UUID> groupTypes(List<QGRequirementGroup> groups) {
+    Set<UUID> types = new HashSet<>();
+    for (QGRequirementGroup group : groups) {
+      if (group == null || group.requirements() == null) {
+        continue;
+      }
+      for (QGRequirement requirement : group.requirements()) {
+        if (requirement != null
+            && requirement.vehicleType() != null
+            && requirement.vehicleType().vehicleTypeId() != null) {
+          types.add(requirement.vehicleType().vehicleTypeId());
+        }
+      }
+    }
+    return types;
+  }
+
+  private RequirementSolution solveRequirements(
+      UUID incidentPhaseId, List<QGRequirementGroup> groups, CandidatePool candidates) {
+    Map<UUID, double[]> scoresByType = new HashMap<>();
+    for (UUID vehicleTypeId : groupTypes(groups)) {
+      scoresByType.put(vehicleTypeId, candidates.availableScores(vehicleTypeId));
+    }
+    RequirementSolution solution;
+    try (Span span = Tracer.global().startSpan("solve requirements")) {
+      solution = requirementSolver.solve(incidentPhaseId, groups, scoresByType);
+      span.tag("nodes", solution.nodesExplored());
+      span.tag("complete", solution.complete());
+    }
+    log.debug(
+        "Solved requirement groups of phase {} in {} us over {} node(s): hard {}/{}, soft {}/{}{}",
+        incidentPhaseId,
+        TimeUnit.NANOSECONDS.toMicros(solution.elapsedNanos()),
+        solution.nodesExplored(),
+        solution.hardGroupsSatisfied(),
+        solution.hardGroups(),
+        solution.softGroupsSatisfied(),
+        solution.softGroups(),
+        solution.complete() ? "" : " (node limit reached)");
+    return solution;
+  }
+
+  private Instant resolveDeadline(AssignmentRequest request) {
+    if (request.deadline() != null) {
+      return request.deadline();
+    }
+    if (routingPolicy.defaultDeadlineMs() != null) {
+      return Instant.now().plusMillis(routingPolicy.defaultDeadlineMs());
+    }
+    return null;
+  }
+
   private Map<UUID, Map<UUID, Integer>> aggregateNeedsByPhase(List<VehicleNeed> needs) {
     Map<UUID, Map<UUID, Integer>> requiredByPhase = new LinkedHashMap<>();
     if (needs == null || needs.isEmpty()) {
@@ -134,14 +583,123 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
     return requiredByPhase;
   }
 
-  private Set<UUID> extractRequiredVehicleTypes(Map<UUID, Map<UUID, Integer>> requiredByPhase) {
+  private Set<UUID> extractRequiredVehicleTypes(
+      Map<UUID, Map<UUID, Integer>> requiredByPhase,
+      Map<UUID, List<VehicleCandidate>> reusedByPhase) {
     Set<UUID> requiredTypes = new HashSet<>();
-    for (Map<UUID, Integer> byType : requiredByPhase.values()) {
-      requiredTypes.addAll(byType.keySet());
+    for (Map.Entry<UUID, Map<UUID, Integer>> phaseEntry : requiredByPhase.entrySet()) {
+      if (!reusedByPhase.containsKey(phaseEntry.getKey())) {
+        requiredTypes.addAll(phaseEntry.getValue().keySet());
+      }
     }
     return requiredTypes;
   }
 
+  /**
+   * Keeps the previous selection of every phase whose needs did not change, provided each of its
+   * vehicles is still eligible and has not moved, or has since been assigned to that phase. The
+   * kept vehicles are allocated before any other phase is served.
+   */
+  private Map<UUID, List<VehicleCandidate>> reusePhases(
+      DecisionContextCache.Session context,
+      Map<UUID, Map<UUID, Integer>> requiredByPhase,
+      List<QGVehicleRead> vehicles,
+      BitSet lackingConsumables,
+      UUID incidentId,
+      Set<UUID> allocatedVehicles) {
+    if (context == null || vehicles == null) {
+      return Map.of();
+    }
+    Map<UUID, QGVehicleRead> fleet = null;
+    Map<UUID, List<VehicleCandidate>> reusedByPhase = new HashMap<>();
+    for (Map.Entry<UUID, Map<UUID, Integer>> phaseEntry : requiredByPhase.entrySet()) {
+      DecisionContextCache.Phase previous = context.previousPhase(phaseEntry.getKey());
+      if (previous == null || !previous.needs().equals(phaseEntry.getValue())) {
+        continue;
+      }
+      if (fleet == null) {
+        fleet = eligibleById(vehicles, lackingConsumables);
+      }
+      List<VehicleCandidate> refreshed =
+          revalidate(previous, phaseEntry.getKey(), fleet, incidentId, allocatedVehicles);
+      if (refreshed == null) {
+        continue;
+      }
+      refreshed.forEach(candidate -> allocatedVehicles.add(candidate.vehicle().vehicleId()));
+      context.reusePhase(phaseEntry.getKey(), previous, refreshed);
+      reusedByPhase.put(phaseEntry.getKey(), refreshed);
+    }
+    return reusedByPhase;
+  }
+
+  /** Vehicles of the snapshot by id, without those lacking required consumables. */
+  private Map<UUID, QGVehicleRead> eligibleById(
+      List<QGVehicleRead> vehicles, BitSet lackingConsumables) {
+    Map<UUID, QGVehicleRead> byId = new HashMap<>();
+    for (int ordinal = 0; ordinal < vehicles.size(); ordinal++) {
+      QGVehicleRead vehicle = vehicles.get(ordinal);
+      if (vehicle != null
+          && vehicle.vehicleId() != null
+          && (lackingConsumables == null || !lackingConsumables.get(ordinal))) {
+        byId.put(vehicle.vehicleId(), vehicle);
+      }
+    }
+    return byId;
+  }
+
+  /**
+   * @return the previous selection refreshed with the current vehicle snapshots, or {@code null}
+   *     when one of its vehicles is no longer eligible
+   */
+  private List<VehicleCandidate> revalidate(
+      DecisionContextCache.Phase previous,
+      UUID incidentPhaseId,
+      Map<UUID, QGVehicleRead> fleet,
+      UUID incidentId,
+      Set<UUID> allocatedVehicles) {
+    List<VehicleCandidate> refreshed = new ArrayList<>(previous.selected().size());
+    for (VehicleCandidate candidate : previous.selected()) {
+      UUID vehicleId = candidate.vehicle().vehicleId();
+      QGVehicleRead current = fleet.get(vehicleId);
+      if (current == null || allocatedVehicles.contains(vehicleId)) {
+        return null;
+      }
+      boolean assignedToPhase =
+          current.activeAssignment() != null
+              && incidentPhaseId.equals(current.activeAssignment().incidentPhaseId());
+      if (!assignedToPhase
+          && (current.activeAssignment() != null
+              || reservations.reservedForOther(vehicleId, incidentId)
+              || !Objects.equals(resolveVehiclePosition(current), candidate.position())
+              || !matchesCriteria(current, candidate.distanceKm()))) {
+        return null;
+      }
+      refreshed.add(
+          new VehicleCandidate(
+              current,
+              candidate.position(),
+              candidate.distanceKm(),
+              candidate.estimatedTimeMin(),
+              candidate.routeGeometry(),
+              candidate.score(),
+              candidate.approximate()));
+    }
+    return refreshed;
+  }
+
+  private void logReuse(UUID incidentId, DecisionContextCache.Session context) {
+    if (context == null || (context.reusedPhases() == 0 && context.reusedRoutes() == 0)) {
+      return;
+    }
+    log.info(
+        "Reused {} phase selection(s) and {} route(s) of the previous decision for incident {},"
+            + " saving {} ms of routing",
+        context.reusedPhases(),
+        context.reusedRoutes(),
+        incidentId,
+        TimeUnit.NANOSECONDS.toMillis(context.savedNanos()));
+  }
+
   private GeoPoint toIncidentPosition(QGIncidentSituationRead situation) {
     if (situation == null || situation.incident() == null) {
       return null;
@@ -151,19 +709,52 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
     return point.isDefined() ? point : null;
   }
 
-  private Map<UUID, List<VehicleCandidate>> buildCandidatesByType(
+  /** Package-private so the stage can be benchmarked in isolation. */
+  CandidatePool buildCandidatePool(
       List<QGVehicleRead> vehicles, Set<UUID> requiredVehicleTypes, GeoPoint incidentLocation) {
-    Map<UUID, List<VehicleCandidate>> pool = new HashMap<>();
+    return buildCandidatePool(
+        vehicles,
+        requiredVehicleTypes,
+        incidentLocation,
+        CandidateQuery.UNBOUNDED,
+        consumableExclusions(vehicles));
+  }
+
+  /**
+   * Ranks eligible vehicles on straight-line distance, then refines them with routed estimates in
+   * that order until every route is known or the query deadline passes. Routes still in flight at
+   * the deadline are cancelled and their candidates keep an approximate estimate. Without routing,
+   * every candidate keeps its straight-line estimate. Routing permits go to the lowest priority
+   * value first when decisions compete for them. Vehicles reserved for another incident are
+   * skipped, as are the positions set in {@code lackingConsumables}.
+   *
+   * <p>Candidates stay rows of the scored batch, typed by interned index: no per-vehicle object is
+   * created unless the vehicle is routed or selected.
+   */
+  CandidatePool buildCandidatePool(
+      List<QGVehicleRead> vehicles,
+      Set<UUID> requiredVehicleTypes,
+      GeoPoint incidentLocation,
+      CandidateQuery query,
+      BitSet lackingConsumables) {
     if (vehicles == null || vehicles.isEmpty() || requiredVehicleTypes.isEmpty()) {
-      return pool;
+      return CandidatePool.empty();
     }
 
-    for (QGVehicleRead vehicle : vehicles) {
+    Map<UUID, Integer> typeIndexes = CandidatePool.intern(requiredVehicleTypes);
+    CandidateBatch batch = new CandidateBatch(vehicles.size());
+    int[] rowTypes = new int[vehicles.size()];
+    for (int ordinal = 0; ordinal < vehicles.size(); ordinal++) {
+      QGVehicleRead vehicle = vehicles.get(ordinal);
       if (vehicle == null || vehicle.vehicleId() == null || vehicle.vehicleType() == null) {
         continue;
       }
+      if (lackingConsumables != null && lackingConsumables.get(ordinal)) {
+        continue;
+      }
       UUID vehicleTypeId = vehicle.vehicleType().vehicleTypeId();
-      if (vehicleTypeId == null || !requiredVehicleTypes.contains(vehicleTypeId)) {
+      Integer type = vehicleTypeId == null ? null : typeIndexes.get(vehicleTypeId);
+      if (type == null) {
         continue;
       }
       if (vehicle.activeAssignment() != null) {
@@ -172,71 +763,251 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
       if (Boolean.TRUE.equals(vehicle.referencedInPendingProposal())) {
         continue;
       }
-      GeoPoint vehiclePosition = resolveVehiclePosition(vehicle);
-      Double distanceKm = null;
-      Double estimatedTimeMin = null;
-      RouteGeometry routeGeometry = null;
-      if (incidentLocation != null && vehiclePosition != null) {
-        TravelEstimate travelEstimate =
-            resolveTravelEstimate(vehicle, vehiclePosition, incidentLocation);
-        if (travelEstimate != null) {
-          if (travelEstimate.distanceKm() != null) {
-            distanceKm = travelEstimate.distanceKm();
-          }
-          estimatedTimeMin = travelEstimate.durationMinutes();
-          routeGeometry = travelEstimate.routeGeometry();
-        }
-        if (distanceKm == null && incidentLocation.isDefined() && vehiclePosition.isDefined()) {
-          distanceKm = distanceKm(incidentLocation, vehiclePosition);
-        }
+      if (reservations.reservedForOther(vehicle.vehicleId(), query.incidentId())) {
+        reservedSkipped.increment();
+        continue;
+      }
+      rowTypes[addCandidate(batch, vehicle)] = type;
+    }
+
+    boolean incidentLocated = incidentLocation != null && incidentLocation.isDefined();
+    if (incidentLocated) {
+      double[] distances = batch.distancesKm();
+      double[] etas = batch.etaMinutes();
+      kernel.haversineKm(
+          incidentLocation.latitude(),
+          incidentLocation.longitude(),
+          batch.latitudes(),
+          batch.longitudes(),
+          distances,
+          batch.size());
+      for (int i = 0; i < batch.size(); i++) {
+        etas[i] = distances[i] / APPROXIMATE_SPEED_KMH * 60.0;
       }
-      if (!matchesCriteria(vehicle, distanceKm)) {
+    }
+    scoringStrategy.scoreAll(batch);
+
+    for (int row = 0; row < batch.size(); row++) {
+      // A road is never shorter than the straight line, so this filter is safe before routing.
+      if (!matchesCriteria(batch.vehicle(row), batch.distancesKm()[row])) {
+        rowTypes[row] = -1;
+      }
+    }
+
+    RouteGeometry[] geometries = null;
+    BitSet routed = new BitSet();
+    if (incidentLocated && (query.routed() || query.context() != null)) {
+      List<PendingCandidate> order = routingOrder(batch, rowTypes, typeIndexes.size());
+      refineRoutes(order, incidentLocation, query);
+      geometries = new RouteGeometry[batch.size()];
+      for (PendingCandidate pending : order) {
+        pending.applyRoute(batch, geometries, routed);
+      }
+      scoringStrategy.scoreAll(batch);
+    }
+
+    BitSet approximate = new BitSet();
+    for (int row = 0; row < batch.size(); row++) {
+      if (rowTypes[row] < 0) {
         continue;
       }
-      ScoredCandidate scored = scoringStrategy.score(vehicle, distanceKm, estimatedTimeMin);
-      pool.computeIfAbsent(vehicleTypeId, ignored -> new ArrayList<>())
-          .add(
-              new VehicleCandidate(
-                  vehicle,
-                  vehiclePosition,
-                  distanceKm,
-                  estimatedTimeMin,
-                  routeGeometry,
-                  scored.score()));
+      if (!matchesCriteria(batch.vehicle(row), batch.distancesKm()[row])) {
+        rowTypes[row] = -1;
+      } else if (!routed.get(row) && !Double.isNaN(batch.distancesKm()[row])) {
+        approximate.set(row);
+      }
     }
+    return new CandidatePool(batch, typeIndexes, rowTypes, geometries, approximate);
+  }
 
-    for (List<VehicleCandidate> candidates : pool.values()) {
-      candidates.sort(candidateComparator());
+  /**
+   * Appends the vehicle at its current position, else at its base, else with an unknown position.
+   *
+   * @return the batch row
+   */
+  private static int addCandidate(CandidateBatch batch, QGVehicleRead vehicle) {
+    QGVehiclePositionRead current = vehicle.currentPosition();
+    if (current != null && current.latitude() != null && current.longitude() != null) {
+      return batch.add(vehicle, current.latitude(), current.longitude());
     }
+    QGBaseInterestPointRead base = vehicle.baseInterestPoint();
+    if (base != null && base.latitude() != null && base.longitude() != null) {
+      return batch.add(vehicle, base.latitude(), base.longitude());
+    }
+    return batch.add(vehicle, Double.NaN, Double.NaN);
+  }
 
-    return pool;
+  /**
+   * Vehicles of the snapshot missing a consumable stock required by the criteria, or {@code null}
+   * without such criteria. Called once per fetched fleet snapshot, whose stock index is dropped
+   * with it.
+   */
+  private BitSet consumableExclusions(List<QGVehicleRead> vehicles) {
+    if (criteria == null || criteria.minConsumables().isEmpty()) {
+      return null;
+    }
+    ConsumableStockIndex index = ConsumableStockIndex.build(vehicles);
+    consumableIndexBuilds.increment();
+    if (index.unparsedQuantities() > 0) {
+      log.debug(
+          "Ignored {} consumable stock(s) with a non-numeric quantity", index.unparsedQuantities());
+    }
+    return index.excluded(criteria.minConsumables());
   }
 
-  private int selectCandidates(
-      List<VehicleCandidate> candidates,
-      Set<UUID> allocatedVehicles,
-      List<VehicleCandidate> selected,
-      int needed) {
-    if (needed <= 0 || candidates == null || candidates.isEmpty()) {
-      return 0;
+  /**
+   * Orders candidates for routing: best straight-line score first within each type, types
+   * interleaved so that every requested type gets its best candidates refined early.
+   */
+  private List<PendingCandidate> routingOrder(CandidateBatch batch, int[] rowTypes, int types) {
+    List<List<PendingCandidate>> ranked = new ArrayList<>(types);
+    for (int type = 0; type < types; type++) {
+      ranked.add(new ArrayList<>());
     }
-    int selectedCount = 0;
-    for (VehicleCandidate candidate : candidates) {
-      if (candidate.vehicle() == null || candidate.vehicle().vehicleId() == null) {
-        continue;
+    int total = 0;
+    for (int row = 0; row < batch.size(); row++) {
+      if (rowTypes[row] >= 0) {
+        QGVehicleRead vehicle = batch.vehicle(row);
+        ranked
+            .get(rowTypes[row])
+            .add(
+                new PendingCandidate(
+                    row, vehicle, resolveVehiclePosition(vehicle), batch.scores()[row]));
+        total++;
       }
-      UUID vehicleId = candidate.vehicle().vehicleId();
-      if (allocatedVehicles.contains(vehicleId)) {
-        continue;
+    }
+    for (List<PendingCandidate> candidates : ranked) {
+      candidates.sort(Comparator.comparingDouble(PendingCandidate::approximateScore).reversed());
+    }
+    List<PendingCandidate> order = new ArrayList<>(total);
+    for (int index = 0; order.size() < total; index++) {
+      for (List<PendingCandidate> candidates : ranked) {
+        if (index < candidates.size()) {
+          order.add(candidates.get(index));
+        }
+      }
+    }
+    return order;
+  }
+
+  /**
+   * Starts routing calls in {@code order}, reusing the routes of the decision context for vehicles
+   * that have not moved; without routing, only those reused routes are applied.
+   */
+  private void refineRoutes(
+      List<PendingCandidate> order, GeoPoint incidentLocation, CandidateQuery query) {
+    Instant deadline = query.deadline();
+    DecisionContextCache.Session context = query.context();
+    List<PendingCandidate> inFlight = new ArrayList<>();
+    boolean deadlineReached = false;
+    try {
+      for (PendingCandidate pending : order) {
+        if (pending.position() == null || !pending.position().isDefined()) {
+          continue;
+        }
+        UUID vehicleId = pending.vehicle().vehicleId();
+        TravelEstimate known =
+            context == null ? null : context.knownRoute(vehicleId, pending.position());
+        if (known != null) {
+          pending.route = CompletableFuture.completedFuture(known);
+          continue;
+        }
+        if (!query.routed()) {
+          continue;
+        }
+        if (!acquireRoutingPermit(deadline, query.priority())) {
+          deadlineReached = true;
+          break;
+        }
+        CompletableFuture<TravelEstimate> route;
+        long routeStartedAt = System.nanoTime();
+        try {
+          route = dataSource.estimateTravelAsync(pending.position(), incidentLocation);
+        } catch (RuntimeException e) {
+          routingPermits.release();
+          log.warn("Routing API call failed for vehicle {}: {}", vehicleId, e.getMessage());
+          continue;
+        }
+        route.whenComplete(
+            (estimate, error) -> {
+              routingPermits.release();
+              if (context != null && estimate != null) {
+                context.recordRoute(
+                    vehicleId, pending.position(), estimate, System.nanoTime() - routeStartedAt);
+              }
+            });
+        pending.route = route;
+        inFlight.add(pending);
       }
-      selected.add(candidate);
-      allocatedVehicles.add(vehicleId);
-      selectedCount++;
-      if (selectedCount >= needed) {
-        break;
+
+      for (PendingCandidate pending : inFlight) {
+        if (!awaitRoute(pending, deadline)) {
+          deadlineReached = true;
+          break;
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Travel estimation interrupted", e);
+    } finally {
+      int cancelled = 0;
+      int routed = 0;
+      for (PendingCandidate pending : inFlight) {
+        if (pending.route.cancel(true)) {
+          cancelled++;
+        } else if (pending.route.state() == Future.State.SUCCESS) {
+          routed++;
+        }
+      }
+      if (deadlineReached) {
+        deadlinesReached.increment();
+        routesCancelled.add(cancelled);
+        log.info(
+            "Decision deadline reached: {} of {} candidate(s) routed, {} route call(s) cancelled",
+            routed,
+            order.size(),
+            cancelled);
+      }
+    }
+  }
+
+  private boolean acquireRoutingPermit(Instant deadline, int priority) throws InterruptedException {
+    if (deadline == null) {
+      routingPermits.acquire(priority);
+      return true;
+    }
+    long remainingNanos = Duration.between(Instant.now(), deadline).toNanos();
+    return remainingNanos > 0 && routingPermits.tryAcquire(priority, remainingNanos);
+  }
+
+  /**
+   * @return {@code false} when the deadline passed before the route arrived
+   */
+  private boolean awaitRoute(PendingCandidate pending, Instant deadline)
+      throws InterruptedException {
+    try {
+      if (deadline == null) {
+        pending.route.get();
+      } else {
+        long remainingNanos = Duration.between(Instant.now(), deadline).toNanos();
+        pending.route.get(Math.max(0L, remainingNanos), TimeUnit.NANOSECONDS);
       }
+    } catch (TimeoutException e) {
+      return false;
+    } catch (ExecutionException e) {
+      log.warn(
+          "Failed to fetch route estimate for vehicle {} ({}). Using fallback distance.",
+          pending.vehicle().vehicleId(),
+          e.getCause() == null ? e.getMessage() : e.getCause().getMessage());
     }
-    return selectedCount;
+    return true;
+  }
+
+  /** Whether the vehicle could be sent to any incident, as far as the snapshot and ledger tell. */
+  private boolean available(QGVehicleRead vehicle) {
+    return vehicle.activeAssignment() == null
+        && !Boolean.TRUE.equals(vehicle.referencedInPendingProposal())
+        && !reservations.reserved(vehicle.vehicleId());
   }
 
   private GeoPoint resolveVehiclePosition(QGVehicleRead vehicle) {
@@ -255,32 +1026,14 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
     return null;
   }
 
-  private TravelEstimate resolveTravelEstimate(
-      QGVehicleRead vehicle, GeoPoint vehiclePosition, GeoPoint incidentLocation) {
-    if (vehiclePosition == null
-        || incidentLocation == null
-        || !vehiclePosition.isDefined()
-        || !incidentLocation.isDefined()) {
-      return null;
-    }
-    try {
-      return dataSource.estimateTravel(vehiclePosition, incidentLocation);
-    } catch (IllegalStateException e) {
-      log.warn("Routing API call failed for vehicle {}: {}", vehicle.vehicleId(), e.getMessage());
-      return null;
-    } catch (InterruptedException e) {
-      Thread.currentThread().interrupt();
-      throw new IllegalStateException("Travel estimation interrupted", e);
-    } catch (IOException e) {
-      log.warn(
-          "Failed to fetch route estimate for vehicle {} ({}). Using fallback distance.",
-          vehicle.vehicleId(),
-          e.getMessage());
-      return null;
-    }
+  private boolean matchesCriteria(QGVehicleRead vehicle, Double distanceKm) {
+    return matchesCriteria(vehicle, distanceKm == null ? Double.NaN : distanceKm);
   }
 
-  private boolean matchesCriteria(QGVehicleRead vehicle, Double distanceKm) {
+  /**
+   * @param distanceKm distance to the incident, {@code NaN} when unknown
+   */
+  private boolean matchesCriteria(QGVehicleRead vehicle, double distanceKm) {
     if (criteria == null) {
       return true;
     }
@@ -291,7 +1044,7 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
       }
     }
     if (criteria.maxDistanceKm() != null) {
-      if (distanceKm == null) {
+      if (Double.isNaN(distanceKm)) {
         return false;
       }
       if (distanceKm > criteria.maxDistanceKm()) {
@@ -314,27 +1067,139 @@ public final class VehicleAssignmentDecisionEngine implements DecisionEngine {
                 candidate.distanceKm() == null ? Double.MAX_VALUE : candidate.distanceKm());
   }
 
-  private static double distanceKm(GeoPoint from, GeoPoint to) {
-    double lat1 = Math.toRadians(from.latitude());
-    double lon1 = Math.toRadians(from.longitude());
-    double lat2 = Math.toRadians(to.latitude());
-    double lon2 = Math.toRadians(to.longitude());
-
-    double dLat = lat2 - lat1;
-    double dLon = lon2 - lon1;
-
-    double a =
-        Math.sin(dLat / 2) * Math.sin(dLat / 2)
-            + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
-    double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
-    return 6371.0 * c;
-  }
-
-  private record VehicleCandidate(
+  /**
+   * @param approximate {@code true} when distance and time come from the straight line
+   */
+  record VehicleCandidate(
       QGVehicleRead vehicle,
       GeoPoint position,
       Double distanceKm,
       Double estimatedTimeMin,
       RouteGeometry routeGeometry,
-      double score) {}
+      double score,
+      boolean approximate) {}
+
+  /**
+   * What a decision asks of candidate building.
+   *
+   * @param incidentId incident the candidates are for, whose own reservations stay eligible
+   * @param deadline instant by which routing stops, or {@code null} to wait for every route
+   * @param routed refine straight-line estimates with routing calls
+   * @param priority precedence for routing permits, lowest value first
+   * @param context routes known from earlier decisions for the incident, or {@code null}
+   */
+  record CandidateQuery(
+      UUID incidentId,
+      Instant deadline,
+      boolean routed,
+      int priority,
+      DecisionContextCache.Session context) {
+
+    static final CandidateQuery UNBOUNDED =
+        new CandidateQuery(null, null, true, AssignmentRequest.DEFAULT_PRIORITY, null);
+  }
+
+  /** Eligible vehicle waiting for its routed estimate, backed by one row of the batch. */
+  private static final class PendingCandidate {
+    private final int index;
+    private final QGVehicleRead vehicle;
+    private final GeoPoint position;
+    private final double approximateScore;
+    private CompletableFuture<TravelEstimate> route;
+
+    private PendingCandidate(
+        int index, QGVehicleRead vehicle, GeoPoint position, double approximateScore) {
+      this.index = index;
+      this.vehicle = vehicle;
+      this.position = position;
+      this.approximateScore = approximateScore;
+    }
+
+    QGVehicleRead vehicle() {
+      return vehicle;
+    }
+
+    GeoPoint position() {
+      return position;
+    }
+
+    double approximateScore() {
+      return approximateScore;
+    }
+
+    /**
+     * Overwrites the straight-line row with the routed estimate and marks it routed when the
+     * estimate arrived in time; otherwise the row keeps its straight-line estimate.
+     */
+    void applyRoute(CandidateBatch batch, RouteGeometry[] geometries, BitSet routed) {
+      TravelEstimate estimate =
+          route != null && route.isDone() && !route.isCompletedExceptionally()
+              ? route.join()
+              : null;
+      if (estimate == null) {
+        return;
+      }
+      if (estimate.distanceKm() != null) {
+        batch.distancesKm()[index] = estimate.distanceKm();
+      }
+      batch.etaMinutes()[index] =
+          estimate.durationMinutes() == null ? Double.NaN : estimate.durationMinutes();
+      geometries[index] = estimate.routeGeometry();
+      routed.set(index);
+    }
+  }
+
+  /** Optional stages of an engine, each disabled until set. */
+  public static final class Builder {
+    private final DecisionDataSource dataSource;
+    private final VehicleScoringStrategy scoringStrategy;
+    private DecisionCriteria criteria;
+    private RoutingPolicy routingPolicy = RoutingPolicy.DEFAULT;
+    private RequirementSolverConfig solverConfig = RequirementSolverConfig.DISABLED;
+    private ReservationLedger reservations = new ReservationLedger(ReservationConfig.DISABLED);
+    private DecisionContextConfig contextConfig = DecisionContextConfig.DISABLED;
+    private MetricsRegistry metrics = MetricsRegistry.global();
+
+    private Builder(DecisionDataSource dataSource, VehicleScoringStrategy scoringStrategy) {
+      this.dataSource = dataSource;
+      this.scoringStrategy = scoringStrategy;
+    }
+
+    /** Eligibility criteria, {@code null} to accept every available vehicle. */
+    public Builder criteria(DecisionCriteria criteria) {
+      this.criteria = criteria;
+      return this;
+    }
+
+    public Builder routingPolicy(RoutingPolicy routingPolicy) {
+      this.routingPolicy = routingPolicy;
+      return this;
+    }
+
+    public Builder requirementSolver(RequirementSolverConfig solverConfig) {
+      this.solverConfig = solverConfig;
+      return this;
+    }
+
+    /** Ledger shared with the handler that reserves the proposed vehicles. */
+    public Builder reservations(ReservationLedger reservations) {
+      this.reservations = reservations;
+      return this;
+    }
+
+    public Builder decisionContext(DecisionContextConfig contextConfig) {
+      this.contextConfig = contextConfig;
+      return this;
+    }
+
+    /** Registry of the engine metrics, the global one unless the engine is a throwaway. */
+    public Builder metrics(MetricsRegistry metrics) {
+      this.metrics = metrics;
+      return this;
+    }
+
+    public VehicleAssignmentDecisionEngine build() {
+      return new VehicleAssignmentDecisionEngine(this);
+    }
+  }
 }
@@ -1,7 +1,47 @@
 package cpe.qg.engine.decision.model;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.UUID;
 
-/** Input describing the vehicles required for an incident. */
-public record AssignmentRequest(UUID incidentId, List<VehicleNeed> vehiclesNeeded) {}
+/**
+ * Input describing the vehicles required for an incident.
+ *
+ * @param deadline instant by which a proposal is due, or {@code null} to wait for every route
+ * @param fast skip routing and rank on straight-line estimates, without route geometry
+ * @param priority urgency from {@link #HIGHEST_PRIORITY} to {@link #LOWEST_PRIORITY}
+ */
+public record AssignmentRequest(
+    UUID incidentId,
+    List<VehicleNeed> vehiclesNeeded,
+    Instant deadline,
+    boolean fast,
+    int priority) {
+
+  public static final int HIGHEST_PRIORITY = 0;
+  public static final int LOWEST_PRIORITY = 9;
+  public static final int DEFAULT_PRIORITY = 5;
+
+  public AssignmentRequest {
+    if (priority < HIGHEST_PRIORITY || priority > LOWEST_PRIORITY) {
+      throw new IllegalArgumentException(
+          "priority must be between %d and %d".formatted(HIGHEST_PRIORITY, LOWEST_PRIORITY));
+    }
+  }
+
+  public AssignmentRequest(UUID incidentId, List<VehicleNeed> vehiclesNeeded, Instant deadline) {
+    this(incidentId, vehiclesNeeded, deadline, false, DEFAULT_PRIORITY);
+  }
+
+  public AssignmentRequest(UUID incidentId, List<VehicleNeed> vehiclesNeeded) {
+    this(incidentId, vehiclesNeeded, null);
+  }
+
+  public AssignmentRequest asFast() {
+    return new AssignmentRequest(incidentId, vehiclesNeeded, deadline, true, priority);
+  }
+
+  public AssignmentRequest withPriority(int priority) {
+    return new AssignmentRequest(incidentId, vehiclesNeeded, deadline, fast, priority);
+  }
+}
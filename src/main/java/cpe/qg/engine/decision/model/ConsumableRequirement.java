@@ -0,0 +1,21 @@
+package cpe.qg.engine.decision.model;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Minimum stock of one consumable a candidate must carry.
+ *
+ * @param vehicleTypeId vehicle type the constraint applies to, {@code null} for every type
+ * @param consumableTypeId consumable type, as in {@code QGConsumableTypeRef}
+ * @param minQuantity minimum current quantity, in the unit of the consumable type
+ */
+public record ConsumableRequirement(UUID vehicleTypeId, UUID consumableTypeId, double minQuantity) {
+
+  public ConsumableRequirement {
+    Objects.requireNonNull(consumableTypeId, "Consumable type id is required");
+    if (Double.isNaN(minQuantity)) {
+      throw new IllegalArgumentException("minQuantity must be a number");
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package cpe.qg.engine.decision.model;
+
+/**
+ * Settings of coverage-aware scoring.
+ *
+ * @param enabled penalize candidates whose departure leaves cells under-covered
+ * @param cellKm side of a grid cell
+ * @param targetMinutes straight-line travel time within which a vehicle covers a cell
+ * @param minVehicles available vehicles of a type a cell needs within reach to count as covered
+ * @param weight largest fraction of its score a candidate loses, when every cell it covers would
+ *     become under-covered
+ * @param maxCells cells of the grid, cells being enlarged when the fleet area needs more
+ */
+public record CoverageConfig(
+    boolean enabled,
+    double cellKm,
+    double targetMinutes,
+    int minVehicles,
+    double weight,
+    int maxCells) {
+
+  public static final CoverageConfig DISABLED =
+      new CoverageConfig(false, 0.5, 10.0, 1, 0.5, 250_000);
+
+  public CoverageConfig {
+    if (cellKm <= 0.0) {
+      throw new IllegalArgumentException("cellKm must be positive");
+    }
+    if (targetMinutes <= 0.0) {
+      throw new IllegalArgumentException("targetMinutes must be positive");
+    }
+    if (minVehicles <= 0) {
+      throw new IllegalArgumentException("minVehicles must be positive");
+    }
+    if (weight < 0.0 || weight > 1.0) {
+      throw new IllegalArgumentException("weight must be between 0 and 1");
+    }
+    if (maxCells <= 0) {
+      throw new IllegalArgumentException("maxCells must be positive");
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package cpe.qg.engine.decision.model;
+
+/**
+ * Settings of the per-incident decision context reused by follow-up assignment requests.
+ *
+ * @param enabled keep the routes and selections of the last decision of each incident
+ * @param maxIncidents incidents whose context is kept, least recently decided evicted first
+ * @param ttlMs age after which a cached route or selection is recomputed
+ */
+public record DecisionContextConfig(boolean enabled, int maxIncidents, long ttlMs) {
+
+  public static final DecisionContextConfig DISABLED =
+      new DecisionContextConfig(false, 1_024, 120_000L);
+
+  public DecisionContextConfig {
+    if (maxIncidents <= 0) {
+      throw new IllegalArgumentException("maxIncidents must be positive");
+    }
+    if (ttlMs <= 0) {
+      throw new IllegalArgumentException("ttlMs must be positive");
+    }
+  }
+}
@@ -1,4 +1,20 @@
 package cpe.qg.engine.decision.model;
 
-/** Optional filters that influence vehicle selection. */
-public record DecisionCriteria(Double maxDistanceKm, Double minEnergyLevel) {}
+import java.util.List;
+
+/**
+ * Optional filters that influence vehicle selection.
+ *
+ * @param minConsumables consumable stocks candidates must carry, empty when unconstrained
+ */
+public record DecisionCriteria(
+    Double maxDistanceKm, Double minEnergyLevel, List<ConsumableRequirement> minConsumables) {
+
+  public DecisionCriteria {
+    minConsumables = minConsumables == null ? List.of() : List.copyOf(minConsumables);
+  }
+
+  public DecisionCriteria(Double maxDistanceKm, Double minEnergyLevel) {
+    this(maxDistanceKm, minEnergyLevel, List.of());
+  }
+}
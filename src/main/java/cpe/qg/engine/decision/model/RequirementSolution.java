@@ -0,0 +1,23 @@
+package cpe.qg.engine.decision.model;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Vehicle counts chosen for one phase by the requirement-group solver.
+ *
+ * @param quantities vehicles to send per vehicle type
+ * @param missing shortfall against the hard groups that could not be satisfied
+ * @param complete {@code false} when the node limit stopped the search before it proved optimality
+ */
+public record RequirementSolution(
+    Map<UUID, Integer> quantities,
+    List<MissingVehicle> missing,
+    int hardGroupsSatisfied,
+    int hardGroups,
+    int softGroupsSatisfied,
+    int softGroups,
+    long nodesExplored,
+    long elapsedNanos,
+    boolean complete) {}
@@ -0,0 +1,19 @@
+package cpe.qg.engine.decision.model;
+
+/**
+ * Settings of the requirement-group solver mode.
+ *
+ * @param enabled read the SDMIS resource planning and solve its requirement groups per phase
+ * @param nodeLimit search nodes explored per phase before returning the best solution found
+ */
+public record RequirementSolverConfig(boolean enabled, long nodeLimit) {
+
+  public static final RequirementSolverConfig DISABLED =
+      new RequirementSolverConfig(false, 250_000L);
+
+  public RequirementSolverConfig {
+    if (nodeLimit <= 0) {
+      throw new IllegalArgumentException("nodeLimit must be positive");
+    }
+  }
+}
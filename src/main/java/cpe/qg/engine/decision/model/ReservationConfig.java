@@ -0,0 +1,18 @@
+package cpe.qg.engine.decision.model;
+
+/**
+ * Settings of the in-process vehicle reservation ledger.
+ *
+ * @param enabled reserve proposed vehicles and skip those reserved for other incidents
+ * @param ttlMs time after which a reservation lapses without confirmation or rejection
+ */
+public record ReservationConfig(boolean enabled, long ttlMs) {
+
+  public static final ReservationConfig DISABLED = new ReservationConfig(false, 30_000L);
+
+  public ReservationConfig {
+    if (ttlMs <= 0) {
+      throw new IllegalArgumentException("ttlMs must be positive");
+    }
+  }
+}
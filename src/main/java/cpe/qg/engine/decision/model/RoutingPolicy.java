@@ -0,0 +1,22 @@
+package cpe.qg.engine.decision.model;
+
+/**
+ * How the engine spends its routing budget.
+ *
+ * @param maxConcurrentRoutes routing calls in flight at once
+ * @param defaultDeadlineMs time budget applied to requests that carry no deadline, {@code null} to
+ *     wait for every route
+ */
+public record RoutingPolicy(int maxConcurrentRoutes, Long defaultDeadlineMs) {
+
+  public static final RoutingPolicy DEFAULT = new RoutingPolicy(8, null);
+
+  public RoutingPolicy {
+    if (maxConcurrentRoutes <= 0) {
+      throw new IllegalArgumentException("maxConcurrentRoutes must be positive");
+    }
+    if (defaultDeadlineMs != null && defaultDeadlineMs <= 0) {
+      throw new IllegalArgumentException("defaultDeadlineMs must be positive");
+    }
+  }
+}
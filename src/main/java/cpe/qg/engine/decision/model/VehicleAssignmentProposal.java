@@ -2,7 +2,12 @@ package cpe.qg.engine.decision.model;
 
 import java.util.UUID;
 
-/** Proposed vehicle assignment with a score. */
+/**
+ * Proposed vehicle assignment with a score.
+ *
+ * @param approximate {@code true} when distance and time are straight-line estimates because no
+ *     route was available before the deadline
+ */
 public record VehicleAssignmentProposal(
     UUID incidentPhaseId,
     UUID vehicleId,
@@ -11,4 +16,5 @@ public record VehicleAssignmentProposal(
     RouteGeometry routeGeometry,
     Double energyLevel,
     double score,
-    int rank) {}
+    int rank,
+    boolean approximate) {}
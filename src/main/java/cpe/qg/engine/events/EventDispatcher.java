@@ -1,14 +1,21 @@
 package cpe.qg.engine.events;
 
 import cpe.qg.engine.handlers.EventHandler;
+import cpe.qg.engine.logging.FlightRecorder;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.profiling.MessageDispatchEvent;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.Tracer;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import org.slf4j.Logger;
 
-/** Dispatches an event to the matching handler. */
+/**
+ * Dispatches an event to the matching handler. A failing handler dumps the flight recorder, with
+ * the failing payload as its last entry.
+ */
 public class EventDispatcher {
 
   private final Map<String, EventHandler> handlers = new HashMap<>();
@@ -31,19 +38,38 @@ public class EventDispatcher {
   }
 
   public void dispatch(EventMessage message) {
+    MessageDispatchEvent event = new MessageDispatchEvent();
+    event.begin();
     EventHandler handler = handlers.get(message.eventKey());
     if (handler == null) {
       log.warn("No handler registered for event '{}'", message.eventKey());
+      commit(event, message, "unhandled");
       return;
     }
-    try {
-      handler.handle(message);
-    } catch (Exception e) {
-      log.error(
-          "Handler for event '{}' failed on payload {}",
-          message.eventKey(),
-          message.rawPayload(),
-          e);
+    try (Span span = Tracer.global().startSpan("handle " + message.eventKey())) {
+      try {
+        handler.handle(message);
+        commit(event, message, "handled");
+      } catch (Exception e) {
+        commit(event, message, "failed");
+        span.error(e);
+        log.error(
+            "Handler for event '{}' failed on payload {}",
+            message.eventKey(),
+            message.loggedPayload(),
+            e);
+        FlightRecorder.global().record("failed " + message.eventKey(), message.loggedPayload());
+        FlightRecorder.global().dumpOnError("failure of the '" + message.eventKey() + "' handler");
+      }
+    }
+  }
+
+  private static void commit(MessageDispatchEvent event, EventMessage message, String outcome) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.eventKey = message.eventKey();
+      event.outcome = outcome;
+      event.commit();
     }
   }
 }
@@ -1,16 +1,43 @@
 package cpe.qg.engine.events;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import java.time.Instant;
 import java.util.Objects;
 
-/** Envelope describing an incoming message with its event key. */
-public record EventMessage(String eventKey, JsonNode body, String rawPayload) {
+/**
+ * Envelope describing an incoming message with its event key.
+ *
+ * @param rawPayload JSON text of the message, or {@code null} for a binary message
+ * @param publishedAt broker timestamp set by the producer, or {@code null} when absent
+ * @param priority scheduling priority, 0 being the most urgent, or {@code null} when unknown
+ */
+public record EventMessage(
+    String eventKey, JsonNode body, String rawPayload, Instant publishedAt, Integer priority) {
 
   public EventMessage {
     if (eventKey == null || eventKey.isBlank()) {
       throw new IllegalArgumentException("Event key is required");
     }
     Objects.requireNonNull(body, "Event body is required");
-    Objects.requireNonNull(rawPayload, "Raw payload is required");
+  }
+
+  public EventMessage(String eventKey, JsonNode body, String rawPayload) {
+    this(eventKey, body, rawPayload, null, null);
+  }
+
+  /**
+   * Payload to log or record: the raw text, or the body of a binary message, which loggers and the
+   * flight recorder only render as JSON when they print it.
+   */
+  public Object loggedPayload() {
+    return rawPayload != null ? rawPayload : body;
+  }
+
+  public EventMessage withPublishedAt(Instant publishedAt) {
+    return new EventMessage(eventKey, body, rawPayload, publishedAt, priority);
+  }
+
+  public EventMessage withPriority(Integer priority) {
+    return new EventMessage(eventKey, body, rawPayload, publishedAt, priority);
   }
 }
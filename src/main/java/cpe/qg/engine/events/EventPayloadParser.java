@@ -2,24 +2,58 @@ package cpe.qg.engine.events;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.messaging.WireFormat;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
 
 /** Parses raw RabbitMQ payloads into an {@link EventMessage}. */
 public class EventPayloadParser {
 
   private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<WireFormat, ObjectMapper> binaryMappers = new EnumMap<>(WireFormat.class);
+
+  public EventPayloadParser() {
+    for (WireFormat format : WireFormat.values()) {
+      if (format.binary()) {
+        binaryMappers.put(format, format.newMapper());
+      }
+    }
+  }
 
   public EventMessage parse(String payload) {
     try {
-      JsonNode body = objectMapper.readTree(payload);
-      JsonNode eventNode = body.get("event");
-      if (eventNode == null || !eventNode.isTextual() || eventNode.asText().isBlank()) {
-        throw new IllegalArgumentException("Payload does not contain an 'event' field");
-      }
-      return new EventMessage(eventNode.asText(), body, payload);
+      return message(objectMapper.readTree(payload), payload);
     } catch (IllegalArgumentException e) {
       throw e;
     } catch (Exception e) {
       throw new IllegalArgumentException("Invalid message payload", e);
     }
   }
+
+  /** Parses a delivery body in the given format; binary messages have no raw payload. */
+  public EventMessage parse(byte[] payload, WireFormat format) {
+    if (!format.binary()) {
+      return parse(new String(payload, StandardCharsets.UTF_8));
+    }
+    try {
+      JsonNode body = binaryMappers.get(format).readTree(payload);
+      if (body == null) {
+        throw new IllegalArgumentException("Payload is empty");
+      }
+      return message(body, null);
+    } catch (IllegalArgumentException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new IllegalArgumentException("Invalid " + format + " message payload", e);
+    }
+  }
+
+  private static EventMessage message(JsonNode body, String payload) {
+    JsonNode eventNode = body.get("event");
+    if (eventNode == null || !eventNode.isTextual() || eventNode.asText().isBlank()) {
+      throw new IllegalArgumentException("Payload does not contain an 'event' field");
+    }
+    return new EventMessage(eventNode.asText(), body, payload);
+  }
 }
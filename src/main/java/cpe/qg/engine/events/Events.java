@@ -3,7 +3,11 @@ package cpe.qg.engine.events;
 /** Central registry of RabbitMQ events used by the engine. */
 public enum Events {
   ASSIGNMENT_REQUEST("assignment_request"),
-  ASSIGNMENT_PROPOSAL("assignment_proposal");
+  ASSIGNMENT_PROPOSAL("assignment_proposal"),
+  ASSIGNMENT_PROPOSAL_ACCEPTED("assignment_proposal_accepted"),
+  ASSIGNMENT_PROPOSAL_REJECTED("assignment_proposal_rejected"),
+  INCIDENT_CREATED("incident_created"),
+  INCIDENT_UPDATED("incident_updated");
 
   private final String key;
 
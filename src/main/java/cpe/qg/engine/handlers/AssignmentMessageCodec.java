@@ -0,0 +1,201 @@
+package cpe.qg.engine.handlers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.messaging.WireFormat;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.slf4j.Logger;
+
+/** Decodes assignment requests and encodes assignment proposals exchanged with SDMIS. */
+public final class AssignmentMessageCodec {
+
+  private final ObjectMapper objectMapper;
+  private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+  private final Logger log = LoggerProvider.getLogger(AssignmentMessageCodec.class);
+
+  public AssignmentMessageCodec() {
+    for (WireFormat format : WireFormat.values()) {
+      ObjectMapper mapper = format.newMapper();
+      mapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+      mappers.put(format, mapper);
+    }
+    this.objectMapper = mappers.get(WireFormat.JSON);
+  }
+
+  /**
+   * @return the decoded request, or {@code null} when the payload is missing or invalid
+   */
+  public AssignmentRequest decodeRequest(EventMessage message) {
+    if (message == null || message.body() == null) {
+      return null;
+    }
+    JsonNode payloadNode = message.body().get("payload");
+    if (payloadNode == null || !payloadNode.isObject()) {
+      log.warn("Missing payload in event message");
+      return null;
+    }
+    try {
+      AssignmentRequestPayload payload =
+          objectMapper.treeToValue(payloadNode, AssignmentRequestPayload.class);
+      if (payload == null || payload.incidentId() == null) {
+        return null;
+      }
+      List<VehicleNeed> needs = new ArrayList<>();
+      if (payload.vehiclesNeeded() != null) {
+        for (VehicleNeedPayload need : payload.vehiclesNeeded()) {
+          if (need == null
+              || need.incidentPhaseId() == null
+              || need.vehicleTypeId() == null
+              || need.quantity() == null
+              || need.quantity() <= 0) {
+            continue;
+          }
+          needs.add(new VehicleNeed(need.incidentPhaseId(), need.vehicleTypeId(), need.quantity()));
+        }
+      }
+      AssignmentRequest request =
+          new AssignmentRequest(payload.incidentId(), needs, deadlineOf(payload));
+      return payload.priority() == null
+          ? request
+          : request.withPriority(
+              Math.clamp(
+                  payload.priority(),
+                  AssignmentRequest.HIGHEST_PRIORITY,
+                  AssignmentRequest.LOWEST_PRIORITY));
+    } catch (JsonProcessingException e) {
+      log.warn("Invalid assignment request payload: {}", e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Earliest of the absolute {@code deadline} (ISO-8601 instant) and of {@code time_budget_ms}
+   * counted from now, or {@code null} when the request carries neither.
+   */
+  private Instant deadlineOf(AssignmentRequestPayload payload) {
+    Instant deadline = null;
+    if (payload.deadline() != null && !payload.deadline().isBlank()) {
+      try {
+        deadline = Instant.parse(payload.deadline().trim());
+      } catch (DateTimeParseException e) {
+        log.warn("Ignoring invalid assignment request deadline '{}'", payload.deadline());
+      }
+    }
+    if (payload.timeBudgetMs() != null && payload.timeBudgetMs() > 0) {
+      Instant budgetEnd = Instant.now().plusMillis(payload.timeBudgetMs());
+      if (deadline == null || budgetEnd.isBefore(deadline)) {
+        deadline = budgetEnd;
+      }
+    }
+    return deadline;
+  }
+
+  /** Serializes the decision as an {@code assignment_proposal} event envelope. */
+  public String encodeProposal(UUID incidentId, DecisionResult result)
+      throws JsonProcessingException {
+    return encodeProposal(UUID.randomUUID(), incidentId, result);
+  }
+
+  /** Same as {@link #encodeProposal(UUID, DecisionResult)} with a given {@code proposal_id}. */
+  public String encodeProposal(UUID proposalId, UUID incidentId, DecisionResult result)
+      throws JsonProcessingException {
+    return objectMapper.writeValueAsString(proposalEnvelope(proposalId, incidentId, result));
+  }
+
+  /** Same as {@link #encodeProposal(UUID, UUID, DecisionResult)} encoded in {@code format}. */
+  public byte[] encodeProposal(
+      UUID proposalId, UUID incidentId, DecisionResult result, WireFormat format)
+      throws JsonProcessingException {
+    return mappers.get(format).writeValueAsBytes(proposalEnvelope(proposalId, incidentId, result));
+  }
+
+  private Map<String, Object> proposalEnvelope(
+      UUID proposalId, UUID incidentId, DecisionResult result) {
+    Map<String, Object> payload = new LinkedHashMap<>();
+    payload.put("proposal_id", proposalId.toString());
+    payload.put("incident_id", incidentId.toString());
+    payload.put("generated_at", Instant.now().toString());
+    payload.put("vehicles_to_send", proposalPayload(result.proposals()));
+    payload.put("approximate", hasApproximateEstimate(result.proposals()));
+    payload.put("missing", missingPayload(result.missingVehicles()));
+
+    Map<String, Object> envelope = new LinkedHashMap<>();
+    envelope.put("event", Events.ASSIGNMENT_PROPOSAL.key());
+    envelope.put("payload", payload);
+    return envelope;
+  }
+
+  private List<Map<String, Object>> proposalPayload(List<VehicleAssignmentProposal> proposals) {
+    if (proposals == null || proposals.isEmpty()) {
+      return List.of();
+    }
+    List<Map<String, Object>> payload = new ArrayList<>();
+    for (VehicleAssignmentProposal proposal : proposals) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("incident_phase_id", proposal.incidentPhaseId());
+      item.put("vehicle_id", proposal.vehicleId());
+      item.put("distance_km", proposal.distanceKm());
+      item.put("estimated_time_min", proposal.estimatedTimeMin());
+      item.put("route_geometry", proposal.routeGeometry());
+      item.put("energy_level", proposal.energyLevel());
+      item.put("score", proposal.score());
+      item.put("rank", proposal.rank());
+      item.put("estimate_approximate", proposal.approximate());
+      payload.add(item);
+    }
+    return payload;
+  }
+
+  private boolean hasApproximateEstimate(List<VehicleAssignmentProposal> proposals) {
+    if (proposals == null) {
+      return false;
+    }
+    for (VehicleAssignmentProposal proposal : proposals) {
+      if (proposal.approximate()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private List<Map<String, Object>> missingPayload(List<MissingVehicle> missingVehicles) {
+    if (missingVehicles == null || missingVehicles.isEmpty()) {
+      return List.of();
+    }
+    List<Map<String, Object>> payload = new ArrayList<>();
+    for (MissingVehicle missing : missingVehicles) {
+      Map<String, Object> item = new LinkedHashMap<>();
+      item.put("incident_phase_id", missing.incidentPhaseId());
+      item.put("vehicle_type_id", missing.vehicleTypeId());
+      item.put("missing_quantity", missing.missingQuantity());
+      payload.add(item);
+    }
+    return payload;
+  }
+
+  private record AssignmentRequestPayload(
+      UUID incidentId,
+      List<VehicleNeedPayload> vehiclesNeeded,
+      String deadline,
+      Long timeBudgetMs,
+      Integer priority) {}
+
+  private record VehicleNeedPayload(UUID vehicleTypeId, Integer quantity, UUID incidentPhaseId) {}
+}
@@ -1,46 +1,99 @@
 package cpe.qg.engine.handlers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.PropertyNamingStrategies;
+import cpe.qg.engine.config.DeduplicationConfig;
+import cpe.qg.engine.config.LoadSheddingConfig;
+import cpe.qg.engine.config.WireFormatConfig;
 import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.api.ReservationLedger;
 import cpe.qg.engine.decision.model.AssignmentRequest;
 import cpe.qg.engine.decision.model.DecisionResult;
-import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.ReservationConfig;
 import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
-import cpe.qg.engine.decision.model.VehicleNeed;
 import cpe.qg.engine.events.EventMessage;
 import cpe.qg.engine.events.Events;
+import cpe.qg.engine.logging.FlightRecorder;
+import cpe.qg.engine.logging.LogSampler;
 import cpe.qg.engine.logging.LoggerProvider;
 import cpe.qg.engine.messaging.MessageBrokerClient;
 import cpe.qg.engine.messaging.Queues;
+import cpe.qg.engine.messaging.WireFormat;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.service.BacklogMonitor;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.Tracer;
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 
-/** Handles assignment request events and emits assignment proposals. */
+/**
+ * Handles assignment request events and emits assignment proposals. Every payload and decision goes
+ * to the flight recorder; their INFO lines are logged for the sampled share of messages only.
+ */
 public class AssignmentRequestHandler implements EventHandler {
 
+  /** Decisions run for one request while concurrent decisions keep reserving its vehicles. */
+  private static final int MAX_DECISIONS = 3;
+
   private final MessageBrokerClient brokerClient;
   private final boolean durableQueue;
   private final DecisionEngine decisionEngine;
-  private final ObjectMapper objectMapper;
+  private final AssignmentMessageCodec codec;
+  private final RequestDeduplicator deduplicator;
+  private final BacklogMonitor backlogMonitor;
+  private final ReservationLedger reservations;
+  private final WireFormat proposalFormat;
   private final Logger log = LoggerProvider.getLogger(AssignmentRequestHandler.class);
+  private final LogSampler sampler = LogSampler.global();
+  private final FlightRecorder recorder = FlightRecorder.global();
   private final AtomicBoolean apiQueueDeclared = new AtomicBoolean(false);
+  private final LatencyHistogram decodeLatency = stageHistogram("decode");
+  private final LatencyHistogram decideLatency = stageHistogram("decide");
+  private final LatencyHistogram encodeLatency = stageHistogram("encode");
+  private final LatencyHistogram publishLatency = stageHistogram("publish");
+  private final LatencyHistogram totalLatency = stageHistogram("total");
+  private final Tracer tracer = Tracer.global();
+  private final Counter processed = outcomeCounter("proposed");
+  private final Counter rejected = outcomeCounter("invalid");
+  private final Counter skipped = outcomeCounter("skipped");
+  private final Counter duplicates = outcomeCounter("duplicate");
+  private final Counter expired = outcomeCounter("expired");
+  private final Counter degradedDecisions =
+      MetricsRegistry.global()
+          .counter("qg_assignment_degraded_total", "Assignment requests decided in degraded mode");
+
+  private AssignmentRequestHandler(Builder builder) {
+    this.brokerClient =
+        Objects.requireNonNull(builder.brokerClient, "Message broker client is required");
+    this.durableQueue = builder.durableQueue;
+    this.decisionEngine = builder.decisionEngine;
+    this.codec = new AssignmentMessageCodec();
+    this.deduplicator =
+        Objects.requireNonNull(builder.deduplicator, "Request deduplicator is required");
+    this.backlogMonitor =
+        builder.backlogMonitor != null
+            ? builder.backlogMonitor
+            : new BacklogMonitor(
+                brokerClient, Queues.SDMIS_ENGINE.queue(), LoadSheddingConfig.DISABLED);
+    this.reservations =
+        Objects.requireNonNull(builder.reservations, "Reservation ledger is required");
+    this.proposalFormat =
+        Objects.requireNonNull(builder.wireFormats, "Wire format config is required")
+            .format(Queues.SDMIS_API.queue());
+  }
 
-  public AssignmentRequestHandler(
-      MessageBrokerClient brokerClient, boolean durableQueue, DecisionEngine decisionEngine) {
-    this.brokerClient = brokerClient;
-    this.durableQueue = durableQueue;
-    this.decisionEngine = decisionEngine;
-    this.objectMapper = new ObjectMapper();
-    this.objectMapper.setPropertyNamingStrategy(PropertyNamingStrategies.SNAKE_CASE);
+  /**
+   * Handler publishing the proposals of {@code decisionEngine}, or skipping requests when it is
+   * {@code null}, with every optional stage off.
+   */
+  public static Builder builder(MessageBrokerClient brokerClient, DecisionEngine decisionEngine) {
+    return new Builder(brokerClient, decisionEngine);
   }
 
   @Override
@@ -50,20 +103,163 @@ public class AssignmentRequestHandler implements EventHandler {
 
   @Override
   public void handle(EventMessage message) {
+    long startedAt = System.nanoTime();
     ensureApiQueue();
-    log.info("Processing assignment request message: {}", message.rawPayload());
-    AssignmentRequest request = extractRequest(message);
+    boolean verbose = sampler.sample();
+    recorder.record("request", message.loggedPayload());
+    if (verbose) {
+      log.info("Processing assignment request message: {}", message.loggedPayload());
+    }
+    AssignmentRequest decoded = codec.decodeRequest(message);
+    AssignmentRequest request =
+        decoded == null || message.priority() == null
+            ? decoded
+            : decoded.withPriority(message.priority());
+    decodeLatency.recordSince(startedAt);
     if (request == null || request.incidentId() == null) {
       log.warn("Unable to parse assignment request payload");
+      rejected.increment();
       return;
     }
     if (decisionEngine == null) {
       log.warn("No decision engine configured, skipping assignment proposal");
+      skipped.increment();
       return;
     }
-    DecisionResult result = decisionEngine.proposeAssignments(request);
-    logDecisionResult(request.incidentId(), result);
-    publishDecisionProposal(request.incidentId(), result);
+    if (shed(request, message.publishedAt())) {
+      totalLatency.recordSince(startedAt);
+      return;
+    }
+    AssignmentRequest effective = backlogMonitor.degraded() ? request.asFast() : request;
+    if (effective.fast()) {
+      degradedDecisions.increment();
+    }
+    RequestDeduplicator.Resolution resolution =
+        deduplicator.resolve(effective, () -> decide(effective, verbose), this::stillReserved);
+    if (resolution.duplicate()) {
+      duplicates.increment();
+      if (deduplicator.config().onHit() == DeduplicationConfig.OnHit.DROP) {
+        log.info(
+            "Dropping duplicate assignment request for incident {} ({})",
+            request.incidentId(),
+            resolution.source());
+        totalLatency.recordSince(startedAt);
+        return;
+      }
+      log.info(
+          "Republishing proposal for duplicate assignment request for incident {} ({})",
+          request.incidentId(),
+          resolution.source());
+    } else {
+      processed.increment();
+    }
+    publishDecisionProposal(request.incidentId(), resolution.proposal(), verbose);
+    totalLatency.recordSince(startedAt);
+  }
+
+  /** Records the age of the request and tells whether to drop it for being older than allowed. */
+  private boolean shed(AssignmentRequest request, Instant publishedAt) {
+    if (publishedAt == null) {
+      return false;
+    }
+    long ageMs = Duration.between(publishedAt, Instant.now()).toMillis();
+    backlogMonitor.recordAge(ageMs);
+    LoadSheddingConfig config = backlogMonitor.config();
+    if (!config.enabled()) {
+      return false;
+    }
+    if (config.maxAgeMs() > 0 && ageMs > config.maxAgeMs()) {
+      expired.increment();
+      log.warn(
+          "Dropping assignment request for incident {}: {} ms old (max {} ms)",
+          request.incidentId(),
+          ageMs,
+          config.maxAgeMs());
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Decides and reserves the proposed vehicles before the proposal leaves, for other incidents to
+   * skip. When a concurrent decision for another incident reserved some of them first, decides
+   * again without them, up to {@link #MAX_DECISIONS} times, then drops them from the proposal.
+   */
+  private RequestDeduplicator.Proposal decide(AssignmentRequest request, boolean verbose) {
+    UUID proposalId = UUID.randomUUID();
+    DecisionResult result = propose(request, verbose);
+    for (int decisions = 1; ; decisions++) {
+      Set<UUID> taken = reserve(proposalId, request.incidentId(), result);
+      if (taken.isEmpty()) {
+        break;
+      }
+      if (decisions < MAX_DECISIONS) {
+        log.info(
+            "{} vehicle(s) proposed for incident {} were reserved meanwhile for another incident,"
+                + " deciding again",
+            taken.size(),
+            request.incidentId());
+        result = propose(request, verbose);
+      } else {
+        log.warn(
+            "Dropping vehicles {} from the proposal for incident {}: reserved for another incident",
+            taken,
+            request.incidentId());
+        result = without(result, taken);
+      }
+    }
+    byte[] message = encodeProposal(proposalId, request.incidentId(), result);
+    if (message == null) {
+      reservations.release(proposalId);
+    }
+    return new RequestDeduplicator.Proposal(proposalId, result, message, proposalFormat);
+  }
+
+  private DecisionResult propose(AssignmentRequest request, boolean verbose) {
+    long decideStartedAt = System.nanoTime();
+    DecisionResult result;
+    try (Span span = tracer.startSpan("decide")) {
+      span.tag("incident_id", request.incidentId());
+      result = decisionEngine.proposeAssignments(request);
+      if (result != null && result.proposals() != null) {
+        span.tag("proposals", result.proposals().size());
+      }
+    }
+    decideLatency.recordSince(decideStartedAt);
+    recorder.record("decision", result);
+    logDecisionResult(request.incidentId(), result, verbose);
+    return result;
+  }
+
+  /**
+   * Whether a cached proposal can be published again: its vehicles are still reserved under its
+   * {@code proposal_id}, or it proposes none.
+   */
+  private boolean stillReserved(RequestDeduplicator.Proposal proposal) {
+    DecisionResult result = proposal.result();
+    return result == null
+        || result.proposals() == null
+        || result.proposals().isEmpty()
+        || reservations.holds(proposal.proposalId());
+  }
+
+  /** Reserves the proposed vehicles; returns those already reserved for another incident. */
+  private Set<UUID> reserve(UUID proposalId, UUID incidentId, DecisionResult result) {
+    if (result == null || result.proposals() == null || result.proposals().isEmpty()) {
+      return Set.of();
+    }
+    return reservations.reserve(
+        proposalId,
+        incidentId,
+        result.proposals().stream().map(VehicleAssignmentProposal::vehicleId).toList());
+  }
+
+  private static DecisionResult without(DecisionResult result, Set<UUID> vehicleIds) {
+    return new DecisionResult(
+        result.proposals().stream()
+            .filter(proposal -> !vehicleIds.contains(proposal.vehicleId()))
+            .toList(),
+        result.missingVehicles());
   }
 
   private void ensureApiQueue() {
@@ -72,111 +268,65 @@ public class AssignmentRequestHandler implements EventHandler {
     }
   }
 
-  private AssignmentRequest extractRequest(EventMessage message) {
-    if (message == null || message.body() == null) {
-      return null;
-    }
-    JsonNode payloadNode = message.body().get("payload");
-    if (payloadNode == null || !payloadNode.isObject()) {
-      log.warn("Missing payload in event message");
+  private byte[] encodeProposal(UUID proposalId, UUID incidentId, DecisionResult result) {
+    if (result == null) {
       return null;
     }
     try {
-      AssignmentRequestPayload payload =
-          objectMapper.treeToValue(payloadNode, AssignmentRequestPayload.class);
-      if (payload == null || payload.incidentId() == null) {
-        return null;
-      }
-      List<VehicleNeed> needs = new ArrayList<>();
-      if (payload.vehiclesNeeded() != null) {
-        for (VehicleNeedPayload need : payload.vehiclesNeeded()) {
-          if (need == null
-              || need.incidentPhaseId() == null
-              || need.vehicleTypeId() == null
-              || need.quantity() == null
-              || need.quantity() <= 0) {
-            continue;
-          }
-          needs.add(new VehicleNeed(need.incidentPhaseId(), need.vehicleTypeId(), need.quantity()));
-        }
-      }
-      return new AssignmentRequest(payload.incidentId(), needs);
+      long encodeStartedAt = System.nanoTime();
+      byte[] message = codec.encodeProposal(proposalId, incidentId, result, proposalFormat);
+      encodeLatency.recordSince(encodeStartedAt);
+      return message;
     } catch (JsonProcessingException e) {
-      log.warn("Invalid assignment request payload: {}", e.getMessage());
+      log.error("Failed to serialize assignment proposal for incident {}", incidentId, e);
       return null;
     }
   }
 
-  private void publishDecisionProposal(UUID incidentId, DecisionResult result) {
-    if (result == null) {
+  private void publishDecisionProposal(
+      UUID incidentId, RequestDeduplicator.Proposal proposal, boolean verbose) {
+    if (proposal == null || proposal.message() == null) {
       return;
     }
-    Map<String, Object> payload = new LinkedHashMap<>();
-    payload.put("proposal_id", UUID.randomUUID().toString());
-    payload.put("incident_id", incidentId.toString());
-    payload.put("generated_at", Instant.now().toString());
-    payload.put("vehicles_to_send", proposalPayload(result.proposals()));
-    payload.put("missing", missingPayload(result.missingVehicles()));
-
-    Map<String, Object> envelope = new LinkedHashMap<>();
-    envelope.put("event", Events.ASSIGNMENT_PROPOSAL.key());
-    envelope.put("payload", payload);
-
-    try {
-      String message = objectMapper.writeValueAsString(envelope);
-      brokerClient.publish(Queues.SDMIS_API.queue(), message);
+    long publishStartedAt = System.nanoTime();
+    brokerClient.publish(Queues.SDMIS_API.queue(), proposal.message(), proposal.format());
+    publishLatency.recordSince(publishStartedAt);
+    if (verbose) {
       log.info(
           "Sent assignment proposal to {} for incident {}", Queues.SDMIS_API.queue(), incidentId);
-    } catch (JsonProcessingException e) {
-      log.error("Failed to serialize assignment proposal for incident {}", incidentId, e);
     }
   }
 
-  private List<Map<String, Object>> proposalPayload(List<VehicleAssignmentProposal> proposals) {
-    if (proposals == null || proposals.isEmpty()) {
-      return List.of();
-    }
-    List<Map<String, Object>> payload = new ArrayList<>();
-    for (VehicleAssignmentProposal proposal : proposals) {
-      Map<String, Object> item = new LinkedHashMap<>();
-      item.put("incident_phase_id", proposal.incidentPhaseId());
-      item.put("vehicle_id", proposal.vehicleId());
-      item.put("distance_km", proposal.distanceKm());
-      item.put("estimated_time_min", proposal.estimatedTimeMin());
-      item.put("route_geometry", proposal.routeGeometry());
-      item.put("energy_level", proposal.energyLevel());
-      item.put("score", proposal.score());
-      item.put("rank", proposal.rank());
-      payload.add(item);
-    }
-    return payload;
+  private static LatencyHistogram stageHistogram(String stage) {
+    return MetricsRegistry.global()
+        .histogram(
+            "qg_assignment_stage_seconds",
+            "Latency of the assignment request stages",
+            "stage",
+            stage);
   }
 
-  private List<Map<String, Object>> missingPayload(List<MissingVehicle> missingVehicles) {
-    if (missingVehicles == null || missingVehicles.isEmpty()) {
-      return List.of();
-    }
-    List<Map<String, Object>> payload = new ArrayList<>();
-    for (MissingVehicle missing : missingVehicles) {
-      Map<String, Object> item = new LinkedHashMap<>();
-      item.put("incident_phase_id", missing.incidentPhaseId());
-      item.put("vehicle_type_id", missing.vehicleTypeId());
-      item.put("missing_quantity", missing.missingQuantity());
-      payload.add(item);
-    }
-    return payload;
+  private static Counter outcomeCounter(String outcome) {
+    return MetricsRegistry.global()
+        .counter(
+            "qg_assignment_requests_total",
+            "Assignment requests handled, by outcome",
+            "outcome",
+            outcome);
   }
 
-  private void logDecisionResult(UUID incidentId, DecisionResult result) {
+  private void logDecisionResult(UUID incidentId, DecisionResult result, boolean verbose) {
     if (result == null) {
       log.info("No decision result produced for incident {}", incidentId);
       return;
     }
-    log.info(
-        "Assignment proposals generated for incident {}: {} vehicle(s), {} missing entries",
-        incidentId,
-        result.proposals() == null ? 0 : result.proposals().size(),
-        result.missingVehicles() == null ? 0 : result.missingVehicles().size());
+    if (verbose) {
+      log.info(
+          "Assignment proposals generated for incident {}: {} vehicle(s), {} missing entries",
+          incidentId,
+          result.proposals() == null ? 0 : result.proposals().size(),
+          result.missingVehicles() == null ? 0 : result.missingVehicles().size());
+    }
     if (result.proposals() != null && !result.proposals().isEmpty()) {
       log.debug("Assignment proposals: {}", result.proposals());
     }
@@ -185,8 +335,52 @@ public class AssignmentRequestHandler implements EventHandler {
     }
   }
 
-  private record AssignmentRequestPayload(
-      UUID incidentId, List<VehicleNeedPayload> vehiclesNeeded) {}
+  /** Optional stages of a handler, each disabled until set. */
+  public static final class Builder {
+    private final MessageBrokerClient brokerClient;
+    private final DecisionEngine decisionEngine;
+    private boolean durableQueue;
+    private RequestDeduplicator deduplicator =
+        new RequestDeduplicator(DeduplicationConfig.DISABLED);
+    private BacklogMonitor backlogMonitor;
+    private ReservationLedger reservations = new ReservationLedger(ReservationConfig.DISABLED);
+    private WireFormatConfig wireFormats = WireFormatConfig.DISABLED;
+
+    private Builder(MessageBrokerClient brokerClient, DecisionEngine decisionEngine) {
+      this.brokerClient = brokerClient;
+      this.decisionEngine = decisionEngine;
+    }
+
+    /** Declares the proposal queue durable. */
+    public Builder durableQueue(boolean durableQueue) {
+      this.durableQueue = durableQueue;
+      return this;
+    }
+
+    public Builder deduplicator(RequestDeduplicator deduplicator) {
+      this.deduplicator = deduplicator;
+      return this;
+    }
+
+    /** Monitor telling when to degrade or shed; without one, neither happens. */
+    public Builder backlogMonitor(BacklogMonitor backlogMonitor) {
+      this.backlogMonitor = backlogMonitor;
+      return this;
+    }
+
+    /** Ledger shared with the engine, which skips the vehicles reserved here. */
+    public Builder reservations(ReservationLedger reservations) {
+      this.reservations = reservations;
+      return this;
+    }
+
+    public Builder wireFormats(WireFormatConfig wireFormats) {
+      this.wireFormats = wireFormats;
+      return this;
+    }
 
-  private record VehicleNeedPayload(UUID vehicleTypeId, Integer quantity, UUID incidentPhaseId) {}
+    public AssignmentRequestHandler build() {
+      return new AssignmentRequestHandler(this);
+    }
+  }
 }
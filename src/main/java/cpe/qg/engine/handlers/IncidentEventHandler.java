@@ -0,0 +1,45 @@
+package cpe.qg.engine.handlers;
+
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.service.IncidentPrecomputer;
+import java.util.Objects;
+import java.util.UUID;
+import org.slf4j.Logger;
+
+/**
+ * Starts the speculative candidate precomputation of an incident when it is created or updated, so
+ * that its assignment requests find the routes of the likely vehicles already computed.
+ */
+public class IncidentEventHandler implements EventHandler {
+
+  private final Events event;
+  private final IncidentPrecomputer precomputer;
+  private final Logger log = LoggerProvider.getLogger(IncidentEventHandler.class);
+
+  public IncidentEventHandler(Events event, IncidentPrecomputer precomputer) {
+    if (event != Events.INCIDENT_CREATED && event != Events.INCIDENT_UPDATED) {
+      throw new IllegalArgumentException("Not an incident event: " + event);
+    }
+    this.event = event;
+    this.precomputer = Objects.requireNonNull(precomputer, "Incident precomputer is required");
+  }
+
+  @Override
+  public String eventKey() {
+    return event.key();
+  }
+
+  @Override
+  public void handle(EventMessage message) {
+    UUID incidentId;
+    try {
+      incidentId = UUID.fromString(message.body().path("payload").path("incident_id").asText());
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring {} without a valid incident_id", event.key());
+      return;
+    }
+    precomputer.submit(incidentId);
+  }
+}
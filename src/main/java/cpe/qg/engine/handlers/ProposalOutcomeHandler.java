@@ -0,0 +1,54 @@
+package cpe.qg.engine.handlers;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import cpe.qg.engine.decision.api.ReservationLedger;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.logging.LoggerProvider;
+import java.util.Objects;
+import java.util.UUID;
+import org.slf4j.Logger;
+
+/**
+ * Releases the vehicles reserved by a proposal once SDMIS accepts or rejects it, and forgets the
+ * proposal so that a duplicate request is decided again rather than answered with it. An accepted
+ * proposal shows up as active assignments in the fleet, a rejected one frees its vehicles.
+ */
+public class ProposalOutcomeHandler implements EventHandler {
+
+  private final Events event;
+  private final ReservationLedger reservations;
+  private final RequestDeduplicator deduplicator;
+  private final Logger log = LoggerProvider.getLogger(ProposalOutcomeHandler.class);
+
+  public ProposalOutcomeHandler(
+      Events event, ReservationLedger reservations, RequestDeduplicator deduplicator) {
+    if (event != Events.ASSIGNMENT_PROPOSAL_ACCEPTED
+        && event != Events.ASSIGNMENT_PROPOSAL_REJECTED) {
+      throw new IllegalArgumentException("Not a proposal outcome event: " + event);
+    }
+    this.event = event;
+    this.reservations = Objects.requireNonNull(reservations, "Reservation ledger is required");
+    this.deduplicator = Objects.requireNonNull(deduplicator, "Request deduplicator is required");
+  }
+
+  @Override
+  public String eventKey() {
+    return event.key();
+  }
+
+  @Override
+  public void handle(EventMessage message) {
+    JsonNode proposalNode = message.body().path("payload").path("proposal_id");
+    UUID proposalId;
+    try {
+      proposalId = UUID.fromString(proposalNode.asText());
+    } catch (IllegalArgumentException e) {
+      log.warn("Ignoring {} without a valid proposal_id", event.key());
+      return;
+    }
+    int released = reservations.release(proposalId);
+    deduplicator.invalidate(proposalId);
+    log.info("Released {} reservation(s) of proposal {} on {}", released, proposalId, event.key());
+  }
+}
@@ -0,0 +1,252 @@
+package cpe.qg.engine.handlers;
+
+import cpe.qg.engine.config.DeduplicationConfig;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.messaging.WireFormat;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Collapses duplicate assignment requests, keyed on a digest of the canonical request: the
+ * incident, whether it is decided in degraded mode, and its vehicle needs summed per phase and
+ * type, in a fixed order. The deadline is not part of the key since a retry carries a later one.
+ *
+ * <p>Concurrent duplicates wait for the computation already running. Once it completes, its
+ * proposal is kept for the TTL in a cache bounded to {@code maxEntries}, oldest evicted first,
+ * until SDMIS answers it or it is no longer reusable. Failed computations are not cached.
+ */
+public final class RequestDeduplicator {
+
+  /** How a proposal was obtained. */
+  public enum Source {
+    COMPUTED,
+    MERGED,
+    CACHED
+  }
+
+  /**
+   * Decision for one request with its encoded message, {@code null} when encoding failed.
+   *
+   * @param proposalId {@code proposal_id} carried by the message
+   * @param result {@code null} when the engine produced no result
+   * @param format encoding of the message
+   */
+  public record Proposal(
+      UUID proposalId, DecisionResult result, byte[] message, WireFormat format) {
+
+    /** Proposal with a JSON message. */
+    public Proposal(UUID proposalId, DecisionResult result, String message) {
+      this(
+          proposalId,
+          result,
+          message == null ? null : message.getBytes(StandardCharsets.UTF_8),
+          WireFormat.JSON);
+    }
+  }
+
+  public record Resolution(Proposal proposal, Source source) {
+
+    public boolean duplicate() {
+      return source != Source.COMPUTED;
+    }
+  }
+
+  private record Key(long high, long low) {}
+
+  private record Cached(Proposal proposal, long expiresAtNanos) {}
+
+  private final DeduplicationConfig config;
+  private final long ttlNanos;
+  private final Map<Key, CompletableFuture<Proposal>> inFlight = new ConcurrentHashMap<>();
+  private final Map<Key, Cached> completed;
+  private final Counter merged = duplicateCounter("merged");
+  private final Counter cached = duplicateCounter("cached");
+
+  public RequestDeduplicator(DeduplicationConfig config) {
+    this.config = Objects.requireNonNull(config, "Deduplication config is required");
+    this.ttlNanos = config.ttlMs() * 1_000_000L;
+    this.completed =
+        new LinkedHashMap<>() {
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key, Cached> eldest) {
+            return size() > config.maxEntries();
+          }
+        };
+    if (config.enabled()) {
+      MetricsRegistry.global()
+          .gauge(
+              "qg_assignment_dedup_cache_entries",
+              "Proposals kept for duplicate assignment requests",
+              this::cachedEntries);
+    }
+  }
+
+  public DeduplicationConfig config() {
+    return config;
+  }
+
+  /** Runs {@code compute} unless a duplicate of {@code request} is running or recently done. */
+  public Resolution resolve(AssignmentRequest request, Supplier<Proposal> compute) {
+    return resolve(request, compute, proposal -> true);
+  }
+
+  /**
+   * Runs {@code compute} unless a duplicate of {@code request} is running, or recently done with a
+   * proposal that is still {@code reusable}. A cached proposal that is not is dropped.
+   */
+  public Resolution resolve(
+      AssignmentRequest request, Supplier<Proposal> compute, Predicate<Proposal> reusable) {
+    if (!config.enabled()) {
+      return new Resolution(compute.get(), Source.COMPUTED);
+    }
+    Key key = keyOf(request);
+    Proposal hit = cachedProposal(key, reusable);
+    if (hit != null) {
+      cached.increment();
+      return new Resolution(hit, Source.CACHED);
+    }
+    CompletableFuture<Proposal> mine = new CompletableFuture<>();
+    CompletableFuture<Proposal> running = inFlight.putIfAbsent(key, mine);
+    if (running != null) {
+      merged.increment();
+      return new Resolution(awaitMerged(running), Source.MERGED);
+    }
+    // The original may have completed between the cache lookup and claiming the key.
+    hit = cachedProposal(key, reusable);
+    if (hit != null) {
+      inFlight.remove(key, mine);
+      mine.complete(hit);
+      cached.increment();
+      return new Resolution(hit, Source.CACHED);
+    }
+    try {
+      Proposal proposal = compute.get();
+      synchronized (completed) {
+        completed.put(key, new Cached(proposal, System.nanoTime() + ttlNanos));
+      }
+      mine.complete(proposal);
+      return new Resolution(proposal, Source.COMPUTED);
+    } catch (RuntimeException | Error e) {
+      mine.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, mine);
+    }
+  }
+
+  /**
+   * Forgets the cached proposal carrying {@code proposalId}, once SDMIS has accepted or rejected
+   * it; returns whether one was cached.
+   */
+  public boolean invalidate(UUID proposalId) {
+    if (!config.enabled() || proposalId == null) {
+      return false;
+    }
+    synchronized (completed) {
+      return completed
+          .values()
+          .removeIf(
+              entry ->
+                  entry.proposal() != null && proposalId.equals(entry.proposal().proposalId()));
+    }
+  }
+
+  int cachedEntries() {
+    synchronized (completed) {
+      return completed.size();
+    }
+  }
+
+  private Proposal cachedProposal(Key key, Predicate<Proposal> reusable) {
+    synchronized (completed) {
+      Cached entry = completed.get(key);
+      if (entry == null) {
+        return null;
+      }
+      if (System.nanoTime() - entry.expiresAtNanos() >= 0 || !reusable.test(entry.proposal())) {
+        completed.remove(key);
+        return null;
+      }
+      return entry.proposal();
+    }
+  }
+
+  private static Proposal awaitMerged(CompletableFuture<Proposal> running) {
+    try {
+      return running.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private static Key keyOf(AssignmentRequest request) {
+    Map<UUID, Map<UUID, Integer>> needs = new TreeMap<>();
+    List<VehicleNeed> vehiclesNeeded =
+        request.vehiclesNeeded() == null ? List.of() : request.vehiclesNeeded();
+    for (VehicleNeed need : vehiclesNeeded) {
+      if (need == null || need.incidentPhaseId() == null || need.vehicleTypeId() == null) {
+        continue;
+      }
+      needs
+          .computeIfAbsent(need.incidentPhaseId(), ignored -> new TreeMap<>())
+          .merge(need.vehicleTypeId(), need.quantity(), Integer::sum);
+    }
+    MessageDigest digest = sha256();
+    ByteBuffer buffer = ByteBuffer.allocate(36);
+    putUuid(buffer, request.incidentId());
+    buffer.put((byte) (request.fast() ? 1 : 0));
+    digest.update(buffer.flip());
+    for (Map.Entry<UUID, Map<UUID, Integer>> phase : needs.entrySet()) {
+      for (Map.Entry<UUID, Integer> type : phase.getValue().entrySet()) {
+        buffer.clear();
+        putUuid(buffer, phase.getKey());
+        putUuid(buffer, type.getKey());
+        buffer.putInt(type.getValue());
+        digest.update(buffer.flip());
+      }
+    }
+    ByteBuffer hash = ByteBuffer.wrap(digest.digest());
+    return new Key(hash.getLong(), hash.getLong());
+  }
+
+  private static void putUuid(ByteBuffer buffer, UUID value) {
+    buffer.putLong(value.getMostSignificantBits()).putLong(value.getLeastSignificantBits());
+  }
+
+  private static MessageDigest sha256() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not available", e);
+    }
+  }
+
+  private static Counter duplicateCounter(String kind) {
+    return MetricsRegistry.global()
+        .counter(
+            "qg_assignment_duplicates_total",
+            "Duplicate assignment requests served without a new decision",
+            "kind",
+            kind);
+  }
+}
@@ -0,0 +1,38 @@
+package cpe.qg.engine.logging;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+
+/**
+ * Asynchronous appender that never blocks the logging thread: events arriving while the queue is
+ * full are dropped and counted, whatever their level.
+ */
+final class DroppingAsyncAppender extends AsyncAppender {
+
+  private final Counter dropped =
+      MetricsRegistry.global()
+          .counter(
+              "qg_log_dropped_total", "Log events not written, by reason", "reason", "queue_full");
+
+  DroppingAsyncAppender(int queueSize) {
+    setQueueSize(queueSize);
+    setDiscardingThreshold(0);
+    setNeverBlock(true);
+    MetricsRegistry.global()
+        .gauge(
+            "qg_log_queue_depth",
+            "Log events waiting in the asynchronous queue",
+            () -> isStarted() ? getNumberOfElementsInQueue() : 0);
+  }
+
+  @Override
+  protected void append(ILoggingEvent event) {
+    if (isStarted() && getRemainingCapacity() == 0) {
+      dropped.increment();
+      return;
+    }
+    super.append(event);
+  }
+}
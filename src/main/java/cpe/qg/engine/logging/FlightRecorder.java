@@ -0,0 +1,152 @@
+package cpe.qg.engine.logging;
+
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.tracing.TraceContext;
+import cpe.qg.engine.tracing.Tracer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Process-wide ring of the last payloads and decisions, kept in memory whatever the log level or
+ * sampling, and dumped to the log when a handler fails or on demand.
+ *
+ * <p>Recording only stores references: details are rendered with {@link String#valueOf} when the
+ * ring is dumped. Once full, each record overwrites the oldest entry.
+ */
+public final class FlightRecorder {
+
+  /** Minimum time between two dumps triggered by errors, so a failure storm logs one dump. */
+  private static final long ERROR_DUMP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+  private static final FlightRecorder GLOBAL = new FlightRecorder();
+
+  private record Entry(Instant at, String kind, String traceId, Object detail) {}
+
+  private final Logger log = LoggerProvider.getLogger(FlightRecorder.class);
+  private final Counter overwritten =
+      MetricsRegistry.global()
+          .counter(
+              "qg_flight_recorder_overwritten_total",
+              "Flight recorder entries overwritten before any dump");
+  private final Counter errorDumps = dumpCounter("error");
+  private final Counter requestDumps = dumpCounter("request");
+  private Entry[] entries = new Entry[0];
+  private int next;
+  private int size;
+  private long undumped;
+  private long lastErrorDumpNanos;
+  private boolean errorDumped;
+
+  public static FlightRecorder global() {
+    return GLOBAL;
+  }
+
+  FlightRecorder() {
+    MetricsRegistry.global()
+        .gauge("qg_flight_recorder_entries", "Entries held by the flight recorder", this::size);
+  }
+
+  /** Sets how many entries are kept, dropping the current ones; {@code 0} disables recording. */
+  public synchronized void setCapacity(int capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("capacity must not be negative");
+    }
+    entries = new Entry[capacity];
+    next = 0;
+    size = 0;
+    undumped = 0;
+  }
+
+  /** Records an entry of the given kind, tagged with the current trace id. */
+  public void record(String kind, Object detail) {
+    TraceContext context = Tracer.global().current();
+    Entry entry =
+        new Entry(Instant.now(), kind, context == null ? null : context.traceId(), detail);
+    synchronized (this) {
+      if (entries.length == 0) {
+        return;
+      }
+      if (size == entries.length) {
+        if (undumped >= entries.length) {
+          overwritten.increment();
+        }
+      } else {
+        size++;
+      }
+      entries[next] = entry;
+      next = (next + 1) % entries.length;
+      undumped++;
+    }
+  }
+
+  /** Renders the entries, oldest first, without clearing them. */
+  public String dump() {
+    requestDumps.increment();
+    return render();
+  }
+
+  /**
+   * Logs the entries after a failure, at most once a minute. The failing entry is expected to have
+   * been recorded beforehand.
+   */
+  public void dumpOnError(String reason) {
+    synchronized (this) {
+      long now = System.nanoTime();
+      if (size == 0 || (errorDumped && now - lastErrorDumpNanos < ERROR_DUMP_INTERVAL_NANOS)) {
+        return;
+      }
+      errorDumped = true;
+      lastErrorDumpNanos = now;
+    }
+    errorDumps.increment();
+    log.error("Flight recorder dump after {}:\n{}", reason, render());
+  }
+
+  public synchronized int size() {
+    return size;
+  }
+
+  private String render() {
+    Entry[] snapshot;
+    long overwrittenEntries;
+    synchronized (this) {
+      snapshot = new Entry[size];
+      int oldest = (next - size + entries.length) % Math.max(1, entries.length);
+      for (int i = 0; i < size; i++) {
+        snapshot[i] = entries[(oldest + i) % entries.length];
+      }
+      overwrittenEntries = Math.max(0, undumped - entries.length);
+      undumped = 0;
+    }
+    StringBuilder out = new StringBuilder(256 * (snapshot.length + 1));
+    out.append("# ")
+        .append(snapshot.length)
+        .append(" entries, ")
+        .append(overwrittenEntries)
+        .append(" overwritten since the previous dump, ")
+        .append(overwritten.value())
+        .append(" overwritten in total\n");
+    for (Entry entry : snapshot) {
+      out.append(entry.at())
+          .append(' ')
+          .append(entry.kind())
+          .append(" [")
+          .append(entry.traceId() == null ? "" : entry.traceId())
+          .append("] ")
+          .append(String.valueOf(entry.detail()))
+          .append('\n');
+    }
+    return out.toString();
+  }
+
+  private static Counter dumpCounter(String trigger) {
+    return MetricsRegistry.global()
+        .counter(
+            "qg_flight_recorder_dumps_total",
+            "Flight recorder dumps, by trigger",
+            "trigger",
+            trigger);
+  }
+}
@@ -0,0 +1,42 @@
+package cpe.qg.engine.logging;
+
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Process-wide sampling of per-message INFO logs. Callers draw once per message and log its INFO
+ * lines only when the draw succeeds, so a sampled message keeps all its lines. Warnings and errors
+ * are never sampled.
+ */
+public final class LogSampler {
+
+  private static final LogSampler GLOBAL = new LogSampler();
+
+  private final Counter sampledOut =
+      MetricsRegistry.global()
+          .counter(
+              "qg_log_dropped_total", "Log events not written, by reason", "reason", "sampled");
+  private volatile double rate = 1.0;
+
+  public static LogSampler global() {
+    return GLOBAL;
+  }
+
+  public void setRate(double rate) {
+    if (rate < 0 || rate > 1) {
+      throw new IllegalArgumentException("rate must be between 0 and 1");
+    }
+    this.rate = rate;
+  }
+
+  /** Whether the INFO lines of the current message are logged. */
+  public boolean sample() {
+    double current = rate;
+    if (current >= 1.0 || ThreadLocalRandom.current().nextDouble() < current) {
+      return true;
+    }
+    sampledOut.increment();
+    return false;
+  }
+}
@@ -1,11 +1,22 @@
 package cpe.qg.engine.logging;
 
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import cpe.qg.engine.config.LoggingConfig;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.bridge.SLF4JBridgeHandler;
 
 /** Central place to obtain pre-configured loggers and route JUL logs to SLF4J. */
 public final class LoggerProvider {
+
+  private static final String ASYNC_APPENDER = "ASYNC";
+
   private LoggerProvider() {}
 
   public static Logger getLogger(Class<?> target) {
@@ -16,4 +27,42 @@ public final class LoggerProvider {
     SLF4JBridgeHandler.removeHandlersForRootLogger();
     SLF4JBridgeHandler.install();
   }
+
+  /**
+   * Applies the logging settings: moves the root appenders behind a non-blocking queue when
+   * asynchronous logging is on, and sets the sampling rate and the flight recorder size.
+   */
+  public static void configure(LoggingConfig config) {
+    LogSampler.global().setRate(config.sampleRate());
+    FlightRecorder.global().setCapacity(config.flightRecorderSize());
+    if (!config.async() || !(LoggerFactory.getILoggerFactory() instanceof LoggerContext context)) {
+      return;
+    }
+    ch.qos.logback.classic.Logger root = context.getLogger(Logger.ROOT_LOGGER_NAME);
+    if (root.getAppender(ASYNC_APPENDER) != null) {
+      return;
+    }
+    DroppingAsyncAppender async = new DroppingAsyncAppender(config.queueSize());
+    async.setName(ASYNC_APPENDER);
+    async.setContext(context);
+    List<Appender<ILoggingEvent>> appenders = new ArrayList<>();
+    for (Iterator<Appender<ILoggingEvent>> it = root.iteratorForAppenders(); it.hasNext(); ) {
+      appenders.add(it.next());
+    }
+    appenders.forEach(
+        appender -> {
+          async.addAppender(appender);
+          root.detachAppender(appender);
+        });
+    async.start();
+    root.addAppender(async);
+  }
+
+  /** Flushes queued events and stops the appenders, last thing before the JVM exits. */
+  public static void shutdown() {
+    ILoggerFactory factory = LoggerFactory.getILoggerFactory();
+    if (factory instanceof LoggerContext context) {
+      context.stop();
+    }
+  }
 }
@@ -1,6 +1,9 @@
 package cpe.qg.engine.messaging;
 
 import com.rabbitmq.client.DeliverCallback;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
 
 public interface MessageBrokerClient extends AutoCloseable {
 
@@ -8,10 +11,59 @@ public interface MessageBrokerClient extends AutoCloseable {
 
   void declareQueue(String queueName, boolean durable);
 
+  /** Declares a queue with broker arguments such as {@code x-queue-type}. */
+  void declareQueue(String queueName, boolean durable, Map<String, Object> arguments);
+
+  void declareExchange(String exchange, String type, boolean durable);
+
+  void bindQueue(String queueName, String exchange, String routingKey);
+
   void publish(String queueName, String message);
 
+  /**
+   * Publishes a body encoded in {@code format}, announced in the content type. Brokers without
+   * content types only carry JSON: by default, a binary body is converted to the same document in
+   * JSON.
+   */
+  default void publish(String queueName, byte[] body, WireFormat format) {
+    byte[] json = body;
+    if (format.binary()) {
+      try {
+        json = WireFormat.JSON.newMapper().writeValueAsBytes(format.newMapper().readTree(body));
+      } catch (IOException e) {
+        throw new IllegalArgumentException("Unreadable " + format + " message body", e);
+      }
+    }
+    publish(queueName, new String(json, StandardCharsets.UTF_8));
+  }
+
   void consume(String queueName, DeliverCallback deliverCallback);
 
+  /**
+   * Consumes with manual acknowledgements and at most {@code prefetch} unacknowledged deliveries;
+   * each one must be passed to {@link #ack}. Brokers without that mode acknowledge on delivery.
+   */
+  default void consume(String queueName, int prefetch, DeliverCallback deliverCallback) {
+    consume(queueName, deliverCallback);
+  }
+
+  /**
+   * Same as {@link #consume(String, int, DeliverCallback)} with a consumer priority; on a queue
+   * with a single active consumer, the broker prefers the highest priority.
+   */
+  default void consume(
+      String queueName, int prefetch, int consumerPriority, DeliverCallback deliverCallback) {
+    consume(queueName, prefetch, deliverCallback);
+  }
+
+  /** Acknowledges a delivery received through {@link #consume(String, int, DeliverCallback)}. */
+  default void ack(long deliveryTag) {}
+
+  /** Messages ready in the queue, or {@code -1} when the broker cannot tell. */
+  default long messageCount(String queueName) {
+    return -1;
+  }
+
   void healthCheck();
 
   @Override
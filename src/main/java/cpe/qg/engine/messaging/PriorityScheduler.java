@@ -0,0 +1,217 @@
+package cpe.qg.engine.messaging;
+
+import cpe.qg.engine.config.SchedulerConfig;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import org.slf4j.Logger;
+
+/**
+ * Bounded multi-level queue between consumption and handling: one FIFO per priority level, served
+ * by worker threads that always take the most urgent message.
+ *
+ * <p>To keep low priorities from starving under a steady flow of urgent messages, a message gains
+ * one level of urgency every {@code agingMs} it waits; ties go to the originally more urgent one.
+ * {@link #submit} blocks while the queue is full, which pushes back on the consumer.
+ */
+public final class PriorityScheduler implements AutoCloseable {
+
+  private static final int LEVELS = AssignmentRequest.LOWEST_PRIORITY + 1;
+
+  private final SchedulerConfig config;
+  private final List<ArrayDeque<Entry>> levels = new ArrayList<>(LEVELS);
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition notEmpty = lock.newCondition();
+  private final Condition notFull = lock.newCondition();
+  private final List<Thread> workers = new ArrayList<>();
+  private final Logger log = LoggerProvider.getLogger(PriorityScheduler.class);
+  private final LatencyHistogram[] waitLatency = new LatencyHistogram[LEVELS];
+  private final Counter aged =
+      MetricsRegistry.global()
+          .counter(
+              "qg_scheduler_aged_total",
+              "Messages handled ahead of more urgent ones because of their wait");
+  private int size;
+  private boolean closed;
+
+  public PriorityScheduler(SchedulerConfig config) {
+    this.config = Objects.requireNonNull(config, "Scheduler config is required");
+    for (int level = 0; level < LEVELS; level++) {
+      levels.add(new ArrayDeque<>());
+      waitLatency[level] =
+          MetricsRegistry.global()
+              .histogram(
+                  "qg_scheduler_wait_seconds",
+                  "Time messages wait in the scheduler, by priority",
+                  "priority",
+                  Integer.toString(level));
+    }
+    if (config.enabled()) {
+      MetricsRegistry.global()
+          .gauge("qg_scheduler_queued_messages", "Messages waiting in the scheduler", this::size);
+    }
+  }
+
+  public SchedulerConfig config() {
+    return config;
+  }
+
+  /** Starts the worker threads. */
+  public void start() {
+    lock.lock();
+    try {
+      if (!workers.isEmpty() || closed) {
+        return;
+      }
+      for (int i = 0; i < config.workers(); i++) {
+        Thread worker = new Thread(this::work, "qg-scheduler-" + i);
+        worker.setDaemon(true);
+        workers.add(worker);
+        worker.start();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Queues {@code task} at {@code priority}, clamped to the supported levels, blocking while the
+   * scheduler is full.
+   */
+  public void submit(int priority, Runnable task) throws InterruptedException {
+    Objects.requireNonNull(task, "Task is required");
+    int level =
+        Math.clamp(priority, AssignmentRequest.HIGHEST_PRIORITY, AssignmentRequest.LOWEST_PRIORITY);
+    lock.lockInterruptibly();
+    try {
+      while (size >= config.capacity() && !closed) {
+        notFull.await();
+      }
+      if (closed) {
+        throw new IllegalStateException("Scheduler is closed");
+      }
+      levels.get(level).addLast(new Entry(level, System.nanoTime(), task));
+      size++;
+      notEmpty.signal();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return size;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Takes the next message to handle, or {@code null} once the scheduler is closed. */
+  Entry take() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (size == 0 && !closed) {
+        notEmpty.await();
+      }
+      if (closed) {
+        return null;
+      }
+      Entry entry = next(System.nanoTime());
+      size--;
+      notFull.signal();
+      return entry;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /** Removes the head with the lowest aged priority; the caller holds the lock. */
+  private Entry next(long now) {
+    long agingNanos = TimeUnit.MILLISECONDS.toNanos(config.agingMs());
+    int chosen = -1;
+    int mostUrgent = -1;
+    long best = Long.MAX_VALUE;
+    for (int level = 0; level < LEVELS; level++) {
+      Entry head = levels.get(level).peekFirst();
+      if (head == null) {
+        continue;
+      }
+      if (mostUrgent < 0) {
+        mostUrgent = level;
+      }
+      long effective = level - (now - head.enqueuedAt()) / agingNanos;
+      if (effective < best) {
+        best = effective;
+        chosen = level;
+      }
+    }
+    if (chosen != mostUrgent) {
+      aged.increment();
+    }
+    return levels.get(chosen).pollFirst();
+  }
+
+  private void work() {
+    while (true) {
+      Entry entry;
+      try {
+        entry = take();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      if (entry == null) {
+        return;
+      }
+      waitLatency[entry.priority()].recordSince(entry.enqueuedAt());
+      try {
+        entry.task().run();
+      } catch (RuntimeException e) {
+        log.error("Scheduled message handling failed", e);
+      }
+    }
+  }
+
+  /** Stops the workers; queued messages are left unhandled and unacknowledged. */
+  @Override
+  public void close() {
+    int abandoned;
+    lock.lock();
+    try {
+      if (closed) {
+        return;
+      }
+      closed = true;
+      abandoned = size;
+      levels.forEach(ArrayDeque::clear);
+      size = 0;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+    for (Thread worker : workers) {
+      try {
+        worker.join(TimeUnit.SECONDS.toMillis(5));
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    if (abandoned > 0) {
+      log.info("Scheduler stopped with {} message(s) left for redelivery", abandoned);
+    }
+  }
+
+  record Entry(int priority, long enqueuedAt, Runnable task) {}
+}
@@ -1,17 +1,36 @@
 package cpe.qg.engine.messaging;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.rabbitmq.client.DeliverCallback;
+import com.rabbitmq.client.Delivery;
+import cpe.qg.engine.config.SchedulerConfig;
+import cpe.qg.engine.config.ShardingConfig;
+import cpe.qg.engine.decision.model.AssignmentRequest;
 import cpe.qg.engine.events.EventDispatcher;
 import cpe.qg.engine.events.EventMessage;
 import cpe.qg.engine.events.EventPayloadParser;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.profiling.MessageParseEvent;
+import cpe.qg.engine.profiling.MessageReceiveEvent;
+import cpe.qg.engine.replay.TrafficRecord;
+import cpe.qg.engine.replay.TrafficRecorder;
+import cpe.qg.engine.service.ReadinessGate;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.TraceContext;
+import cpe.qg.engine.tracing.Tracer;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.List;
 import java.util.Objects;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.slf4j.Logger;
 
-/** Consumes queues and routes messages to an {@link EventDispatcher}. */
+/**
+ * Consumes queues, and the shard queues of a {@link ShardTopology} when sharding is enabled, and
+ * routes messages to an {@link EventDispatcher}, directly on the consumer thread or through a
+ * {@link PriorityScheduler} when it is enabled. Shard deliveries always run on the consumer thread,
+ * in delivery order, since the scheduler would reorder the messages of an incident.
+ */
 public class QueueListener implements AutoCloseable {
 
   private final MessageBrokerClient brokerClient;
@@ -19,25 +38,46 @@ public class QueueListener implements AutoCloseable {
   private final boolean durableQueue;
   private final EventDispatcher dispatcher;
   private final EventPayloadParser parser;
+  private final ReadinessGate readiness;
+  private final PriorityScheduler scheduler;
+  private final ShardTopology shards;
   private final AtomicBoolean started = new AtomicBoolean(false);
+  private final AtomicBoolean firstMessageHandled = new AtomicBoolean(false);
+  private volatile long consumingSinceNanos;
+  private final Tracer tracer = Tracer.global();
   private final Logger log = LoggerProvider.getLogger(QueueListener.class);
 
-  public QueueListener(
+  private QueueListener(Builder builder) {
+    this.brokerClient =
+        Objects.requireNonNull(builder.brokerClient, "Message broker client is required");
+    this.queueNames =
+        List.copyOf(Objects.requireNonNull(builder.queueNames, "Queue names are required"));
+    if (this.queueNames.isEmpty()) {
+      throw new IllegalArgumentException("At least one queue is required");
+    }
+    this.durableQueue = builder.durableQueue;
+    this.dispatcher = Objects.requireNonNull(builder.dispatcher, "Event dispatcher is required");
+    this.parser = Objects.requireNonNull(builder.parser, "Event payload parser is required");
+    this.readiness = Objects.requireNonNull(builder.readiness, "Readiness gate is required");
+    this.scheduler = Objects.requireNonNull(builder.scheduler, "Priority scheduler is required");
+    this.shards = Objects.requireNonNull(builder.shards, "Shard topology is required");
+  }
+
+  /**
+   * Listener dispatching the messages of {@code queueNames} on the consumer thread as soon as it
+   * starts, without sharding.
+   */
+  public static Builder builder(
       MessageBrokerClient brokerClient,
       List<String> queueNames,
-      boolean durableQueue,
       EventDispatcher dispatcher,
       EventPayloadParser parser) {
-    this.brokerClient = Objects.requireNonNull(brokerClient, "Message broker client is required");
-    this.queueNames = List.copyOf(Objects.requireNonNull(queueNames, "Queue names are required"));
-    if (this.queueNames.isEmpty()) {
-      throw new IllegalArgumentException("At least one queue is required");
-    }
-    this.durableQueue = durableQueue;
-    this.dispatcher = Objects.requireNonNull(dispatcher, "Event dispatcher is required");
-    this.parser = Objects.requireNonNull(parser, "Event payload parser is required");
+    return new Builder(brokerClient, queueNames, dispatcher, parser);
   }
 
+  /**
+   * Connects and declares the queues, then blocks until the readiness gate opens before consuming.
+   */
   public void start() {
     if (!started.compareAndSet(false, true)) {
       return;
@@ -46,21 +86,199 @@ public class QueueListener implements AutoCloseable {
     brokerClient.connect();
     for (String queue : queueNames) {
       brokerClient.declareQueue(queue, durableQueue);
-      brokerClient.consume(queue, callback(queue));
+    }
+    shards.declare(brokerClient);
+    awaitReadiness();
+    consumingSinceNanos = System.nanoTime();
+    SchedulerConfig schedulerConfig = scheduler.config();
+    if (schedulerConfig.enabled()) {
+      scheduler.start();
+    }
+    for (String queue : queueNames) {
+      if (schedulerConfig.enabled()) {
+        brokerClient.consume(queue, schedulerConfig.capacity(), callback(queue));
+      } else {
+        brokerClient.consume(queue, callback(queue));
+      }
       log.info("Listening to queue '{}'", queue);
     }
+    for (String queue : shards.queues()) {
+      int priority = shards.consumerPriority(queue);
+      brokerClient.consume(queue, schedulerConfig.capacity(), priority, callback(queue));
+      log.info("Listening to shard queue '{}' with consumer priority {}", queue, priority);
+    }
+  }
+
+  private void awaitReadiness() {
+    if (!readiness.isReady()) {
+      log.info("Waiting for engine warm-up before consuming");
+    }
+    try {
+      readiness.awaitReady();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for engine readiness", e);
+    }
   }
 
   private DeliverCallback callback(String queueName) {
     return (tag, delivery) -> {
-      String payload = new String(delivery.getBody(), StandardCharsets.UTF_8);
+      long receivedAt = System.nanoTime();
+      MessageReceiveEvent receiveEvent = new MessageReceiveEvent();
+      receiveEvent.begin();
+      try {
+        receive(queueName, delivery, receivedAt);
+      } finally {
+        receiveEvent.end();
+        if (receiveEvent.shouldCommit()) {
+          receiveEvent.queue = queueName;
+          receiveEvent.bytes = delivery.getBody().length;
+          receiveEvent.scheduled = scheduled(queueName);
+          receiveEvent.commit();
+        }
+      }
+    };
+  }
+
+  private void receive(String queueName, Delivery delivery, long receivedAt) {
+    shards.recordDelivery(queueName);
+    TrafficRecorder.global().record(TrafficRecord.Kind.CONSUMED, queueName, delivery.getBody());
+    WireFormat format = formatOf(delivery);
+    EventMessage parsed;
+    MessageParseEvent parseEvent = new MessageParseEvent();
+    parseEvent.begin();
+    try {
+      parsed = parser.parse(delivery.getBody(), format).withPublishedAt(publishedAt(delivery));
+    } catch (IllegalArgumentException e) {
+      commitParse(parseEvent, queueName, delivery, null);
+      try (Span span = startConsumeSpan(queueName, delivery)) {
+        span.error(e);
+      }
+      log.error(
+          "Discarding invalid message from {}: {}",
+          queueName,
+          format.binary()
+              ? format + " body of " + delivery.getBody().length + " bytes"
+              : new String(delivery.getBody(), StandardCharsets.UTF_8),
+          e);
+      acknowledge(queueName, delivery);
+      logFirstMessage(queueName, receivedAt);
+      return;
+    }
+    commitParse(parseEvent, queueName, delivery, parsed);
+    EventMessage message = parsed.withPriority(priorityOf(parsed, delivery));
+    if (!scheduled(queueName)) {
+      process(queueName, delivery, message, receivedAt);
+      return;
+    }
+    try {
+      scheduler.submit(message.priority(), () -> process(queueName, delivery, message, receivedAt));
+    } catch (InterruptedException e) {
+      // Left unacknowledged, the message is redelivered.
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private boolean scheduled(String queueName) {
+    return scheduler.config().enabled() && !shards.isShard(queueName);
+  }
+
+  private static void commitParse(
+      MessageParseEvent event, String queueName, Delivery delivery, EventMessage parsed) {
+    event.end();
+    if (event.shouldCommit()) {
+      event.queue = queueName;
+      event.bytes = delivery.getBody().length;
+      event.eventKey = parsed == null ? null : parsed.eventKey();
+      event.valid = parsed != null;
+      event.commit();
+    }
+  }
+
+  private void process(String queueName, Delivery delivery, EventMessage message, long receivedAt) {
+    try (Span span = startConsumeSpan(queueName, delivery)) {
+      span.tag("event", message.eventKey());
+      span.tag("priority", message.priority());
       try {
-        EventMessage message = parser.parse(payload);
         dispatcher.dispatch(message);
       } catch (Exception e) {
-        log.error("Discarding invalid message from {}: {}", queueName, payload, e);
+        span.error(e);
+        log.error("Discarding invalid message from {}: {}", queueName, message.loggedPayload(), e);
       }
-    };
+    } finally {
+      acknowledge(queueName, delivery);
+      logFirstMessage(queueName, receivedAt);
+    }
+  }
+
+  private Span startConsumeSpan(String queueName, Delivery delivery) {
+    Span span = tracer.startRoot("consume " + queueName, "CONSUMER", remoteContext(delivery));
+    span.tag("messaging.destination", queueName);
+    return span;
+  }
+
+  /** Shard queues and every queue consumed through the scheduler use manual acknowledgements. */
+  private void acknowledge(String queueName, Delivery delivery) {
+    if (scheduler.config().enabled() || shards.isShard(queueName)) {
+      brokerClient.ack(delivery.getEnvelope().getDeliveryTag());
+    }
+  }
+
+  /**
+   * Priority from the payload {@code priority} field, 0 being the most urgent, else from the AMQP
+   * {@code priority} property, 9 being the most urgent, else the configured default.
+   */
+  private int priorityOf(EventMessage message, Delivery delivery) {
+    JsonNode payloadPriority = message.body().path("payload").path("priority");
+    if (payloadPriority.isIntegralNumber()) {
+      return clampPriority(payloadPriority.asLong());
+    }
+    if (delivery.getProperties() != null && delivery.getProperties().getPriority() != null) {
+      return clampPriority(
+          AssignmentRequest.LOWEST_PRIORITY - (long) delivery.getProperties().getPriority());
+    }
+    return scheduler.config().defaultPriority();
+  }
+
+  private static int clampPriority(long priority) {
+    return Math.clamp(
+        priority, AssignmentRequest.HIGHEST_PRIORITY, AssignmentRequest.LOWEST_PRIORITY);
+  }
+
+  /** Format announced by the AMQP {@code content_type} property, JSON when there is none. */
+  private static WireFormat formatOf(Delivery delivery) {
+    return delivery.getProperties() == null
+        ? WireFormat.JSON
+        : WireFormat.fromContentType(delivery.getProperties().getContentType());
+  }
+
+  /** AMQP timestamp set by the producer; the protocol carries it with a one-second precision. */
+  private static Instant publishedAt(Delivery delivery) {
+    if (delivery.getProperties() == null || delivery.getProperties().getTimestamp() == null) {
+      return null;
+    }
+    return delivery.getProperties().getTimestamp().toInstant();
+  }
+
+  /** Trace context sent by the producer in the {@code traceparent} header, if any. */
+  private static TraceContext remoteContext(Delivery delivery) {
+    if (delivery.getProperties() == null || delivery.getProperties().getHeaders() == null) {
+      return null;
+    }
+    Object traceparent = delivery.getProperties().getHeaders().get(TraceContext.TRACEPARENT);
+    return traceparent == null ? null : TraceContext.fromTraceparent(traceparent.toString());
+  }
+
+  private void logFirstMessage(String queueName, long receivedAt) {
+    if (!firstMessageHandled.compareAndSet(false, true)) {
+      return;
+    }
+    long now = System.nanoTime();
+    log.info(
+        "First message from {} handled in {} ms ({} ms after consumption started)",
+        queueName,
+        (now - receivedAt) / 1_000_000,
+        (now - consumingSinceNanos) / 1_000_000);
   }
 
   @Override
@@ -68,7 +286,57 @@ public class QueueListener implements AutoCloseable {
     if (!started.get()) {
       return;
     }
+    scheduler.close();
     brokerClient.close();
     log.info("Queue listener stopped");
   }
+
+  /** Optional stages of a listener, each disabled until set. */
+  public static final class Builder {
+    private final MessageBrokerClient brokerClient;
+    private final List<String> queueNames;
+    private final EventDispatcher dispatcher;
+    private final EventPayloadParser parser;
+    private boolean durableQueue;
+    private ReadinessGate readiness = ReadinessGate.opened();
+    private PriorityScheduler scheduler = new PriorityScheduler(SchedulerConfig.DISABLED);
+    private ShardTopology shards = new ShardTopology(ShardingConfig.DISABLED);
+
+    private Builder(
+        MessageBrokerClient brokerClient,
+        List<String> queueNames,
+        EventDispatcher dispatcher,
+        EventPayloadParser parser) {
+      this.brokerClient = brokerClient;
+      this.queueNames = queueNames;
+      this.dispatcher = dispatcher;
+      this.parser = parser;
+    }
+
+    /** Declares the consumed queues durable. */
+    public Builder durableQueue(boolean durableQueue) {
+      this.durableQueue = durableQueue;
+      return this;
+    }
+
+    /** Gate that holds consumption back until it opens, such as at the end of the warm-up. */
+    public Builder readiness(ReadinessGate readiness) {
+      this.readiness = readiness;
+      return this;
+    }
+
+    public Builder scheduler(PriorityScheduler scheduler) {
+      this.scheduler = scheduler;
+      return this;
+    }
+
+    public Builder shards(ShardTopology shards) {
+      this.shards = shards;
+      return this;
+    }
+
+    public QueueListener build() {
+      return new QueueListener(this);
+    }
+  }
 }
@@ -1,5 +1,7 @@
 package cpe.qg.engine.messaging;
 
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.AlreadyClosedException;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Connection;
 import com.rabbitmq.client.ConnectionFactory;
@@ -7,22 +9,51 @@ import com.rabbitmq.client.DeliverCallback;
 import com.rabbitmq.client.MessageProperties;
 import cpe.qg.engine.config.RabbitConfig;
 import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.profiling.MessagePublishEvent;
+import cpe.qg.engine.replay.TrafficRecord;
+import cpe.qg.engine.replay.TrafficRecorder;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.TraceContext;
+import cpe.qg.engine.tracing.Tracer;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import org.slf4j.Logger;
 
 /** RabbitMQ connector that exposes minimal operations for publishing and consuming. */
 public class RabbitMqClient implements MessageBrokerClient {
 
   private final RabbitConfig config;
+  private final Supplier<ConnectionFactory> connectionFactory;
   private final Logger log = LoggerProvider.getLogger(RabbitMqClient.class);
+  private final LatencyHistogram publishLatency =
+      MetricsRegistry.global()
+          .histogram("qg_rabbitmq_publish_seconds", "Latency of RabbitMQ basicPublish calls");
+  private final Counter publishErrors =
+      MetricsRegistry.global()
+          .counter("qg_rabbitmq_publish_errors_total", "Failed RabbitMQ publications");
 
   private Connection connection;
   private Channel channel;
+  private final ThreadLocal<Channel> publishingChannel = new ThreadLocal<>();
+  private final Set<Channel> publishingChannels = ConcurrentHashMap.newKeySet();
 
   public RabbitMqClient(RabbitConfig config) {
+    this(config, ConnectionFactory::new);
+  }
+
+  /** Client opening its connection with the factories of {@code connectionFactory}. */
+  RabbitMqClient(RabbitConfig config, Supplier<ConnectionFactory> connectionFactory) {
     this.config = config;
+    this.connectionFactory = connectionFactory;
   }
 
   @Override
@@ -31,12 +62,15 @@ public class RabbitMqClient implements MessageBrokerClient {
       return;
     }
 
-    ConnectionFactory factory = new ConnectionFactory();
     try {
-      factory.setUri(config.uri());
-      factory.setAutomaticRecoveryEnabled(true);
-      factory.setTopologyRecoveryEnabled(true);
-      connection = factory.newConnection("qg-engine");
+      // A channel closed by the broker leaves the connection open: reuse it rather than leak it.
+      if (connection == null || !connection.isOpen()) {
+        ConnectionFactory factory = connectionFactory.get();
+        factory.setUri(config.uri());
+        factory.setAutomaticRecoveryEnabled(true);
+        factory.setTopologyRecoveryEnabled(true);
+        connection = factory.newConnection("qg-engine");
+      }
       channel = connection.createChannel();
       log.info("Connected to RabbitMQ {}", config.uri());
     } catch (Exception e) {
@@ -56,20 +90,115 @@ public class RabbitMqClient implements MessageBrokerClient {
   }
 
   @Override
-  public void publish(String queueName, String message) {
+  public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {
     ensureConnected();
     try {
-      channel.basicPublish(
-          "",
-          queueName,
-          MessageProperties.PERSISTENT_TEXT_PLAIN,
-          message.getBytes(StandardCharsets.UTF_8));
-      log.debug("Published message to queue {} ({} bytes)", queueName, message.length());
+      channel.queueDeclare(queueName, durable, false, false, arguments);
+      log.info("Ensured queue exists: {} {}", queueName, arguments);
     } catch (IOException e) {
+      throw new IllegalStateException("Unable to declare queue " + queueName, e);
+    }
+  }
+
+  @Override
+  public void declareExchange(String exchange, String type, boolean durable) {
+    ensureConnected();
+    try {
+      channel.exchangeDeclare(exchange, type, durable);
+      log.info("Ensured exchange exists: {} ({})", exchange, type);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to declare exchange " + exchange, e);
+    }
+  }
+
+  @Override
+  public void bindQueue(String queueName, String exchange, String routingKey) {
+    ensureConnected();
+    try {
+      channel.queueBind(queueName, exchange, routingKey);
+    } catch (IOException e) {
+      throw new IllegalStateException(
+          "Unable to bind queue %s to exchange %s".formatted(queueName, exchange), e);
+    }
+  }
+
+  @Override
+  public void publish(String queueName, String message) {
+    publish(queueName, message.getBytes(StandardCharsets.UTF_8), WireFormat.JSON);
+  }
+
+  /**
+   * Publishes on a channel of the calling thread. Scheduler workers publish concurrently, and
+   * interleaved publications on one channel are a protocol error; the shared channel only carries
+   * the consumers and their acknowledgements, which are single frames.
+   */
+  @Override
+  public void publish(String queueName, byte[] body, WireFormat format) {
+    ensureConnected();
+    Channel publisher = publishingChannel();
+    long startedAt = System.nanoTime();
+    MessagePublishEvent event = new MessagePublishEvent();
+    event.begin();
+    boolean failed = false;
+    try (Span span = Tracer.global().startSpan("publish " + queueName, "PRODUCER")) {
+      span.tag("messaging.destination", queueName);
+      publisher.basicPublish("", queueName, tracedProperties(span.context(), format), body);
+      TrafficRecorder.global().record(TrafficRecord.Kind.PUBLISHED, queueName, body);
+      log.debug("Published message to queue {} ({} bytes)", queueName, body.length);
+    } catch (IOException e) {
+      failed = true;
+      publishErrors.increment();
       throw new IllegalStateException("Failed to publish message to queue " + queueName, e);
+    } finally {
+      publishLatency.recordSince(startedAt);
+      event.end();
+      if (event.shouldCommit()) {
+        event.queue = queueName;
+        event.bytes = body.length;
+        event.failed = failed;
+        event.commit();
+      }
+    }
+  }
+
+  private Channel publishingChannel() {
+    Channel current = publishingChannel.get();
+    if (current != null && current.isOpen()) {
+      return current;
+    }
+    try {
+      Channel created = connection.createChannel();
+      if (created == null) {
+        throw new IllegalStateException("No RabbitMQ channel available for publishing");
+      }
+      if (current != null) {
+        publishingChannels.remove(current);
+      }
+      publishingChannels.add(created);
+      publishingChannel.set(created);
+      return created;
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open a RabbitMQ publishing channel", e);
     }
   }
 
+  /**
+   * Persistent properties carrying the trace as {@code traceparent} and correlation id, and the
+   * publication time. JSON keeps the {@code text/plain} content type existing consumers expect;
+   * binary formats announce their own.
+   */
+  private static AMQP.BasicProperties tracedProperties(TraceContext context, WireFormat format) {
+    AMQP.BasicProperties.Builder builder = MessageProperties.PERSISTENT_TEXT_PLAIN.builder();
+    if (format.binary()) {
+      builder.contentType(format.contentType());
+    }
+    return builder
+        .correlationId(context.traceId())
+        .timestamp(new Date())
+        .headers(Map.of(TraceContext.TRACEPARENT, context.traceparent()))
+        .build();
+  }
+
   @Override
   public void consume(String queueName, DeliverCallback deliverCallback) {
     ensureConnected();
@@ -81,6 +210,57 @@ public class RabbitMqClient implements MessageBrokerClient {
     }
   }
 
+  @Override
+  public void consume(String queueName, int prefetch, DeliverCallback deliverCallback) {
+    consumeManually(queueName, prefetch, Map.of(), deliverCallback);
+  }
+
+  @Override
+  public void consume(
+      String queueName, int prefetch, int consumerPriority, DeliverCallback deliverCallback) {
+    consumeManually(queueName, prefetch, Map.of("x-priority", consumerPriority), deliverCallback);
+  }
+
+  private void consumeManually(
+      String queueName,
+      int prefetch,
+      Map<String, Object> arguments,
+      DeliverCallback deliverCallback) {
+    ensureConnected();
+    try {
+      channel.basicQos(prefetch);
+      channel.basicConsume(queueName, false, arguments, deliverCallback, tag -> {});
+      log.info("Subscribed to queue {} with a prefetch of {} {}", queueName, prefetch, arguments);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to subscribe to queue " + queueName, e);
+    }
+  }
+
+  @Override
+  public void ack(long deliveryTag) {
+    try {
+      channel.basicAck(deliveryTag, false);
+    } catch (IOException | AlreadyClosedException e) {
+      // The broker redelivers unacknowledged messages once the channel is back.
+      log.warn("Unable to acknowledge delivery {}: {}", deliveryTag, e.getMessage());
+    }
+  }
+
+  /**
+   * Uses a passive declare, which reports the ready count without touching the queue. It runs on a
+   * short-lived channel of its own, since the broker closes the channel when the queue is missing
+   * and the shared one carries the consumers.
+   */
+  @Override
+  public long messageCount(String queueName) {
+    ensureConnected();
+    try (Channel inspection = connection.createChannel()) {
+      return inspection.queueDeclarePassive(queueName).getMessageCount();
+    } catch (IOException | TimeoutException | AlreadyClosedException e) {
+      throw new IllegalStateException("Unable to inspect queue " + queueName, e);
+    }
+  }
+
   @Override
   public void healthCheck() {
     connect();
@@ -94,6 +274,16 @@ public class RabbitMqClient implements MessageBrokerClient {
 
   @Override
   public void close() {
+    for (Channel publisher : publishingChannels) {
+      try {
+        if (publisher.isOpen()) {
+          publisher.close();
+        }
+      } catch (IOException | TimeoutException e) {
+        log.warn("Error while closing RabbitMQ publishing channel", e);
+      }
+    }
+    publishingChannels.clear();
     try {
       if (channel != null && channel.isOpen()) {
         channel.close();
@@ -0,0 +1,140 @@
+package cpe.qg.engine.messaging;
+
+import cpe.qg.engine.config.ShardingConfig;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Sharded consumption topology: a consistent-hash exchange spreading incidents over shard queues by
+ * routing key, each queue being a quorum queue with a single active consumer, so that the messages
+ * of one incident are handled in order by one instance at a time.
+ *
+ * <p>Every instance consumes every shard, with a consumer priority derived from a hash of its
+ * instance id and the shard (rendezvous hashing). The broker makes the highest priority consumer of
+ * each queue the active one, so shards spread over the running instances without coordination: a
+ * joining instance takes over the shards it ranks first on once their in-flight messages are
+ * acknowledged, and the shards of a leaving instance fall back to the next instance in rank.
+ */
+public final class ShardTopology {
+
+  static final String EXCHANGE_TYPE = "x-consistent-hash";
+  private static final long ACTIVE_WINDOW_NANOS = TimeUnit.SECONDS.toNanos(30);
+
+  private final ShardingConfig config;
+  private final List<String> queues;
+  private final Map<String, Long> lastDeliveryByQueue = new ConcurrentHashMap<>();
+  private final Map<String, Counter> deliveriesByQueue = new ConcurrentHashMap<>();
+  private final Logger log = LoggerProvider.getLogger(ShardTopology.class);
+
+  public ShardTopology(ShardingConfig config) {
+    this.config = Objects.requireNonNull(config, "Sharding config is required");
+    List<String> names = new ArrayList<>(config.shards());
+    for (int shard = 0; shard < config.shards(); shard++) {
+      names.add(config.exchange() + ".shard." + shard);
+    }
+    this.queues = List.copyOf(names);
+    if (!config.enabled()) {
+      return;
+    }
+    MetricsRegistry registry = MetricsRegistry.global();
+    for (int shard = 0; shard < queues.size(); shard++) {
+      String queue = queues.get(shard);
+      String label = Integer.toString(shard);
+      deliveriesByQueue.put(
+          queue,
+          registry.counter(
+              "qg_shard_deliveries_total", "Messages received per shard queue", "shard", label));
+      registry.gauge(
+          "qg_shard_consumer_priority",
+          "Consumer priority of this instance per shard; the highest among instances is active",
+          () -> consumerPriority(queue),
+          "shard",
+          label);
+      registry.gauge(
+          "qg_shard_active",
+          "1 when this instance received messages from the shard in the last 30 seconds",
+          () -> active(queue) ? 1 : 0,
+          "shard",
+          label);
+    }
+  }
+
+  public ShardingConfig config() {
+    return config;
+  }
+
+  public boolean enabled() {
+    return config.enabled();
+  }
+
+  /** Shard queue names, or none when sharding is disabled. */
+  public List<String> queues() {
+    return config.enabled() ? queues : List.of();
+  }
+
+  public boolean isShard(String queueName) {
+    return config.enabled() && queues.contains(queueName);
+  }
+
+  /** Declares the exchange and the shard queues, bound with equal weights. */
+  public void declare(MessageBrokerClient brokerClient) {
+    if (!config.enabled()) {
+      return;
+    }
+    brokerClient.declareExchange(config.exchange(), EXCHANGE_TYPE, true);
+    Map<String, Object> arguments =
+        Map.of("x-queue-type", "quorum", "x-single-active-consumer", true);
+    for (String queue : queues) {
+      brokerClient.declareQueue(queue, true, arguments);
+      brokerClient.bindQueue(queue, config.exchange(), "1");
+    }
+    log.info(
+        "Instance {} consumes {} shard(s) of exchange {}, preferring {}",
+        config.instanceId(),
+        queues.size(),
+        config.exchange(),
+        ranking());
+  }
+
+  /** Non-negative priority of this instance for the shard, stable across restarts. */
+  public int consumerPriority(String queueName) {
+    byte[] key = (config.instanceId() + '/' + queueName).getBytes(StandardCharsets.UTF_8);
+    return (int) (UUID.nameUUIDFromBytes(key).getMostSignificantBits() >>> 33);
+  }
+
+  /** Records a delivery from {@code queueName} and logs when this instance becomes its consumer. */
+  public void recordDelivery(String queueName) {
+    Counter deliveries = deliveriesByQueue.get(queueName);
+    if (deliveries == null) {
+      return;
+    }
+    deliveries.increment();
+    long now = System.nanoTime();
+    Long previous = lastDeliveryByQueue.put(queueName, now);
+    if (previous == null || now - previous > ACTIVE_WINDOW_NANOS) {
+      log.info("Instance {} is the active consumer of {}", config.instanceId(), queueName);
+    }
+  }
+
+  private boolean active(String queueName) {
+    Long last = lastDeliveryByQueue.get(queueName);
+    return last != null && System.nanoTime() - last <= ACTIVE_WINDOW_NANOS;
+  }
+
+  /** Shard queues by decreasing priority of this instance. */
+  private List<String> ranking() {
+    List<String> ranked = new ArrayList<>(queues);
+    ranked.sort((a, b) -> Integer.compare(consumerPriority(b), consumerPriority(a)));
+    return ranked;
+  }
+}
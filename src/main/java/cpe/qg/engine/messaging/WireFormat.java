@@ -0,0 +1,100 @@
+package cpe.qg.engine.messaging;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.ToStringSerializer;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.cbor.CBORGenerator;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Encoding of a message body, announced in the AMQP {@code content_type} property. JSON is the
+ * default; CBOR and Smile are binary encodings of the same document, smaller and cheaper to write
+ * and parse, mostly on proposals carrying route geometries.
+ */
+public enum WireFormat {
+  JSON("application/json"),
+  CBOR("application/cbor"),
+  SMILE("application/x-jackson-smile");
+
+  private static final byte[] CBOR_HEADER = {(byte) 0xD9, (byte) 0xD9, (byte) 0xF7};
+  private static final byte[] SMILE_HEADER = {':', ')', '\n'};
+
+  private final String contentType;
+
+  WireFormat(String contentType) {
+    this.contentType = contentType;
+  }
+
+  public String contentType() {
+    return contentType;
+  }
+
+  public boolean binary() {
+    return this != JSON;
+  }
+
+  /**
+   * Mapper reading and writing this format, to be configured by the caller. UUIDs are written as
+   * strings, which binary formats would otherwise write as 16 raw bytes, so that every format
+   * carries the same document. CBOR documents start with the self-describe tag and Smile documents
+   * with their {@code :)} header, so that {@link #detect} can tell the formats apart without a
+   * content type.
+   */
+  public ObjectMapper newMapper() {
+    ObjectMapper mapper =
+        new ObjectMapper(
+            switch (this) {
+              case JSON -> new JsonFactory();
+              case CBOR ->
+                  CBORFactory.builder().enable(CBORGenerator.Feature.WRITE_TYPE_HEADER).build();
+              case SMILE -> new SmileFactory();
+            });
+    mapper.registerModule(
+        new SimpleModule().addSerializer(UUID.class, ToStringSerializer.instance));
+    return mapper;
+  }
+
+  /**
+   * Format announced by a delivery; a missing or unknown content type, including the {@code
+   * text/plain} of existing producers, is read as JSON.
+   */
+  public static WireFormat fromContentType(String contentType) {
+    if (contentType == null) {
+      return JSON;
+    }
+    String mediaType = contentType.split(";", 2)[0].trim().toLowerCase(Locale.ROOT);
+    for (WireFormat format : values()) {
+      if (format.contentType.equals(mediaType)) {
+        return format;
+      }
+    }
+    return JSON;
+  }
+
+  /** Format of a body written by {@link #newMapper}, for bodies stored without a content type. */
+  public static WireFormat detect(byte[] body) {
+    if (startsWith(body, CBOR_HEADER)) {
+      return CBOR;
+    }
+    return startsWith(body, SMILE_HEADER) ? SMILE : JSON;
+  }
+
+  private static boolean startsWith(byte[] body, byte[] header) {
+    return body.length >= header.length
+        && Arrays.equals(body, 0, header.length, header, 0, header.length);
+  }
+
+  public static WireFormat parse(String value) {
+    try {
+      return WireFormat.valueOf(value.trim().toUpperCase(Locale.ROOT));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(
+          "Wire format must be one of json, cbor, smile (got '%s')".formatted(value), e);
+    }
+  }
+}
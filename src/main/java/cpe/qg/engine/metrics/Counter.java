@@ -0,0 +1,21 @@
+package cpe.qg.engine.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** Monotonic, lock-free counter. */
+public final class Counter {
+
+  private final LongAdder value = new LongAdder();
+
+  public void increment() {
+    value.increment();
+  }
+
+  public void add(long amount) {
+    value.add(amount);
+  }
+
+  public long value() {
+    return value.sum();
+  }
+}
@@ -0,0 +1,96 @@
+package cpe.qg.engine.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with HDR-style log-linear buckets: every power of two is split into
+ * 32 linear sub-buckets, so any recorded value is known within about 3% over the whole {@code long}
+ * nanosecond range, at a fixed cost of one array increment per sample.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS) * SUB_BUCKET_COUNT;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+  private final LongAdder totalCount = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+
+  public void record(long nanos) {
+    long value = Math.max(0L, nanos);
+    counts.incrementAndGet(indexOf(value));
+    totalCount.increment();
+    totalNanos.add(value);
+  }
+
+  /** Records the time elapsed since {@code startNanos}, a {@link System#nanoTime()} reading. */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  public long count() {
+    return totalCount.sum();
+  }
+
+  public long sumNanos() {
+    return totalNanos.sum();
+  }
+
+  /**
+   * @return the number of samples lower than or equal to {@code boundNanos}
+   */
+  public long countAtOrBelow(long boundNanos) {
+    long cumulative = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      if (upperBoundOf(i) > boundNanos) {
+        break;
+      }
+      cumulative += counts.get(i);
+    }
+    return cumulative;
+  }
+
+  /**
+   * @return the upper bound of the bucket holding the given percentile (0-100), in nanoseconds
+   */
+  public long percentileNanos(double percentile) {
+    long[] snapshot = new long[BUCKET_COUNT];
+    long total = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      snapshot[i] = counts.get(i);
+      total += snapshot[i];
+    }
+    if (total == 0) {
+      return 0;
+    }
+    long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * total));
+    long cumulative = 0;
+    for (int i = 0; i < BUCKET_COUNT; i++) {
+      cumulative += snapshot[i];
+      if (cumulative >= rank) {
+        return upperBoundOf(i);
+      }
+    }
+    return upperBoundOf(BUCKET_COUNT - 1);
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+    int subBucket = (int) (value >>> shift) & (SUB_BUCKET_COUNT - 1);
+    return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  static long upperBoundOf(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int shift = index / SUB_BUCKET_COUNT - 1;
+    long lowerBound = (long) (SUB_BUCKET_COUNT + index % SUB_BUCKET_COUNT) << shift;
+    return lowerBound + (1L << shift) - 1;
+  }
+}
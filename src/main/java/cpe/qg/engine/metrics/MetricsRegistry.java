@@ -0,0 +1,174 @@
+package cpe.qg.engine.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Process-wide registry of counters, gauges and latency histograms, rendered in the Prometheus text
+ * exposition format.
+ *
+ * <p>Metrics are looked up once, typically in field initialisers, and then updated without any
+ * registry access, so the hot path only pays for the metric update itself.
+ */
+public final class MetricsRegistry {
+
+  private static final MetricsRegistry GLOBAL = new MetricsRegistry();
+
+  /** Prometheus bucket boundaries, in seconds, exported for every latency histogram. */
+  private static final double[] BUCKET_BOUNDS_SECONDS = {
+    0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10, 30
+  };
+
+  private final Map<String, Family> families = new ConcurrentSkipListMap<>();
+
+  public static MetricsRegistry global() {
+    return GLOBAL;
+  }
+
+  /**
+   * @param labels alternating label names and values
+   */
+  public Counter counter(String name, String help, String... labels) {
+    return (Counter) family(name, help, Type.COUNTER).metric(labels, Counter::new);
+  }
+
+  /**
+   * @param labels alternating label names and values
+   */
+  public LatencyHistogram histogram(String name, String help, String... labels) {
+    return (LatencyHistogram)
+        family(name, help, Type.HISTOGRAM).metric(labels, LatencyHistogram::new);
+  }
+
+  /**
+   * Registers a gauge sampled at scrape time. Registering the same name and labels again replaces
+   * the supplier.
+   *
+   * @param labels alternating label names and values
+   */
+  public void gauge(String name, String help, DoubleSupplier supplier, String... labels) {
+    Objects.requireNonNull(supplier, "Gauge supplier is required");
+    family(name, help, Type.GAUGE).series.put(renderLabels(labels), supplier);
+  }
+
+  /** Renders every registered metric in the Prometheus text format (version 0.0.4). */
+  public String scrape() {
+    StringBuilder out = new StringBuilder(4096);
+    for (Family family : families.values()) {
+      out.append("# HELP ").append(family.name).append(' ').append(family.help).append('\n');
+      out.append("# TYPE ").append(family.name).append(' ').append(family.type.exposed);
+      out.append('\n');
+      for (Map.Entry<String, Object> series : family.series.entrySet()) {
+        writeSeries(out, family, series.getKey(), series.getValue());
+      }
+    }
+    return out.toString();
+  }
+
+  private void writeSeries(StringBuilder out, Family family, String labels, Object metric) {
+    switch (family.type) {
+      case COUNTER -> sample(out, family.name, labels, ((Counter) metric).value());
+      case GAUGE -> sample(out, family.name, labels, ((DoubleSupplier) metric).getAsDouble());
+      case HISTOGRAM -> {
+        LatencyHistogram histogram = (LatencyHistogram) metric;
+        long count = histogram.count();
+        for (double bound : BUCKET_BOUNDS_SECONDS) {
+          long cumulative = histogram.countAtOrBelow((long) (bound * 1_000_000_000L));
+          sample(
+              out,
+              family.name + "_bucket",
+              withLabel(labels, "le", formatDouble(bound)),
+              cumulative);
+        }
+        sample(out, family.name + "_bucket", withLabel(labels, "le", "+Inf"), count);
+        sample(out, family.name + "_sum", labels, histogram.sumNanos() / 1_000_000_000.0);
+        sample(out, family.name + "_count", labels, count);
+      }
+      default -> throw new IllegalStateException("Unknown metric type " + family.type);
+    }
+  }
+
+  private Family family(String name, String help, Type type) {
+    Family family = families.computeIfAbsent(name, ignored -> new Family(name, help, type));
+    if (family.type != type) {
+      throw new IllegalArgumentException(
+          "Metric '%s' is already registered as a %s".formatted(name, family.type.exposed));
+    }
+    return family;
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, double value) {
+    out.append(name).append(labels).append(' ').append(formatDouble(value)).append('\n');
+  }
+
+  private static void sample(StringBuilder out, String name, String labels, long value) {
+    out.append(name).append(labels).append(' ').append(value).append('\n');
+  }
+
+  private static String formatDouble(double value) {
+    if (value == Math.rint(value) && !Double.isInfinite(value)) {
+      return String.format(Locale.ROOT, "%.1f", value);
+    }
+    return Double.toString(value);
+  }
+
+  private static String withLabel(String labels, String name, String value) {
+    String label = name + "=\"" + value + "\"";
+    if (labels.isEmpty()) {
+      return "{" + label + "}";
+    }
+    return labels.substring(0, labels.length() - 1) + "," + label + "}";
+  }
+
+  static String renderLabels(String... labels) {
+    if (labels == null || labels.length == 0) {
+      return "";
+    }
+    if (labels.length % 2 != 0) {
+      throw new IllegalArgumentException("Labels must be name/value pairs");
+    }
+    StringBuilder rendered = new StringBuilder("{");
+    for (int i = 0; i < labels.length; i += 2) {
+      if (i > 0) {
+        rendered.append(',');
+      }
+      rendered.append(labels[i]).append("=\"");
+      rendered.append(labels[i + 1].replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+    }
+    return rendered.append('}').toString();
+  }
+
+  private enum Type {
+    COUNTER("counter"),
+    GAUGE("gauge"),
+    HISTOGRAM("histogram");
+
+    private final String exposed;
+
+    Type(String exposed) {
+      this.exposed = exposed;
+    }
+  }
+
+  private static final class Family {
+    private final String name;
+    private final String help;
+    private final Type type;
+    private final Map<String, Object> series = new ConcurrentHashMap<>();
+
+    private Family(String name, String help, Type type) {
+      this.name = name;
+      this.help = help;
+      this.type = type;
+    }
+
+    private Object metric(String[] labels, Supplier<Object> factory) {
+      return series.computeIfAbsent(renderLabels(labels), ignored -> factory.get());
+    }
+  }
+}
@@ -0,0 +1,132 @@
+package cpe.qg.engine.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import cpe.qg.engine.config.MetricsConfig;
+import cpe.qg.engine.logging.LoggerProvider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+
+/**
+ * Embedded HTTP server exposing the metrics registry on {@code /metrics} for Prometheus, and the
+ * text admin routes registered with {@link #route} and {@link #action}.
+ */
+public final class MetricsServer implements AutoCloseable {
+
+  private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+  private static final String TEXT_CONTENT_TYPE = "text/plain; charset=utf-8";
+
+  private final MetricsConfig config;
+  private final MetricsRegistry registry;
+  private final Logger log = LoggerProvider.getLogger(MetricsServer.class);
+  private final Map<String, Route> routes = new LinkedHashMap<>();
+
+  private record Route(String method, Supplier<String> body) {}
+
+  private ExecutorService executor;
+  private HttpServer server;
+
+  public MetricsServer(MetricsConfig config, MetricsRegistry registry) {
+    this.config = Objects.requireNonNull(config, "Metrics config is required");
+    this.registry = Objects.requireNonNull(registry, "Metrics registry is required");
+  }
+
+  /** Serves the text returned by {@code body} on GET {@code path}; call before {@link #start}. */
+  public void route(String path, Supplier<String> body) {
+    register(path, new Route("GET", body));
+  }
+
+  /**
+   * Runs {@code action} on POST {@code path} and answers with the text it returns; call before
+   * {@link #start}.
+   */
+  public void action(String path, Supplier<String> action) {
+    register(path, new Route("POST", action));
+  }
+
+  private void register(String path, Route route) {
+    Objects.requireNonNull(route.body(), "Route body is required");
+    if (path == null || !path.startsWith("/") || path.equals("/metrics")) {
+      throw new IllegalArgumentException("Invalid admin route '%s'".formatted(path));
+    }
+    if (server != null) {
+      throw new IllegalStateException("Routes must be registered before the server starts");
+    }
+    routes.put(path, route);
+  }
+
+  public void start() {
+    if (!config.enabled() || server != null) {
+      return;
+    }
+    try {
+      server = HttpServer.create(new InetSocketAddress(config.port()), 0);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to start metrics server on port " + config.port(), e);
+    }
+    executor =
+        Executors.newSingleThreadExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "qg-metrics-http");
+              thread.setDaemon(true);
+              return thread;
+            });
+    server.createContext(
+        "/metrics", exchange -> respond(exchange, "GET", CONTENT_TYPE, registry::scrape));
+    routes.forEach(
+        (path, route) ->
+            server.createContext(
+                path,
+                exchange -> respond(exchange, route.method(), TEXT_CONTENT_TYPE, route.body())));
+    server.setExecutor(executor);
+    server.start();
+    log.info("Metrics exposed on http://0.0.0.0:{}/metrics", config.port());
+    if (!routes.isEmpty()) {
+      log.info("Admin routes exposed on port {}: {}", config.port(), routes.keySet());
+    }
+  }
+
+  private void respond(
+      HttpExchange exchange, String method, String contentType, Supplier<String> text)
+      throws IOException {
+    try (exchange) {
+      if (!method.equalsIgnoreCase(exchange.getRequestMethod())) {
+        exchange.sendResponseHeaders(405, -1);
+        return;
+      }
+      int status = 200;
+      String answer;
+      try {
+        answer = text.get();
+      } catch (RuntimeException e) {
+        log.warn("Admin route {} failed", exchange.getRequestURI().getPath(), e);
+        status = 500;
+        answer = e.getMessage() + "\n";
+      }
+      byte[] body = answer.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", contentType);
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+      executor.shutdownNow();
+      log.info("Metrics server stopped");
+    }
+  }
+}
@@ -0,0 +1,32 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Filtering, routing and scoring of the candidate vehicles of a decision. */
+@Name("cpe.qg.engine.CandidateBuild")
+@Label("Candidate Build")
+@Category({"QG Engine", "Decision"})
+@StackTrace(false)
+public final class CandidateBuildEvent extends jdk.jfr.Event {
+
+  @Label("Incident")
+  public String incidentId;
+
+  @Label("Vehicles")
+  public int vehicles;
+
+  @Label("Candidates")
+  public int candidates;
+
+  @Label("Fast")
+  public boolean fast;
+
+  @Label("Context Found")
+  public boolean contextFound;
+
+  @Label("Reused Routes")
+  public int reusedRoutes;
+}
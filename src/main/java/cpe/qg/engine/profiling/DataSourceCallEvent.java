@@ -0,0 +1,26 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Call to the decision data source. Asynchronous routing calls are committed by the thread that
+ * completes them.
+ */
+@Name("cpe.qg.engine.DataSourceCall")
+@Label("Data Source Call")
+@Category({"QG Engine", "Decision"})
+@StackTrace(false)
+public final class DataSourceCallEvent extends jdk.jfr.Event {
+
+  @Label("Call")
+  public String call;
+
+  @Label("Incident")
+  public String incidentId;
+
+  @Label("Failed")
+  public boolean failed;
+}
@@ -0,0 +1,20 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Handling of an event message by its handler. */
+@Name("cpe.qg.engine.MessageDispatch")
+@Label("Message Dispatch")
+@Category({"QG Engine", "Messaging"})
+@StackTrace(false)
+public final class MessageDispatchEvent extends jdk.jfr.Event {
+
+  @Label("Event")
+  public String eventKey;
+
+  @Label("Outcome")
+  public String outcome;
+}
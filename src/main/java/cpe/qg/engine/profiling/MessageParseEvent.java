@@ -0,0 +1,28 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Parsing of a consumed payload into an event message. */
+@Name("cpe.qg.engine.MessageParse")
+@Label("Message Parse")
+@Category({"QG Engine", "Messaging"})
+@StackTrace(false)
+public final class MessageParseEvent extends jdk.jfr.Event {
+
+  @Label("Queue")
+  public String queue;
+
+  @Label("Size")
+  @DataAmount
+  public long bytes;
+
+  @Label("Event")
+  public String eventKey;
+
+  @Label("Valid")
+  public boolean valid;
+}
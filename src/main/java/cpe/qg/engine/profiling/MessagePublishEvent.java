@@ -0,0 +1,25 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Publication of a message to the broker. */
+@Name("cpe.qg.engine.MessagePublish")
+@Label("Message Publish")
+@Category({"QG Engine", "Messaging"})
+@StackTrace(false)
+public final class MessagePublishEvent extends jdk.jfr.Event {
+
+  @Label("Queue")
+  public String queue;
+
+  @Label("Size")
+  @DataAmount
+  public long bytes;
+
+  @Label("Failed")
+  public boolean failed;
+}
@@ -0,0 +1,28 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Delivery callback of a consumed message, from the broker thread until it is handed over. */
+@Name("cpe.qg.engine.MessageReceive")
+@Label("Message Receive")
+@Category({"QG Engine", "Messaging"})
+@Description("Broker delivery of a message, up to its dispatch or scheduling")
+@StackTrace(false)
+public final class MessageReceiveEvent extends jdk.jfr.Event {
+
+  @Label("Queue")
+  public String queue;
+
+  @Label("Size")
+  @DataAmount
+  public long bytes;
+
+  @Label("Scheduled")
+  @Description("Whether the message was queued in the priority scheduler")
+  public boolean scheduled;
+}
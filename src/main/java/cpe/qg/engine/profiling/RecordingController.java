@@ -0,0 +1,101 @@
+package cpe.qg.engine.profiling;
+
+import cpe.qg.engine.config.ProfilingConfig;
+import cpe.qg.engine.logging.LoggerProvider;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Objects;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.slf4j.Logger;
+
+/**
+ * Starts, dumps and stops a JFR recording of the process on demand. The recording keeps the events
+ * of the last {@code maxAgeMs}, the engine's own events included, and is dumped to a new file of
+ * the configured directory.
+ */
+public final class RecordingController implements AutoCloseable {
+
+  private static final DateTimeFormatter FILE_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  private final ProfilingConfig config;
+  private final Logger log = LoggerProvider.getLogger(RecordingController.class);
+  private Recording recording;
+
+  public RecordingController(ProfilingConfig config) {
+    this.config = Objects.requireNonNull(config, "Profiling config is required");
+  }
+
+  /** Starts a recording, unless one is already running. */
+  public synchronized String start() {
+    if (recording != null) {
+      return "Recording already running since %s\n".formatted(recording.getStartTime());
+    }
+    Recording started;
+    try {
+      started = new Recording(Configuration.getConfiguration(config.settings()));
+    } catch (IOException | ParseException e) {
+      throw new IllegalStateException(
+          "Unable to load JFR settings '%s'".formatted(config.settings()), e);
+    }
+    started.setName("qg-engine");
+    started.setToDisk(true);
+    started.setMaxAge(Duration.ofMillis(config.maxAgeMs()));
+    started.start();
+    recording = started;
+    log.info("JFR recording started with settings '{}'", config.settings());
+    return "Recording started with settings '%s'\n".formatted(config.settings());
+  }
+
+  /** Writes the events of the running recording to a new file, keeping it running. */
+  public synchronized String dump() {
+    if (recording == null) {
+      return "No recording in progress\n";
+    }
+    Path file = dumpRecording();
+    return "Recording dumped to %s\n".formatted(file.toAbsolutePath());
+  }
+
+  /** Dumps then stops the running recording. */
+  public synchronized String stop() {
+    if (recording == null) {
+      return "No recording in progress\n";
+    }
+    try {
+      Path file = dumpRecording();
+      return "Recording stopped and dumped to %s\n".formatted(file.toAbsolutePath());
+    } finally {
+      recording.close();
+      recording = null;
+      log.info("JFR recording stopped");
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    if (recording != null) {
+      stop();
+    }
+  }
+
+  private Path dumpRecording() {
+    Path file =
+        Path.of(config.directory())
+            .resolve("qg-engine-%s.jfr".formatted(FILE_TIMESTAMP.format(Instant.now())));
+    try {
+      Files.createDirectories(file.getParent());
+      recording.dump(file);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to dump the JFR recording to " + file, e);
+    }
+    log.info("JFR recording dumped to {}", file.toAbsolutePath());
+    return file;
+  }
+}
@@ -0,0 +1,29 @@
+package cpe.qg.engine.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** Selection of the proposed vehicles among the candidates of a decision. */
+@Name("cpe.qg.engine.Selection")
+@Label("Selection")
+@Category({"QG Engine", "Decision"})
+@StackTrace(false)
+public final class SelectionEvent extends jdk.jfr.Event {
+
+  @Label("Incident")
+  public String incidentId;
+
+  @Label("Candidates")
+  public int candidates;
+
+  @Label("Proposals")
+  public int proposals;
+
+  @Label("Missing")
+  public int missing;
+
+  @Label("Reused Phases")
+  public int reusedPhases;
+}
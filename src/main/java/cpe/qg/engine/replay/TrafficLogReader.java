@@ -0,0 +1,59 @@
+package cpe.qg.engine.replay;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Reads a file written by {@link TrafficRecorder}, in recording order. */
+public final class TrafficLogReader {
+
+  private TrafficLogReader() {}
+
+  /**
+   * Reads every record of the file. A truncated last record, or the zero-filled tail of a mapped
+   * recording that was not closed, ends the recording.
+   */
+  public static List<TrafficRecord> readAll(Path file) throws IOException {
+    List<TrafficRecord> records = new ArrayList<>();
+    try (InputStream stream = Files.newInputStream(file);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, 64 * 1024))) {
+      if (in.readInt() != TrafficLogWriter.MAGIC) {
+        throw new IOException("%s is not a traffic recording".formatted(file));
+      }
+      short version = in.readShort();
+      if (version != TrafficLogWriter.VERSION) {
+        throw new IOException("Unsupported traffic recording version " + version);
+      }
+      while (true) {
+        int code = in.read();
+        if (code <= 0) {
+          return records;
+        }
+        try {
+          long epochMicros = in.readLong();
+          byte[] key = in.readNBytes(in.readInt());
+          int bodyLength = in.readInt();
+          byte[] body = in.readNBytes(bodyLength);
+          if (body.length < bodyLength) {
+            return records;
+          }
+          records.add(
+              new TrafficRecord(
+                  TrafficRecord.Kind.of((byte) code),
+                  epochMicros,
+                  new String(key, StandardCharsets.UTF_8),
+                  body));
+        } catch (EOFException e) {
+          return records;
+        }
+      }
+    }
+  }
+}
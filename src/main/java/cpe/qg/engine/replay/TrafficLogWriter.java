@@ -0,0 +1,112 @@
+package cpe.qg.engine.replay;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends traffic records to a new file. Each record is its kind byte, its time in microseconds,
+ * then its key and body, each prefixed by its length; the file starts with a magic number and a
+ * version.
+ *
+ * <p>Buffered mode stages records in a 64 KiB buffer written when full and on close. Mapped mode
+ * writes straight into 64 MiB memory-mapped segments and trims the file to its content on close;
+ * after a crash, the zero-filled tail reads as the end of the recording.
+ */
+final class TrafficLogWriter implements AutoCloseable {
+
+  static final int MAGIC = 0x51475452;
+  static final short VERSION = 1;
+  static final int HEADER_BYTES = Integer.BYTES + Short.BYTES;
+  static final int RECORD_OVERHEAD_BYTES = 1 + Long.BYTES + Integer.BYTES + Integer.BYTES;
+
+  private static final int BUFFER_BYTES = 64 * 1024;
+  private static final long SEGMENT_BYTES = 64L * 1024 * 1024;
+
+  private final FileChannel channel;
+  private final boolean mapped;
+  private ByteBuffer buffer;
+  private long segmentStart;
+
+  TrafficLogWriter(Path file, boolean mapped) throws IOException {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    this.mapped = mapped;
+    this.channel =
+        FileChannel.open(
+            file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    this.buffer =
+        mapped
+            ? channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_BYTES)
+            : ByteBuffer.allocate(BUFFER_BYTES);
+    buffer.putInt(MAGIC).putShort(VERSION);
+  }
+
+  /** Appends a record and returns its size in bytes. */
+  int write(TrafficRecord record) throws IOException {
+    byte[] key = record.key().getBytes(StandardCharsets.UTF_8);
+    int size = RECORD_OVERHEAD_BYTES + key.length + record.body().length;
+    ByteBuffer target = reserve(size);
+    target
+        .put(record.kind().code())
+        .putLong(record.epochMicros())
+        .putInt(key.length)
+        .put(key)
+        .putInt(record.body().length)
+        .put(record.body());
+    if (target != buffer) {
+      target.flip();
+      writeFully(target);
+    }
+    return size;
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      if (mapped) {
+        long size = segmentStart + buffer.position();
+        buffer = null;
+        channel.truncate(size);
+      } else {
+        flush();
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
+  /**
+   * Buffer with room for {@code size} more bytes, a dedicated one for oversized buffered records.
+   */
+  private ByteBuffer reserve(int size) throws IOException {
+    if (buffer.remaining() >= size) {
+      return buffer;
+    }
+    if (mapped) {
+      segmentStart += buffer.position();
+      buffer =
+          channel.map(FileChannel.MapMode.READ_WRITE, segmentStart, Math.max(SEGMENT_BYTES, size));
+      return buffer;
+    }
+    flush();
+    return size <= buffer.capacity() ? buffer : ByteBuffer.allocate(size);
+  }
+
+  private void flush() throws IOException {
+    buffer.flip();
+    writeFully(buffer);
+    buffer.clear();
+  }
+
+  private void writeFully(ByteBuffer source) throws IOException {
+    while (source.hasRemaining()) {
+      channel.write(source);
+    }
+  }
+}
@@ -0,0 +1,59 @@
+package cpe.qg.engine.replay;
+
+import cpe.qg.engine.decision.model.GeoPoint;
+import java.util.UUID;
+
+/**
+ * One entry of a traffic recording: a consumed or published message, or an SDMIS response.
+ *
+ * @param epochMicros wall-clock time of the entry, in microseconds since the epoch
+ * @param key queue of a message, incident id of a situation or planning, route endpoints of a
+ *     route, empty for the vehicle list
+ * @param body raw message, or the JSON of the response
+ */
+public record TrafficRecord(Kind kind, long epochMicros, String key, byte[] body) {
+
+  /** What an entry holds; the code is its first byte in the file. */
+  public enum Kind {
+    CONSUMED(1),
+    PUBLISHED(2),
+    SITUATION(3),
+    PLANNING(4),
+    VEHICLES(5),
+    ROUTE(6);
+
+    private final byte code;
+
+    Kind(int code) {
+      this.code = (byte) code;
+    }
+
+    public byte code() {
+      return code;
+    }
+
+    static Kind of(byte code) {
+      for (Kind kind : values()) {
+        if (kind.code == code) {
+          return kind;
+        }
+      }
+      throw new IllegalArgumentException("Unknown traffic record kind " + code);
+    }
+  }
+
+  public TrafficRecord {
+    if (kind == null || key == null || body == null) {
+      throw new IllegalArgumentException("kind, key and body are required");
+    }
+  }
+
+  public static String incidentKey(UUID incidentId) {
+    return String.valueOf(incidentId);
+  }
+
+  /** Key of a route, exact on the coordinates so a replay finds the same call. */
+  public static String routeKey(GeoPoint from, GeoPoint to) {
+    return from.latitude() + "," + from.longitude() + ">" + to.latitude() + "," + to.longitude();
+  }
+}
@@ -0,0 +1,148 @@
+package cpe.qg.engine.replay;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cpe.qg.engine.config.TrafficRecordingConfig;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import org.slf4j.Logger;
+
+/**
+ * Process-wide recorder of the traffic needed to replay a run offline: consumed and published
+ * messages and the SDMIS responses the decisions were based on. Until {@link #start} is called, or
+ * after a write failure, recording costs a volatile read.
+ *
+ * <p>Each start writes a new file, named after the configured one with the start time inserted
+ * before the extension, so a restart never overwrites an earlier recording.
+ */
+public final class TrafficRecorder implements AutoCloseable {
+
+  private static final TrafficRecorder GLOBAL = new TrafficRecorder();
+  private static final DateTimeFormatter FILE_TIMESTAMP =
+      DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss").withZone(ZoneOffset.UTC);
+
+  private final Logger log = LoggerProvider.getLogger(TrafficRecorder.class);
+  private final ObjectMapper objectMapper = new ObjectMapper();
+  private final Map<TrafficRecord.Kind, Counter> recorded = new EnumMap<>(TrafficRecord.Kind.class);
+  private final Counter recordedBytes =
+      MetricsRegistry.global()
+          .counter("qg_traffic_recorded_bytes_total", "Bytes written to the traffic recording");
+  private final Counter errors =
+      MetricsRegistry.global()
+          .counter(
+              "qg_traffic_recording_errors_total",
+              "Traffic recording failures, after which recording stops");
+  private volatile TrafficLogWriter writer;
+  private Path file;
+
+  public static TrafficRecorder global() {
+    return GLOBAL;
+  }
+
+  private TrafficRecorder() {
+    for (TrafficRecord.Kind kind : TrafficRecord.Kind.values()) {
+      recorded.put(
+          kind,
+          MetricsRegistry.global()
+              .counter(
+                  "qg_traffic_recorded_total",
+                  "Entries written to the traffic recording, by kind",
+                  "kind",
+                  kind.name().toLowerCase(Locale.ROOT)));
+    }
+  }
+
+  /** Opens a new recording file when recording is enabled and none is open yet. */
+  public synchronized void start(TrafficRecordingConfig config) {
+    if (!config.enabled() || writer != null) {
+      return;
+    }
+    Path target = timestamped(Path.of(config.file()));
+    try {
+      writer = new TrafficLogWriter(target, config.mapped());
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to create traffic recording " + target, e);
+    }
+    file = target;
+    log.info("Recording traffic to {} ({})", target, config.mapped() ? "mapped" : "buffered");
+  }
+
+  public boolean active() {
+    return writer != null;
+  }
+
+  public void record(TrafficRecord.Kind kind, String key, byte[] body) {
+    if (writer == null) {
+      return;
+    }
+    append(new TrafficRecord(kind, nowMicros(), key, body));
+  }
+
+  /** Records {@code value} as JSON; serialization is skipped when not recording. */
+  public void recordJson(TrafficRecord.Kind kind, String key, Object value) {
+    if (writer == null) {
+      return;
+    }
+    byte[] body;
+    try {
+      body = objectMapper.writeValueAsBytes(value);
+    } catch (JsonProcessingException e) {
+      log.warn("Unable to record {} response for '{}'", kind, key, e);
+      return;
+    }
+    append(new TrafficRecord(kind, nowMicros(), key, body));
+  }
+
+  @Override
+  public synchronized void close() {
+    TrafficLogWriter current = writer;
+    if (current == null) {
+      return;
+    }
+    writer = null;
+    try {
+      current.close();
+      log.info("Traffic recording {} closed", file);
+    } catch (IOException e) {
+      log.warn("Unable to close traffic recording {}", file, e);
+    }
+  }
+
+  private synchronized void append(TrafficRecord record) {
+    TrafficLogWriter current = writer;
+    if (current == null) {
+      return;
+    }
+    try {
+      recordedBytes.add(current.write(record));
+      recorded.get(record.kind()).increment();
+    } catch (IOException | RuntimeException e) {
+      errors.increment();
+      log.error("Traffic recording to {} failed, recording stopped", file, e);
+      close();
+    }
+  }
+
+  private static long nowMicros() {
+    Instant now = Instant.now();
+    return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000;
+  }
+
+  private static Path timestamped(Path configured) {
+    String name = configured.getFileName().toString();
+    int dot = name.lastIndexOf('.');
+    String stamp = FILE_TIMESTAMP.format(Instant.now());
+    String stamped =
+        dot <= 0 ? name + "-" + stamp : name.substring(0, dot) + "-" + stamp + name.substring(dot);
+    return configured.resolveSibling(stamped);
+  }
+}
@@ -0,0 +1,267 @@
+package cpe.qg.engine.sdmis;
+
+import cpe.qg.engine.config.ConcurrencyLimitConfig;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Adaptive limit on the in-flight calls to one SDMIS endpoint. Calls beyond the limit wait in FIFO
+ * order for a slot, up to the queue timeout, and are rejected with an {@link IllegalStateException}
+ * once it expires or when the queue is full.
+ *
+ * <p>The limit follows the latency gradient: each completed call compares its latency with a long
+ * moving average of the endpoint. While the latency stays within {@value #TOLERANCE} times the
+ * average, the limit grows by a share of its square root; beyond, it shrinks in proportion, by half
+ * at most. Failures that signal overload, such as timeouts and 5xx responses, cut it by {@value
+ * #BACKOFF} at once. The limit does not grow while less than half of it is used, since such calls
+ * say nothing about the endpoint at a higher concurrency.
+ */
+final class ConcurrencyLimiter {
+
+  /** Latency ratio over the long average still considered unloaded. */
+  private static final double TOLERANCE = 1.5;
+
+  /** Weight of each new limit estimate, to ride out single slow calls. */
+  private static final double SMOOTHING = 0.2;
+
+  /** Multiplicative decrease applied on a dropped call. */
+  private static final double BACKOFF = 0.9;
+
+  /** Calls averaged by the long latency average. */
+  private static final int LONG_WINDOW = 100;
+
+  private final ConcurrencyLimitConfig config;
+  private final LongSupplier nanoClock;
+  private final Deque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+  private final Counter queueFull;
+  private final Counter timedOut;
+  private final LatencyHistogram waits;
+  private double limit;
+  private double longLatencyNanos;
+  private int inFlight;
+
+  ConcurrencyLimiter(String endpoint, ConcurrencyLimitConfig config, MetricsRegistry registry) {
+    this(endpoint, config, System::nanoTime, registry);
+  }
+
+  ConcurrencyLimiter(
+      String endpoint,
+      ConcurrencyLimitConfig config,
+      LongSupplier nanoClock,
+      MetricsRegistry registry) {
+    Objects.requireNonNull(endpoint, "Endpoint is required");
+    this.config = Objects.requireNonNull(config, "Concurrency limit config is required");
+    this.nanoClock = Objects.requireNonNull(nanoClock, "Clock is required");
+    Objects.requireNonNull(registry, "Metrics registry is required");
+    this.limit = config.initialLimit();
+    this.queueFull = rejections(registry, endpoint, "queue_full");
+    this.timedOut = rejections(registry, endpoint, "timeout");
+    this.waits =
+        registry.histogram(
+            "qg_sdmis_limit_wait_seconds",
+            "Time SDMIS API calls waited for a slot under the concurrency limit",
+            "endpoint",
+            endpoint);
+    registry.gauge(
+        "qg_sdmis_concurrency_limit",
+        "Adaptive limit on in-flight SDMIS API calls",
+        this::limit,
+        "endpoint",
+        endpoint);
+    registry.gauge(
+        "qg_sdmis_in_flight", "In-flight SDMIS API calls", this::inFlight, "endpoint", endpoint);
+    registry.gauge(
+        "qg_sdmis_limit_queued",
+        "SDMIS API calls waiting for a slot under the concurrency limit",
+        this::queued,
+        "endpoint",
+        endpoint);
+  }
+
+  /**
+   * Slot for one call, granted at once or after waiting in the queue. Cancelling the returned
+   * future gives up the wait.
+   */
+  CompletableFuture<Permit> acquire() {
+    long requestedAt = nanoClock.getAsLong();
+    CompletableFuture<Permit> waiter;
+    synchronized (this) {
+      if (waiters.isEmpty() && inFlight < (int) limit) {
+        inFlight++;
+        waits.record(0);
+        return CompletableFuture.completedFuture(new Permit(requestedAt));
+      }
+      if (waiters.size() >= config.maxQueued()) {
+        queueFull.increment();
+        return CompletableFuture.failedFuture(
+            new IllegalStateException("SDMIS API concurrency limit reached, queue is full"));
+      }
+      waiter = new CompletableFuture<>();
+      waiters.addLast(waiter);
+    }
+    waiter.whenComplete(
+        (permit, error) -> {
+          if (error != null) {
+            synchronized (this) {
+              waiters.remove(waiter);
+            }
+          } else {
+            waits.record(nanoClock.getAsLong() - requestedAt);
+          }
+        });
+    CompletableFuture.delayedExecutor(config.queueTimeoutMs(), TimeUnit.MILLISECONDS)
+        .execute(
+            () -> {
+              if (waiter.completeExceptionally(
+                  new IllegalStateException(
+                      "No SDMIS API slot within %d ms".formatted(config.queueTimeoutMs())))) {
+                timedOut.increment();
+              }
+            });
+    return waiter;
+  }
+
+  /** Blocking {@link #acquire()}. */
+  Permit await() throws InterruptedException {
+    CompletableFuture<Permit> permit = acquire();
+    try {
+      return permit.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof RuntimeException cause
+          ? cause
+          : new IllegalStateException(e.getCause());
+    } catch (InterruptedException e) {
+      if (!permit.cancel(false) && permit.state() == Future.State.SUCCESS) {
+        permit.resultNow().ignore();
+      }
+      throw e;
+    }
+  }
+
+  synchronized double limit() {
+    return limit;
+  }
+
+  synchronized int inFlight() {
+    return inFlight;
+  }
+
+  synchronized int queued() {
+    return waiters.size();
+  }
+
+  private void release(Permit permit, Outcome outcome) {
+    long latencyNanos = nanoClock.getAsLong() - permit.grantedAt;
+    synchronized (this) {
+      switch (outcome) {
+        case SUCCESS -> adapt(latencyNanos);
+        case DROPPED -> limit = Math.max(config.minLimit(), limit * BACKOFF);
+        case IGNORED -> {}
+      }
+      inFlight--;
+    }
+    grantWaiters();
+  }
+
+  /** Gradient update from the latency of a successful call, under the lock. */
+  private void adapt(long latencyNanos) {
+    double latency = Math.max(1, latencyNanos);
+    longLatencyNanos =
+        longLatencyNanos == 0
+            ? latency
+            : longLatencyNanos + (latency - longLatencyNanos) / LONG_WINDOW;
+    if (longLatencyNanos / latency > 2) {
+      // Latency dropped well below the average: let the average catch up.
+      longLatencyNanos *= 0.95;
+    }
+    double gradient = Math.clamp(TOLERANCE * longLatencyNanos / latency, 0.5, 1.0);
+    double estimate = limit * gradient + Math.sqrt(limit);
+    double next =
+        Math.clamp(
+            limit * (1 - SMOOTHING) + estimate * SMOOTHING, config.minLimit(), config.maxLimit());
+    // An underused limit may still shrink when latency rises, but must not grow.
+    if (next < limit || inFlight >= limit / 2) {
+      limit = next;
+    }
+  }
+
+  /** Hands free slots to the waiters, oldest first. */
+  private void grantWaiters() {
+    while (true) {
+      CompletableFuture<Permit> next;
+      synchronized (this) {
+        if (waiters.isEmpty() || inFlight >= (int) limit) {
+          return;
+        }
+        next = waiters.pollFirst();
+        inFlight++;
+      }
+      if (!next.complete(new Permit(nanoClock.getAsLong()))) {
+        // Timed out or cancelled meanwhile.
+        synchronized (this) {
+          inFlight--;
+        }
+      }
+    }
+  }
+
+  private static Counter rejections(MetricsRegistry registry, String endpoint, String reason) {
+    return registry.counter(
+        "qg_sdmis_limit_rejections_total",
+        "SDMIS API calls rejected by the concurrency limit, by reason",
+        "endpoint",
+        endpoint,
+        "reason",
+        reason);
+  }
+
+  private enum Outcome {
+    SUCCESS,
+    DROPPED,
+    IGNORED
+  }
+
+  /** Slot held by one call; exactly one of its methods must be called when the call ends. */
+  final class Permit {
+    private final long grantedAt;
+    private boolean released;
+
+    private Permit(long grantedAt) {
+      this.grantedAt = grantedAt;
+    }
+
+    /** The call completed; its latency feeds the limit. */
+    void success() {
+      release(Outcome.SUCCESS);
+    }
+
+    /** The call failed in a way that signals overload, such as a timeout or a 503. */
+    void dropped() {
+      release(Outcome.DROPPED);
+    }
+
+    /** The call ended without saying anything about the endpoint, such as when cancelled. */
+    void ignore() {
+      release(Outcome.IGNORED);
+    }
+
+    private void release(Outcome outcome) {
+      synchronized (this) {
+        if (released) {
+          return;
+        }
+        released = true;
+      }
+      ConcurrencyLimiter.this.release(this, outcome);
+    }
+  }
+}
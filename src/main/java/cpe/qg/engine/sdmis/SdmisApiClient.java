@@ -4,22 +4,41 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import cpe.qg.engine.auth.AuthStrategy;
+import cpe.qg.engine.config.ConcurrencyLimitConfig;
 import cpe.qg.engine.config.SdmisApiConfig;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.TraceContext;
+import cpe.qg.engine.tracing.Tracer;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
 
 /** SDMIS API client with pluggable authentication strategy. */
 public final class SdmisApiClient {
 
+  private static final Pattern UUID_SEGMENT =
+      Pattern.compile(
+          "[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
   private final SdmisApiConfig config;
   private final AuthStrategy authStrategy;
   private final HttpClient httpClient;
   private final ObjectMapper objectMapper;
+  private final ConcurrencyLimitConfig limits;
+  private final MetricsRegistry registry;
+  private final Map<String, ConcurrencyLimiter> limiters = new ConcurrentHashMap<>();
 
   public SdmisApiClient(SdmisApiConfig config, AuthStrategy authStrategy) {
     this(config, authStrategy, HttpClient.newHttpClient(), new ObjectMapper());
@@ -30,10 +49,36 @@ public final class SdmisApiClient {
       AuthStrategy authStrategy,
       HttpClient httpClient,
       ObjectMapper objectMapper) {
+    this(config, authStrategy, httpClient, objectMapper, ConcurrencyLimitConfig.DISABLED);
+  }
+
+  /**
+   * @param limits adaptive limits on the in-flight calls of each endpoint: {@code /geo/route} and
+   *     {@code /qg/*} each get their own
+   */
+  public SdmisApiClient(
+      SdmisApiConfig config,
+      AuthStrategy authStrategy,
+      HttpClient httpClient,
+      ObjectMapper objectMapper,
+      ConcurrencyLimitConfig limits) {
+    this(config, authStrategy, httpClient, objectMapper, limits, MetricsRegistry.global());
+  }
+
+  /** Client whose concurrency limits report to {@code registry}, such as that of the engine. */
+  public SdmisApiClient(
+      SdmisApiConfig config,
+      AuthStrategy authStrategy,
+      HttpClient httpClient,
+      ObjectMapper objectMapper,
+      ConcurrencyLimitConfig limits,
+      MetricsRegistry registry) {
     this.config = Objects.requireNonNull(config, "SDMIS config is required");
     this.authStrategy = Objects.requireNonNull(authStrategy, "Auth strategy is required");
     this.httpClient = Objects.requireNonNull(httpClient, "HttpClient is required");
     this.objectMapper = Objects.requireNonNull(objectMapper, "ObjectMapper is required");
+    this.limits = Objects.requireNonNull(limits, "Concurrency limit config is required");
+    this.registry = Objects.requireNonNull(registry, "Metrics registry is required");
   }
 
   public HttpResponse<String> get(String path) throws IOException, InterruptedException {
@@ -75,6 +120,59 @@ public final class SdmisApiClient {
     return objectMapper.readValue(response.body(), responseType);
   }
 
+  /**
+   * Asynchronous {@link #postJson(String, Object, Class)}. Cancelling the returned future aborts
+   * the HTTP exchange.
+   */
+  public <T> CompletableFuture<T> postJsonAsync(
+      String path, Object payload, Class<T> responseType) {
+    Span span = Tracer.global().startDetached("POST " + spanPath(path), "CLIENT");
+    span.tag("http.method", "POST").tag("http.path", path);
+    HttpRequest request;
+    try {
+      request = buildRequest("POST", path, toJson(payload), "application/json", span.context());
+    } catch (RuntimeException e) {
+      span.error(e).close();
+      return CompletableFuture.failedFuture(e);
+    }
+    CompletableFuture<ConcurrencyLimiter.Permit> permit = acquire(path);
+    AtomicReference<CompletableFuture<HttpResponse<String>>> call = new AtomicReference<>();
+    CompletableFuture<HttpResponse<String>> exchange =
+        permit.thenCompose(
+            granted -> {
+              CompletableFuture<HttpResponse<String>> sent =
+                  httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+              call.set(sent);
+              return sent.whenComplete((response, error) -> release(granted, response, error));
+            });
+    CompletableFuture<T> result =
+        exchange.thenApply(
+            response -> {
+              span.tag("http.status_code", response.statusCode());
+              ensureSuccess(response);
+              try {
+                return objectMapper.readValue(response.body(), responseType);
+              } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+    result.whenComplete(
+        (value, error) -> {
+          if (result.isCancelled()) {
+            permit.cancel(true);
+            CompletableFuture<HttpResponse<String>> sent = call.get();
+            if (sent != null) {
+              sent.cancel(true);
+            }
+            span.tag("cancelled", true);
+          } else if (error != null) {
+            span.error(error);
+          }
+          span.close();
+        });
+    return result;
+  }
+
   private HttpResponse<String> sendJson(String method, String path, Object payload)
       throws IOException, InterruptedException {
     String json = toJson(payload);
@@ -83,10 +181,79 @@ public final class SdmisApiClient {
 
   private HttpResponse<String> send(String method, String path, String body, String contentType)
       throws IOException, InterruptedException {
+    try (Span span = Tracer.global().startSpan(method + " " + spanPath(path), "CLIENT")) {
+      span.tag("http.method", method).tag("http.path", path);
+      HttpRequest request = buildRequest(method, path, body, contentType, span.context());
+      ConcurrencyLimiter.Permit permit = null;
+      HttpResponse<String> response = null;
+      Throwable failure = null;
+      try {
+        ConcurrencyLimiter limiter = limiter(path);
+        permit = limiter == null ? null : limiter.await();
+        response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        span.tag("http.status_code", response.statusCode());
+        return response;
+      } catch (IOException | RuntimeException | InterruptedException e) {
+        failure = e;
+        span.error(e);
+        throw e;
+      } finally {
+        release(permit, response, failure);
+      }
+    }
+  }
+
+  /** Slot under the limit of the endpoint, granted at once when limits are disabled. */
+  private CompletableFuture<ConcurrencyLimiter.Permit> acquire(String path) {
+    ConcurrencyLimiter limiter = limiter(path);
+    return limiter == null ? CompletableFuture.completedFuture(null) : limiter.acquire();
+  }
+
+  private ConcurrencyLimiter limiter(String path) {
+    if (!limits.enabled()) {
+      return null;
+    }
+    return limiters.computeIfAbsent(
+        endpoint(path), endpoint -> new ConcurrencyLimiter(endpoint, limits, registry));
+  }
+
+  /**
+   * Timeouts, connection failures, 429 and 5xx responses signal an overloaded endpoint;
+   * cancellations and interruptions say nothing about it.
+   */
+  private static void release(
+      ConcurrencyLimiter.Permit permit, HttpResponse<?> response, Throwable failure) {
+    if (permit == null) {
+      return;
+    }
+    Throwable cause = failure instanceof CompletionException ? failure.getCause() : failure;
+    if (response != null) {
+      int status = response.statusCode();
+      if (status == 429 || status >= 500) {
+        permit.dropped();
+      } else {
+        permit.success();
+      }
+    } else if (cause instanceof IOException) {
+      permit.dropped();
+    } else {
+      permit.ignore();
+    }
+  }
+
+  /** Endpoint a path is limited under: {@code /qg/*}, or the path with ids replaced. */
+  private static String endpoint(String path) {
+    String name = spanPath(path);
+    return name.startsWith("/qg/") ? "/qg/*" : name;
+  }
+
+  private HttpRequest buildRequest(
+      String method, String path, String body, String contentType, TraceContext trace) {
     HttpRequest.Builder builder =
         HttpRequest.newBuilder(config.baseUri(path))
             .timeout(Duration.ofMillis(config.timeoutMs()))
-            .header("Accept", "application/json");
+            .header("Accept", "application/json")
+            .header(TraceContext.TRACEPARENT, trace.traceparent());
 
     authStrategy.apply(builder);
 
@@ -96,8 +263,14 @@ public final class SdmisApiClient {
       builder.header("Content-Type", contentType);
       builder.method(method, HttpRequest.BodyPublishers.ofString(body));
     }
+    return builder.build();
+  }
 
-    return httpClient.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+  /** Span name for a path, with ids replaced so that names group by endpoint. */
+  private static String spanPath(String path) {
+    int query = path.indexOf('?');
+    String withoutQuery = query < 0 ? path : path.substring(0, query);
+    return UUID_SEGMENT.matcher(withoutQuery).replaceAll("{id}");
   }
 
   private void ensureSuccess(HttpResponse<String> response) {
@@ -6,6 +6,7 @@ import cpe.qg.engine.auth.AuthStrategy;
 import cpe.qg.engine.auth.keycloak.KeycloakAuthStrategy;
 import cpe.qg.engine.auth.keycloak.KeycloakTokenProvider;
 import cpe.qg.engine.config.EnvironmentConfig;
+import cpe.qg.engine.metrics.MetricsRegistry;
 import java.net.http.HttpClient;
 import java.time.Clock;
 import java.time.Duration;
@@ -17,6 +18,12 @@ public final class SdmisApiClientFactory {
   private SdmisApiClientFactory() {}
 
   public static SdmisApiClient create(EnvironmentConfig environmentConfig) {
+    return create(environmentConfig, MetricsRegistry.global());
+  }
+
+  /** Client whose concurrency limits report to {@code registry}. */
+  public static SdmisApiClient create(
+      EnvironmentConfig environmentConfig, MetricsRegistry registry) {
     Objects.requireNonNull(environmentConfig, "Environment config is required");
 
     long connectTimeoutMs =
@@ -35,6 +42,12 @@ public final class SdmisApiClientFactory {
             environmentConfig.keycloak(), httpClient, mapper, Clock.systemUTC());
     AuthStrategy authStrategy = new KeycloakAuthStrategy(tokenProvider);
 
-    return new SdmisApiClient(environmentConfig.sdmisApi(), authStrategy, httpClient, mapper);
+    return new SdmisApiClient(
+        environmentConfig.sdmisApi(),
+        authStrategy,
+        httpClient,
+        mapper,
+        environmentConfig.concurrencyLimit(),
+        registry);
   }
 }
@@ -0,0 +1,165 @@
+package cpe.qg.engine.service;
+
+import cpe.qg.engine.config.LoadSheddingConfig;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.messaging.MessageBrokerClient;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Watches the backlog of the consumed queues and the age of the messages taken from them, and
+ * switches the engine between normal and degraded mode.
+ *
+ * <p>The backlog is sampled every {@code sampleIntervalMs} as the sum of the broker message counts
+ * of the queues, shard queues included; the age is an exponentially weighted average of the time
+ * between publication and dequeue, reset when the queue is seen empty. The engine degrades when
+ * either reaches its degrade threshold and recovers only once both are back under their lower
+ * recover threshold, so it does not flap around a single value.
+ */
+public final class BacklogMonitor implements AutoCloseable {
+
+  private static final double AGE_SMOOTHING = 0.3;
+
+  private final MessageBrokerClient brokerClient;
+  private final List<String> queueNames;
+  private final LoadSheddingConfig config;
+  private final Logger log = LoggerProvider.getLogger(BacklogMonitor.class);
+  private final LatencyHistogram messageAge =
+      MetricsRegistry.global()
+          .histogram("qg_queue_message_age_seconds", "Time from publication to dequeue");
+  private final Object lock = new Object();
+  private final Map<String, Long> backlogByQueue = new HashMap<>();
+  private ScheduledExecutorService sampler;
+  private long backlog;
+  private double averageAgeMs;
+  private volatile boolean degraded;
+
+  public BacklogMonitor(
+      MessageBrokerClient brokerClient, String queueName, LoadSheddingConfig config) {
+    this(
+        brokerClient, List.of(Objects.requireNonNull(queueName, "Queue name is required")), config);
+  }
+
+  /** Monitors the sum of the backlogs of {@code queueNames}. */
+  public BacklogMonitor(
+      MessageBrokerClient brokerClient, List<String> queueNames, LoadSheddingConfig config) {
+    this.brokerClient = Objects.requireNonNull(brokerClient, "Message broker client is required");
+    this.queueNames = List.copyOf(Objects.requireNonNull(queueNames, "Queue names are required"));
+    this.config = Objects.requireNonNull(config, "Load shedding config is required");
+    if (!config.enabled()) {
+      return;
+    }
+    MetricsRegistry registry = MetricsRegistry.global();
+    registry.gauge(
+        "qg_engine_degraded", "1 while the engine runs in degraded mode", () -> degraded ? 1 : 0);
+    for (String queueName : this.queueNames) {
+      registry.gauge(
+          "qg_queue_backlog_messages",
+          "Messages waiting in the consumed queue at the last sample",
+          () -> backlog(queueName),
+          "queue",
+          queueName);
+    }
+  }
+
+  public LoadSheddingConfig config() {
+    return config;
+  }
+
+  /** Starts sampling the backlog; does nothing when load shedding is disabled. */
+  public void start() {
+    if (!config.enabled() || sampler != null) {
+      return;
+    }
+    sampler =
+        Executors.newSingleThreadScheduledExecutor(
+            runnable -> {
+              Thread thread = new Thread(runnable, "qg-backlog-monitor");
+              thread.setDaemon(true);
+              return thread;
+            });
+    sampler.scheduleWithFixedDelay(
+        this::sampleBacklog, 0, config.sampleIntervalMs(), TimeUnit.MILLISECONDS);
+  }
+
+  public boolean degraded() {
+    return degraded;
+  }
+
+  /** Records the time a message spent between publication and dequeue. */
+  public void recordAge(long ageMs) {
+    messageAge.record(Math.max(0L, ageMs) * 1_000_000L);
+    if (!config.enabled()) {
+      return;
+    }
+    synchronized (lock) {
+      averageAgeMs = averageAgeMs + AGE_SMOOTHING * (Math.max(0L, ageMs) - averageAgeMs);
+      evaluate();
+    }
+  }
+
+  void sampleBacklog() {
+    Map<String, Long> counts = new HashMap<>();
+    for (String queueName : queueNames) {
+      try {
+        long count = brokerClient.messageCount(queueName);
+        if (count >= 0) {
+          counts.put(queueName, count);
+        }
+      } catch (RuntimeException e) {
+        log.debug("Unable to sample backlog of {}: {}", queueName, e.getMessage());
+      }
+    }
+    if (counts.isEmpty()) {
+      return;
+    }
+    synchronized (lock) {
+      backlogByQueue.putAll(counts);
+      backlog = backlogByQueue.values().stream().mapToLong(Long::longValue).sum();
+      if (backlog == 0) {
+        averageAgeMs = 0;
+      }
+      evaluate();
+    }
+  }
+
+  private long backlog(String queueName) {
+    synchronized (lock) {
+      return backlogByQueue.getOrDefault(queueName, 0L);
+    }
+  }
+
+  private void evaluate() {
+    if (!degraded
+        && (backlog >= config.degradeBacklog() || averageAgeMs >= config.degradeAgeMs())) {
+      degraded = true;
+      log.warn(
+          "Switching to degraded mode: backlog {} message(s), average age {} ms",
+          backlog,
+          Math.round(averageAgeMs));
+    } else if (degraded
+        && backlog <= config.recoverBacklog()
+        && averageAgeMs <= config.recoverAgeMs()) {
+      degraded = false;
+      log.info(
+          "Switching back to normal mode: backlog {} message(s), average age {} ms",
+          backlog,
+          Math.round(averageAgeMs));
+    }
+  }
+
+  @Override
+  public void close() {
+    if (sampler != null) {
+      sampler.shutdownNow();
+    }
+  }
+}
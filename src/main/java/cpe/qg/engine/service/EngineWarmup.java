@@ -0,0 +1,368 @@
+package cpe.qg.engine.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import cpe.qg.engine.config.WarmupConfig;
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.impl.GeoDistance;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.handlers.AssignmentMessageCodec;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGBaseInterestPointRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSnapshot;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import cpe.qg.engine.tracing.Span;
+import cpe.qg.engine.tracing.Tracer;
+import java.io.IOException;
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import org.slf4j.Logger;
+
+/**
+ * Primes the Keycloak token cache, SDMIS connections, fleet data and the JIT-compiled decision path
+ * before the engine starts consuming messages.
+ *
+ * <p>Synthetic decisions run against an in-memory copy of the fleet, so warm-up never publishes
+ * proposals nor hammers the routing service. Their engine reports to a private metrics registry and
+ * their spans share one trace under a {@code warm-up} root, so they stay out of production metrics
+ * and traces.
+ */
+public final class EngineWarmup {
+
+  private static final int BATCH_SIZE = 10;
+  private static final int SETTLED_BATCHES = 3;
+  private static final long SETTLED_COMPILE_MS = 2;
+  private static final int MAX_REQUESTED_TYPES = 3;
+  private static final int SYNTHETIC_FLEET_SIZE = 60;
+  private static final double AVERAGE_SPEED_KMH = 50.0;
+  private static final GeoPoint DEFAULT_CENTER = new GeoPoint(45.764, 4.8357);
+
+  private final WarmupConfig config;
+  private final DecisionDataSource liveDataSource;
+  private final BiFunction<DecisionDataSource, MetricsRegistry, DecisionEngine> engineFactory;
+  private final EventPayloadParser parser;
+  private final AssignmentMessageCodec codec;
+  private final Random random = new Random(42);
+  private final Logger log = LoggerProvider.getLogger(EngineWarmup.class);
+
+  public EngineWarmup(
+      WarmupConfig config,
+      DecisionDataSource liveDataSource,
+      BiFunction<DecisionDataSource, MetricsRegistry, DecisionEngine> engineFactory,
+      EventPayloadParser parser,
+      AssignmentMessageCodec codec) {
+    this.config = Objects.requireNonNull(config, "Warm-up config is required");
+    this.liveDataSource =
+        Objects.requireNonNull(liveDataSource, "Decision data source is required");
+    this.engineFactory =
+        Objects.requireNonNull(engineFactory, "Decision engine factory is required");
+    this.parser = Objects.requireNonNull(parser, "Event payload parser is required");
+    this.codec = Objects.requireNonNull(codec, "Assignment message codec is required");
+  }
+
+  /**
+   * Runs the warm-up stages on a daemon thread, then opens {@code readiness} even if warm-up fails.
+   */
+  public Thread start(ReadinessGate readiness) {
+    Objects.requireNonNull(readiness, "Readiness gate is required");
+    Thread thread =
+        new Thread(
+            () -> {
+              try {
+                run();
+              } catch (RuntimeException e) {
+                log.warn("Startup warm-up aborted", e);
+              } finally {
+                readiness.markReady();
+              }
+            },
+            "qg-warmup");
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  /** Runs the warm-up stages. Failures are logged and never prevent the engine from starting. */
+  public void run() {
+    if (!config.enabled()) {
+      log.info("Startup warm-up disabled");
+      return;
+    }
+    long startedAt = System.nanoTime();
+    long deadline = startedAt + config.maxDurationMs() * 1_000_000L;
+
+    List<QGVehicleRead> fleet = primeLiveDataSource();
+    int decisions = primeDecisionPath(fleet, deadline);
+
+    log.info(
+        "Startup warm-up completed in {} ms ({} vehicle(s) loaded, {} synthetic decision(s))",
+        (System.nanoTime() - startedAt) / 1_000_000,
+        fleet.size(),
+        decisions);
+  }
+
+  /** Fetching the fleet obtains a token and opens the pooled SDMIS connection on the way. */
+  private List<QGVehicleRead> primeLiveDataSource() {
+    long startedAt = System.nanoTime();
+    try {
+      List<QGVehicleRead> fleet = liveDataSource.listVehicles();
+      log.info(
+          "Warm-up loaded {} vehicle(s) from SDMIS in {} ms",
+          fleet.size(),
+          (System.nanoTime() - startedAt) / 1_000_000);
+      primeRouting(fleet);
+      return fleet;
+    } catch (IOException | RuntimeException e) {
+      log.warn("Warm-up could not load the fleet from SDMIS: {}", e.getMessage());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    return List.of();
+  }
+
+  private void primeRouting(List<QGVehicleRead> fleet) throws InterruptedException {
+    List<GeoPoint> positions = new ArrayList<>();
+    for (QGVehicleRead vehicle : fleet) {
+      GeoPoint position = positionOf(vehicle);
+      if (position != null) {
+        positions.add(position);
+      }
+      if (positions.size() == 2) {
+        break;
+      }
+    }
+    if (positions.size() < 2) {
+      return;
+    }
+    try {
+      liveDataSource.estimateTravel(positions.get(0), positions.get(1));
+    } catch (IOException | RuntimeException e) {
+      log.warn("Warm-up routing call failed: {}", e.getMessage());
+    }
+  }
+
+  private int primeDecisionPath(List<QGVehicleRead> fleet, long deadline) {
+    List<QGVehicleRead> vehicles = availableCopies(fleet);
+    if (vehicles.isEmpty()) {
+      vehicles = syntheticFleet();
+    }
+    List<UUID> requestedTypes = requestedTypes(vehicles);
+    GeoPoint center = centroid(vehicles);
+    DecisionEngine engine =
+        engineFactory.apply(new WarmupDataSource(vehicles, center), new MetricsRegistry());
+
+    CompilationMXBean compiler = ManagementFactory.getCompilationMXBean();
+    long lastCompileMs = compileTimeMs(compiler);
+    int settledBatches = 0;
+    int decisions = 0;
+    try (Span span = Tracer.global().startRoot("warm-up", null, null)) {
+      span.tag("warmup", true);
+      while (decisions < config.maxIterations() && System.nanoTime() < deadline) {
+        for (int i = 0; i < BATCH_SIZE && decisions < config.maxIterations(); i++) {
+          if (!runSyntheticDecision(engine, requestedTypes)) {
+            return decisions;
+          }
+          decisions++;
+        }
+        long compileMs = compileTimeMs(compiler);
+        if (compileMs < 0) {
+          continue;
+        }
+        settledBatches = compileMs - lastCompileMs <= SETTLED_COMPILE_MS ? settledBatches + 1 : 0;
+        lastCompileMs = compileMs;
+        if (settledBatches >= SETTLED_BATCHES) {
+          log.debug("JIT compilation settled after {} synthetic decision(s)", decisions);
+          break;
+        }
+      }
+    }
+    return decisions;
+  }
+
+  private boolean runSyntheticDecision(DecisionEngine engine, List<UUID> requestedTypes) {
+    UUID incidentId = UUID.randomUUID();
+    UUID phaseId = UUID.randomUUID();
+    StringBuilder needs = new StringBuilder();
+    for (UUID vehicleTypeId : requestedTypes) {
+      if (needs.length() > 0) {
+        needs.append(',');
+      }
+      needs.append(
+          "{\"incident_phase_id\":\"%s\",\"vehicle_type_id\":\"%s\",\"quantity\":%d}"
+              .formatted(phaseId, vehicleTypeId, 1 + random.nextInt(3)));
+    }
+    String payload =
+        "{\"event\":\"%s\",\"payload\":{\"incident_id\":\"%s\",\"vehicles_needed\":[%s]}}"
+            .formatted(Events.ASSIGNMENT_REQUEST.key(), incidentId, needs);
+    try {
+      AssignmentRequest request = codec.decodeRequest(parser.parse(payload));
+      DecisionResult result = engine.proposeAssignments(request);
+      codec.encodeProposal(incidentId, result);
+      return true;
+    } catch (JsonProcessingException | RuntimeException e) {
+      log.warn("Synthetic warm-up decision failed, stopping warm-up early: {}", e.getMessage());
+      return false;
+    }
+  }
+
+  private List<QGVehicleRead> availableCopies(List<QGVehicleRead> fleet) {
+    List<QGVehicleRead> available = new ArrayList<>();
+    for (QGVehicleRead vehicle : fleet) {
+      if (vehicle == null
+          || vehicle.vehicleId() == null
+          || vehicle.vehicleType() == null
+          || vehicle.vehicleType().vehicleTypeId() == null
+          || positionOf(vehicle) == null) {
+        continue;
+      }
+      available.add(
+          new QGVehicleRead(
+              vehicle.vehicleId(),
+              vehicle.immatriculation(),
+              vehicle.vehicleType(),
+              vehicle.energy(),
+              vehicle.energyLevel(),
+              vehicle.status(),
+              vehicle.baseInterestPoint(),
+              vehicle.currentPosition(),
+              vehicle.consumableStocks(),
+              false,
+              null));
+    }
+    return available;
+  }
+
+  private List<QGVehicleRead> syntheticFleet() {
+    List<QGVehicleTypeRef> types = new ArrayList<>();
+    for (int i = 0; i < MAX_REQUESTED_TYPES; i++) {
+      types.add(new QGVehicleTypeRef(UUID.randomUUID(), "WARMUP-" + i, "Warm-up type " + i));
+    }
+    List<QGVehicleRead> vehicles = new ArrayList<>();
+    for (int i = 0; i < SYNTHETIC_FLEET_SIZE; i++) {
+      double latitude = DEFAULT_CENTER.latitude() + (random.nextDouble() - 0.5) * 0.2;
+      double longitude = DEFAULT_CENTER.longitude() + (random.nextDouble() - 0.5) * 0.2;
+      QGBaseInterestPointRead base =
+          new QGBaseInterestPointRead(
+              UUID.randomUUID(), "Warm-up base", null, null, null, latitude, longitude);
+      QGVehiclePositionRead position =
+          i % 3 == 0 ? new QGVehiclePositionRead(latitude, longitude, null) : null;
+      vehicles.add(
+          new QGVehicleRead(
+              UUID.randomUUID(),
+              "WARMUP-" + i,
+              types.get(i % types.size()),
+              null,
+              random.nextDouble(),
+              null,
+              base,
+              position,
+              List.of(),
+              false,
+              null));
+    }
+    return vehicles;
+  }
+
+  private static List<UUID> requestedTypes(List<QGVehicleRead> vehicles) {
+    Set<UUID> types = new LinkedHashSet<>();
+    for (QGVehicleRead vehicle : vehicles) {
+      types.add(vehicle.vehicleType().vehicleTypeId());
+      if (types.size() >= MAX_REQUESTED_TYPES) {
+        break;
+      }
+    }
+    return List.copyOf(types);
+  }
+
+  private static GeoPoint centroid(List<QGVehicleRead> vehicles) {
+    double latitude = 0.0;
+    double longitude = 0.0;
+    for (QGVehicleRead vehicle : vehicles) {
+      GeoPoint position = positionOf(vehicle);
+      latitude += position.latitude();
+      longitude += position.longitude();
+    }
+    return new GeoPoint(latitude / vehicles.size(), longitude / vehicles.size());
+  }
+
+  private static GeoPoint positionOf(QGVehicleRead vehicle) {
+    if (vehicle == null) {
+      return null;
+    }
+    if (vehicle.currentPosition() != null
+        && vehicle.currentPosition().latitude() != null
+        && vehicle.currentPosition().longitude() != null) {
+      return new GeoPoint(
+          vehicle.currentPosition().latitude(), vehicle.currentPosition().longitude());
+    }
+    if (vehicle.baseInterestPoint() != null
+        && vehicle.baseInterestPoint().latitude() != null
+        && vehicle.baseInterestPoint().longitude() != null) {
+      return new GeoPoint(
+          vehicle.baseInterestPoint().latitude(), vehicle.baseInterestPoint().longitude());
+    }
+    return null;
+  }
+
+  private static long compileTimeMs(CompilationMXBean compiler) {
+    if (compiler == null || !compiler.isCompilationTimeMonitoringSupported()) {
+      return -1;
+    }
+    return compiler.getTotalCompilationTime();
+  }
+
+  /** In-memory data source answering synthetic decisions from the warm-up fleet snapshot. */
+  private static final class WarmupDataSource implements DecisionDataSource {
+
+    private final List<QGVehicleRead> vehicles;
+    private final GeoPoint center;
+
+    private WarmupDataSource(List<QGVehicleRead> vehicles, GeoPoint center) {
+      this.vehicles = List.copyOf(vehicles);
+      this.center = center;
+    }
+
+    @Override
+    public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+      return new QGIncidentSituationRead(
+          new QGIncidentSnapshot(
+              incidentId, center.latitude(), center.longitude(), null, null, null, null),
+          List.of());
+    }
+
+    @Override
+    public List<QGVehicleRead> listVehicles() {
+      return vehicles;
+    }
+
+    @Override
+    public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+      double distanceKm = GeoDistance.haversineKm(from, to);
+      RouteGeometry geometry =
+          new RouteGeometry(
+              "LineString",
+              List.of(
+                  List.of(from.longitude(), from.latitude()),
+                  List.of(to.longitude(), to.latitude())));
+      return new TravelEstimate(distanceKm, distanceKm / AVERAGE_SPEED_KMH * 60.0, geometry);
+    }
+  }
+}
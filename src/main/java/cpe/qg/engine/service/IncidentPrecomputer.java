@@ -0,0 +1,125 @@
+package cpe.qg.engine.service;
+
+import cpe.qg.engine.config.PrecomputeConfig;
+import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.LatencyHistogram;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.time.Instant;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Runs speculative candidate precomputations off the consumer path, on a single thread fed by a
+ * bounded queue. An incident already waiting is not queued twice, and incidents arriving while the
+ * queue is full are dropped: precomputation only ever saves time, so it never pushes back on
+ * message handling.
+ */
+public final class IncidentPrecomputer implements AutoCloseable {
+
+  private final DecisionEngine decisionEngine;
+  private final PrecomputeConfig config;
+  private final ThreadPoolExecutor executor;
+  private final Set<UUID> queued = ConcurrentHashMap.newKeySet();
+  private final Logger log = LoggerProvider.getLogger(IncidentPrecomputer.class);
+  private final LatencyHistogram latency =
+      MetricsRegistry.global()
+          .histogram("qg_precompute_seconds", "Duration of speculative candidate precomputations");
+  private final Counter completed = outcomeCounter("completed");
+  private final Counter coalesced = outcomeCounter("coalesced");
+  private final Counter dropped = outcomeCounter("dropped");
+  private final Counter failed = outcomeCounter("failed");
+
+  public IncidentPrecomputer(DecisionEngine decisionEngine, PrecomputeConfig config) {
+    this.decisionEngine = Objects.requireNonNull(decisionEngine, "Decision engine is required");
+    this.config = Objects.requireNonNull(config, "Precompute config is required");
+    if (!config.enabled()) {
+      this.executor = null;
+      return;
+    }
+    this.executor =
+        new ThreadPoolExecutor(
+            1,
+            1,
+            0L,
+            TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(config.queueCapacity()),
+            runnable -> {
+              Thread thread = new Thread(runnable, "qg-precompute");
+              thread.setDaemon(true);
+              return thread;
+            });
+    MetricsRegistry.global()
+        .gauge(
+            "qg_precompute_queued_incidents",
+            "Incidents waiting for speculative precomputation",
+            () -> executor.getQueue().size());
+  }
+
+  public PrecomputeConfig config() {
+    return config;
+  }
+
+  /** Queues a precomputation for the incident; does nothing when disabled. */
+  public void submit(UUID incidentId) {
+    Objects.requireNonNull(incidentId, "Incident id is required");
+    if (executor == null) {
+      return;
+    }
+    if (!queued.add(incidentId)) {
+      coalesced.increment();
+      return;
+    }
+    try {
+      executor.execute(() -> run(incidentId));
+    } catch (RejectedExecutionException e) {
+      queued.remove(incidentId);
+      dropped.increment();
+      log.debug("Precomputation queue full, dropping incident {}", incidentId);
+    }
+  }
+
+  private void run(UUID incidentId) {
+    queued.remove(incidentId);
+    long startedAt = System.nanoTime();
+    try {
+      int routes =
+          decisionEngine.precompute(
+              incidentId, config.vehicleTypes(), Instant.now().plusMillis(config.timeoutMs()));
+      latency.recordSince(startedAt);
+      completed.increment();
+      log.info(
+          "Precomputed {} route(s) for incident {} in {} ms",
+          routes,
+          incidentId,
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    } catch (RuntimeException e) {
+      failed.increment();
+      log.warn("Precomputation failed for incident {}: {}", incidentId, e.getMessage());
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdownNow();
+    }
+  }
+
+  private static Counter outcomeCounter(String outcome) {
+    return MetricsRegistry.global()
+        .counter(
+            "qg_precompute_total",
+            "Speculative precomputation requests, by outcome",
+            "outcome",
+            outcome);
+  }
+}
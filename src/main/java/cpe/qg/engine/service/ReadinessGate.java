@@ -0,0 +1,28 @@
+package cpe.qg.engine.service;
+
+import java.util.concurrent.CountDownLatch;
+
+/** One-shot readiness flag that holds message consumption until the engine is warmed up. */
+public final class ReadinessGate {
+
+  private final CountDownLatch ready = new CountDownLatch(1);
+
+  /** Returns a gate that is already open, for callers that do not warm up. */
+  public static ReadinessGate opened() {
+    ReadinessGate gate = new ReadinessGate();
+    gate.markReady();
+    return gate;
+  }
+
+  public void markReady() {
+    ready.countDown();
+  }
+
+  public boolean isReady() {
+    return ready.getCount() == 0;
+  }
+
+  public void awaitReady() throws InterruptedException {
+    ready.await();
+  }
+}
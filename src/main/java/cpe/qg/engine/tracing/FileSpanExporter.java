@@ -0,0 +1,103 @@
+package cpe.qg.engine.tracing;
+
+import cpe.qg.engine.logging.LoggerProvider;
+import cpe.qg.engine.metrics.Counter;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+
+/**
+ * Appends spans as Zipkin v2 JSON lines to a file from a background thread. Spans are handed over
+ * through a bounded queue and dropped, not waited for, when the writer falls behind.
+ */
+public final class FileSpanExporter implements SpanExporter {
+
+  private static final int QUEUE_CAPACITY = 8192;
+  private static final int BATCH_SIZE = 256;
+
+  private final ZipkinJsonEncoder encoder;
+  private final BufferedWriter writer;
+  private final BlockingQueue<SpanData> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+  private final Thread worker;
+  private final Counter dropped =
+      MetricsRegistry.global()
+          .counter("qg_tracing_spans_dropped_total", "Spans dropped because the exporter lagged");
+  private final Logger log = LoggerProvider.getLogger(FileSpanExporter.class);
+  private volatile boolean running = true;
+
+  public FileSpanExporter(Path file, String serviceName) {
+    Objects.requireNonNull(file, "Span file is required");
+    this.encoder = new ZipkinJsonEncoder(serviceName);
+    try {
+      Path parent = file.toAbsolutePath().getParent();
+      if (parent != null) {
+        Files.createDirectories(parent);
+      }
+      this.writer =
+          Files.newBufferedWriter(
+              file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    } catch (IOException e) {
+      throw new IllegalStateException("Unable to open span file " + file, e);
+    }
+    this.worker = new Thread(this::drain, "qg-span-exporter");
+    this.worker.setDaemon(true);
+    this.worker.start();
+    log.info("Exporting spans to {}", file.toAbsolutePath());
+  }
+
+  @Override
+  public void export(SpanData span) {
+    if (!queue.offer(span)) {
+      dropped.increment();
+    }
+  }
+
+  private void drain() {
+    List<SpanData> batch = new ArrayList<>(BATCH_SIZE);
+    while (running || !queue.isEmpty()) {
+      try {
+        SpanData first = queue.poll(200, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, BATCH_SIZE - 1);
+        for (SpanData span : batch) {
+          writer.write(encoder.encode(span));
+          writer.newLine();
+        }
+        writer.flush();
+      } catch (InterruptedException e) {
+        running = false;
+      } catch (IOException | RuntimeException e) {
+        log.warn("Failed to write {} span(s)", batch.size(), e);
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    running = false;
+    try {
+      worker.join(TimeUnit.SECONDS.toMillis(2));
+      writer.close();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (IOException e) {
+      log.warn("Failed to close span file", e);
+    }
+  }
+}
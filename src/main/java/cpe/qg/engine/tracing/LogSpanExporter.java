@@ -0,0 +1,22 @@
+package cpe.qg.engine.tracing;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** Writes each span as a Zipkin v2 JSON line to the {@code qg.spans} logger. */
+public final class LogSpanExporter implements SpanExporter {
+
+  private final Logger spans = LoggerFactory.getLogger("qg.spans");
+  private final ZipkinJsonEncoder encoder;
+
+  public LogSpanExporter(String serviceName) {
+    this.encoder = new ZipkinJsonEncoder(serviceName);
+  }
+
+  @Override
+  public void export(SpanData span) {
+    if (spans.isInfoEnabled()) {
+      spans.info(encoder.encode(span));
+    }
+  }
+}
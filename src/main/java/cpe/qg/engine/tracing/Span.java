@@ -0,0 +1,78 @@
+package cpe.qg.engine.tracing;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Timed unit of work. Opening a span makes it the current context of the thread until it is closed,
+ * so nested spans and outgoing calls pick it up as their parent.
+ */
+public final class Span implements AutoCloseable {
+
+  private final Tracer tracer;
+  private final TraceContext context;
+  private final String parentId;
+  private final String name;
+  private final String kind;
+  private final TraceContext previous;
+  private final long startEpochMicros;
+  private final long startNanos;
+  private Map<String, String> tags;
+  private boolean closed;
+
+  Span(
+      Tracer tracer,
+      TraceContext context,
+      String parentId,
+      String name,
+      String kind,
+      TraceContext previous) {
+    this.tracer = tracer;
+    this.context = context;
+    this.parentId = parentId;
+    this.name = name;
+    this.kind = kind;
+    this.previous = previous;
+    this.startEpochMicros = Tracer.epochMicros();
+    this.startNanos = System.nanoTime();
+  }
+
+  public TraceContext context() {
+    return context;
+  }
+
+  public Span tag(String key, Object value) {
+    if (value != null) {
+      if (tags == null) {
+        tags = new LinkedHashMap<>();
+      }
+      tags.put(key, String.valueOf(value));
+    }
+    return this;
+  }
+
+  public Span error(Throwable error) {
+    return tag("error", error.getClass().getSimpleName() + ": " + error.getMessage());
+  }
+
+  @Override
+  public void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    long durationMicros = Math.max(1L, (System.nanoTime() - startNanos) / 1_000L);
+    tracer.finish(
+        this,
+        previous,
+        new SpanData(
+            context.traceId(),
+            context.spanId(),
+            parentId,
+            name,
+            kind,
+            startEpochMicros,
+            durationMicros,
+            tags == null ? Map.of() : tags));
+  }
+}
@@ -0,0 +1,20 @@
+package cpe.qg.engine.tracing;
+
+import java.util.Map;
+
+/**
+ * Finished span, shaped after the Zipkin v2 model.
+ *
+ * @param parentId {@code null} for the root span of a trace
+ * @param kind {@code CONSUMER}, {@code PRODUCER}, {@code CLIENT} or {@code null} for local work
+ * @param timestampMicros start time, in microseconds since the epoch
+ */
+public record SpanData(
+    String traceId,
+    String id,
+    String parentId,
+    String name,
+    String kind,
+    long timestampMicros,
+    long durationMicros,
+    Map<String, String> tags) {}
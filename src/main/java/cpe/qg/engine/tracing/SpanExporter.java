@@ -0,0 +1,12 @@
+package cpe.qg.engine.tracing;
+
+/** Sink for finished spans. Implementations must not block the calling thread. */
+public interface SpanExporter extends AutoCloseable {
+
+  SpanExporter NONE = span -> {};
+
+  void export(SpanData span);
+
+  @Override
+  default void close() {}
+}
@@ -0,0 +1,84 @@
+package cpe.qg.engine.tracing;
+
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Identifiers of one span within a trace, propagated as a W3C {@code traceparent} header ({@code
+ * 00-<32 hex trace id>-<16 hex span id>-<2 hex flags>}).
+ */
+public record TraceContext(String traceId, String spanId) {
+
+  public static final String TRACEPARENT = "traceparent";
+
+  private static final String ZERO_TRACE_ID = "0".repeat(32);
+  private static final String ZERO_SPAN_ID = "0".repeat(16);
+
+  public TraceContext {
+    if (!isHex(traceId, 32) || ZERO_TRACE_ID.equals(traceId)) {
+      throw new IllegalArgumentException("traceId must be 32 lowercase hex characters");
+    }
+    if (!isHex(spanId, 16) || ZERO_SPAN_ID.equals(spanId)) {
+      throw new IllegalArgumentException("spanId must be 16 lowercase hex characters");
+    }
+  }
+
+  /** Starts a new trace. */
+  public static TraceContext newRoot() {
+    return new TraceContext(randomHex(2), randomHex(1));
+  }
+
+  /**
+   * @return the parsed context, or {@code null} when the header is missing or malformed
+   */
+  public static TraceContext fromTraceparent(String header) {
+    if (header == null) {
+      return null;
+    }
+    String[] parts = header.trim().toLowerCase(Locale.ROOT).split("-");
+    if (parts.length < 4 || !isHex(parts[0], 2) || "ff".equals(parts[0])) {
+      return null;
+    }
+    try {
+      return new TraceContext(parts[1], parts[2]);
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /** A new span in the same trace. */
+  public TraceContext child() {
+    return new TraceContext(traceId, randomHex(1));
+  }
+
+  public String traceparent() {
+    return "00-" + traceId + "-" + spanId + "-01";
+  }
+
+  private static String randomHex(int longs) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    StringBuilder hex = new StringBuilder(longs * 16);
+    for (int i = 0; i < longs; i++) {
+      long value;
+      do {
+        value = random.nextLong();
+      } while (value == 0);
+      String part = Long.toHexString(value);
+      hex.append("0".repeat(16 - part.length())).append(part);
+    }
+    return hex.toString();
+  }
+
+  private static boolean isHex(String value, int length) {
+    if (value == null || value.length() != length) {
+      return false;
+    }
+    for (int i = 0; i < length; i++) {
+      char c = value.charAt(i);
+      if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,104 @@
+package cpe.qg.engine.tracing;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Objects;
+import org.slf4j.MDC;
+
+/**
+ * Process-wide tracer. The current {@link TraceContext} is kept per thread and mirrored into the
+ * logging MDC under {@code trace_id}, so every log line of a message carries its correlation id.
+ */
+public final class Tracer {
+
+  public static final String MDC_TRACE_ID = "trace_id";
+
+  private static final Tracer GLOBAL = new Tracer();
+
+  private final ThreadLocal<TraceContext> current = new ThreadLocal<>();
+  private volatile SpanExporter exporter = SpanExporter.NONE;
+
+  public static Tracer global() {
+    return GLOBAL;
+  }
+
+  public void setExporter(SpanExporter exporter) {
+    this.exporter = Objects.requireNonNull(exporter, "Span exporter is required");
+  }
+
+  /**
+   * @return the context of the innermost open span on this thread, or {@code null}
+   */
+  public TraceContext current() {
+    return current.get();
+  }
+
+  /**
+   * Opens a span continuing {@code remoteParent}, or starting a new trace when it is {@code null}.
+   */
+  public Span startRoot(String name, String kind, TraceContext remoteParent) {
+    TraceContext context = remoteParent == null ? TraceContext.newRoot() : remoteParent.child();
+    String parentId = remoteParent == null ? null : remoteParent.spanId();
+    return open(context, parentId, name, kind);
+  }
+
+  /** Opens a span under the current one, starting a new trace if there is none. */
+  public Span startSpan(String name) {
+    return startSpan(name, null);
+  }
+
+  public Span startSpan(String name, String kind) {
+    TraceContext parent = current.get();
+    if (parent == null) {
+      return open(TraceContext.newRoot(), null, name, kind);
+    }
+    return open(parent.child(), parent.spanId(), name, kind);
+  }
+
+  /**
+   * Opens a span under the current one without making it current, for work that completes on
+   * another thread. The caller closes it from wherever the work ends.
+   */
+  public Span startDetached(String name, String kind) {
+    TraceContext parent = current.get();
+    if (parent == null) {
+      return new Span(this, TraceContext.newRoot(), null, name, kind, null);
+    }
+    return new Span(this, parent.child(), parent.spanId(), name, kind, null);
+  }
+
+  /** Headers to attach to an outgoing message or request, empty outside of any span. */
+  public Map<String, String> propagationHeaders() {
+    TraceContext context = current.get();
+    return context == null ? Map.of() : Map.of(TraceContext.TRACEPARENT, context.traceparent());
+  }
+
+  private Span open(TraceContext context, String parentId, String name, String kind) {
+    TraceContext previous = current.get();
+    Span span = new Span(this, context, parentId, name, kind, previous);
+    activate(context);
+    return span;
+  }
+
+  void finish(Span span, TraceContext previous, SpanData data) {
+    if (current.get() == span.context()) {
+      activate(previous);
+    }
+    exporter.export(data);
+  }
+
+  private void activate(TraceContext context) {
+    if (context == null) {
+      current.remove();
+      MDC.remove(MDC_TRACE_ID);
+    } else {
+      current.set(context);
+      MDC.put(MDC_TRACE_ID, context.traceId());
+    }
+  }
+
+  static long epochMicros() {
+    Instant now = Instant.now();
+    return now.getEpochSecond() * 1_000_000L + now.getNano() / 1_000L;
+  }
+}
@@ -0,0 +1,41 @@
+package cpe.qg.engine.tracing;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/** Encodes spans as single-line Zipkin v2 JSON objects. */
+final class ZipkinJsonEncoder {
+
+  private final ObjectMapper mapper = new ObjectMapper();
+  private final Map<String, String> localEndpoint;
+
+  ZipkinJsonEncoder(String serviceName) {
+    this.localEndpoint = Map.of("serviceName", serviceName);
+  }
+
+  String encode(SpanData span) {
+    Map<String, Object> json = new LinkedHashMap<>();
+    json.put("traceId", span.traceId());
+    json.put("id", span.id());
+    if (span.parentId() != null) {
+      json.put("parentId", span.parentId());
+    }
+    json.put("name", span.name());
+    if (span.kind() != null) {
+      json.put("kind", span.kind());
+    }
+    json.put("timestamp", span.timestampMicros());
+    json.put("duration", span.durationMicros());
+    json.put("localEndpoint", localEndpoint);
+    if (!span.tags().isEmpty()) {
+      json.put("tags", span.tags());
+    }
+    try {
+      return mapper.writeValueAsString(json);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Failed to encode span " + span.name(), e);
+    }
+  }
+}
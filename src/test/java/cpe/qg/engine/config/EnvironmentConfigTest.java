@@ -3,7 +3,11 @@ package cpe.qg.engine.config;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
+import cpe.qg.engine.decision.model.ConsumableRequirement;
+import cpe.qg.engine.messaging.WireFormat;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import org.junit.jupiter.api.Test;
 
 class EnvironmentConfigTest {
@@ -29,6 +33,13 @@ class EnvironmentConfigTest {
     assertThat(config.postgres().username()).isEqualTo("app");
     assertThat(config.postgres().password()).isEqualTo("secret");
     assertThat(config.postgres().maxPoolSize()).isEqualTo(10);
+    assertThat(config.metrics().adminEnabled()).isFalse();
+    assertThat(config.deduplication().enabled()).isFalse();
+    assertThat(config.scheduler().enabled()).isFalse();
+    assertThat(config.reservation().enabled()).isFalse();
+    assertThat(config.decisionContext().enabled()).isFalse();
+    assertThat(config.precompute().enabled()).isFalse();
+    assertThat(config.concurrencyLimit().enabled()).isFalse();
   }
 
   @Test
@@ -59,4 +70,80 @@ class EnvironmentConfigTest {
         .isInstanceOf(IllegalStateException.class)
         .hasMessageContaining("POSTGRES_POOL_SIZE");
   }
+
+  @Test
+  void parsesMinimumConsumables() {
+    String foam = "5c1f0c3e-4a4b-4f57-9d7a-1f2e3d4c5b6a";
+    String fpt = "0b8e2d4a-6c1f-4e3b-8a9d-7f6e5d4c3b2a";
+    Map<String, String> overrides =
+        Map.of(
+            "RABBITMQ_URI", "amqp://localhost",
+            "POSTGRES_URL", "jdbc:postgresql://localhost:5432/qg",
+            "KEYCLOAK_CLIENT_ID", "sdmis-engine",
+            "KEYCLOAK_CLIENT_SECRET", "secret",
+            "DECISION_MIN_CONSUMABLES", foam + ":200, " + fpt + "/" + foam + ":500.5");
+
+    EnvironmentConfig config = EnvironmentConfig.from(overrides);
+
+    assertThat(config.decisionCriteria().minConsumables())
+        .containsExactly(
+            new ConsumableRequirement(null, UUID.fromString(foam), 200.0),
+            new ConsumableRequirement(UUID.fromString(fpt), UUID.fromString(foam), 500.5));
+    assertThatThrownBy(
+            () ->
+                EnvironmentConfig.from(
+                    Map.of(
+                        "RABBITMQ_URI", "amqp://localhost",
+                        "POSTGRES_URL", "jdbc:postgresql://localhost:5432/qg",
+                        "KEYCLOAK_CLIENT_ID", "sdmis-engine",
+                        "KEYCLOAK_CLIENT_SECRET", "secret",
+                        "DECISION_MIN_CONSUMABLES", foam + "=200")))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("DECISION_MIN_CONSUMABLES");
+  }
+
+  @Test
+  void precomputationFollowsAndRequiresTheDecisionContext() {
+    Map<String, String> overrides =
+        new HashMap<>(
+            Map.of(
+                "RABBITMQ_URI", "amqp://localhost",
+                "POSTGRES_URL", "jdbc:postgresql://localhost:5432/qg",
+                "KEYCLOAK_CLIENT_ID", "sdmis-engine",
+                "KEYCLOAK_CLIENT_SECRET", "secret",
+                "DECISION_CONTEXT_ENABLED", "false",
+                "PRECOMPUTE_ENABLED", ""));
+
+    assertThat(EnvironmentConfig.from(overrides).precompute().enabled()).isFalse();
+    overrides.put("PRECOMPUTE_ENABLED", "true");
+    assertThatThrownBy(() -> EnvironmentConfig.from(overrides))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("DECISION_CONTEXT_ENABLED");
+    overrides.put("DECISION_CONTEXT_ENABLED", "true");
+    assertThat(EnvironmentConfig.from(overrides).precompute().enabled()).isTrue();
+  }
+
+  @Test
+  void parsesWireFormatsPerQueue() {
+    Map<String, String> base =
+        Map.of(
+            "RABBITMQ_URI", "amqp://localhost",
+            "POSTGRES_URL", "jdbc:postgresql://localhost:5432/qg",
+            "KEYCLOAK_CLIENT_ID", "sdmis-engine",
+            "KEYCLOAK_CLIENT_SECRET", "secret");
+    Map<String, String> overrides = new HashMap<>(base);
+    overrides.put("WIRE_FORMATS", "sdmis_api:cbor, audit:Smile");
+
+    WireFormatConfig config = EnvironmentConfig.from(overrides).wireFormats();
+
+    assertThat(config.format("sdmis_api")).isEqualTo(WireFormat.CBOR);
+    assertThat(config.format("audit")).isEqualTo(WireFormat.SMILE);
+    assertThat(config.format("sdmis_engine")).isEqualTo(WireFormat.JSON);
+    assertThat(EnvironmentConfig.from(base).wireFormats().format("sdmis_api"))
+        .isEqualTo(WireFormat.JSON);
+    overrides.put("WIRE_FORMATS", "sdmis_api:xml");
+    assertThatThrownBy(() -> EnvironmentConfig.from(overrides))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("WIRE_FORMATS");
+  }
 }
@@ -0,0 +1,101 @@
+package cpe.qg.engine.decision.api;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.model.ReservationConfig;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class ReservationLedgerTest {
+
+  private static final UUID INCIDENT = UUID.randomUUID();
+  private static final UUID OTHER_INCIDENT = UUID.randomUUID();
+  private static final UUID VEHICLE = UUID.randomUUID();
+  private static final UUID SPARE = UUID.randomUUID();
+
+  @Test
+  void reservesForOtherIncidentsUntilReleased() {
+    ReservationLedger ledger = new ReservationLedger(new ReservationConfig(true, 60_000L));
+    UUID proposal = UUID.randomUUID();
+
+    ledger.reserve(proposal, INCIDENT, List.of(VEHICLE));
+
+    assertThat(ledger.reservedForOther(VEHICLE, OTHER_INCIDENT)).isTrue();
+    assertThat(ledger.reservedForOther(VEHICLE, INCIDENT)).isFalse();
+    assertThat(ledger.reservedForOther(SPARE, OTHER_INCIDENT)).isFalse();
+    assertThat(ledger.release(proposal)).isEqualTo(1);
+    assertThat(ledger.reservedForOther(VEHICLE, OTHER_INCIDENT)).isFalse();
+  }
+
+  @Test
+  void refusesVehiclesHeldForAnotherIncident() {
+    ReservationLedger ledger = new ReservationLedger(new ReservationConfig(true, 60_000L));
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    assertThat(ledger.reserve(first, INCIDENT, List.of(VEHICLE))).isEmpty();
+
+    assertThat(ledger.reserve(second, OTHER_INCIDENT, List.of(SPARE, VEHICLE)))
+        .containsExactly(VEHICLE);
+    assertThat(ledger.reservedForOther(VEHICLE, INCIDENT)).isFalse();
+    assertThat(ledger.reserved(SPARE)).isFalse();
+    assertThat(ledger.holds(first)).isTrue();
+    assertThat(ledger.holds(second)).isFalse();
+  }
+
+  @Test
+  void laterProposalForTheSameIncidentTakesOverAndReservationsExpire() throws InterruptedException {
+    ReservationLedger ledger = new ReservationLedger(new ReservationConfig(true, 20L));
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    ledger.reserve(first, INCIDENT, List.of(VEHICLE, SPARE));
+    ledger.reserve(second, INCIDENT, List.of(VEHICLE));
+
+    assertThat(ledger.release(first)).isEqualTo(1);
+    assertThat(ledger.reservedForOther(VEHICLE, OTHER_INCIDENT)).isTrue();
+    Thread.sleep(40);
+    assertThat(ledger.reservedForOther(VEHICLE, OTHER_INCIDENT)).isFalse();
+    assertThat(ledger.reserve(UUID.randomUUID(), OTHER_INCIDENT, List.of(VEHICLE))).isEmpty();
+  }
+
+  @Test
+  void concurrentDecisionsGetEachVehicleOnce() throws Exception {
+    ReservationLedger ledger = new ReservationLedger(new ReservationConfig(true, 60_000L));
+    int decisions = 8;
+    CountDownLatch start = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(decisions);
+    try {
+      List<Future<Set<UUID>>> refused = new ArrayList<>();
+      for (int i = 0; i < decisions; i++) {
+        refused.add(
+            executor.submit(
+                () -> {
+                  start.await();
+                  return ledger.reserve(
+                      UUID.randomUUID(), UUID.randomUUID(), List.of(SPARE, VEHICLE));
+                }));
+      }
+      start.countDown();
+
+      int granted = 0;
+      for (Future<Set<UUID>> outcome : refused) {
+        if (outcome.get(5, TimeUnit.SECONDS).isEmpty()) {
+          granted++;
+        }
+      }
+      assertThat(granted).isEqualTo(1);
+      assertThat(ledger.size()).isEqualTo(2);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BatchKernelTest {
+
+  private static final int SIZE = 1003;
+  private static final double LYON_LAT = 45.764;
+  private static final double LYON_LON = 4.8357;
+
+  @Test
+  void scalarKernelMatchesPerVehicleScoring() {
+    CandidateBatch batch = randomBatch(new Random(7));
+    DistanceEnergyScoringStrategy strategy =
+        new DistanceEnergyScoringStrategy(new ScalarBatchKernel());
+
+    strategy.scoreAll(batch);
+
+    for (int i = 0; i < batch.size(); i++) {
+      double expected =
+          strategy
+              .score(
+                  batch.vehicle(i),
+                  CandidateBatch.boxed(batch.distancesKm()[i]),
+                  CandidateBatch.boxed(batch.etaMinutes()[i]))
+              .score();
+      assertThat(batch.scores()[i]).isEqualTo(expected);
+    }
+  }
+
+  @Test
+  void scalarHaversineMatchesGeoDistance() {
+    CandidateBatch batch = randomBatch(new Random(11));
+    double[] out = new double[batch.size()];
+
+    new ScalarBatchKernel()
+        .haversineKm(LYON_LAT, LYON_LON, batch.latitudes(), batch.longitudes(), out, batch.size());
+
+    for (int i = 0; i < batch.size(); i++) {
+      assertThat(out[i])
+          .isEqualTo(
+              GeoDistance.haversineKm(
+                  LYON_LAT, LYON_LON, batch.latitudes()[i], batch.longitudes()[i]));
+    }
+  }
+
+  @Test
+  void vectorKernelAgreesWithScalarKernel() {
+    CandidateBatch batch = randomBatch(new Random(13));
+    int size = batch.size();
+    BatchKernel scalar = new ScalarBatchKernel();
+    BatchKernel vector = new VectorBatchKernel();
+    double[] expected = new double[size];
+    double[] actual = new double[size];
+
+    scalar.haversineKm(LYON_LAT, LYON_LON, batch.latitudes(), batch.longitudes(), expected, size);
+    vector.haversineKm(LYON_LAT, LYON_LON, batch.latitudes(), batch.longitudes(), actual, size);
+    for (int i = 0; i < size; i++) {
+      assertThat(actual[i]).isCloseTo(expected[i], within(1e-9));
+    }
+
+    scalar.distanceEnergyScores(
+        batch.distancesKm(), batch.etaMinutes(), batch.energyLevels(), expected, size);
+    vector.distanceEnergyScores(
+        batch.distancesKm(), batch.etaMinutes(), batch.energyLevels(), actual, size);
+    for (int i = 0; i < size; i++) {
+      assertThat(actual[i]).isCloseTo(expected[i], within(1e-12));
+    }
+  }
+
+  /** Candidates around Lyon, with some missing distances, times and energy levels. */
+  private static CandidateBatch randomBatch(Random random) {
+    CandidateBatch batch = new CandidateBatch(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      Double energy = i % 17 == 0 ? null : random.nextDouble() * 1.2 - 0.1;
+      QGVehicleRead vehicle =
+          new QGVehicleRead(null, null, null, null, energy, null, null, null, null, null, null);
+      int index =
+          batch.add(
+              vehicle,
+              LYON_LAT + random.nextGaussian() * 0.2,
+              LYON_LON + random.nextGaussian() * 0.2);
+      batch.distancesKm()[index] = i % 5 == 0 ? Double.NaN : random.nextDouble() * 30.0;
+      batch.etaMinutes()[index] = i % 7 == 0 ? Double.NaN : random.nextDouble() * 45.0;
+    }
+    return batch;
+  }
+}
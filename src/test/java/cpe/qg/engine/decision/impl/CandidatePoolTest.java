@@ -0,0 +1,124 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.api.CandidateBatch;
+import cpe.qg.engine.decision.impl.VehicleAssignmentDecisionEngine.VehicleCandidate;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class CandidatePoolTest {
+
+  private static final UUID VSAV = UUID.randomUUID();
+  private static final UUID FPT = UUID.randomUUID();
+  private static final int SIZE = 500;
+
+  private final CandidateBatch batch = new CandidateBatch(SIZE);
+  private final int[] rowTypes = new int[SIZE];
+  private final Map<UUID, Integer> typeIndexes = CandidatePool.intern(Set.of(VSAV, FPT));
+
+  @Test
+  void selectsTheBestAvailableCandidatesInFullSortOrder() {
+    CandidatePool pool = randomPool(new Random(3));
+    List<VehicleCandidate> expected = sorted(VSAV);
+
+    List<VehicleCandidate> first = new ArrayList<>();
+    List<VehicleCandidate> second = new ArrayList<>();
+    int firstCount = pool.select(VSAV, 7, first);
+    int secondCount = pool.select(VSAV, 5, second);
+
+    assertThat(firstCount).isEqualTo(7);
+    assertThat(secondCount).isEqualTo(5);
+    assertThat(vehicles(first)).containsExactlyElementsOf(vehicles(expected.subList(0, 7)));
+    assertThat(vehicles(second)).containsExactlyElementsOf(vehicles(expected.subList(7, 12)));
+  }
+
+  @Test
+  void skipsAllocatedVehiclesAndStopsWhenTheTypeRunsOut() {
+    CandidatePool pool = randomPool(new Random(5));
+    List<VehicleCandidate> expected = sorted(FPT);
+    UUID kept = expected.get(0).vehicle().vehicleId();
+    pool.allocate(List.of(kept));
+
+    List<VehicleCandidate> selected = new ArrayList<>();
+    int count = pool.select(FPT, SIZE, selected);
+
+    assertThat(count).isEqualTo(pool.size(FPT) - 1);
+    assertThat(vehicles(selected))
+        .containsExactlyElementsOf(vehicles(expected.subList(1, count + 1)));
+    assertThat(pool.availableScores(FPT)).isEmpty();
+    assertThat(pool.select(FPT, 1, selected)).isZero();
+  }
+
+  @Test
+  void availableScoresAreBestFirst() {
+    CandidatePool pool = randomPool(new Random(9));
+    pool.select(VSAV, 3, new ArrayList<>());
+
+    double[] scores = pool.availableScores(VSAV);
+
+    assertThat(scores)
+        .containsExactly(
+            sorted(VSAV).stream().skip(3).mapToDouble(VehicleCandidate::score).toArray());
+  }
+
+  /** Pool with coarse scores so that ties fall through to time, distance and batch order. */
+  private CandidatePool randomPool(Random random) {
+    BitSet approximate = new BitSet();
+    for (int i = 0; i < SIZE; i++) {
+      int row = batch.add(vehicle(), 45.7, 4.8);
+      batch.distancesKm()[row] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(5);
+      batch.etaMinutes()[row] = random.nextInt(10) == 0 ? Double.NaN : random.nextInt(5);
+      batch.scores()[row] = random.nextInt(20) / 20.0;
+      rowTypes[row] = random.nextInt(4) == 0 ? -1 : random.nextInt(2);
+    }
+    return new CandidatePool(batch, typeIndexes, rowTypes, null, approximate);
+  }
+
+  /** Candidates of the type ranked the way the engine ranked them before the pool existed. */
+  private List<VehicleCandidate> sorted(UUID vehicleTypeId) {
+    int type = typeIndexes.get(vehicleTypeId);
+    return IntStream.range(0, SIZE)
+        .filter(row -> rowTypes[row] == type)
+        .mapToObj(
+            row ->
+                new VehicleCandidate(
+                    batch.vehicle(row),
+                    null,
+                    CandidateBatch.boxed(batch.distancesKm()[row]),
+                    CandidateBatch.boxed(batch.etaMinutes()[row]),
+                    null,
+                    batch.scores()[row],
+                    false))
+        .sorted(
+            Comparator.comparingDouble(VehicleCandidate::score)
+                .reversed()
+                .thenComparing(
+                    candidate ->
+                        candidate.estimatedTimeMin() == null
+                            ? Double.MAX_VALUE
+                            : candidate.estimatedTimeMin())
+                .thenComparing(
+                    candidate ->
+                        candidate.distanceKm() == null ? Double.MAX_VALUE : candidate.distanceKm()))
+        .toList();
+  }
+
+  private static List<UUID> vehicles(List<VehicleCandidate> candidates) {
+    return candidates.stream().map(candidate -> candidate.vehicle().vehicleId()).toList();
+  }
+
+  private static QGVehicleRead vehicle() {
+    return new QGVehicleRead(
+        UUID.randomUUID(), null, null, null, 1.0, null, null, null, null, false, null);
+  }
+}
@@ -0,0 +1,93 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.model.ConsumableRequirement;
+import cpe.qg.engine.sdmis.dto.QGConsumableTypeRef;
+import cpe.qg.engine.sdmis.dto.QGVehicleConsumableStockRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+class ConsumableStockIndexTest {
+
+  private static final UUID FOAM = UUID.randomUUID();
+  private static final UUID WATER = UUID.randomUUID();
+  private static final UUID FPT = UUID.randomUUID();
+  private static final UUID VSAV = UUID.randomUUID();
+
+  private final List<QGVehicleRead> fleet =
+      List.of(
+          vehicle(FPT, stock(FOAM, "120"), stock(WATER, "3000")),
+          vehicle(FPT, stock(FOAM, "500.5")),
+          vehicle(VSAV),
+          vehicle(FPT, stock(FOAM, "n/a")),
+          vehicle(VSAV, stock(FOAM, "800")));
+
+  private final ConsumableStockIndex index = ConsumableStockIndex.build(fleet);
+
+  @Test
+  void findsVehiclesWithAtLeastTheQuantity() {
+    assertThat(index.atLeast(FOAM, 200.0)).isEqualTo(bits(1, 4));
+    assertThat(index.atLeast(FOAM, 120.0)).isEqualTo(bits(0, 1, 4));
+    assertThat(index.atLeast(FOAM, 900.0)).isEqualTo(bits());
+    assertThat(index.atLeast(WATER, 0.0)).isEqualTo(bits(0));
+    assertThat(index.unparsedQuantities()).isEqualTo(1);
+  }
+
+  @Test
+  void excludesOnlyVehiclesOfTheConstrainedType() {
+    BitSet excluded =
+        index.excluded(
+            List.of(
+                new ConsumableRequirement(FPT, FOAM, 200.0),
+                new ConsumableRequirement(VSAV, WATER, 0.0)));
+
+    assertThat(excluded).isEqualTo(bits(0, 2, 3, 4));
+    assertThat(index.excluded(List.of())).isNull();
+  }
+
+  @Test
+  void sortsShuffledQuantities() {
+    List<QGVehicleRead> shuffled =
+        IntStream.range(0, 50)
+            .mapToObj(i -> vehicle(FPT, stock(FOAM, Integer.toString(i * 37 % 50))))
+            .toList();
+
+    BitSet matches = ConsumableStockIndex.build(shuffled).atLeast(FOAM, 25.0);
+
+    assertThat(matches.cardinality()).isEqualTo(25);
+    matches.stream().forEach(position -> assertThat(position * 37 % 50).isGreaterThanOrEqualTo(25));
+  }
+
+  private static BitSet bits(int... positions) {
+    BitSet bits = new BitSet();
+    Arrays.stream(positions).forEach(bits::set);
+    return bits;
+  }
+
+  private static QGVehicleConsumableStockRead stock(UUID consumable, String quantity) {
+    return new QGVehicleConsumableStockRead(
+        new QGConsumableTypeRef(consumable, null, null), quantity, null);
+  }
+
+  private static QGVehicleRead vehicle(UUID type, QGVehicleConsumableStockRead... stocks) {
+    return new QGVehicleRead(
+        UUID.randomUUID(),
+        null,
+        new QGVehicleTypeRef(type, null, null),
+        null,
+        1.0,
+        null,
+        null,
+        null,
+        List.of(stocks),
+        false,
+        null);
+  }
+}
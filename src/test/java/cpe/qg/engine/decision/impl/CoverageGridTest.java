@@ -0,0 +1,81 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import cpe.qg.engine.decision.model.CoverageConfig;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class CoverageGridTest {
+
+  private static final UUID VSAV = UUID.randomUUID();
+  private static final CoverageConfig CONFIG = new CoverageConfig(true, 0.5, 6.0, 1, 0.5, 250_000);
+
+  private final QGVehicleRead isolated = vehicle(45.60, 4.60);
+  private final QGVehicleRead paired = vehicle(45.90, 5.10);
+  private final QGVehicleRead partner = vehicle(45.90, 5.10);
+
+  @Test
+  void lastVehicleOfADistrictLosesItsWholeReach() {
+    CoverageGrid grid = new CoverageGrid(CONFIG, 40.0);
+    grid.sync(List.of(isolated, paired, partner), vehicle -> true);
+
+    assertThat(grid.departureLoss(isolated.vehicleId())).isCloseTo(1.0, within(1e-9));
+    assertThat(grid.departureLoss(paired.vehicleId())).isZero();
+    assertThat(grid.coverage(VSAV, 45.90, 5.10)).isEqualTo(2);
+
+    grid.depart(Set.of(partner.vehicleId()));
+
+    assertThat(grid.departureLoss(paired.vehicleId())).isCloseTo(1.0, within(1e-9));
+    assertThat(grid.coverage(VSAV, 45.90, 5.10)).isEqualTo(1);
+  }
+
+  @Test
+  void incrementalUpdatesMatchAFreshGrid() {
+    List<QGVehicleRead> fleet = new ArrayList<>(List.of(isolated, paired, partner));
+    CoverageGrid grid = new CoverageGrid(CONFIG, 40.0);
+    grid.sync(fleet, vehicle -> true);
+
+    fleet.set(2, vehicle(partner.vehicleId(), 45.62, 4.61));
+    fleet.remove(0);
+    fleet.add(vehicle(45.75, 4.85));
+    grid.sync(fleet, vehicle -> vehicle != paired);
+
+    CoverageGrid fresh = new CoverageGrid(CONFIG, 40.0);
+    fresh.sync(List.of(isolated, paired, partner), vehicle -> false);
+    fresh.sync(fleet, vehicle -> vehicle != paired);
+    assertThat(grid.trackedVehicles()).isEqualTo(2);
+    for (double latitude = 45.55; latitude <= 45.95; latitude += 0.01) {
+      for (double longitude = 4.55; longitude <= 5.15; longitude += 0.01) {
+        assertThat(grid.coverage(VSAV, latitude, longitude))
+            .isEqualTo(fresh.coverage(VSAV, latitude, longitude));
+      }
+    }
+  }
+
+  private static QGVehicleRead vehicle(double latitude, double longitude) {
+    return vehicle(UUID.randomUUID(), latitude, longitude);
+  }
+
+  private static QGVehicleRead vehicle(UUID vehicleId, double latitude, double longitude) {
+    return new QGVehicleRead(
+        vehicleId,
+        null,
+        new QGVehicleTypeRef(VSAV, "VSAV", null),
+        null,
+        1.0,
+        null,
+        null,
+        new QGVehiclePositionRead(latitude, longitude, null),
+        null,
+        false,
+        null);
+  }
+}
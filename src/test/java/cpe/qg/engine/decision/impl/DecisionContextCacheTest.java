@@ -0,0 +1,151 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionContextConfig;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSnapshot;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class DecisionContextCacheTest {
+
+  private static final UUID INCIDENT = UUID.randomUUID();
+  private static final UUID FIRST_PHASE = UUID.randomUUID();
+  private static final UUID SECOND_PHASE = UUID.randomUUID();
+  private static final UUID VSAV = UUID.randomUUID();
+
+  private final List<QGVehicleRead> fleet =
+      new ArrayList<>(List.of(vehicle(45.76, 4.84), vehicle(45.70, 4.80), vehicle(45.80, 4.90)));
+  private final AtomicInteger routeCalls = new AtomicInteger();
+  private final DecisionDataSource dataSource =
+      new DecisionDataSource() {
+        @Override
+        public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+          return new QGIncidentSituationRead(
+              new QGIncidentSnapshot(incidentId, 45.75, 4.85, null, null, null, null), List.of());
+        }
+
+        @Override
+        public List<QGVehicleRead> listVehicles() {
+          return List.copyOf(fleet);
+        }
+
+        @Override
+        public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+          routeCalls.incrementAndGet();
+          double distanceKm = GeoDistance.haversineKm(from, to) * 1.3;
+          return new TravelEstimate(distanceKm, distanceKm, null);
+        }
+      };
+
+  @Test
+  void followUpRequestKeepsAnsweredPhasesAndRoutesOnlyMovedVehicles() {
+    VehicleAssignmentDecisionEngine engine = engine(new DecisionContextConfig(true, 16, 60_000L));
+
+    DecisionResult first = engine.proposeAssignments(request(need(FIRST_PHASE)));
+    assertThat(routeCalls).hasValue(3);
+
+    fleet.set(2, vehicle(fleet.get(2).vehicleId(), 45.81, 4.91));
+    DecisionResult followUp =
+        engine.proposeAssignments(request(need(FIRST_PHASE), need(SECOND_PHASE)));
+
+    assertThat(routeCalls).hasValue(4);
+    assertThat(vehicleOf(followUp, FIRST_PHASE)).isEqualTo(vehicleOf(first, FIRST_PHASE));
+    assertThat(vehicleOf(followUp, SECOND_PHASE))
+        .isNotNull()
+        .isNotEqualTo(vehicleOf(first, FIRST_PHASE));
+    assertThat(followUp.missingVehicles()).isEmpty();
+  }
+
+  @Test
+  void precomputedRoutesServeTheFirstRequest() {
+    VehicleAssignmentDecisionEngine engine = engine(new DecisionContextConfig(true, 16, 60_000L));
+    UUID otherIncident = UUID.randomUUID();
+    engine.proposeAssignments(new AssignmentRequest(otherIncident, List.of(need(FIRST_PHASE))));
+
+    int routes = engine.precompute(INCIDENT, 3, Instant.now().plusSeconds(10));
+    DecisionResult result = engine.proposeAssignments(request(need(FIRST_PHASE)));
+
+    assertThat(routes).isEqualTo(3);
+    assertThat(routeCalls).hasValue(6);
+    assertThat(result.proposals()).hasSize(1);
+  }
+
+  @Test
+  void disabledContextRecomputesEverything() {
+    VehicleAssignmentDecisionEngine engine = engine(DecisionContextConfig.DISABLED);
+
+    engine.proposeAssignments(request(need(FIRST_PHASE)));
+    engine.proposeAssignments(request(need(FIRST_PHASE), need(SECOND_PHASE)));
+
+    assertThat(routeCalls).hasValue(6);
+  }
+
+  @Test
+  void reportsToTheRegistryOfItsEngine() {
+    MetricsRegistry registry = new MetricsRegistry();
+    VehicleAssignmentDecisionEngine.builder(dataSource, new DistanceEnergyScoringStrategy())
+        .decisionContext(new DecisionContextConfig(true, 16, 60_000L))
+        .metrics(registry)
+        .build();
+
+    assertThat(registry.scrape()).contains("qg_decision_context_incidents");
+  }
+
+  private VehicleAssignmentDecisionEngine engine(DecisionContextConfig contextConfig) {
+    return VehicleAssignmentDecisionEngine.builder(dataSource, new DistanceEnergyScoringStrategy())
+        .decisionContext(contextConfig)
+        .build();
+  }
+
+  private static AssignmentRequest request(VehicleNeed... needs) {
+    return new AssignmentRequest(INCIDENT, List.of(needs));
+  }
+
+  private static VehicleNeed need(UUID incidentPhaseId) {
+    return new VehicleNeed(incidentPhaseId, VSAV, 1);
+  }
+
+  private static UUID vehicleOf(DecisionResult result, UUID incidentPhaseId) {
+    return result.proposals().stream()
+        .filter(proposal -> proposal.incidentPhaseId().equals(incidentPhaseId))
+        .map(VehicleAssignmentProposal::vehicleId)
+        .findFirst()
+        .orElse(null);
+  }
+
+  private static QGVehicleRead vehicle(double latitude, double longitude) {
+    return vehicle(UUID.randomUUID(), latitude, longitude);
+  }
+
+  private static QGVehicleRead vehicle(UUID vehicleId, double latitude, double longitude) {
+    return new QGVehicleRead(
+        vehicleId,
+        null,
+        new QGVehicleTypeRef(VSAV, "VSAV", null),
+        null,
+        1.0,
+        null,
+        null,
+        new QGVehiclePositionRead(latitude, longitude, null),
+        null,
+        false,
+        null);
+  }
+}
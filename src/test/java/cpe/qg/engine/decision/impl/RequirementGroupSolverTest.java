@@ -0,0 +1,154 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.RequirementSolution;
+import cpe.qg.engine.sdmis.dto.QGRequirement;
+import cpe.qg.engine.sdmis.dto.QGRequirementGroup;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class RequirementGroupSolverTest {
+
+  private static final UUID PHASE = UUID.randomUUID();
+  private static final UUID FPT = UUID.randomUUID();
+  private static final UUID CCF = UUID.randomUUID();
+  private static final UUID VSAV = UUID.randomUUID();
+
+  private final RequirementGroupSolver solver = new RequirementGroupSolver(250_000L);
+
+  @Test
+  void substitutesLessPreferredTypeWhenPreferredRunsOut() {
+    QGRequirementGroup engines =
+        group(
+            "ANY",
+            2,
+            null,
+            1,
+            true,
+            requirement(FPT, null, null, false, 1),
+            requirement(CCF, null, null, false, 2));
+
+    RequirementSolution solution =
+        solver.solve(PHASE, List.of(engines), available(Map.of(FPT, 1, CCF, 5)));
+
+    assertThat(solution.quantities()).containsExactlyInAnyOrderEntriesOf(Map.of(FPT, 1, CCF, 1));
+    assertThat(solution.missing()).isEmpty();
+    assertThat(solution.hardGroupsSatisfied()).isEqualTo(1);
+    assertThat(solution.complete()).isTrue();
+  }
+
+  @Test
+  void keepsHardGroupsOverSoftGroups() {
+    QGRequirementGroup capped = group("ANY", 1, 2, 1, true, requirement(FPT, null, null, false, 1));
+    QGRequirementGroup wish =
+        group("ALL", null, null, 1, false, requirement(FPT, 3, null, true, 1));
+    QGRequirementGroup medical =
+        group("ALL", null, null, 2, false, requirement(VSAV, 1, null, true, 1));
+
+    RequirementSolution solution =
+        solver.solve(PHASE, List.of(wish, capped, medical), available(Map.of(FPT, 4, VSAV, 2)));
+
+    assertThat(solution.quantities()).containsExactlyInAnyOrderEntriesOf(Map.of(FPT, 1, VSAV, 1));
+    assertThat(solution.hardGroupsSatisfied()).isEqualTo(1);
+    assertThat(solution.softGroupsSatisfied()).isEqualTo(1);
+    assertThat(solution.missing()).isEmpty();
+  }
+
+  @Test
+  void prefersHigherPrioritySoftGroupWhenTheyConflict() {
+    QGRequirementGroup total =
+        group(
+            "ANY",
+            null,
+            1,
+            1,
+            true,
+            requirement(FPT, null, null, false, 1),
+            requirement(VSAV, null, null, false, 1));
+    QGRequirementGroup minor =
+        group("ALL", null, null, 5, false, requirement(FPT, 1, null, true, 1));
+    QGRequirementGroup major =
+        group("ALL", null, null, 2, false, requirement(VSAV, 1, null, true, 1));
+
+    RequirementSolution solution =
+        solver.solve(PHASE, List.of(total, minor, major), available(Map.of(FPT, 3, VSAV, 3)));
+
+    assertThat(solution.quantities()).containsExactlyInAnyOrderEntriesOf(Map.of(VSAV, 1));
+  }
+
+  @Test
+  void reportsShortfallOfUnsatisfiableHardGroup() {
+    QGRequirementGroup attack =
+        group(
+            "ALL",
+            3,
+            null,
+            1,
+            true,
+            requirement(FPT, 2, null, true, 1),
+            requirement(CCF, 0, null, false, 2));
+
+    RequirementSolution solution = solver.solve(PHASE, List.of(attack), available(Map.of(FPT, 1)));
+
+    assertThat(solution.quantities()).containsExactlyEntriesOf(Map.of(FPT, 1));
+    assertThat(solution.hardGroupsSatisfied()).isZero();
+    assertThat(solution.missing()).containsExactly(new MissingVehicle(PHASE, FPT, 2));
+  }
+
+  @Test
+  void stopsAtNodeLimitWithBestSolutionSoFar() {
+    QGRequirementGroup wide =
+        group(
+            "ANY",
+            6,
+            null,
+            1,
+            true,
+            requirement(FPT, null, null, false, 1),
+            requirement(CCF, null, null, false, 1),
+            requirement(VSAV, null, null, false, 1));
+
+    RequirementSolution solution =
+        new RequirementGroupSolver(5)
+            .solve(PHASE, List.of(wide), available(Map.of(FPT, 6, CCF, 6, VSAV, 6)));
+
+    assertThat(solution.complete()).isFalse();
+    assertThat(solution.nodesExplored()).isEqualTo(5);
+    assertThat(solution.quantities().values().stream().mapToInt(Integer::intValue).sum())
+        .isEqualTo(6);
+  }
+
+  private static Map<UUID, double[]> available(Map<UUID, Integer> countsByType) {
+    Map<UUID, double[]> scores = new HashMap<>();
+    countsByType.forEach(
+        (type, count) -> {
+          double[] values = new double[count];
+          Arrays.fill(values, 0.5);
+          scores.put(type, values);
+        });
+    return scores;
+  }
+
+  private static QGRequirementGroup group(
+      String rule,
+      Integer minTotal,
+      Integer maxTotal,
+      int priority,
+      boolean hard,
+      QGRequirement... requirements) {
+    return new QGRequirementGroup(
+        UUID.randomUUID(), rule, rule, minTotal, maxTotal, priority, hard, List.of(requirements));
+  }
+
+  private static QGRequirement requirement(
+      UUID type, Integer min, Integer max, boolean mandatory, int rank) {
+    return new QGRequirement(new QGVehicleTypeRef(type, null, null), min, max, mandatory, rank);
+  }
+}
@@ -0,0 +1,194 @@
+package cpe.qg.engine.decision.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.RequirementSolverConfig;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGActiveAssignmentRead;
+import cpe.qg.engine.sdmis.dto.QGActivePhase;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGIncidentSnapshot;
+import cpe.qg.engine.sdmis.dto.QGPhaseRequirements;
+import cpe.qg.engine.sdmis.dto.QGPhaseTypeRef;
+import cpe.qg.engine.sdmis.dto.QGRequirement;
+import cpe.qg.engine.sdmis.dto.QGRequirementGroup;
+import cpe.qg.engine.sdmis.dto.QGResourcePlanningRead;
+import cpe.qg.engine.sdmis.dto.QGVehiclePositionRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleTypeRef;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.junit.jupiter.api.Test;
+
+class VehicleAssignmentDecisionEngineTest {
+
+  private static final UUID INCIDENT = UUID.randomUUID();
+  private static final UUID REQUESTED_PHASE = UUID.randomUUID();
+  private static final UUID OTHER_PHASE = UUID.randomUUID();
+  private static final UUID PHASE_TYPE = UUID.randomUUID();
+  private static final UUID VSAV = UUID.randomUUID();
+
+  private final List<QGVehicleRead> fleet =
+      List.of(
+          vehicle(45.76, 4.84, REQUESTED_PHASE),
+          vehicle(45.76, 4.84, null),
+          vehicle(45.70, 4.80, null),
+          vehicle(45.80, 4.90, null),
+          vehicle(45.74, 4.86, null));
+  private final DecisionDataSource dataSource =
+      new DecisionDataSource() {
+        @Override
+        public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+          return situation(incidentId);
+        }
+
+        @Override
+        public QGResourcePlanningRead getResourcePlanning(UUID incidentId) {
+          QGRequirement threeVsav =
+              new QGRequirement(new QGVehicleTypeRef(VSAV, "VSAV", null), 3, 3, true, 1);
+          return new QGResourcePlanningRead(
+              incidentId,
+              List.of(
+                  new QGPhaseRequirements(
+                      new QGPhaseTypeRef(PHASE_TYPE, "SAP", null),
+                      List.of(
+                          new QGRequirementGroup(
+                              null, "secours", "ALL", 3, 3, 1, true, List.of(threeVsav))))),
+              List.of());
+        }
+
+        @Override
+        public List<QGVehicleRead> listVehicles() {
+          return fleet;
+        }
+
+        @Override
+        public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+          return route(from, to);
+        }
+      };
+
+  @Test
+  void solverCoversOnlyRequestedPhasesNetOfAssignedVehicles() {
+    DecisionResult result =
+        engine()
+            .proposeAssignments(
+                new AssignmentRequest(
+                    INCIDENT, List.of(new VehicleNeed(REQUESTED_PHASE, VSAV, 1))));
+
+    assertThat(result.proposals())
+        .extracting(VehicleAssignmentProposal::incidentPhaseId)
+        .containsExactly(REQUESTED_PHASE, REQUESTED_PHASE);
+    assertThat(result.missingVehicles()).isEmpty();
+  }
+
+  @Test
+  void emptyRequestProposesNothingWithTheSolverOn() {
+    DecisionResult result = engine().proposeAssignments(new AssignmentRequest(INCIDENT, List.of()));
+
+    assertThat(result.proposals()).isEmpty();
+    assertThat(result.missingVehicles()).isEmpty();
+  }
+
+  @Test
+  void deadlineCancelsPendingRoutesAndKeepsApproximateEstimates() {
+    List<CompletableFuture<TravelEstimate>> pending = new CopyOnWriteArrayList<>();
+    DecisionDataSource slowRoutes =
+        new DecisionDataSource() {
+          @Override
+          public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+            return situation(incidentId);
+          }
+
+          @Override
+          public List<QGVehicleRead> listVehicles() {
+            return List.of(
+                vehicle(45.751, 4.851, null),
+                vehicle(45.70, 4.80, null),
+                vehicle(45.80, 4.90, null));
+          }
+
+          @Override
+          public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+            return route(from, to);
+          }
+
+          /** Only the route of the nearest vehicle arrives; the others never answer. */
+          @Override
+          public CompletableFuture<TravelEstimate> estimateTravelAsync(GeoPoint from, GeoPoint to) {
+            if (from.latitude() == 45.751) {
+              return CompletableFuture.completedFuture(route(from, to));
+            }
+            CompletableFuture<TravelEstimate> route = new CompletableFuture<>();
+            pending.add(route);
+            return route;
+          }
+        };
+    VehicleAssignmentDecisionEngine engine =
+        VehicleAssignmentDecisionEngine.builder(slowRoutes, new DistanceEnergyScoringStrategy())
+            .metrics(new MetricsRegistry())
+            .build();
+
+    List<VehicleNeed> needs = List.of(new VehicleNeed(REQUESTED_PHASE, VSAV, 3));
+    // Loads the decision path without routing, for the deadline to only cover the routes.
+    engine.proposeAssignments(new AssignmentRequest(INCIDENT, needs).asFast());
+
+    long startedAt = System.nanoTime();
+    DecisionResult result =
+        engine.proposeAssignments(
+            new AssignmentRequest(INCIDENT, needs, Instant.now().plusMillis(500)));
+
+    assertThat(System.nanoTime() - startedAt).isLessThan(5_000_000_000L);
+    assertThat(pending).hasSize(2).allMatch(CompletableFuture::isCancelled);
+    assertThat(result.proposals())
+        .extracting(VehicleAssignmentProposal::approximate)
+        .containsExactly(false, true, true);
+  }
+
+  private VehicleAssignmentDecisionEngine engine() {
+    return VehicleAssignmentDecisionEngine.builder(dataSource, new DistanceEnergyScoringStrategy())
+        .requirementSolver(new RequirementSolverConfig(true, 10_000L))
+        .metrics(new MetricsRegistry())
+        .build();
+  }
+
+  private static QGIncidentSituationRead situation(UUID incidentId) {
+    return new QGIncidentSituationRead(
+        new QGIncidentSnapshot(incidentId, 45.75, 4.85, null, null, null, null),
+        List.of(
+            new QGActivePhase(OTHER_PHASE, incidentId, PHASE_TYPE, 1),
+            new QGActivePhase(REQUESTED_PHASE, incidentId, PHASE_TYPE, 2)));
+  }
+
+  private static TravelEstimate route(GeoPoint from, GeoPoint to) {
+    double distanceKm = GeoDistance.haversineKm(from, to) * 1.3;
+    return new TravelEstimate(distanceKm, distanceKm, null);
+  }
+
+  private static QGVehicleRead vehicle(double latitude, double longitude, UUID assignedPhase) {
+    return new QGVehicleRead(
+        UUID.randomUUID(),
+        null,
+        new QGVehicleTypeRef(VSAV, "VSAV", null),
+        null,
+        1.0,
+        null,
+        null,
+        new QGVehiclePositionRead(latitude, longitude, null),
+        null,
+        false,
+        assignedPhase == null
+            ? null
+            : new QGActiveAssignmentRead(UUID.randomUUID(), assignedPhase, null, null));
+  }
+}
@@ -0,0 +1,151 @@
+package cpe.qg.engine.handlers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.MissingVehicle;
+import cpe.qg.engine.decision.model.RouteGeometry;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.messaging.WireFormat;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class AssignmentMessageCodecTest {
+
+  private final AssignmentMessageCodec codec = new AssignmentMessageCodec();
+  private final EventPayloadParser parser = new EventPayloadParser();
+
+  @Test
+  void binaryProposalsCarryTheSameDocumentAsJson() throws Exception {
+    UUID proposalId = UUID.randomUUID();
+    UUID incidentId = UUID.randomUUID();
+    DecisionResult result =
+        new DecisionResult(
+            List.of(
+                new VehicleAssignmentProposal(
+                    UUID.randomUUID(),
+                    UUID.randomUUID(),
+                    3.25,
+                    6.5,
+                    new RouteGeometry(
+                        "LineString", List.of(List.of(4.83, 45.76), List.of(4.85, 45.75))),
+                    0.8,
+                    0.92,
+                    1,
+                    false)),
+            List.of(new MissingVehicle(UUID.randomUUID(), UUID.randomUUID(), 2)));
+    EventMessage json = parser.parse(codec.encodeProposal(proposalId, incidentId, result));
+
+    for (WireFormat format : List.of(WireFormat.CBOR, WireFormat.SMILE)) {
+      byte[] body = codec.encodeProposal(proposalId, incidentId, result, format);
+      EventMessage decoded = parser.parse(body, format);
+
+      assertThat(WireFormat.detect(body)).isEqualTo(format);
+      assertThat(decoded.eventKey()).isEqualTo(Events.ASSIGNMENT_PROPOSAL.key());
+      assertThat(withoutGeneratedAt(decoded)).isEqualTo(withoutGeneratedAt(json));
+      assertThat(body.length).isLessThan(json.rawPayload().length());
+    }
+  }
+
+  @Test
+  void decodesRequestsReceivedInAnyFormat() throws Exception {
+    UUID incidentId = UUID.randomUUID();
+    UUID phaseId = UUID.randomUUID();
+    UUID typeId = UUID.randomUUID();
+    Map<String, Object> envelope =
+        Map.of(
+            "event",
+            Events.ASSIGNMENT_REQUEST.key(),
+            "payload",
+            Map.of(
+                "incident_id",
+                incidentId.toString(),
+                "vehicles_needed",
+                List.of(
+                    Map.of(
+                        "incident_phase_id",
+                        phaseId.toString(),
+                        "vehicle_type_id",
+                        typeId.toString(),
+                        "quantity",
+                        2))));
+
+    for (WireFormat format : WireFormat.values()) {
+      byte[] body = format.newMapper().writeValueAsBytes(envelope);
+      AssignmentRequest request =
+          codec.decodeRequest(parser.parse(body, WireFormat.fromContentType(format.contentType())));
+
+      assertThat(WireFormat.detect(body)).isEqualTo(format);
+      assertThat(request.incidentId()).isEqualTo(incidentId);
+      assertThat(request.vehiclesNeeded()).containsExactly(new VehicleNeed(phaseId, typeId, 2));
+    }
+    assertThat(WireFormat.fromContentType("text/plain")).isEqualTo(WireFormat.JSON);
+    assertThat(WireFormat.fromContentType(null)).isEqualTo(WireFormat.JSON);
+  }
+
+  @Test
+  void deadlineIsTheEarliestOfTheInstantAndTheTimeBudget() throws Exception {
+    Instant soon = Instant.now().plusSeconds(2);
+    Instant late = Instant.now().plusSeconds(60);
+
+    assertThat(decodeDeadline(Map.of("deadline", soon.toString()))).isEqualTo(soon);
+    assertThat(decodeDeadline(Map.of("deadline", late.toString(), "time_budget_ms", 2_000)))
+        .isBetween(Instant.now().plusMillis(1_000), Instant.now().plusMillis(2_000));
+    assertThat(decodeDeadline(Map.of("deadline", soon.toString(), "time_budget_ms", 60_000)))
+        .isEqualTo(soon);
+    assertThat(decodeDeadline(Map.of("deadline", "tomorrow", "time_budget_ms", 0))).isNull();
+    assertThat(decodeDeadline(Map.of())).isNull();
+  }
+
+  @Test
+  void flagsApproximateEstimatesPerVehicleAndOnThePayload() throws Exception {
+    UUID phaseId = UUID.randomUUID();
+    VehicleAssignmentProposal routed =
+        new VehicleAssignmentProposal(
+            phaseId, UUID.randomUUID(), 2.0, 3.0, null, 0.9, 0.8, 1, false);
+    VehicleAssignmentProposal approximate =
+        new VehicleAssignmentProposal(
+            phaseId, UUID.randomUUID(), 5.0, 7.5, null, 0.9, 0.6, 2, true);
+
+    ObjectNode mixed = payloadOf(new DecisionResult(List.of(routed, approximate), List.of()));
+    ObjectNode exact = payloadOf(new DecisionResult(List.of(routed), List.of()));
+
+    assertThat(mixed.get("approximate").asBoolean()).isTrue();
+    assertThat(mixed.get("vehicles_to_send").findValuesAsText("estimate_approximate"))
+        .containsExactly("false", "true");
+    assertThat(exact.get("approximate").asBoolean()).isFalse();
+  }
+
+  private Instant decodeDeadline(Map<String, Object> deadlineFields) throws Exception {
+    Map<String, Object> payload = new HashMap<>(deadlineFields);
+    payload.put("incident_id", UUID.randomUUID().toString());
+    payload.put("vehicles_needed", List.of());
+    String json =
+        WireFormat.JSON
+            .newMapper()
+            .writeValueAsString(
+                Map.of("event", Events.ASSIGNMENT_REQUEST.key(), "payload", payload));
+    return codec.decodeRequest(parser.parse(json)).deadline();
+  }
+
+  private ObjectNode payloadOf(DecisionResult result) throws Exception {
+    String json = codec.encodeProposal(UUID.randomUUID(), result);
+    return (ObjectNode) parser.parse(json).body().get("payload");
+  }
+
+  private static ObjectNode withoutGeneratedAt(EventMessage message) {
+    ObjectNode body = message.body().deepCopy();
+    ((ObjectNode) body.get("payload")).remove("generated_at");
+    return body;
+  }
+}
@@ -0,0 +1,209 @@
+package cpe.qg.engine.handlers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.DeliverCallback;
+import cpe.qg.engine.config.LoadSheddingConfig;
+import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.api.ReservationLedger;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.ReservationConfig;
+import cpe.qg.engine.decision.model.VehicleAssignmentProposal;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.messaging.MessageBrokerClient;
+import cpe.qg.engine.service.BacklogMonitor;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class AssignmentRequestHandlerTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+  private static final LoadSheddingConfig SHEDDING =
+      new LoadSheddingConfig(true, 1_000L, 100, 20, 1_000L, 100L, 3_000L);
+
+  private final UUID incidentId = UUID.randomUUID();
+  private final UUID otherIncidentId = UUID.randomUUID();
+  private final UUID phaseId = UUID.randomUUID();
+  private final UUID taken = UUID.randomUUID();
+  private final UUID free = UUID.randomUUID();
+  private final UUID replacement = UUID.randomUUID();
+  private final ReservationLedger reservations =
+      new ReservationLedger(new ReservationConfig(true, 30_000L));
+  private final RecordingBroker broker = new RecordingBroker();
+
+  @Test
+  void decidesAgainWhenAProposedVehicleWasReservedMeanwhile() throws Exception {
+    reservations.reserve(UUID.randomUUID(), otherIncidentId, List.of(taken));
+    StubEngine engine = new StubEngine(List.of(taken, free), List.of(replacement, free));
+
+    handler(engine).handle(new EventPayloadParser().parse(request()));
+
+    JsonNode payload = MAPPER.readTree(broker.published.getFirst()).get("payload");
+    assertThat(engine.decisions.get()).isEqualTo(2);
+    assertThat(vehicleIds(payload)).containsExactly(replacement, free);
+    assertThat(reservations.holds(UUID.fromString(payload.get("proposal_id").asText()))).isTrue();
+    assertThat(reservations.reservedForOther(replacement, otherIncidentId)).isTrue();
+  }
+
+  @Test
+  void dropsVehiclesStillReservedAfterTheLastDecision() throws Exception {
+    reservations.reserve(UUID.randomUUID(), otherIncidentId, List.of(taken));
+    StubEngine engine = new StubEngine(List.of(taken, free));
+
+    handler(engine).handle(new EventPayloadParser().parse(request()));
+
+    JsonNode payload = MAPPER.readTree(broker.published.getFirst()).get("payload");
+    assertThat(engine.decisions.get()).isEqualTo(3);
+    assertThat(vehicleIds(payload)).containsExactly(free);
+    assertThat(reservations.reservedForOther(taken, incidentId)).isTrue();
+    assertThat(reservations.reservedForOther(free, otherIncidentId)).isTrue();
+  }
+
+  @Test
+  void dropsRequestsOlderThanTheMaxAgeWhenShedding() throws Exception {
+    StubEngine engine = new StubEngine(List.of(free));
+    BacklogMonitor monitor = new BacklogMonitor(broker, "sdmis_engine", SHEDDING);
+    AssignmentRequestHandler handler =
+        AssignmentRequestHandler.builder(broker, engine).backlogMonitor(monitor).build();
+
+    handler.handle(request(Instant.now().minusSeconds(5)));
+    assertThat(engine.decisions.get()).isZero();
+    assertThat(broker.published).isEmpty();
+
+    handler.handle(request(Instant.now()));
+    assertThat(engine.decisions.get()).isEqualTo(1);
+    assertThat(broker.published).hasSize(1);
+  }
+
+  @Test
+  void decidesWithoutRoutingWhileDegraded() throws Exception {
+    StubEngine engine = new StubEngine(List.of(free));
+    BacklogMonitor monitor = new BacklogMonitor(broker, "sdmis_engine", SHEDDING);
+    for (int i = 0; i < 10; i++) {
+      monitor.recordAge(2_000);
+    }
+    AssignmentRequestHandler handler =
+        AssignmentRequestHandler.builder(broker, engine).backlogMonitor(monitor).build();
+
+    handler.handle(request(null));
+
+    assertThat(monitor.degraded()).isTrue();
+    assertThat(engine.lastRequest.fast()).isTrue();
+    assertThat(broker.published).hasSize(1);
+  }
+
+  @Test
+  void answersOldRequestsWithoutShedding() throws Exception {
+    StubEngine engine = new StubEngine(List.of(free));
+
+    AssignmentRequestHandler.builder(broker, engine)
+        .build()
+        .handle(request(Instant.now().minusSeconds(120)));
+
+    assertThat(engine.lastRequest.fast()).isFalse();
+    assertThat(broker.published).hasSize(1);
+  }
+
+  private AssignmentRequestHandler handler(DecisionEngine engine) {
+    return AssignmentRequestHandler.builder(broker, engine).reservations(reservations).build();
+  }
+
+  private EventMessage request(Instant publishedAt) throws Exception {
+    return new EventPayloadParser().parse(request()).withPublishedAt(publishedAt);
+  }
+
+  private String request() throws Exception {
+    return MAPPER.writeValueAsString(
+        Map.of(
+            "event",
+            "assignment_request",
+            "payload",
+            Map.of(
+                "incident_id",
+                incidentId.toString(),
+                "vehicles_needed",
+                List.of(
+                    Map.of(
+                        "incident_phase_id",
+                        phaseId.toString(),
+                        "vehicle_type_id",
+                        UUID.randomUUID().toString(),
+                        "quantity",
+                        2)))));
+  }
+
+  private static List<UUID> vehicleIds(JsonNode payload) {
+    List<UUID> vehicleIds = new ArrayList<>();
+    payload
+        .get("vehicles_to_send")
+        .forEach(vehicle -> vehicleIds.add(UUID.fromString(vehicle.get("vehicle_id").asText())));
+    return vehicleIds;
+  }
+
+  /** Engine proposing the given vehicles in turn, the last ones for every further decision. */
+  private final class StubEngine implements DecisionEngine {
+    private final List<List<UUID>> decisionsInTurn;
+    private final AtomicInteger decisions = new AtomicInteger();
+    private volatile AssignmentRequest lastRequest;
+
+    @SafeVarargs
+    private StubEngine(List<UUID>... decisionsInTurn) {
+      this.decisionsInTurn = List.of(decisionsInTurn);
+    }
+
+    @Override
+    public DecisionResult proposeAssignments(AssignmentRequest request) {
+      lastRequest = request;
+      int decision = Math.min(decisions.getAndIncrement(), decisionsInTurn.size() - 1);
+      List<VehicleAssignmentProposal> proposals = new ArrayList<>();
+      for (UUID vehicleId : decisionsInTurn.get(decision)) {
+        proposals.add(
+            new VehicleAssignmentProposal(
+                phaseId, vehicleId, 1.0, 2.0, null, 0.9, 1.0, proposals.size() + 1, false));
+      }
+      return new DecisionResult(proposals, List.of());
+    }
+  }
+
+  private static final class RecordingBroker implements MessageBrokerClient {
+    private final List<String> published = new ArrayList<>();
+
+    @Override
+    public void connect() {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable) {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {}
+
+    @Override
+    public void declareExchange(String exchange, String type, boolean durable) {}
+
+    @Override
+    public void bindQueue(String queueName, String exchange, String routingKey) {}
+
+    @Override
+    public void publish(String queueName, String message) {
+      published.add(message);
+    }
+
+    @Override
+    public void consume(String queueName, DeliverCallback deliverCallback) {}
+
+    @Override
+    public void healthCheck() {}
+
+    @Override
+    public void close() {}
+  }
+}
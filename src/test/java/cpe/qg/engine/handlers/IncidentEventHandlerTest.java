@@ -0,0 +1,90 @@
+package cpe.qg.engine.handlers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import cpe.qg.engine.config.PrecomputeConfig;
+import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.events.Events;
+import cpe.qg.engine.service.IncidentPrecomputer;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class IncidentEventHandlerTest {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper();
+
+  private final List<UUID> precomputed = new CopyOnWriteArrayList<>();
+  private final CountDownLatch firstStarted = new CountDownLatch(1);
+  private final CountDownLatch release = new CountDownLatch(1);
+  private final CountDownLatch done = new CountDownLatch(2);
+  private final DecisionEngine engine =
+      new DecisionEngine() {
+        @Override
+        public DecisionResult proposeAssignments(AssignmentRequest request) {
+          return new DecisionResult(List.of(), List.of());
+        }
+
+        @Override
+        public int precompute(UUID incidentId, int vehicleTypes, Instant deadline) {
+          firstStarted.countDown();
+          try {
+            release.await(5, TimeUnit.SECONDS);
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          }
+          precomputed.add(incidentId);
+          done.countDown();
+          return vehicleTypes;
+        }
+      };
+
+  @Test
+  void precomputesEachWaitingIncidentOnce() throws Exception {
+    UUID running = UUID.randomUUID();
+    UUID waiting = UUID.randomUUID();
+    try (IncidentPrecomputer precomputer =
+        new IncidentPrecomputer(engine, new PrecomputeConfig(true, 3, 1_000L, 4))) {
+      IncidentEventHandler created = new IncidentEventHandler(Events.INCIDENT_CREATED, precomputer);
+      IncidentEventHandler updated = new IncidentEventHandler(Events.INCIDENT_UPDATED, precomputer);
+
+      created.handle(event(Events.INCIDENT_CREATED, running.toString()));
+      assertThat(firstStarted.await(5, TimeUnit.SECONDS)).isTrue();
+      created.handle(event(Events.INCIDENT_CREATED, waiting.toString()));
+      updated.handle(event(Events.INCIDENT_UPDATED, waiting.toString()));
+      updated.handle(event(Events.INCIDENT_UPDATED, "not-a-uuid"));
+      release.countDown();
+
+      assertThat(done.await(5, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(50);
+      assertThat(precomputed).containsExactly(running, waiting);
+    }
+  }
+
+  @Test
+  void disabledPrecomputerIgnoresIncidentEvents() {
+    try (IncidentPrecomputer precomputer =
+        new IncidentPrecomputer(engine, PrecomputeConfig.DISABLED)) {
+      new IncidentEventHandler(Events.INCIDENT_CREATED, precomputer)
+          .handle(event(Events.INCIDENT_CREATED, UUID.randomUUID().toString()));
+    }
+
+    assertThat(precomputed).isEmpty();
+  }
+
+  private static EventMessage event(Events event, String incidentId) {
+    ObjectNode body = MAPPER.createObjectNode();
+    body.put("event", event.key());
+    body.putObject("payload").put("incident_id", incidentId);
+    return new EventMessage(event.key(), body, body.toString());
+  }
+}
@@ -0,0 +1,146 @@
+package cpe.qg.engine.handlers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import cpe.qg.engine.config.DeduplicationConfig;
+import cpe.qg.engine.decision.model.AssignmentRequest;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.VehicleNeed;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class RequestDeduplicatorTest {
+
+  private static final UUID INCIDENT = UUID.randomUUID();
+  private static final UUID PHASE = UUID.randomUUID();
+  private static final UUID FPT = UUID.randomUUID();
+  private static final UUID VSAV = UUID.randomUUID();
+
+  private final AtomicInteger computations = new AtomicInteger();
+
+  @Test
+  void reusesProposalOfSameCanonicalRequest() {
+    RequestDeduplicator deduplicator = deduplicator(10_000L, 16);
+    AssignmentRequest original =
+        new AssignmentRequest(
+            INCIDENT, List.of(new VehicleNeed(PHASE, FPT, 2), new VehicleNeed(PHASE, VSAV, 1)));
+    AssignmentRequest retry =
+        new AssignmentRequest(
+            INCIDENT,
+            List.of(
+                new VehicleNeed(PHASE, VSAV, 1),
+                new VehicleNeed(PHASE, FPT, 1),
+                new VehicleNeed(PHASE, FPT, 1)));
+
+    RequestDeduplicator.Resolution first = deduplicator.resolve(original, this::compute);
+    RequestDeduplicator.Resolution second = deduplicator.resolve(retry, this::compute);
+    RequestDeduplicator.Resolution other =
+        deduplicator.resolve(
+            new AssignmentRequest(INCIDENT, List.of(new VehicleNeed(PHASE, FPT, 3))),
+            this::compute);
+
+    assertThat(first.source()).isEqualTo(RequestDeduplicator.Source.COMPUTED);
+    assertThat(second.source()).isEqualTo(RequestDeduplicator.Source.CACHED);
+    assertThat(second.proposal()).isSameAs(first.proposal());
+    assertThat(other.duplicate()).isFalse();
+    assertThat(computations).hasValue(2);
+  }
+
+  @Test
+  void mergesConcurrentDuplicatesIntoOneComputation() throws Exception {
+    RequestDeduplicator deduplicator = deduplicator(10_000L, 16);
+    AssignmentRequest request = new AssignmentRequest(INCIDENT, List.of());
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<RequestDeduplicator.Resolution> original =
+        CompletableFuture.supplyAsync(
+            () ->
+                deduplicator.resolve(
+                    request,
+                    () -> {
+                      started.countDown();
+                      await(release);
+                      return compute();
+                    }));
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<RequestDeduplicator.Resolution> duplicate =
+        CompletableFuture.supplyAsync(() -> deduplicator.resolve(request, this::compute));
+    Thread.sleep(50);
+    release.countDown();
+
+    assertThat(original.get(5, TimeUnit.SECONDS).source())
+        .isEqualTo(RequestDeduplicator.Source.COMPUTED);
+    RequestDeduplicator.Resolution merged = duplicate.get(5, TimeUnit.SECONDS);
+    assertThat(merged.duplicate()).isTrue();
+    assertThat(merged.proposal()).isSameAs(original.get().proposal());
+    assertThat(computations).hasValue(1);
+  }
+
+  @Test
+  void expiresEntriesAndKeepsFailuresOut() throws Exception {
+    RequestDeduplicator deduplicator = deduplicator(20L, 1);
+    AssignmentRequest request = new AssignmentRequest(INCIDENT, List.of());
+
+    assertThatThrownBy(
+            () ->
+                deduplicator.resolve(
+                    request,
+                    () -> {
+                      throw new IllegalStateException("SDMIS down");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+    assertThat(deduplicator.resolve(request, this::compute).duplicate()).isFalse();
+    deduplicator.resolve(new AssignmentRequest(UUID.randomUUID(), List.of()), this::compute);
+    assertThat(deduplicator.cachedEntries()).isEqualTo(1);
+    Thread.sleep(40);
+
+    assertThat(deduplicator.resolve(request, this::compute).duplicate()).isFalse();
+    assertThat(computations).hasValue(3);
+  }
+
+  @Test
+  void recomputesDegradedAnsweredOrReleasedProposals() {
+    RequestDeduplicator deduplicator = deduplicator(10_000L, 16);
+    AssignmentRequest request =
+        new AssignmentRequest(INCIDENT, List.of(new VehicleNeed(PHASE, FPT, 1)));
+
+    RequestDeduplicator.Resolution degraded = deduplicator.resolve(request.asFast(), this::compute);
+    RequestDeduplicator.Resolution normal = deduplicator.resolve(request, this::compute);
+    assertThat(normal.duplicate()).isFalse();
+
+    assertThat(deduplicator.invalidate(degraded.proposal().proposalId())).isTrue();
+    assertThat(deduplicator.resolve(request.asFast(), this::compute).duplicate()).isFalse();
+
+    RequestDeduplicator.Resolution released =
+        deduplicator.resolve(request, this::compute, proposal -> false);
+    assertThat(released.duplicate()).isFalse();
+    assertThat(released.proposal()).isNotSameAs(normal.proposal());
+    assertThat(computations).hasValue(4);
+  }
+
+  private RequestDeduplicator deduplicator(long ttlMs, int maxEntries) {
+    return new RequestDeduplicator(
+        new DeduplicationConfig(true, ttlMs, maxEntries, DeduplicationConfig.OnHit.REPUBLISH));
+  }
+
+  private RequestDeduplicator.Proposal compute() {
+    int call = computations.incrementAndGet();
+    return new RequestDeduplicator.Proposal(
+        UUID.randomUUID(), new DecisionResult(List.of(), List.of()), "proposal-" + call);
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
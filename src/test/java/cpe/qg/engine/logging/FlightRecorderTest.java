@@ -0,0 +1,35 @@
+package cpe.qg.engine.logging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class FlightRecorderTest {
+
+  @Test
+  void keepsTheLastEntriesOldestFirstAndCountsOverwrites() {
+    FlightRecorder recorder = new FlightRecorder();
+    recorder.setCapacity(3);
+    for (int i = 1; i <= 5; i++) {
+      recorder.record("request", "payload-" + i);
+    }
+
+    String dump = recorder.dump();
+
+    assertThat(dump).startsWith("# 3 entries, 2 overwritten since the previous dump");
+    assertThat(dump).doesNotContain("payload-1", "payload-2");
+    assertThat(dump.indexOf("payload-3")).isLessThan(dump.indexOf("payload-5"));
+    assertThat(recorder.dump()).startsWith("# 3 entries, 0 overwritten since the previous dump");
+  }
+
+  @Test
+  void zeroCapacityRecordsNothing() {
+    FlightRecorder recorder = new FlightRecorder();
+    recorder.setCapacity(0);
+
+    recorder.record("request", "payload");
+
+    assertThat(recorder.size()).isZero();
+    assertThat(recorder.dump()).startsWith("# 0 entries");
+  }
+}
@@ -0,0 +1,64 @@
+package cpe.qg.engine.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.DeliverCallback;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MessageBrokerClientTest {
+
+  @Test
+  void brokerWithoutContentTypesReceivesBinaryBodiesAsJson() throws Exception {
+    JsonOnlyBroker broker = new JsonOnlyBroker();
+    Map<String, Object> document = Map.of("event", "assignment_proposal", "vehicles", 2);
+
+    broker.publish(
+        "sdmis_api", WireFormat.CBOR.newMapper().writeValueAsBytes(document), WireFormat.CBOR);
+    broker.publish(
+        "sdmis_api", "{\"event\":\"ping\"}".getBytes(StandardCharsets.UTF_8), WireFormat.JSON);
+
+    ObjectMapper json = new ObjectMapper();
+    assertThat(broker.published).hasSize(2);
+    assertThat(json.readTree(broker.published.get(0))).isEqualTo(json.valueToTree(document));
+    assertThat(broker.published.get(1)).isEqualTo("{\"event\":\"ping\"}");
+  }
+
+  /** Broker that only carries text, relying on the default binary publish. */
+  private static final class JsonOnlyBroker implements MessageBrokerClient {
+    private final List<String> published = new ArrayList<>();
+
+    @Override
+    public void connect() {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable) {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {}
+
+    @Override
+    public void declareExchange(String exchange, String type, boolean durable) {}
+
+    @Override
+    public void bindQueue(String queueName, String exchange, String routingKey) {}
+
+    @Override
+    public void publish(String queueName, String message) {
+      published.add(message);
+    }
+
+    @Override
+    public void consume(String queueName, DeliverCallback deliverCallback) {}
+
+    @Override
+    public void healthCheck() {}
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,47 @@
+package cpe.qg.engine.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.config.SchedulerConfig;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class PrioritySchedulerTest {
+
+  @Test
+  void takesMostUrgentFirstAndFifoWithinALevel() throws InterruptedException {
+    PriorityScheduler scheduler = scheduler(60_000L);
+    scheduler.submit(7, () -> {});
+    scheduler.submit(2, () -> {});
+    scheduler.submit(2, () -> {});
+    scheduler.submit(-3, () -> {});
+
+    List<Integer> order = new ArrayList<>();
+    List<Long> enqueuedAt = new ArrayList<>();
+    for (int i = 0; i < 4; i++) {
+      PriorityScheduler.Entry entry = scheduler.take();
+      order.add(entry.priority());
+      enqueuedAt.add(entry.enqueuedAt());
+    }
+
+    assertThat(order).containsExactly(0, 2, 2, 7);
+    assertThat(enqueuedAt.get(1)).isLessThanOrEqualTo(enqueuedAt.get(2));
+    assertThat(scheduler.size()).isZero();
+  }
+
+  @Test
+  void agedLowPriorityMessageOvertakesFreshUrgentOne() throws InterruptedException {
+    PriorityScheduler scheduler = scheduler(1L);
+    scheduler.submit(9, () -> {});
+    Thread.sleep(30);
+    scheduler.submit(0, () -> {});
+
+    assertThat(scheduler.take().priority()).isEqualTo(9);
+    assertThat(scheduler.take().priority()).isEqualTo(0);
+  }
+
+  private static PriorityScheduler scheduler(long agingMs) {
+    return new PriorityScheduler(new SchedulerConfig(true, 16, agingMs, 1, 5));
+  }
+}
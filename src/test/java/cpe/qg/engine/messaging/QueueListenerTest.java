@@ -0,0 +1,85 @@
+package cpe.qg.engine.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.client.DeliverCallback;
+import cpe.qg.engine.events.EventDispatcher;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.service.ReadinessGate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class QueueListenerTest {
+
+  private final RecordingBroker broker = new RecordingBroker();
+
+  @Test
+  void declaresQueuesButConsumesOnlyOnceTheGateOpens() throws Exception {
+    ReadinessGate readiness = new ReadinessGate();
+    try (QueueListener listener =
+        QueueListener.builder(
+                broker,
+                List.of("sdmis_engine"),
+                new EventDispatcher(List.of()),
+                new EventPayloadParser())
+            .readiness(readiness)
+            .build()) {
+      Thread starter = new Thread(listener::start, "listener-start");
+      starter.start();
+
+      assertThat(broker.declared.await(5, TimeUnit.SECONDS)).isTrue();
+      Thread.sleep(100);
+      assertThat(starter.isAlive()).isTrue();
+      assertThat(broker.consumed).isEmpty();
+
+      readiness.markReady();
+      starter.join(5_000);
+
+      assertThat(starter.isAlive()).isFalse();
+      assertThat(broker.consumed).containsExactly("sdmis_engine");
+    }
+  }
+
+  /** Broker recording the queues it consumes, and signalling the first queue declaration. */
+  private static final class RecordingBroker implements MessageBrokerClient {
+    private final CountDownLatch declared = new CountDownLatch(1);
+    private final List<String> consumed = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void connect() {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable) {
+      declared.countDown();
+    }
+
+    @Override
+    public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {
+      declared.countDown();
+    }
+
+    @Override
+    public void declareExchange(String exchange, String type, boolean durable) {}
+
+    @Override
+    public void bindQueue(String queueName, String exchange, String routingKey) {}
+
+    @Override
+    public void publish(String queueName, String message) {}
+
+    @Override
+    public void consume(String queueName, DeliverCallback deliverCallback) {
+      consumed.add(queueName);
+    }
+
+    @Override
+    public void healthCheck() {}
+
+    @Override
+    public void close() {}
+  }
+}
@@ -0,0 +1,99 @@
+package cpe.qg.engine.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import cpe.qg.engine.config.RabbitConfig;
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class RabbitMqClientTest {
+
+  private final List<StubChannel> channels = new ArrayList<>();
+
+  @Test
+  void inspectsQueuesOnShortLivedChannelsThatSpareTheConsumerChannel() {
+    RabbitMqClient client =
+        new RabbitMqClient(new RabbitConfig("amqp://localhost", true), StubFactory::new);
+    client.connect();
+    StubChannel consumers = channels.getFirst();
+
+    assertThat(client.messageCount("sdmis_engine")).isEqualTo(7);
+    // The broker closes the channel of a passive declare on a missing queue.
+    assertThatThrownBy(() -> client.messageCount("missing"))
+        .isInstanceOf(IllegalStateException.class)
+        .hasMessageContaining("missing");
+    assertThat(client.messageCount("sdmis_engine")).isEqualTo(7);
+
+    assertThat(channels).hasSize(4);
+    assertThat(consumers.open).isTrue();
+    assertThat(consumers.declared).isEmpty();
+    assertThat(channels.subList(1, 4)).allSatisfy(channel -> assertThat(channel.open).isFalse());
+  }
+
+  private final class StubFactory extends ConnectionFactory {
+    @Override
+    public Connection newConnection(String connectionName) {
+      return proxy(
+          Connection.class,
+          (proxy, method, args) ->
+              switch (method.getName()) {
+                case "isOpen" -> true;
+                case "createChannel" -> {
+                  StubChannel channel = new StubChannel();
+                  channels.add(channel);
+                  yield channel.proxy;
+                }
+                default -> null;
+              });
+    }
+  }
+
+  /** Channel whose passive declare reports 7 messages, or fails on {@code missing}. */
+  private static final class StubChannel {
+    private final List<String> declared = new ArrayList<>();
+    private boolean open = true;
+    private final Channel proxy =
+        proxy(
+            Channel.class,
+            (proxy, method, args) ->
+                switch (method.getName()) {
+                  case "isOpen" -> open;
+                  case "close" -> {
+                    open = false;
+                    yield null;
+                  }
+                  case "queueDeclarePassive" -> declarePassive((String) args[0]);
+                  case "hashCode" -> System.identityHashCode(this);
+                  case "equals" -> proxy == args[0];
+                  default -> null;
+                });
+
+    private AMQP.Queue.DeclareOk declarePassive(String queueName) throws IOException {
+      declared.add(queueName);
+      if (queueName.equals("missing")) {
+        open = false;
+        throw new IOException("NOT_FOUND - no queue '" + queueName + "'");
+      }
+      return proxy(
+          AMQP.Queue.DeclareOk.class,
+          (proxy, method, args) ->
+              Map.of("getMessageCount", 7, "getQueue", queueName).get(method.getName()));
+    }
+  }
+
+  private static <T> T proxy(Class<T> type, InvocationHandler handler) {
+    return type.cast(
+        Proxy.newProxyInstance(
+            RabbitMqClientTest.class.getClassLoader(), new Class<?>[] {type}, handler));
+  }
+}
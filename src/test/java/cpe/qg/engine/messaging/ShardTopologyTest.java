@@ -0,0 +1,104 @@
+package cpe.qg.engine.messaging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.client.DeliverCallback;
+import cpe.qg.engine.config.ShardingConfig;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class ShardTopologyTest {
+
+  @Test
+  void declaresSingleActiveConsumerQuorumQueuesBoundToHashExchange() {
+    ShardTopology topology = new ShardTopology(new ShardingConfig(true, "engine.hash", 3, "a"));
+    RecordingBroker broker = new RecordingBroker();
+
+    topology.declare(broker);
+
+    assertThat(topology.queues())
+        .containsExactly("engine.hash.shard.0", "engine.hash.shard.1", "engine.hash.shard.2");
+    assertThat(broker.operations)
+        .containsExactly(
+            "exchange engine.hash x-consistent-hash",
+            "queue engine.hash.shard.0",
+            "bind engine.hash.shard.0 engine.hash 1",
+            "queue engine.hash.shard.1",
+            "bind engine.hash.shard.1 engine.hash 1",
+            "queue engine.hash.shard.2",
+            "bind engine.hash.shard.2 engine.hash 1");
+    assertThat(broker.arguments)
+        .containsEntry("x-queue-type", "quorum")
+        .containsEntry("x-single-active-consumer", true);
+  }
+
+  @Test
+  void spreadsShardsOverInstancesByConsumerPriority() {
+    List<String> instances = List.of("engine-1", "engine-2", "engine-3");
+    Map<String, Integer> owned = new HashMap<>();
+    ShardTopology reference = topology("engine-1");
+    for (String queue : reference.queues()) {
+      String owner =
+          instances.stream()
+              .max((a, b) -> Integer.compare(priority(a, queue), priority(b, queue)))
+              .orElseThrow();
+      owned.merge(owner, 1, Integer::sum);
+    }
+
+    assertThat(owned).hasSize(3);
+    assertThat(priority("engine-1", "engine.hash.shard.0"))
+        .isEqualTo(priority("engine-1", "engine.hash.shard.0"))
+        .isNotNegative();
+    assertThat(new ShardTopology(ShardingConfig.DISABLED).queues()).isEmpty();
+  }
+
+  private static int priority(String instance, String queue) {
+    return topology(instance).consumerPriority(queue);
+  }
+
+  private static ShardTopology topology(String instance) {
+    return new ShardTopology(new ShardingConfig(true, "engine.hash", 64, instance));
+  }
+
+  private static final class RecordingBroker implements MessageBrokerClient {
+    private final List<String> operations = new ArrayList<>();
+    private Map<String, Object> arguments;
+
+    @Override
+    public void connect() {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable) {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {
+      operations.add("queue " + queueName);
+      this.arguments = arguments;
+    }
+
+    @Override
+    public void declareExchange(String exchange, String type, boolean durable) {
+      operations.add("exchange " + exchange + " " + type);
+    }
+
+    @Override
+    public void bindQueue(String queueName, String exchange, String routingKey) {
+      operations.add("bind " + queueName + " " + exchange + " " + routingKey);
+    }
+
+    @Override
+    public void publish(String queueName, String message) {}
+
+    @Override
+    public void consume(String queueName, DeliverCallback deliverCallback) {}
+
+    @Override
+    public void healthCheck() {}
+
+    @Override
+    public void close() {}
+  }
+}
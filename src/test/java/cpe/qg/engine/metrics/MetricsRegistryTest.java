@@ -0,0 +1,46 @@
+package cpe.qg.engine.metrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+class MetricsRegistryTest {
+
+  @Test
+  void rendersHistogramBucketsCumulatively() {
+    MetricsRegistry registry = new MetricsRegistry();
+    LatencyHistogram histogram = registry.histogram("qg_test_seconds", "Test", "stage", "decide");
+    histogram.record(200_000L);
+    histogram.record(3_000_000L);
+    histogram.record(2_000_000_000L);
+
+    String scrape = registry.scrape();
+
+    assertThat(scrape).contains("# TYPE qg_test_seconds histogram");
+    assertThat(scrape).contains("qg_test_seconds_bucket{stage=\"decide\",le=\"5.0E-4\"} 1");
+    assertThat(scrape).contains("qg_test_seconds_bucket{stage=\"decide\",le=\"0.005\"} 2");
+    assertThat(scrape).contains("qg_test_seconds_bucket{stage=\"decide\",le=\"+Inf\"} 3");
+    assertThat(scrape).contains("qg_test_seconds_count{stage=\"decide\"} 3");
+  }
+
+  @Test
+  void percentilesStayWithinBucketPrecision() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (long micros = 1; micros <= 1000; micros++) {
+      histogram.record(micros * 1000L);
+    }
+
+    assertThat(histogram.percentileNanos(50)).isBetween(500_000L, 520_000L);
+    assertThat(histogram.percentileNanos(99)).isBetween(990_000L, 1_025_000L);
+  }
+
+  @Test
+  void rejectsTypeClashOnSameName() {
+    MetricsRegistry registry = new MetricsRegistry();
+    registry.counter("qg_test_total", "Test");
+
+    assertThatThrownBy(() -> registry.histogram("qg_test_total", "Test"))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+}
@@ -0,0 +1,59 @@
+package cpe.qg.engine.profiling;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import cpe.qg.engine.config.ProfilingConfig;
+import cpe.qg.engine.events.EventDispatcher;
+import cpe.qg.engine.events.EventMessage;
+import cpe.qg.engine.handlers.EventHandler;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RecordingControllerTest {
+
+  @TempDir Path directory;
+
+  @Test
+  void dumpedRecordingContainsTheEngineEvents() throws Exception {
+    RecordingController controller =
+        new RecordingController(
+            new ProfilingConfig(true, directory.toString(), "default", 60_000L));
+    EventDispatcher dispatcher =
+        new EventDispatcher(
+            List.of(
+                new EventHandler() {
+                  @Override
+                  public String eventKey() {
+                    return "ping";
+                  }
+
+                  @Override
+                  public void handle(EventMessage message) {}
+                }));
+
+    assertThat(controller.dump()).startsWith("No recording");
+    controller.start();
+    dispatcher.dispatch(new EventMessage("ping", JsonNodeFactory.instance.objectNode(), "{}"));
+    String stopped = controller.stop();
+
+    Path file;
+    try (Stream<Path> files = Files.list(directory)) {
+      file = files.findFirst().orElseThrow();
+    }
+    assertThat(stopped).contains(file.getFileName().toString());
+    List<RecordedEvent> dispatches =
+        RecordingFile.readAllEvents(file).stream()
+            .filter(event -> event.getEventType().getName().equals("cpe.qg.engine.MessageDispatch"))
+            .toList();
+    assertThat(dispatches).hasSize(1);
+    assertThat(dispatches.get(0).getString("eventKey")).isEqualTo("ping");
+    assertThat(dispatches.get(0).getString("outcome")).isEqualTo("handled");
+  }
+}
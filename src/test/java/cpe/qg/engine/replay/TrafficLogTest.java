@@ -0,0 +1,71 @@
+package cpe.qg.engine.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class TrafficLogTest {
+
+  @TempDir Path directory;
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void readsBackWhatWasWritten(boolean mapped) throws Exception {
+    Path file = directory.resolve("traffic.qgtr");
+    byte[] large = "x".repeat(100_000).getBytes(StandardCharsets.UTF_8);
+    try (TrafficLogWriter writer = new TrafficLogWriter(file, mapped)) {
+      writer.write(record(TrafficRecord.Kind.CONSUMED, 1L, "sdmis_engine", "{\"event\":1}"));
+      writer.write(new TrafficRecord(TrafficRecord.Kind.VEHICLES, 2L, "", large));
+      writer.write(record(TrafficRecord.Kind.ROUTE, 3L, "45.7,4.8>45.8,4.9", "{}"));
+    }
+
+    List<TrafficRecord> records = TrafficLogReader.readAll(file);
+
+    assertThat(records)
+        .extracting(TrafficRecord::kind)
+        .containsExactly(
+            TrafficRecord.Kind.CONSUMED, TrafficRecord.Kind.VEHICLES, TrafficRecord.Kind.ROUTE);
+    assertThat(records.get(0).key()).isEqualTo("sdmis_engine");
+    assertThat(new String(records.get(0).body(), StandardCharsets.UTF_8))
+        .isEqualTo("{\"event\":1}");
+    assertThat(records.get(1).body()).isEqualTo(large);
+    assertThat(records.get(2).epochMicros()).isEqualTo(3L);
+    if (mapped) {
+      assertThat(Files.size(file))
+          .isEqualTo(
+              TrafficLogWriter.HEADER_BYTES
+                  + 3 * TrafficLogWriter.RECORD_OVERHEAD_BYTES
+                  + "sdmis_engine{\"event\":1}".length()
+                  + large.length
+                  + "45.7,4.8>45.8,4.9{}".length());
+    }
+  }
+
+  @ParameterizedTest
+  @ValueSource(booleans = {false, true})
+  void truncatedRecordEndsTheRecording(boolean mapped) throws Exception {
+    Path file = directory.resolve("traffic.qgtr");
+    try (TrafficLogWriter writer = new TrafficLogWriter(file, mapped)) {
+      writer.write(record(TrafficRecord.Kind.CONSUMED, 1L, "q", "first"));
+      writer.write(record(TrafficRecord.Kind.PUBLISHED, 2L, "q", "second"));
+    }
+    byte[] content = Files.readAllBytes(file);
+    Files.write(file, Arrays.copyOf(content, content.length - 3));
+
+    assertThat(TrafficLogReader.readAll(file))
+        .extracting(TrafficRecord::kind)
+        .containsExactly(TrafficRecord.Kind.CONSUMED);
+  }
+
+  private static TrafficRecord record(
+      TrafficRecord.Kind kind, long epochMicros, String key, String body) {
+    return new TrafficRecord(kind, epochMicros, key, body.getBytes(StandardCharsets.UTF_8));
+  }
+}
@@ -0,0 +1,109 @@
+package cpe.qg.engine.sdmis;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+import cpe.qg.engine.config.ConcurrencyLimitConfig;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.ConcurrencyLimiter.Permit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+class ConcurrencyLimiterTest {
+
+  private final AtomicLong now = new AtomicLong();
+
+  @Test
+  void queuesCallsBeyondTheLimitAndRejectsOnceTheQueueIsFullOrTimedOut() throws Exception {
+    MetricsRegistry registry = new MetricsRegistry();
+    ConcurrencyLimiter limiter =
+        new ConcurrencyLimiter(
+            "/test/queue", new ConcurrencyLimitConfig(true, 2, 1, 10, 100L, 2), now::get, registry);
+    Permit first = limiter.acquire().get();
+    limiter.acquire().get();
+
+    CompletableFuture<Permit> queued = limiter.acquire();
+    CompletableFuture<Permit> expiring = limiter.acquire();
+    CompletableFuture<Permit> rejected = limiter.acquire();
+
+    assertThat(queued).isNotDone();
+    assertThat(limiter.queued()).isEqualTo(2);
+    assertThatThrownBy(rejected::get)
+        .isInstanceOf(ExecutionException.class)
+        .hasCauseInstanceOf(IllegalStateException.class);
+
+    first.ignore();
+    assertThat(queued).isCompleted();
+    assertThat(limiter.inFlight()).isEqualTo(2);
+    assertThatThrownBy(() -> expiring.get(5, TimeUnit.SECONDS))
+        .hasCauseInstanceOf(IllegalStateException.class);
+    assertThat(limiter.queued()).isZero();
+    assertThat(registry.scrape()).contains("qg_sdmis_limit_rejections_total");
+  }
+
+  @Test
+  void limitGrowsWhileLatencyHoldsAndShrinksWhenItRisesOrCallsDrop() throws Exception {
+    ConcurrencyLimiter limiter =
+        new ConcurrencyLimiter(
+            "/test/gradient",
+            new ConcurrencyLimitConfig(true, 10, 2, 50, 100L, 0),
+            now::get,
+            new MetricsRegistry());
+
+    runWaves(limiter, 30, 20);
+    double grown = limiter.limit();
+    assertThat(grown).isGreaterThan(10);
+
+    runWaves(limiter, 10, 200);
+    double shrunk = limiter.limit();
+    assertThat(shrunk).isLessThan(grown);
+
+    Permit permit = limiter.acquire().get();
+    permit.dropped();
+    permit.dropped();
+    assertThat(limiter.limit()).isCloseTo(Math.max(2, shrunk * 0.9), offset(1e-9));
+    assertThat(limiter.inFlight()).isZero();
+  }
+
+  @Test
+  void underusedLimitDoesNotGrowButShrinksWhenLatencyRises() throws Exception {
+    ConcurrencyLimiter limiter =
+        new ConcurrencyLimiter(
+            "/test/underused",
+            new ConcurrencyLimitConfig(true, 40, 2, 50, 100L, 0),
+            now::get,
+            new MetricsRegistry());
+
+    runWaves(limiter, 30, 4, 20);
+    assertThat(limiter.limit()).isEqualTo(40);
+
+    runWaves(limiter, 10, 4, 200);
+    assertThat(limiter.limit()).isLessThan(40);
+  }
+
+  /** Fills the limit, then completes every call after {@code latencyMs}. */
+  private void runWaves(ConcurrencyLimiter limiter, int waves, long latencyMs) throws Exception {
+    runWaves(limiter, waves, Integer.MAX_VALUE, latencyMs);
+  }
+
+  /**
+   * Runs up to {@code calls} calls under the limit, then completes them after {@code latencyMs}.
+   */
+  private void runWaves(ConcurrencyLimiter limiter, int waves, int calls, long latencyMs)
+      throws Exception {
+    for (int wave = 0; wave < waves; wave++) {
+      List<Permit> permits = new ArrayList<>();
+      for (int i = 0; i < Math.min(calls, (int) limiter.limit()); i++) {
+        permits.add(limiter.acquire().get());
+      }
+      now.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+      permits.forEach(Permit::success);
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package cpe.qg.engine.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.rabbitmq.client.DeliverCallback;
+import cpe.qg.engine.config.LoadSheddingConfig;
+import cpe.qg.engine.messaging.MessageBrokerClient;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class BacklogMonitorTest {
+
+  private static final LoadSheddingConfig SHEDDING =
+      new LoadSheddingConfig(true, 1_000L, 10, 2, 5_000L, 1_000L, 60_000L);
+
+  private final CountingBroker broker = new CountingBroker();
+
+  @Test
+  void degradesOnTheSummedBacklogAndRecoversOnlyUnderTheRecoverThreshold() {
+    BacklogMonitor monitor = new BacklogMonitor(broker, List.of("a", "b"), SHEDDING);
+
+    sample(monitor, Map.of("a", 6L, "b", 3L));
+    assertThat(monitor.degraded()).isFalse();
+    sample(monitor, Map.of("a", 6L, "b", 4L));
+    assertThat(monitor.degraded()).isTrue();
+    sample(monitor, Map.of("a", 3L, "b", 0L));
+    assertThat(monitor.degraded()).isTrue();
+    sample(monitor, Map.of("a", 2L, "b", 0L));
+    assertThat(monitor.degraded()).isFalse();
+  }
+
+  @Test
+  void degradesOnMessageAgeUntilTheQueueIsSeenEmpty() {
+    BacklogMonitor monitor = new BacklogMonitor(broker, "a", SHEDDING);
+
+    for (int i = 0; i < 5; i++) {
+      monitor.recordAge(6_000);
+    }
+    assertThat(monitor.degraded()).isFalse();
+    monitor.recordAge(6_000);
+    assertThat(monitor.degraded()).isTrue();
+
+    sample(monitor, Map.of("a", 1L));
+    assertThat(monitor.degraded()).isTrue();
+    sample(monitor, Map.of("a", 0L));
+    assertThat(monitor.degraded()).isFalse();
+  }
+
+  @Test
+  void keepsTheLastCountOfQueuesItCannotInspect() {
+    BacklogMonitor monitor = new BacklogMonitor(broker, List.of("a", "b"), SHEDDING);
+    sample(monitor, Map.of("a", 12L, "b", 0L));
+
+    broker.failing = "a";
+    sample(monitor, Map.of("b", -1L));
+
+    assertThat(monitor.degraded()).isTrue();
+    assertThat(broker.inspected).containsExactly("a", "b", "a", "b");
+  }
+
+  @Test
+  void neitherSamplesNorDegradesWhenDisabled() {
+    try (BacklogMonitor monitor = new BacklogMonitor(broker, "a", LoadSheddingConfig.DISABLED)) {
+      monitor.start();
+      monitor.recordAge(600_000);
+
+      assertThat(monitor.degraded()).isFalse();
+      assertThat(broker.inspected).isEmpty();
+    }
+  }
+
+  private void sample(BacklogMonitor monitor, Map<String, Long> counts) {
+    broker.counts.putAll(counts);
+    monitor.sampleBacklog();
+  }
+
+  /** Broker reporting the given counts, and failing to inspect the {@code failing} queue. */
+  private static final class CountingBroker implements MessageBrokerClient {
+    private final Map<String, Long> counts = new HashMap<>();
+    private final List<String> inspected = new ArrayList<>();
+    private String failing;
+
+    @Override
+    public long messageCount(String queueName) {
+      inspected.add(queueName);
+      if (queueName.equals(failing)) {
+        throw new IllegalStateException("Unable to inspect queue " + queueName);
+      }
+      return counts.getOrDefault(queueName, -1L);
+    }
+
+    @Override
+    public void connect() {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable) {}
+
+    @Override
+    public void declareQueue(String queueName, boolean durable, Map<String, Object> arguments) {}
+
+    @Override
+    public void declareExchange(String exchange, String type, boolean durable) {}
+
+    @Override
+    public void bindQueue(String queueName, String exchange, String routingKey) {}
+
+    @Override
+    public void publish(String queueName, String message) {}
+
+    @Override
+    public void consume(String queueName, DeliverCallback deliverCallback) {}
+
+    @Override
+    public void healthCheck() {}
+
+    @Override
+    public void close() {}
+  }
+}
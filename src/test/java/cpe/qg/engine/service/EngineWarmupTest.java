@@ -0,0 +1,94 @@
+package cpe.qg.engine.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import cpe.qg.engine.config.WarmupConfig;
+import cpe.qg.engine.decision.api.DecisionDataSource;
+import cpe.qg.engine.decision.api.DecisionEngine;
+import cpe.qg.engine.decision.model.DecisionResult;
+import cpe.qg.engine.decision.model.GeoPoint;
+import cpe.qg.engine.decision.model.TravelEstimate;
+import cpe.qg.engine.events.EventPayloadParser;
+import cpe.qg.engine.handlers.AssignmentMessageCodec;
+import cpe.qg.engine.metrics.MetricsRegistry;
+import cpe.qg.engine.sdmis.dto.QGIncidentSituationRead;
+import cpe.qg.engine.sdmis.dto.QGVehicleRead;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BiFunction;
+import org.junit.jupiter.api.Test;
+
+class EngineWarmupTest {
+
+  private static final WarmupConfig WARMUP = new WarmupConfig(true, 20, 5_000L);
+
+  private final List<MetricsRegistry> registries = new ArrayList<>();
+
+  @Test
+  void decidesAgainstAPrivateMetricsRegistry() throws Exception {
+    ReadinessGate readiness = new ReadinessGate();
+
+    warmup(
+            (dataSource, registry) -> {
+              registries.add(registry);
+              return request -> {
+                registry.counter("qg_warmup_probe_total", "Synthetic decisions").increment();
+                return new DecisionResult(List.of(), List.of());
+              };
+            })
+        .start(readiness)
+        .join(5_000);
+
+    assertThat(readiness.isReady()).isTrue();
+    assertThat(registries).singleElement().isNotSameAs(MetricsRegistry.global());
+    assertThat(
+            registries.getFirst().counter("qg_warmup_probe_total", "Synthetic decisions").value())
+        .isEqualTo(WARMUP.maxIterations());
+    assertThat(MetricsRegistry.global().scrape()).doesNotContain("qg_warmup_probe_total");
+  }
+
+  @Test
+  void opensTheGateEvenWhenWarmupThrows() throws Exception {
+    ReadinessGate readiness = new ReadinessGate();
+
+    Thread thread =
+        warmup(
+                (dataSource, registry) -> {
+                  throw new IllegalStateException("Engine unavailable");
+                })
+            .start(readiness);
+    thread.join(5_000);
+
+    assertThat(thread.isAlive()).isFalse();
+    assertThat(readiness.isReady()).isTrue();
+  }
+
+  private static EngineWarmup warmup(
+      BiFunction<DecisionDataSource, MetricsRegistry, DecisionEngine> engineFactory) {
+    return new EngineWarmup(
+        WARMUP,
+        new EmptyDataSource(),
+        engineFactory,
+        new EventPayloadParser(),
+        new AssignmentMessageCodec());
+  }
+
+  /** SDMIS without vehicles, so warm-up decides on its synthetic fleet. */
+  private static final class EmptyDataSource implements DecisionDataSource {
+    @Override
+    public QGIncidentSituationRead getIncidentSituation(UUID incidentId) {
+      throw new IllegalStateException("Warm-up must not read live incidents");
+    }
+
+    @Override
+    public List<QGVehicleRead> listVehicles() {
+      return List.of();
+    }
+
+    @Override
+    public TravelEstimate estimateTravel(GeoPoint from, GeoPoint to) {
+      throw new IllegalStateException("Warm-up must not route an empty fleet");
+    }
+  }
+}
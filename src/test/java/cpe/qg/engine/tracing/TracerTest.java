@@ -0,0 +1,56 @@
+package cpe.qg.engine.tracing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class TracerTest {
+
+  private final List<SpanData> exported = new ArrayList<>();
+
+  @AfterEach
+  void resetExporter() {
+    Tracer.global().setExporter(SpanExporter.NONE);
+  }
+
+  @Test
+  void parsesAndFormatsTraceparent() {
+    String header = "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01";
+
+    TraceContext context = TraceContext.fromTraceparent(header);
+
+    assertThat(context.traceId()).isEqualTo("4bf92f3577b34da6a3ce929d0e0e4736");
+    assertThat(context.spanId()).isEqualTo("00f067aa0ba902b7");
+    assertThat(context.traceparent()).isEqualTo(header);
+    assertThat(TraceContext.fromTraceparent("00-" + "0".repeat(32) + "-00f067aa0ba902b7-01"))
+        .isNull();
+    assertThat(TraceContext.fromTraceparent("garbage")).isNull();
+  }
+
+  @Test
+  void nestsSpansUnderTheRemoteParent() {
+    Tracer tracer = Tracer.global();
+    tracer.setExporter(exported::add);
+    TraceContext remote =
+        TraceContext.fromTraceparent("00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-01");
+
+    try (Span root = tracer.startRoot("consume", "CONSUMER", remote)) {
+      try (Span child = tracer.startSpan("decide")) {
+        child.tag("proposals", 2);
+      }
+    }
+
+    assertThat(tracer.current()).isNull();
+    assertThat(exported).hasSize(2);
+    SpanData child = exported.get(0);
+    SpanData root = exported.get(1);
+    assertThat(root.traceId()).isEqualTo(remote.traceId());
+    assertThat(root.parentId()).isEqualTo(remote.spanId());
+    assertThat(child.traceId()).isEqualTo(remote.traceId());
+    assertThat(child.parentId()).isEqualTo(root.id());
+    assertThat(child.tags()).containsEntry("proposals", "2");
+  }
+}